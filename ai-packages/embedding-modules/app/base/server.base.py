@@ -194,6 +194,102 @@ def initialize_embedding_model(configuration):
     return embeddings
 
 
+def get_configuration(embedding_model):
+    """
+    Build the configuration of initialize_embedding_model from the
+    EmbeddingModel message of a request.
+    """
+    embedding_model_json_config = json_format.MessageToDict(
+        embedding_model.jsonConfig
+    )
+
+    return {
+        "api_key": embedding_model.apiKey,
+        "api_url": embedding_model_json_config.get("api_url"),
+        "model_type": embedding_model.providerModel.provider,
+        "model": embedding_model.providerModel.model,
+        "watsonx_project_id": embedding_model_json_config.get("watsonx_project_id"),
+        "chat_vertex_ai_model_garden": embedding_model_json_config.get(
+            "chat_vertex_ai_model_garden"
+        ),
+    }
+
+
+def split_text(text, chunk_type, chunk_json_config, embeddings):
+    """
+    Split the text in chunks with the text splitter of the chunk type.
+    """
+    text_splitted = []
+
+    if chunk_type == 1:
+        chunk_size = int(chunk_json_config.get("size", DEFAULT_CHUNK_SIZE))
+        chunk_overlap = int(chunk_json_config.get("overlap", DEFAULT_CHUNK_OVERLAP))
+
+        text_splitter = DerivedTextSplitter(
+            chunk_size=chunk_size,
+            chunk_overlap=chunk_overlap,
+        )
+        text_splitted = text_splitter.split_text(text)
+
+    elif chunk_type == 2:
+        chunk_size = int(chunk_json_config.get("size", DEFAULT_CHUNK_SIZE))
+        chunk_overlap = int(chunk_json_config.get("overlap", DEFAULT_CHUNK_OVERLAP))
+        chunk_separator = chunk_json_config.get("separator", DEFAULT_SEPARATOR)
+        chunk_model_name = chunk_json_config.get("model_name", DEFAULT_MODEL_NAME)
+        chunk_encoding = chunk_json_config.get("encoding", DEFAULT_ENCODING_NAME)
+        chunk_is_separator_regex = chunk_json_config.get(
+            "is_separator_regex", DEFAULT_IS_SEPARATOR_REGEX
+        )
+        text_splitter = CharacterTextSplitter.from_tiktoken_encoder(
+            separator=chunk_separator,
+            chunk_size=chunk_size,
+            chunk_overlap=chunk_overlap,
+            model_name=chunk_model_name,
+            encoding_name=chunk_encoding,
+            is_separator_regex=chunk_is_separator_regex,
+        )
+        text_splitted = text_splitter.split_text(text)
+
+    elif chunk_type == 3 or chunk_type == 0:
+        chunk_size = int(chunk_json_config.get("size", DEFAULT_CHUNK_SIZE))
+        chunk_overlap = int(chunk_json_config.get("overlap", DEFAULT_CHUNK_OVERLAP))
+        chunk_separator = chunk_json_config.get("separator", DEFAULT_SEPARATOR)
+        chunk_is_separator_regex = chunk_json_config.get(
+            "is_separator_regex", DEFAULT_IS_SEPARATOR_REGEX
+        )
+        text_splitter = CharacterTextSplitter(
+            separator=chunk_separator,
+            chunk_size=chunk_size,
+            chunk_overlap=chunk_overlap,
+            length_function=len,
+            is_separator_regex=chunk_is_separator_regex,
+        )
+        text_splitted = text_splitter.split_text(text)
+
+    elif chunk_type == 4:
+        text_splitter = SemanticChunker(embeddings)
+        text_splitted = text_splitter.split_text(text)
+
+    return text_splitted
+
+
+def embed_chunks(embeddings, chunk_texts):
+    """
+    Embed the chunk texts with a single call to the embedding model, in the
+    vector space of embed_query, where the chunks of GetMessages are.
+
+    Vertex AI embeds queries and documents with different task types, the
+    other providers embed a query as a document of its own.
+    """
+    if not chunk_texts:
+        return []
+
+    if isinstance(embeddings, VertexAIEmbeddings):
+        return embeddings.embed(chunk_texts, embeddings_task_type="RETRIEVAL_QUERY")
+
+    return embeddings.embed_documents(chunk_texts)
+
+
 class EmbeddingServicer(embedding_pb2_grpc.EmbeddingServicer):
     def GetMessages(self, request, context):
         start = time.time()
@@ -201,88 +297,23 @@ class EmbeddingServicer(embedding_pb2_grpc.EmbeddingServicer):
         chunk = request.chunk
         chunk_type = chunk.type
         chunk_json_config = json_format.MessageToDict(chunk.jsonConfig)
-        embedding_model = request.embeddingModel
-        model_type = embedding_model.providerModel.provider
-        model = embedding_model.providerModel.model
-        api_key = embedding_model.apiKey
-        embedding_model_json_config = json_format.MessageToDict(
-            embedding_model.jsonConfig
-        )
-
-        configuration = {
-            "api_key": api_key,
-            "api_url": embedding_model_json_config.get("api_url"),
-            "model_type": model_type,
-            "model": model,
-            "watsonx_project_id": embedding_model_json_config.get("watsonx_project_id"),
-            "chat_vertex_ai_model_garden": embedding_model_json_config.get(
-                "chat_vertex_ai_model_garden"
-            ),
-        }
+        configuration = get_configuration(request.embeddingModel)
         embeddings = initialize_embedding_model(configuration)
 
         text = clean_text(request.text)
-        text_splitted = []
         chunks = []
 
         info = {
             "text": text,
             "chunk_type": chunk_type,
-            "provider": model_type,
-            "model": model,
+            "provider": configuration["model_type"],
+            "model": configuration["model"],
             "chunk_config": chunk_json_config,
         }
 
         logger.info(info)
 
-        if chunk_type == 1:
-            chunk_size = int(chunk_json_config.get("size", DEFAULT_CHUNK_SIZE))
-            chunk_overlap = int(chunk_json_config.get("overlap", DEFAULT_CHUNK_OVERLAP))
-
-            text_splitter = DerivedTextSplitter(
-                chunk_size=chunk_size,
-                chunk_overlap=chunk_overlap,
-            )
-            text_splitted = text_splitter.split_text(text)
-
-        elif chunk_type == 2:
-            chunk_size = int(chunk_json_config.get("size", DEFAULT_CHUNK_SIZE))
-            chunk_overlap = int(chunk_json_config.get("overlap", DEFAULT_CHUNK_OVERLAP))
-            chunk_separator = chunk_json_config.get("separator", DEFAULT_SEPARATOR)
-            chunk_model_name = chunk_json_config.get("model_name", DEFAULT_MODEL_NAME)
-            chunk_encoding = chunk_json_config.get("encoding", DEFAULT_ENCODING_NAME)
-            chunk_is_separator_regex = chunk_json_config.get(
-                "is_separator_regex", DEFAULT_IS_SEPARATOR_REGEX
-            )
-            text_splitter = CharacterTextSplitter.from_tiktoken_encoder(
-                separator=chunk_separator,
-                chunk_size=chunk_size,
-                chunk_overlap=chunk_overlap,
-                model_name=chunk_model_name,
-                encoding_name=chunk_encoding,
-                is_separator_regex=chunk_is_separator_regex,
-            )
-            text_splitted = text_splitter.split_text(text)
-
-        elif chunk_type == 3 or chunk_type == 0:
-            chunk_size = int(chunk_json_config.get("size", DEFAULT_CHUNK_SIZE))
-            chunk_overlap = int(chunk_json_config.get("overlap", DEFAULT_CHUNK_OVERLAP))
-            chunk_separator = chunk_json_config.get("separator", DEFAULT_SEPARATOR)
-            chunk_is_separator_regex = chunk_json_config.get(
-                "is_separator_regex", DEFAULT_IS_SEPARATOR_REGEX
-            )
-            text_splitter = CharacterTextSplitter(
-                separator=chunk_separator,
-                chunk_size=chunk_size,
-                chunk_overlap=chunk_overlap,
-                length_function=len,
-                is_separator_regex=chunk_is_separator_regex,
-            )
-            text_splitted = text_splitter.split_text(text)
-
-        elif chunk_type == 4:
-            text_splitter = SemanticChunker(embeddings)
-            text_splitted = text_splitter.split_text(text)
+        text_splitted = split_text(text, chunk_type, chunk_json_config, embeddings)
 
         total_chunks = len(text_splitted)
 
@@ -305,6 +336,61 @@ class EmbeddingServicer(embedding_pb2_grpc.EmbeddingServicer):
 
         return embedding_pb2.EmbeddingResponse(chunks=chunks)
 
+    def GetBatchMessages(self, request, context):
+        start = time.time()
+
+        configuration = get_configuration(request.embeddingModel)
+        embeddings = initialize_embedding_model(configuration)
+
+        texts_splitted = []
+
+        for embedding_request in request.requests:
+            chunk = embedding_request.chunk
+            text = clean_text(embedding_request.text)
+            texts_splitted.append(
+                split_text(
+                    text,
+                    chunk.type,
+                    json_format.MessageToDict(chunk.jsonConfig),
+                    embeddings,
+                )
+            )
+
+        chunk_texts = [
+            chunk_text
+            for text_splitted in texts_splitted
+            for chunk_text in text_splitted
+        ]
+        vectors = embed_chunks(embeddings, chunk_texts)
+
+        responses = []
+        offset = 0
+
+        for text_splitted in texts_splitted:
+            total_chunks = len(text_splitted)
+            chunks = [
+                {
+                    "number": index,
+                    "total": total_chunks,
+                    "text": chunk_text,
+                    "vectors": vectors[offset + index - 1],
+                }
+                for index, chunk_text in enumerate(text_splitted, start=1)
+            ]
+            offset += total_chunks
+            responses.append(embedding_pb2.EmbeddingResponse(chunks=chunks))
+
+        end = time.time()
+
+        logger.info(
+            "%s texts splitted in %s chunks in %s seconds",
+            len(texts_splitted),
+            len(chunk_texts),
+            round(end - start, 2),
+        )
+
+        return embedding_pb2.BatchEmbeddingResponse(responses=responses)
+
 
 def serve():
     server = grpc.server(futures.ThreadPoolExecutor(max_workers=10))
@@ -57,11 +57,114 @@ DEFAULT_CHUNK_OVERLAP = 10
 DEFAULT_SEPARATOR = "\n\n"
 DEFAULT_MODEL_NAME = "gpt2"
 DEFAULT_EMBEDDING_MODEL = "intfloat/multilingual-e5-large"
+DEFAULT_ENCODE_BATCH_SIZE = 32
 DEFAULT_ENCODING_NAME = None
 DEFAULT_IS_SEPARATOR_REGEX = False
 
 # default text embedding parameters
 EMBEDDING_MODEL = os.environ.get("EMBEDDING_MODEL", DEFAULT_EMBEDDING_MODEL)
+ENCODE_BATCH_SIZE = int(os.environ.get("ENCODE_BATCH_SIZE", DEFAULT_ENCODE_BATCH_SIZE))
+
+
+def split_text(text, chunk_type, chunk_json_config, embeddings):
+    """
+    Split the text in chunks with the text splitter of the chunk type.
+    """
+    text_splitted = []
+
+    if chunk_type == 1:
+        chunk_size = (
+            int(chunk_json_config["size"])
+            if "size" in chunk_json_config
+            else DEFAULT_CHUNK_SIZE
+        )
+        chunk_overlap = (
+            int(chunk_json_config["overlap"])
+            if "overlap" in chunk_json_config
+            else DEFAULT_CHUNK_OVERLAP
+        )
+        text_splitter = DerivedTextSplitter(
+            chunk_size=chunk_size,
+            chunk_overlap=chunk_overlap,
+        )
+        text_splitted = text_splitter.split_text(text)
+
+    elif chunk_type == 2:
+        chunk_size = (
+            int(chunk_json_config["size"])
+            if "size" in chunk_json_config
+            else DEFAULT_CHUNK_SIZE
+        )
+        chunk_overlap = (
+            int(chunk_json_config["overlap"])
+            if "overlap" in chunk_json_config
+            else DEFAULT_CHUNK_OVERLAP
+        )
+        chunk_separator = (
+            chunk_json_config["separator"]
+            if "separator" in chunk_json_config
+            else DEFAULT_SEPARATOR
+        )
+        chunk_model_name = (
+            chunk_json_config["model_name"]
+            if "model_name" in chunk_json_config
+            else DEFAULT_MODEL_NAME
+        )
+        chunk_encoding = (
+            chunk_json_config["encoding"]
+            if "encoding" in chunk_json_config
+            else DEFAULT_ENCODING_NAME
+        )
+        chunk_is_separator_regex = (
+            chunk_json_config["is_separator_regex"]
+            if "is_separator_regex" in chunk_json_config
+            else DEFAULT_IS_SEPARATOR_REGEX
+        )
+        text_splitter = CharacterTextSplitter.from_tiktoken_encoder(
+            separator=chunk_separator,
+            chunk_size=chunk_size,
+            chunk_overlap=chunk_overlap,
+            model_name=chunk_model_name,
+            encoding_name=chunk_encoding,
+            is_separator_regex=chunk_is_separator_regex,
+        )
+        text_splitted = text_splitter.split_text(text)
+
+    elif chunk_type == 3 or chunk_type == 0:
+        chunk_size = (
+            int(chunk_json_config["size"])
+            if "size" in chunk_json_config
+            else DEFAULT_CHUNK_SIZE
+        )
+        chunk_overlap = (
+            int(chunk_json_config["overlap"])
+            if "overlap" in chunk_json_config
+            else DEFAULT_CHUNK_OVERLAP
+        )
+        chunk_separator = (
+            chunk_json_config["separator"]
+            if "separator" in chunk_json_config
+            else DEFAULT_SEPARATOR
+        )
+        chunk_is_separator_regex = (
+            chunk_json_config["is_separator_regex"]
+            if "is_separator_regex" in chunk_json_config
+            else DEFAULT_IS_SEPARATOR_REGEX
+        )
+        text_splitter = CharacterTextSplitter(
+            separator=chunk_separator,
+            chunk_size=chunk_size,
+            chunk_overlap=chunk_overlap,
+            length_function=len,
+            is_separator_regex=chunk_is_separator_regex,
+        )
+        text_splitted = text_splitter.split_text(text)
+
+    elif chunk_type == 4:
+        text_splitter = SemanticChunker(embeddings)
+        text_splitted = text_splitter.split_text(text)
+
+    return text_splitted
 
 
 class EmbeddingServicer(embedding_pb2_grpc.EmbeddingServicer):
@@ -78,7 +181,6 @@ class EmbeddingServicer(embedding_pb2_grpc.EmbeddingServicer):
         api_key = request.api_key
         os.environ["OPENAI_API_KEY"] = api_key
         text = clean_text(request.text)
-        text_splitted = []
         chunks = []
 
         info = {
@@ -90,97 +192,9 @@ class EmbeddingServicer(embedding_pb2_grpc.EmbeddingServicer):
 
         logger.info(info)
 
-        if chunk_type == 1:
-            chunk_size = (
-                int(chunk_json_config["size"])
-                if "size" in chunk_json_config
-                else DEFAULT_CHUNK_SIZE
-            )
-            chunk_overlap = (
-                int(chunk_json_config["overlap"])
-                if "overlap" in chunk_json_config
-                else DEFAULT_CHUNK_OVERLAP
-            )
-            text_splitter = DerivedTextSplitter(
-                chunk_size=chunk_size,
-                chunk_overlap=chunk_overlap,
-            )
-            text_splitted = text_splitter.split_text(text)
-
-        elif chunk_type == 2:
-            chunk_size = (
-                int(chunk_json_config["size"])
-                if "size" in chunk_json_config
-                else DEFAULT_CHUNK_SIZE
-            )
-            chunk_overlap = (
-                int(chunk_json_config["overlap"])
-                if "overlap" in chunk_json_config
-                else DEFAULT_CHUNK_OVERLAP
-            )
-            chunk_separator = (
-                chunk_json_config["separator"]
-                if "separator" in chunk_json_config
-                else DEFAULT_SEPARATOR
-            )
-            chunk_model_name = (
-                chunk_json_config["model_name"]
-                if "model_name" in chunk_json_config
-                else DEFAULT_MODEL_NAME
-            )
-            chunk_encoding = (
-                chunk_json_config["encoding"]
-                if "encoding" in chunk_json_config
-                else DEFAULT_ENCODING_NAME
-            )
-            chunk_is_separator_regex = (
-                chunk_json_config["is_separator_regex"]
-                if "is_separator_regex" in chunk_json_config
-                else DEFAULT_IS_SEPARATOR_REGEX
-            )
-            text_splitter = CharacterTextSplitter.from_tiktoken_encoder(
-                separator=chunk_separator,
-                chunk_size=chunk_size,
-                chunk_overlap=chunk_overlap,
-                model_name=chunk_model_name,
-                encoding_name=chunk_encoding,
-                is_separator_regex=chunk_is_separator_regex,
-            )
-            text_splitted = text_splitter.split_text(text)
-
-        elif chunk_type == 3 or chunk_type == 0:
-            chunk_size = (
-                int(chunk_json_config["size"])
-                if "size" in chunk_json_config
-                else DEFAULT_CHUNK_SIZE
-            )
-            chunk_overlap = (
-                int(chunk_json_config["overlap"])
-                if "overlap" in chunk_json_config
-                else DEFAULT_CHUNK_OVERLAP
-            )
-            chunk_separator = (
-                chunk_json_config["separator"]
-                if "separator" in chunk_json_config
-                else DEFAULT_SEPARATOR
-            )
-            chunk_is_separator_regex = (
-                chunk_json_config["is_separator_regex"]
-                if "is_separator_regex" in chunk_json_config
-                else DEFAULT_IS_SEPARATOR_REGEX
-            )
-            text_splitter = CharacterTextSplitter(
-                separator=chunk_separator,
-                chunk_size=chunk_size,
-                chunk_overlap=chunk_overlap,
-                length_function=len,
-                is_separator_regex=chunk_is_separator_regex,
-            )
-            text_splitted = text_splitter.split_text(text)
-
-        elif chunk_type == 4:
-            text_splitter = SemanticChunker(self.embeddings)
-            text_splitted = text_splitter.split_text(text)
+        text_splitted = split_text(
+            text, chunk_type, chunk_json_config, self.embeddings
+        )
 
         total_chunks = len(text_splitted)
 
@@ -203,6 +217,71 @@ class EmbeddingServicer(embedding_pb2_grpc.EmbeddingServicer):
 
         return embedding_pb2.EmbeddingResponse(chunks=chunks)
 
+    def GetBatchMessages(self, request, context):
+        start = time.time()
+
+        texts_splitted = []
+
+        for embedding_request in request.requests:
+            chunk = embedding_request.chunk
+            text = clean_text(embedding_request.text)
+            texts_splitted.append(
+                split_text(
+                    text,
+                    chunk.type,
+                    json_format.MessageToDict(chunk.jsonConfig),
+                    self.embeddings,
+                )
+            )
+
+        chunk_texts = [
+            chunk_text
+            for text_splitted in texts_splitted
+            for chunk_text in text_splitted
+        ]
+
+        # the chunks of all the requests are encoded at once by the sentence
+        # transformer, prepared as embed_query prepares the text of a query
+        encode_kwargs = (
+            self.embeddings.query_encode_kwargs or self.embeddings.encode_kwargs
+        )
+        vectors = (
+            self.embeddings._client.encode(
+                [chunk_text.replace("\n", " ") for chunk_text in chunk_texts],
+                **{"batch_size": ENCODE_BATCH_SIZE, **encode_kwargs},
+            ).tolist()
+            if chunk_texts
+            else []
+        )
+
+        responses = []
+        offset = 0
+
+        for text_splitted in texts_splitted:
+            total_chunks = len(text_splitted)
+            chunks = [
+                {
+                    "number": index,
+                    "total": total_chunks,
+                    "text": chunk_text,
+                    "vectors": vectors[offset + index - 1],
+                }
+                for index, chunk_text in enumerate(text_splitted, start=1)
+            ]
+            offset += total_chunks
+            responses.append(embedding_pb2.EmbeddingResponse(chunks=chunks))
+
+        end = time.time()
+
+        logger.info(
+            "%s texts splitted in %s chunks in %s seconds",
+            len(texts_splitted),
+            len(chunk_texts),
+            round(end - start, 2),
+        )
+
+        return embedding_pb2.BatchEmbeddingResponse(responses=responses)
+
 
 class HealthCheckServicer(HealthServicer):
     """gRPC health check servicer with embedding model monitoring.
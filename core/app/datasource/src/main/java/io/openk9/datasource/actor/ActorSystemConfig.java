@@ -24,6 +24,7 @@ import jakarta.enterprise.context.Dependent;
 import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Inject;
 
+import io.openk9.auth.tenant.TenantRegistry;
 import io.openk9.common.util.ShardingKey;
 import io.openk9.datasource.cache.P2PCache;
 import io.openk9.datasource.mapper.IngestionPayloadMapper;
@@ -121,7 +122,13 @@ public class ActorSystemConfig {
 	@ApplicationScoped
 	public ActorSystemBehaviorInitializer cacheHandlerBehaviorInit() {
 		return ctx -> ctx.spawnAnonymous(
-			P2PCache.create(Set.of(bucketResourceCache, searcherServiceCache))
+			P2PCache.create(
+				Set.of(
+					bucketResourceCache, queryEmbeddingCache,
+					queryAnnotationCache, queryChartCache
+				),
+				tenantRegistry
+			)
 		);
 	}
 
@@ -129,11 +136,19 @@ public class ActorSystemConfig {
 	@CacheName("bucket-resource")
 	Cache bucketResourceCache;
 
-	@CacheName("searcher-service")
-	Cache searcherServiceCache;
+	@CacheName("query-embedding")
+	Cache queryEmbeddingCache;
+
+	@CacheName("query-annotation")
+	Cache queryAnnotationCache;
+
+	@CacheName("query-chart")
+	Cache queryChartCache;
 
 	@Inject
 	Logger logger;
+	@Inject
+	TenantRegistry tenantRegistry;
     @Inject
 	QueueConnectionProvider queueConnectionProvider;
 	@Inject
@@ -23,6 +23,7 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 
+import io.openk9.datasource.pipeline.service.EmbeddingDispatcher;
 import io.openk9.datasource.pipeline.service.EmbeddingStubRegistry;
 
 import com.typesafe.config.ConfigFactory;
@@ -68,6 +69,9 @@ public class ActorSystemProvider {
 			complete
 		);
 
+		EmbeddingStubRegistry.setDispatcherSettings(
+			EmbeddingDispatcher.Settings.of(complete));
+
 		for (ActorSystemInitializer actorSystemInitializer : actorSystemInitializerInstance) {
 			actorSystemInitializer.init(actorSystem);
 		}
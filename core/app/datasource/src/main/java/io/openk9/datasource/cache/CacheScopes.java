@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.cache;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CompositeCacheKey;
+import io.smallrye.mutiny.Uni;
+import org.jboss.logging.Logger;
+
+/**
+ * Scopes the entries of the caches invalidated by {@link P2PCache}.
+ *
+ * <p>The scope of a {@link CompositeCacheKey} is given by its elements that
+ * identify a tenant: the first element, when it is a string, which is the
+ * virtual host or the tenant schema name, and the {@link TenantScoped}
+ * elements. The other strings of the key, as the names of the cached
+ * methods, are not scopes. An invalidation evicts only the keys whose scope
+ * matches the tenant that changed.</p>
+ *
+ * <p>Every invalidation also increments a version for each of its scopes.
+ * {@link #getAsync(Cache, CompositeCacheKey, Function)} stamps a load with
+ * the version of its key and evicts the loaded value when the version has
+ * changed meanwhile, so that a reload that raced with an invalidation does
+ * not stay in the cache.</p>
+ */
+public final class CacheScopes {
+
+	private static final Logger log = Logger.getLogger(CacheScopes.class);
+	private static final AtomicLong globalVersion = new AtomicLong();
+	private static final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+	private CacheScopes() {}
+
+	/**
+	 * A cache key element that belongs to a tenant.
+	 */
+	public interface TenantScoped {
+
+		String tenantId();
+
+	}
+
+	public static <V> Uni<V> getAsync(
+		Cache cache, CompositeCacheKey key, Function<CompositeCacheKey, Uni<V>> loader) {
+
+		long stamp = stamp(key);
+
+		return cache
+			.getAsync(key, loader)
+			.invoke(() -> {
+				if (stamp(key) != stamp) {
+
+					if (log.isDebugEnabled()) {
+						log.debugf("Evicting %s, loaded before an invalidation.", key);
+					}
+
+					cache.invalidate(key).subscribe().with(
+						ignore -> {},
+						throwable -> log.warnf(throwable, "Cannot evict %s", key)
+					);
+				}
+			});
+	}
+
+	/**
+	 * Whether the key belongs to one of the scopes, an empty set of scopes
+	 * matches every key.
+	 */
+	public static boolean matches(Object key, Set<String> scopes) {
+
+		if (scopes.isEmpty()) {
+			return true;
+		}
+
+		if (key instanceof CompositeCacheKey compositeCacheKey) {
+			Object[] elements = compositeCacheKey.getKeyElements();
+
+			for (int i = 0; i < elements.length; i++) {
+				if (_matches(elements[i], i, scopes)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		return _matches(key, 0, scopes);
+	}
+
+	static void increment(Set<String> scopes) {
+
+		if (scopes.isEmpty()) {
+			globalVersion.incrementAndGet();
+
+			return;
+		}
+
+		for (String scope : scopes) {
+			versions.computeIfAbsent(scope, k -> new AtomicLong()).incrementAndGet();
+		}
+	}
+
+	static long stamp(CompositeCacheKey key) {
+
+		long stamp = globalVersion.get();
+
+		Object[] elements = key.getKeyElements();
+
+		for (int i = 0; i < elements.length; i++) {
+
+			String scope = _scope(elements[i], i);
+
+			if (scope != null) {
+				AtomicLong version = versions.get(scope);
+
+				if (version != null) {
+					stamp += version.get();
+				}
+			}
+		}
+
+		return stamp;
+	}
+
+	private static boolean _matches(Object element, int position, Set<String> scopes) {
+
+		String scope = _scope(element, position);
+
+		return scope != null && scopes.contains(scope);
+	}
+
+	private static String _scope(Object element, int position) {
+
+		if (position == 0 && element instanceof String string) {
+			return string;
+		}
+
+		if (element instanceof TenantScoped tenantScoped) {
+			return tenantScoped.tenantId();
+		}
+
+		return null;
+	}
+
+}
@@ -18,12 +18,17 @@
 package io.openk9.datasource.cache;
 
 import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import io.openk9.api.tenantmanager.TenantManager;
+import io.openk9.auth.tenant.TenantRegistry;
 import io.openk9.datasource.util.CborSerializable;
 
 import io.quarkus.cache.Cache;
+import io.smallrye.mutiny.Uni;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.ActorSystem;
 import org.apache.pekko.actor.typed.Behavior;
@@ -32,20 +37,41 @@ import org.apache.pekko.actor.typed.javadsl.ActorContext;
 import org.apache.pekko.actor.typed.javadsl.AskPattern;
 import org.apache.pekko.actor.typed.javadsl.Behaviors;
 import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.apache.pekko.actor.typed.javadsl.TimerScheduler;
 import org.apache.pekko.actor.typed.receptionist.Receptionist;
 import org.apache.pekko.actor.typed.receptionist.ServiceKey;
 import org.jboss.logging.Logger;
 
+/**
+ * Invalidates the Quarkus caches on every node of the cluster.
+ *
+ * <p>An invalidation carries the tenant whose entities changed. The
+ * invalidations received in a short window are coalesced, the tenants are
+ * resolved to their schema names and virtual hosts, and every node evicts
+ * only the cache keys scoped to them (see {@link CacheScopes}). An
+ * invalidation without a tenant evicts every key.</p>
+ */
 public class P2PCache extends AbstractBehavior<P2PCache.Command> {
 
 	public static final ServiceKey<Command> SERVICE_KEY =
 		ServiceKey.create(Command.class, "quarkus-cache-handler");
 
-	public static Behavior<Command> create(Set<Cache> cacheSet) {
-		return Behaviors.setup(ctx -> new P2PCache(ctx, cacheSet));
+	private static final Duration COALESCING_WINDOW = Duration.ofMillis(100);
+
+	public static Behavior<Command> create(Set<Cache> cacheSet, TenantRegistry tenantRegistry) {
+		return Behaviors.setup(ctx -> Behaviors.withTimers(timers ->
+			new P2PCache(ctx, timers, cacheSet, tenantRegistry)));
 	}
 
 	public static void askInvalidation(ActorSystem<?> actorSystem) {
+		askInvalidation(actorSystem, null);
+	}
+
+	/**
+	 * Invalidates the cache keys of the tenant with the given schema name,
+	 * or every key when the tenant is {@code null}.
+	 */
+	public static void askInvalidation(ActorSystem<?> actorSystem, String tenantId) {
 		Receptionist receptionist = Receptionist.get(actorSystem);
 
 		AskPattern.ask(
@@ -61,7 +87,7 @@ public class P2PCache extends AbstractBehavior<P2PCache.Command> {
 						.getServiceInstances(P2PCache.SERVICE_KEY)
 						.stream()
 						.filter(ref -> ref.path().address().port().isEmpty())
-						.forEach(ref -> ref.tell(P2PCache.InvalidateAllLocal.INSTANCE));
+						.forEach(ref -> ref.tell(new InvalidateLocal(tenantId)));
 				}
 				else {
 					log.warn("Cannot trigger cache invalidation", throwable);
@@ -72,18 +98,31 @@ public class P2PCache extends AbstractBehavior<P2PCache.Command> {
 
 	public sealed interface Command {}
 	private enum Start implements Command {INSTANCE}
-	public enum InvalidateAllLocal implements Command {INSTANCE}
-	public enum InvalidateAllRemotes implements Command, CborSerializable {INSTANCE}
+	private enum Flush implements Command {INSTANCE}
+	public record InvalidateLocal(String tenantId) implements Command {}
+	public record InvalidateRemotes(Set<String> scopes) implements Command, CborSerializable {}
 	private record ListingAdapter(Receptionist.Listing response) implements Command {}
+	private record TenantsResolved(
+		Set<String> tenantIds, List<TenantManager.Tenant> tenants, Throwable throwable)
+		implements Command {}
 
 	private final ActorSystem<Void> system;
+	private final TimerScheduler<Command> timers;
 	private final Set<Cache> cacheSet;
-	private Set<ActorRef<Command>> instances;
+	private final TenantRegistry tenantRegistry;
+	private Set<ActorRef<Command>> instances = Set.of();
+	private Set<String> pendingTenantIds = new HashSet<>();
+	private boolean pendingAll = false;
+
+	public P2PCache(
+		ActorContext<Command> context, TimerScheduler<Command> timers,
+		Set<Cache> cacheSet, TenantRegistry tenantRegistry) {
 
-	public P2PCache(ActorContext<Command> context, Set<Cache> cacheSet) {
 		super(context);
 		this.system = context.getSystem();
+		this.timers = timers;
 		this.cacheSet = cacheSet;
+		this.tenantRegistry = tenantRegistry;
 		getContext().getSelf().tell(Start.INSTANCE);
 	}
 
@@ -92,8 +131,10 @@ public class P2PCache extends AbstractBehavior<P2PCache.Command> {
 		return newReceiveBuilder()
 			.onMessageEquals(Start.INSTANCE, this::onStart)
 			.onMessage(ListingAdapter.class, this::onListing)
-			.onMessageEquals(InvalidateAllLocal.INSTANCE, this::onInvalidateAllLocal)
-			.onMessageEquals(InvalidateAllRemotes.INSTANCE, this::onInvalidateAllOthers)
+			.onMessage(InvalidateLocal.class, this::onInvalidateLocal)
+			.onMessageEquals(Flush.INSTANCE, this::onFlush)
+			.onMessage(TenantsResolved.class, this::onTenantsResolved)
+			.onMessage(InvalidateRemotes.class, this::onInvalidateRemotes)
 			.build();
 	}
 
@@ -120,34 +161,113 @@ public class P2PCache extends AbstractBehavior<P2PCache.Command> {
 		return Behaviors.same();
 	}
 
-	private Behavior<Command> onInvalidateAllLocal() {
+	private Behavior<Command> onInvalidateLocal(InvalidateLocal invalidateLocal) {
 
-		invalidateLocalCache();
+		var tenantId = invalidateLocal.tenantId();
 
-		for (ActorRef<Command> instance : this.instances) {
-			if (log.isDebugEnabled()) {
-				log.debug(String.format("Triggering cache invalidation on address: %s",
-					instance.path().address()));
-			}
+		if (tenantId == null) {
+			pendingAll = true;
+		}
+		else {
+			pendingTenantIds.add(tenantId);
+		}
+
+		if (!timers.isTimerActive(Flush.INSTANCE)) {
+			timers.startSingleTimer(Flush.INSTANCE, COALESCING_WINDOW);
+		}
+
+		return Behaviors.same();
+	}
+
+	private Behavior<Command> onFlush() {
+
+		var tenantIds = pendingTenantIds;
+		var all = pendingAll;
+
+		pendingTenantIds = new HashSet<>();
+		pendingAll = false;
+
+		if (all) {
+			invalidate(Set.of());
+		}
+		else if (!tenantIds.isEmpty()) {
+			getContext().pipeToSelf(
+				tenantRegistry.getTenantList().subscribeAsCompletionStage(),
+				(tenants, throwable) -> new TenantsResolved(tenantIds, tenants, throwable)
+			);
+		}
+
+		return Behaviors.same();
+	}
+
+	private Behavior<Command> onTenantsResolved(TenantsResolved tenantsResolved) {
+
+		var tenantIds = tenantsResolved.tenantIds();
 
-			instance.tell(InvalidateAllRemotes.INSTANCE);
+		if (tenantsResolved.throwable() != null) {
+			log.warnf(
+				tenantsResolved.throwable(),
+				"Cannot resolve the virtual hosts of %s, invalidating every cache key.",
+				tenantIds
+			);
+
+			invalidate(Set.of());
+
+			return Behaviors.same();
 		}
 
+		Set<String> scopes = new HashSet<>(tenantIds);
+
+		for (TenantManager.Tenant tenant : tenantsResolved.tenants()) {
+			if (tenantIds.contains(tenant.schemaName())) {
+				scopes.add(tenant.virtualHost());
+			}
+		}
+
+		invalidate(Set.copyOf(scopes));
+
 		return Behaviors.same();
 	}
 
-	private Behavior<Command> onInvalidateAllOthers() {
-		invalidateLocalCache();
+	private Behavior<Command> onInvalidateRemotes(InvalidateRemotes invalidateRemotes) {
+		invalidateLocalCache(invalidateRemotes.scopes());
 		return Behaviors.same();
 	}
 
-	private void invalidateLocalCache() {
+	private void invalidate(Set<String> scopes) {
+
+		invalidateLocalCache(scopes);
+
+		for (ActorRef<Command> instance : this.instances) {
+			if (log.isDebugEnabled()) {
+				log.debug(String.format("Triggering cache invalidation on address: %s",
+					instance.path().address()));
+			}
+
+			instance.tell(new InvalidateRemotes(scopes));
+		}
+	}
+
+	private void invalidateLocalCache(Set<String> scopes) {
 		if (log.isDebugEnabled()) {
-			log.debug("Invalidating local cache set...");
+			log.debugf(
+				"Invalidating local cache set for %s...",
+				scopes.isEmpty() ? "every tenant" : scopes);
 		}
 
+		CacheScopes.increment(scopes);
+
 		for (Cache cache : this.cacheSet) {
-			cache.invalidateAll().await().indefinitely();
+
+			Uni<Void> invalidation = scopes.isEmpty()
+				? cache.invalidateAll()
+				: cache.invalidateIf(key -> CacheScopes.matches(key, scopes));
+
+			invalidation.subscribe().with(
+				ignore -> {},
+				throwable -> log.warnf(
+					throwable, "Cannot invalidate cache %s", cache.getName())
+			);
 		}
 	}
 
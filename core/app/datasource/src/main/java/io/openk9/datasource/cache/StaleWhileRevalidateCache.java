@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.quarkus.cache.CompositeCacheKey;
+import io.smallrye.mutiny.Uni;
+import org.jboss.logging.Logger;
+
+/**
+ * A cache that loads a key at most once at a time, and that keeps serving
+ * the previous value while a new one is loaded.
+ *
+ * <p>A value is fresh until its soft TTL elapses, or until {@link P2PCache}
+ * invalidates one of its scopes (see {@link CacheScopes}). A stale value is
+ * still returned, and a single background load refreshes it. The callers
+ * wait for a load only when the key has no value yet, or when its value is
+ * older than the hard TTL. A failed refresh keeps the stale value, the next
+ * request of the key retries it.</p>
+ *
+ * <p>{@link #bindTo} exports the same meters of the Caffeine caches,
+ * {@code cache.gets}, {@code cache.load}, {@code cache.evictions} and
+ * {@code cache.size}, where the gets served with a stale value have the
+ * {@code stale} result.</p>
+ */
+public class StaleWhileRevalidateCache<V> {
+
+	private static final Logger log = Logger.getLogger(StaleWhileRevalidateCache.class);
+
+	private final Map<CompositeCacheKey, Entry<V>> entries = new ConcurrentHashMap<>();
+	private final Map<CompositeCacheKey, Uni<V>> loads = new ConcurrentHashMap<>();
+	private final long softTtl;
+	private final long hardTtl;
+	private final int maximumSize;
+	private final LongSupplier clock;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder staleHits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder loadSuccesses = new LongAdder();
+	private final LongAdder loadFailures = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public StaleWhileRevalidateCache(Duration softTtl, Duration hardTtl, int maximumSize) {
+		this(softTtl, hardTtl, maximumSize, System::nanoTime);
+	}
+
+	StaleWhileRevalidateCache(
+		Duration softTtl, Duration hardTtl, int maximumSize, LongSupplier clock) {
+
+		if (softTtl.compareTo(hardTtl) > 0) {
+			throw new IllegalArgumentException("softTtl must not be greater than hardTtl");
+		}
+
+		this.softTtl = softTtl.toNanos();
+		this.hardTtl = hardTtl.toNanos();
+		this.maximumSize = maximumSize;
+		this.clock = clock;
+	}
+
+	public Uni<V> getAsync(CompositeCacheKey key, Function<CompositeCacheKey, Uni<V>> loader) {
+
+		return Uni.createFrom().deferred(() -> {
+
+			Entry<V> entry = entries.get(key);
+
+			if (entry == null) {
+				misses.increment();
+
+				return _load(key, loader);
+			}
+
+			long age = clock.getAsLong() - entry.loadedAt();
+
+			if (age >= hardTtl) {
+				misses.increment();
+
+				return _load(key, loader);
+			}
+
+			if (age >= softTtl || entry.stamp() != CacheScopes.stamp(key)) {
+				staleHits.increment();
+
+				if (log.isDebugEnabled()) {
+					log.debugf("Serving a stale value for %s while refreshing it.", key);
+				}
+
+				_load(key, loader).subscribe().with(
+					ignore -> {},
+					throwable -> log.warnf(throwable, "Cannot refresh %s", key)
+				);
+			}
+			else {
+				hits.increment();
+			}
+
+			return Uni.createFrom().item(entry.value());
+		});
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Registers the meters of the cache, tagged with its name.
+	 */
+	public void bindTo(MeterRegistry meterRegistry, String cacheName) {
+
+		Tags tags = Tags.of("cache", cacheName);
+
+		_counter(meterRegistry, "cache.gets", tags.and("result", "hit"), hits);
+		_counter(meterRegistry, "cache.gets", tags.and("result", "stale"), staleHits);
+		_counter(meterRegistry, "cache.gets", tags.and("result", "miss"), misses);
+		_counter(meterRegistry, "cache.load", tags.and("result", "success"), loadSuccesses);
+		_counter(meterRegistry, "cache.load", tags.and("result", "failure"), loadFailures);
+		_counter(meterRegistry, "cache.evictions", tags, evictions);
+
+		Gauge.builder("cache.size", entries, Map::size)
+			.tags(tags)
+			.description("The number of entries in the cache")
+			.register(meterRegistry);
+	}
+
+	private static void _counter(
+		MeterRegistry meterRegistry, String name, Tags tags, LongAdder adder) {
+
+		FunctionCounter.builder(name, adder, LongAdder::doubleValue)
+			.tags(tags)
+			.register(meterRegistry);
+	}
+
+	private Uni<V> _load(
+		CompositeCacheKey key, Function<CompositeCacheKey, Uni<V>> loader) {
+
+		return loads.computeIfAbsent(key, k -> {
+
+			// stamped before loading, so that a value loaded while the key was
+			// invalidated is stale on its next request.
+			long stamp = CacheScopes.stamp(k);
+
+			return Uni.createFrom().deferred(() -> loader.apply(k))
+				.invoke(value -> {
+					loadSuccesses.increment();
+					_put(k, value, stamp);
+				})
+				.onFailure().invoke(loadFailures::increment)
+				.onTermination().invoke(() -> loads.remove(k))
+				.memoize().indefinitely();
+		});
+	}
+
+	private void _put(CompositeCacheKey key, V value, long stamp) {
+
+		if (entries.size() >= maximumSize && !entries.containsKey(key)) {
+			_evictOldest();
+		}
+
+		entries.put(key, new Entry<>(value, clock.getAsLong(), stamp));
+	}
+
+	private void _evictOldest() {
+
+		CompositeCacheKey oldest = null;
+		long oldestLoadedAt = Long.MAX_VALUE;
+
+		for (Map.Entry<CompositeCacheKey, Entry<V>> entry : entries.entrySet()) {
+			long loadedAt = entry.getValue().loadedAt();
+
+			if (oldest == null || loadedAt - oldestLoadedAt < 0) {
+				oldest = entry.getKey();
+				oldestLoadedAt = loadedAt;
+			}
+		}
+
+		if (oldest != null && entries.remove(oldest) != null) {
+			evictions.increment();
+		}
+	}
+
+	private record Entry<V>(V value, long loadedAt, long stamp) {}
+
+}
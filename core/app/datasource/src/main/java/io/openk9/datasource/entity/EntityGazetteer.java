@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * The entity names of a tenant, held in memory to annotate the query
+ * analysis spans without searching the {@code <tenant>-entity} index.
+ *
+ * <p>The words of the names are kept in a trie, and every word node holds
+ * the entities whose name contains it. A lookup walks the trie computing
+ * the edit distance of the query word row by row, which is a Levenshtein
+ * automaton over the dictionary: the branches that are already farther than
+ * the maximum edits are not visited. As the {@code fuzzy} query of the
+ * index, adjacent transpositions count as one edit.</p>
+ *
+ * <p>The matches are scored as the search of the index scores them, so
+ * that they compare with the annotations of the other annotators as
+ * before: the BM25 score of the {@code type.keyword} term, plus, for each
+ * query word, the BM25 score of the name words within its edits, each
+ * boosted by {@code 1 - edits / length} and weighted by the largest
+ * document frequency of them, as the blended rewrite of the
+ * {@code fuzzy} query does. The statistics are the ones of the entities
+ * held, which approximate the ones of the index shards.</p>
+ *
+ * <p>Entities are only added. An entity added again with a different name
+ * or type replaces the previous one, which is left in the trie and skipped
+ * by the lookups until the gazetteer is rebuilt.</p>
+ */
+public final class EntityGazetteer {
+
+	private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final float K1 = 1.2f;
+	private static final float B = 0.75f;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Node root = new Node();
+	private final List<Entity> entities = new ArrayList<>();
+	private final Map<String, Integer> ordinals = new HashMap<>();
+	private final BitSet replaced = new BitSet();
+	private final Map<String, Integer> typeCounts = new HashMap<>();
+	private long nameLengths;
+
+	/**
+	 * Adds the entity, returns {@code false} when it is already present with
+	 * the same name and type.
+	 */
+	public boolean add(String id, String name, String type, String tenantId) {
+
+		Entity entity = new Entity(id, name, type, tenantId, _length(name));
+
+		lock.writeLock().lock();
+
+		try {
+			Integer previous = ordinals.get(id);
+
+			if (previous != null) {
+				if (entities.get(previous).equals(entity)) {
+					return false;
+				}
+
+				replaced.set(previous);
+				_count(entities.get(previous), -1);
+			}
+
+			int ordinal = entities.size();
+
+			entities.add(entity);
+			ordinals.put(id, ordinal);
+			_count(entity, 1);
+
+			for (String word : words(name)) {
+				Node node = root;
+
+				for (int i = 0; i < word.length(); i++) {
+					node = node.addChild(word.charAt(i));
+				}
+
+				node.addOrdinal(ordinal);
+			}
+
+			return true;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns at most {@code size} entities of the type whose name has a
+	 * word matching each of the given words, within the maximum edits of
+	 * the word, from the best match.
+	 */
+	public List<Match> lookup(
+		String type, List<String> words, ToIntFunction<String> maxEdits, int size) {
+
+		if (words.isEmpty() || size <= 0) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+
+		try {
+			int docCount = entities.size() - replaced.cardinality();
+			float averageLength = docCount > 0 ? (float) nameLengths / docCount : 1f;
+			Map<Integer, Float> scores = null;
+
+			for (String word : words) {
+				String term = word.toLowerCase(Locale.ROOT);
+				Map<Integer, Float> candidates = scores;
+				Map<Integer, Float> boosts = new HashMap<>();
+				int[] maxDocFreq = new int[1];
+
+				_match(term, maxEdits.applyAsInt(term), (ordinal, boost, docFreq) -> {
+					maxDocFreq[0] = Math.max(maxDocFreq[0], docFreq);
+
+					if (!replaced.get(ordinal)
+						&& (candidates == null || candidates.containsKey(ordinal))
+						&& Objects.equals(entities.get(ordinal).type(), type)) {
+
+						boosts.merge(ordinal, boost, Float::sum);
+					}
+				});
+
+				float idf = _idf(docCount, maxDocFreq[0]);
+				Map<Integer, Float> wordScores = new HashMap<>();
+
+				boosts.forEach((ordinal, boost) -> wordScores.put(
+					ordinal,
+					boost * idf * _tfNorm(entities.get(ordinal).length(), averageLength)));
+
+				if (scores == null) {
+					scores = wordScores;
+				}
+				else {
+					scores.keySet().retainAll(wordScores.keySet());
+					scores.replaceAll((ordinal, score) -> score + wordScores.get(ordinal));
+				}
+
+				if (scores.isEmpty()) {
+					return List.of();
+				}
+			}
+
+			// the type.keyword term, without norms.
+			float typeScore =
+				_idf(docCount, typeCounts.getOrDefault(type, 0)) * _tfNorm(1, 1f);
+
+			return scores.entrySet()
+				.stream()
+				.sorted(Map.Entry.<Integer, Float>comparingByValue(Comparator.reverseOrder())
+					.thenComparing(Map.Entry.comparingByKey()))
+				.limit(size)
+				.map(entry -> {
+					Entity entity = entities.get(entry.getKey());
+
+					return new Match(
+						entity.id(), entity.name(), entity.type(), entity.tenantId(),
+						entry.getValue() + typeScore
+					);
+				})
+				.toList();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * The entities held, replaced ones included.
+	 */
+	public int size() {
+
+		lock.readLock().lock();
+
+		try {
+			return entities.size();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Splits a name in lowercase words, as the tokenizer of the {@code name}
+	 * field of the entity index.
+	 */
+	static List<String> words(String name) {
+
+		if (name == null) {
+			return List.of();
+		}
+
+		return Arrays.stream(WORD_SEPARATOR.split(name.toLowerCase(Locale.ROOT)))
+			.filter(word -> !word.isEmpty())
+			.distinct()
+			.toList();
+	}
+
+	private void _count(Entity entity, int sign) {
+		typeCounts.merge(entity.type(), sign, Integer::sum);
+		nameLengths += (long) sign * entity.length();
+	}
+
+	/**
+	 * The words of the name, as the terms of a document of the index.
+	 */
+	private static int _length(String name) {
+
+		if (name == null) {
+			return 0;
+		}
+
+		int length = 0;
+
+		for (String word : WORD_SEPARATOR.split(name)) {
+			if (!word.isEmpty()) {
+				length++;
+			}
+		}
+
+		return length;
+	}
+
+	private static float _idf(int docCount, int docFreq) {
+		return (float) Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+	}
+
+	/**
+	 * The BM25 term frequency normalization of a term found once.
+	 */
+	private static float _tfNorm(int length, float averageLength) {
+		return 1f / (1f + K1 * (1f - B + B * length / averageLength));
+	}
+
+	private void _match(String term, int maxEdits, MatchConsumer consumer) {
+
+		int[] row = new int[term.length() + 1];
+
+		for (int i = 0; i < row.length; i++) {
+			row[i] = i;
+		}
+
+		for (int c = 0; c < root.childCount; c++) {
+			_match(
+				root.children[c], root.labels[c], (char) 0, 1, row, null, term, maxEdits,
+				consumer);
+		}
+	}
+
+	private void _match(
+		Node node, char label, char previousLabel, int depth, int[] previousRow,
+		int[] previousPreviousRow, String term, int maxEdits, MatchConsumer consumer) {
+
+		int length = term.length();
+		int[] row = new int[length + 1];
+		int min = row[0] = previousRow[0] + 1;
+
+		for (int i = 1; i <= length; i++) {
+			int cost = term.charAt(i - 1) == label ? 0 : 1;
+
+			int distance = Math.min(
+				Math.min(row[i - 1] + 1, previousRow[i] + 1), previousRow[i - 1] + cost);
+
+			if (previousPreviousRow != null && i > 1
+				&& term.charAt(i - 1) == previousLabel && term.charAt(i - 2) == label) {
+
+				distance = Math.min(distance, previousPreviousRow[i - 2] + 1);
+			}
+
+			row[i] = distance;
+			min = Math.min(min, distance);
+		}
+
+		if (min > maxEdits) {
+			return;
+		}
+
+		if (node.ordinalCount > 0 && row[length] <= maxEdits) {
+			float boost = 1f - (float) row[length] / Math.max(Math.min(depth, length), 1);
+
+			for (int i = 0; i < node.ordinalCount; i++) {
+				consumer.accept(node.ordinals[i], Math.max(boost, 0f), node.ordinalCount);
+			}
+		}
+
+		for (int c = 0; c < node.childCount; c++) {
+			_match(
+				node.children[c], node.labels[c], label, depth + 1, row, previousRow, term,
+				maxEdits, consumer);
+		}
+	}
+
+	public record Match(String id, String name, String type, String tenantId, float score) {}
+
+	private record Entity(String id, String name, String type, String tenantId, int length) {}
+
+	@FunctionalInterface
+	private interface MatchConsumer {
+
+		void accept(int ordinal, float boost, int docFreq);
+
+	}
+
+	private static final class Node {
+
+		private char[] labels = new char[0];
+		private Node[] children = new Node[0];
+		private int childCount;
+		private int[] ordinals;
+		private int ordinalCount;
+
+		private Node addChild(char label) {
+
+			int index = Arrays.binarySearch(labels, 0, childCount, label);
+
+			if (index >= 0) {
+				return children[index];
+			}
+
+			int insertion = -index - 1;
+
+			if (childCount == labels.length) {
+				int capacity = Math.max(2, childCount * 2);
+
+				labels = Arrays.copyOf(labels, capacity);
+				children = Arrays.copyOf(children, capacity);
+			}
+
+			System.arraycopy(labels, insertion, labels, insertion + 1, childCount - insertion);
+			System.arraycopy(
+				children, insertion, children, insertion + 1, childCount - insertion);
+
+			Node child = new Node();
+
+			labels[insertion] = label;
+			children[insertion] = child;
+			childCount++;
+
+			return child;
+		}
+
+		private void addOrdinal(int ordinal) {
+
+			if (ordinals == null) {
+				ordinals = new int[1];
+			}
+			else if (ordinalCount == ordinals.length) {
+				ordinals = Arrays.copyOf(ordinals, ordinalCount * 2);
+			}
+
+			ordinals[ordinalCount++] = ordinal;
+		}
+
+	}
+
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.entity;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.openk9.datasource.util.UniActionListener;
+
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.opensearch.action.search.ClearScrollRequest;
+import org.opensearch.action.search.ClearScrollResponse;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.action.search.SearchScrollRequest;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.builder.SearchSourceBuilder;
+
+/**
+ * Holds the {@link EntityGazetteer} of every tenant.
+ *
+ * <p>The gazetteer of a tenant is loaded from the {@code <tenant>-entity}
+ * index the first time it is asked for, and until it is loaded the callers
+ * get {@code null} and keep searching the index. Once loaded, it is
+ * refreshed at most every {@code refresh-interval}, adding the entities that
+ * the entity manager indexed since the last refresh, according to their
+ * {@code indexedAt} field, and it is rebuilt from scratch every
+ * {@code rebuild-interval}, which drops the entities deleted from the
+ * index. Refreshes run in background, when the gazetteer is asked for.</p>
+ *
+ * <p>A tenant with more than {@code max-entities} entities is not held in
+ * memory and its annotators keep searching the index.</p>
+ */
+@ApplicationScoped
+public class EntityGazetteerRegistry {
+
+	private static final Logger log = Logger.getLogger(EntityGazetteerRegistry.class);
+	private static final String SCROLL_KEEP_ALIVE = "1m";
+	private static final int SCAN_PAGE_SIZE = 1000;
+	private static final String[] SOURCE_FIELDS =
+		{"id", "name", "type", "tenantId", "indexedAt"};
+
+	private final Map<String, TenantGazetteer> gazetteers = new ConcurrentHashMap<>();
+
+	@Inject
+	RestHighLevelClient client;
+
+	@ConfigProperty(name = "openk9.entity.gazetteer.enabled", defaultValue = "true")
+	boolean enabled;
+
+	@ConfigProperty(name = "openk9.entity.gazetteer.refresh-interval", defaultValue = "30s")
+	Duration refreshInterval;
+
+	@ConfigProperty(name = "openk9.entity.gazetteer.rebuild-interval", defaultValue = "1h")
+	Duration rebuildInterval;
+
+	/**
+	 * How far back from the last {@code indexedAt} seen an incremental
+	 * refresh starts, for the entities that became visible late.
+	 */
+	@ConfigProperty(name = "openk9.entity.gazetteer.refresh-overlap", defaultValue = "1m")
+	Duration refreshOverlap;
+
+	@ConfigProperty(name = "openk9.entity.gazetteer.max-entities", defaultValue = "500000")
+	int maxEntities;
+
+	/**
+	 * Returns the gazetteer of the tenant, or {@code null} when it is not
+	 * loaded yet or the tenant is not held in memory.
+	 */
+	public EntityGazetteer get(String tenantId) {
+
+		if (!enabled) {
+			return null;
+		}
+
+		TenantGazetteer tenantGazetteer =
+			gazetteers.computeIfAbsent(tenantId, TenantGazetteer::new);
+
+		long now = System.currentTimeMillis();
+
+		if (now >= tenantGazetteer.nextRefreshAt && tenantGazetteer.refreshing.compareAndSet(
+			false, true)) {
+
+			Uni<Void> refresh =
+				tenantGazetteer.gazetteer == null
+				|| now - tenantGazetteer.builtAt >= rebuildInterval.toMillis()
+					? _build(tenantGazetteer, now)
+					: _update(tenantGazetteer);
+
+			refresh
+				.onFailure()
+				.invoke(throwable -> log.warnf(
+					throwable, "Unable to load the entity gazetteer of tenant %s", tenantId))
+				.onTermination()
+				.invoke(() -> {
+					// a tenant left out for its size waits for the next rebuild.
+					tenantGazetteer.nextRefreshAt =
+						tenantGazetteer.gazetteer == null && tenantGazetteer.builtAt > 0
+							? tenantGazetteer.builtAt + rebuildInterval.toMillis()
+							: System.currentTimeMillis() + refreshInterval.toMillis();
+					tenantGazetteer.refreshing.set(false);
+				})
+				.subscribe()
+				.with(ignore -> {}, ignore -> {});
+		}
+
+		return tenantGazetteer.gazetteer;
+	}
+
+	private Uni<Void> _build(TenantGazetteer tenantGazetteer, long now) {
+
+		EntityGazetteer gazetteer = new EntityGazetteer();
+		long[] maxIndexedAt = {0};
+
+		return _scan(
+			tenantGazetteer.tenantId, QueryBuilders.matchAllQuery(),
+			hit -> {
+				maxIndexedAt[0] = Math.max(maxIndexedAt[0], _add(gazetteer, hit));
+
+				return gazetteer.size() <= maxEntities;
+			}
+		)
+			.invoke(() -> {
+				if (gazetteer.size() > maxEntities) {
+					log.infof(
+						"Tenant %s has more than %d entities, "
+						+ "its entity gazetteer is not held in memory",
+						tenantGazetteer.tenantId, maxEntities);
+
+					tenantGazetteer.gazetteer = null;
+				}
+				else {
+					if (log.isDebugEnabled()) {
+						log.debugf(
+							"Loaded %d entities in the entity gazetteer of tenant %s",
+							gazetteer.size(), tenantGazetteer.tenantId);
+					}
+
+					tenantGazetteer.gazetteer = gazetteer;
+				}
+
+				tenantGazetteer.maxIndexedAt = maxIndexedAt[0];
+				tenantGazetteer.builtAt = now;
+			});
+	}
+
+	private Uni<Void> _update(TenantGazetteer tenantGazetteer) {
+
+		EntityGazetteer gazetteer = tenantGazetteer.gazetteer;
+		long[] maxIndexedAt = {tenantGazetteer.maxIndexedAt};
+
+		QueryBuilder query = QueryBuilders
+			.rangeQuery("indexedAt")
+			.gte(tenantGazetteer.maxIndexedAt - refreshOverlap.toMillis());
+
+		return _scan(
+			tenantGazetteer.tenantId, query,
+			hit -> {
+				maxIndexedAt[0] = Math.max(maxIndexedAt[0], _add(gazetteer, hit));
+
+				return gazetteer.size() <= maxEntities;
+			}
+		)
+			.invoke(() -> {
+				tenantGazetteer.maxIndexedAt = maxIndexedAt[0];
+
+				if (gazetteer.size() > maxEntities) {
+					tenantGazetteer.gazetteer = null;
+				}
+			});
+	}
+
+	/**
+	 * Adds the entity of the hit, returns its {@code indexedAt}, or
+	 * {@code 0} when the entity manager did not set it.
+	 */
+	private static long _add(EntityGazetteer gazetteer, SearchHit hit) {
+
+		Map<String, Object> source = hit.getSourceAsMap();
+
+		Object name = source.get("name");
+		Object type = source.get("type");
+		Object tenantId = source.get("tenantId");
+
+		if (name != null && type != null && tenantId != null) {
+			gazetteer.add(
+				String.valueOf(source.getOrDefault("id", hit.getId())),
+				name.toString(),
+				type.toString(),
+				tenantId.toString()
+			);
+		}
+
+		return source.get("indexedAt") instanceof Number indexedAt
+			? indexedAt.longValue()
+			: 0;
+	}
+
+	/**
+	 * Scrolls the entities matching the query, until they are all passed to
+	 * the consumer or it returns {@code false}.
+	 */
+	private Uni<Void> _scan(String tenantId, QueryBuilder query, Predicate<SearchHit> consumer) {
+
+		SearchRequest searchRequest = new SearchRequest(tenantId + "-entity")
+			.scroll(SCROLL_KEEP_ALIVE)
+			.source(new SearchSourceBuilder()
+				.query(query)
+				.size(SCAN_PAGE_SIZE)
+				.sort("_doc")
+				.fetchSource(SOURCE_FIELDS, null));
+
+		return Uni.createFrom()
+			.<SearchResponse>emitter(sink -> client.searchAsync(
+				searchRequest, RequestOptions.DEFAULT, UniActionListener.of(sink)))
+			.flatMap(response -> _scroll(response, consumer));
+	}
+
+	private Uni<Void> _scroll(SearchResponse response, Predicate<SearchHit> consumer) {
+
+		String scrollId = response.getScrollId();
+		SearchHit[] hits = response.getHits().getHits();
+		boolean more = hits.length > 0;
+
+		for (int i = 0; more && i < hits.length; i++) {
+			more = consumer.test(hits[i]);
+		}
+
+		if (!more) {
+			ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+
+			clearScrollRequest.addScrollId(scrollId);
+
+			return Uni.createFrom()
+				.<ClearScrollResponse>emitter(sink -> client.clearScrollAsync(
+					clearScrollRequest, RequestOptions.DEFAULT, UniActionListener.of(sink)))
+				.onFailure()
+				.recoverWithNull()
+				.replaceWithVoid();
+		}
+
+		SearchScrollRequest scrollRequest =
+			new SearchScrollRequest(scrollId).scroll(SCROLL_KEEP_ALIVE);
+
+		return Uni.createFrom()
+			.<SearchResponse>emitter(sink -> client.scrollAsync(
+				scrollRequest, RequestOptions.DEFAULT, UniActionListener.of(sink)))
+			.flatMap(next -> _scroll(next, consumer));
+	}
+
+	private static final class TenantGazetteer {
+
+		private final String tenantId;
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+		private volatile EntityGazetteer gazetteer;
+		private volatile long nextRefreshAt;
+		private volatile long builtAt;
+		private volatile long maxIndexedAt;
+
+		private TenantGazetteer(String tenantId) {
+			this.tenantId = tenantId;
+		}
+
+	}
+
+}
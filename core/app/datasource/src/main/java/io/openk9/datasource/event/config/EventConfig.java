@@ -17,13 +17,45 @@
 
 package io.openk9.datasource.event.config;
 
+import io.quarkus.runtime.configuration.MemorySize;
 import jakarta.enterprise.context.ApplicationScoped;
 import lombok.Getter;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.time.Duration;
+
 @Getter
 @ApplicationScoped
 public class EventConfig {
 	@ConfigProperty(name = "openk9.events.index.name", defaultValue = "openk9-events")
 	String indexName;
+	@ConfigProperty(name = "openk9.events.buffer.memory-budget", defaultValue = "16M")
+	MemorySize bufferMemoryBudget;
+	/*
+	 * The spill is best effort: the events spilled to the default directory,
+	 * on the local disk of the pod, are replayed after a restart of the
+	 * process but lost with the pod. Set it to a persistent volume for the
+	 * spilled events to survive the pod.
+	 */
+	@ConfigProperty(
+		name = "openk9.events.buffer.spill-directory",
+		defaultValue = "${java.io.tmpdir}/openk9-events"
+	)
+	String bufferSpillDirectory;
+	@ConfigProperty(name = "openk9.events.buffer.spill-budget", defaultValue = "1G")
+	MemorySize bufferSpillBudget;
+	@ConfigProperty(name = "openk9.events.buffer.segment-size", defaultValue = "64M")
+	MemorySize bufferSegmentSize;
+	@ConfigProperty(name = "openk9.events.bulk.max-actions", defaultValue = "100")
+	int bulkMaxActions;
+	@ConfigProperty(name = "openk9.events.bulk.max-wait", defaultValue = "5s")
+	Duration bulkMaxWait;
+	@ConfigProperty(name = "openk9.events.bulk.max-concurrency", defaultValue = "2")
+	int bulkMaxConcurrency;
+	@ConfigProperty(name = "openk9.events.bulk.max-retries", defaultValue = "5")
+	int bulkMaxRetries;
+	@ConfigProperty(name = "openk9.events.bulk.retry-backoff", defaultValue = "1s")
+	Duration bulkRetryBackoff;
+	@ConfigProperty(name = "openk9.events.bulk.retry-max-backoff", defaultValue = "1m")
+	Duration bulkRetryMaxBackoff;
 }
@@ -20,7 +20,13 @@ package io.openk9.datasource.event.repo;
 import com.github.luben.zstd.Zstd;
 import io.openk9.datasource.event.config.EventConfig;
 import io.openk9.datasource.event.model.Event;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
 import io.vertx.core.json.Json;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -30,6 +36,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.jboss.logging.Logger;
+import org.opensearch.action.bulk.BulkItemResponse;
 import org.opensearch.action.bulk.BulkRequest;
 import org.opensearch.action.bulk.BulkResponse;
 import org.opensearch.action.index.IndexRequest;
@@ -40,76 +48,154 @@ import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
 import org.opensearch.common.xcontent.XContentType;
 import org.opensearch.core.action.ActionListener;
+import org.opensearch.core.rest.RestStatus;
 import org.opensearch.index.query.BoolQueryBuilder;
 import org.opensearch.index.query.QueryBuilders;
 import org.opensearch.search.SearchHit;
 import org.opensearch.search.SearchHits;
 import org.opensearch.search.builder.SearchSourceBuilder;
 import org.opensearch.search.sort.SortOrder;
-import reactor.core.Disposable;
-import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @ApplicationScoped
 public class EventRepositoryImpl implements EventRepository {
 
+	private static final Logger log = Logger.getLogger(EventRepositoryImpl.class);
+	private static final int ID_BYTES = 2 * Long.BYTES;
+
 	@Inject
 	RestHighLevelClient restHighLevelClient;
 
 	@PreDestroy
 	public void shutdown() {
-		_disposable.dispose();
-		many.tryEmitComplete();
+		_flusher.cancel();
+
+		_onSpool(_spool::close);
+
+		_spoolExecutor.shutdown();
+
+		try {
+			if (!_spoolExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+				log.warn("The event spool is not closed yet, the events not saved may be lost");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
 	}
 
+	/**
+	 * Queues the event, that is saved with a bulk request of the queued
+	 * events when {@code openk9.events.bulk.max-actions} events are queued,
+	 * or at the latest after {@code openk9.events.bulk.max-wait}.
+	 *
+	 * <p>The event is handed to the spool worker, that spills it to the
+	 * files when the memory budget is used up, so that the caller never
+	 * waits for the disk. The events handed over and not spooled yet are
+	 * bound by the memory budget as well. The event is saved with its id,
+	 * so that a bulk request sent again does not save it twice.</p>
+	 *
+	 * @see EventSpool
+	 */
 	@Override
 	public void batchSave(Event event) {
-		many.tryEmitNext(_getIndexRequest(event));
-	}
 
-	@PostConstruct
-	public void init() {
+		if (event.getId() == null) {
+			event.setId(UUID.randomUUID());
+		}
 
-		many =
-			Sinks
-				.unsafe()
-				.many()
-				.unicast()
-				.onBackpressureBuffer();
+		byte[] spooled = _spooled(
+			event.getId(), Json.encode(event).getBytes(StandardCharsets.UTF_8));
 
-		_disposable = many
-			.asFlux()
-			.bufferTimeout(100, Duration.ofSeconds(5))
-			.flatMap(indexRequests -> {
+		if (_handoffBytes.addAndGet(spooled.length) >
+			config.getBufferMemoryBudget().asLongValue()) {
 
-				BulkRequest bulkRequest = new BulkRequest();
+			_handoffBytes.addAndGet(-spooled.length);
+			_droppedCounter.increment();
 
-				for (IndexRequest indexRequest : indexRequests) {
-					bulkRequest.add(indexRequest);
-				}
+			return;
+		}
 
-				return Mono.create(sink -> restHighLevelClient.bulkAsync(
-					bulkRequest, RequestOptions.DEFAULT,
-					new ActionListener<>() {
-						@Override
-						public void onResponse(BulkResponse bulkItemResponses) {
-							sink.success(bulkItemResponses);
-						}
+		boolean handedOff = _onSpool(() -> {
+			_handoffBytes.addAndGet(-spooled.length);
 
-						@Override
-						public void onFailure(Exception e) {
-							sink.error(e);
-						}
-					}));
-			})
-			.subscribe();
+			if (!_spool.offer(spooled)) {
+				_droppedCounter.increment();
+
+				return;
+			}
+
+			_drain(false);
+		});
+
+		if (!handedOff) {
+			_handoffBytes.addAndGet(-spooled.length);
+			_droppedCounter.increment();
+		}
+	}
+
+	@PostConstruct
+	public void init() {
+
+		_spoolExecutor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "openk9-event-spool");
+			t.setDaemon(true);
+			return t;
+		});
+
+		try {
+			_spool = new EventSpool(
+				Path.of(config.getBufferSpillDirectory()),
+				config.getBufferMemoryBudget().asLongValue(),
+				config.getBufferSpillBudget().asLongValue(),
+				config.getBufferSegmentSize().asLongValue()
+			);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(
+				"Unable to open the event spill directory " +
+				config.getBufferSpillDirectory(), e);
+		}
+
+		Gauge
+			.builder("openk9.events.buffer.depth", _spool, EventSpool::size)
+			.description("Events waiting to be saved, in memory and spilled")
+			.register(meterRegistry);
+
+		Gauge
+			.builder("openk9.events.buffer.spilled-bytes", _spool, EventSpool::spilledBytes)
+			.description("Bytes of the events spilled to the local files")
+			.baseUnit("bytes")
+			.register(meterRegistry);
+
+		_droppedCounter = Counter
+			.builder("openk9.events.buffer.dropped")
+			.description("Events dropped, with the buffers full, the bulk retries exhausted or the event refused by the index")
+			.register(meterRegistry);
+
+		_bulkTimer = Timer
+			.builder("openk9.events.bulk.latency")
+			.description("Bulk requests of the batched events")
+			.register(meterRegistry);
+
+		_flusher = Multi.createFrom()
+			.ticks().every(config.getBulkMaxWait())
+			.subscribe().with(tick -> _onSpool(() -> _drain(true)));
 
 	}
 
@@ -254,6 +340,156 @@ public class EventRepositoryImpl implements EventRepository {
 			}));
 	}
 
+	/**
+	 * Runs the task on the spool worker, the only thread that touches the
+	 * spool and {@link #_inFlight}. Returns {@code false} when the worker
+	 * is shut down.
+	 */
+	private boolean _onSpool(Runnable task) {
+		try {
+			_spoolExecutor.execute(task);
+
+			return true;
+		}
+		catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+
+	private void _drain(boolean partial) {
+
+		while (_inFlight < config.getBulkMaxConcurrency()) {
+
+			EventSpool.Batch batch = _spool.poll(config.getBulkMaxActions(), partial);
+
+			if (batch == null) {
+				return;
+			}
+
+			_inFlight++;
+
+			_bulk(batch);
+		}
+
+	}
+
+	private void _bulk(EventSpool.Batch batch) {
+
+		BulkRequest bulkRequest = new BulkRequest();
+
+		for (byte[] spooled : batch.events()) {
+			ByteBuffer id = ByteBuffer.wrap(spooled);
+
+			bulkRequest.add(
+				new IndexRequest(config.getIndexName())
+					.id(new UUID(id.getLong(), id.getLong()).toString())
+					.source(
+						spooled, ID_BYTES, spooled.length - ID_BYTES, XContentType.JSON));
+		}
+
+		Uni.createFrom()
+			.<BulkResponse>emitter(emitter -> {
+				Timer.Sample sample = Timer.start(meterRegistry);
+
+				restHighLevelClient.bulkAsync(
+					bulkRequest, RequestOptions.DEFAULT,
+					new ActionListener<>() {
+						@Override
+						public void onResponse(BulkResponse bulkItemResponses) {
+							sample.stop(_bulkTimer);
+							emitter.complete(bulkItemResponses);
+						}
+
+						@Override
+						public void onFailure(Exception e) {
+							sample.stop(_bulkTimer);
+							emitter.fail(e);
+						}
+					});
+			})
+			.onFailure()
+			.retry()
+			.withBackOff(config.getBulkRetryBackoff(), config.getBulkRetryMaxBackoff())
+			.atMost(config.getBulkMaxRetries())
+			.subscribe()
+			.with(
+				bulkItemResponses -> {
+					if (bulkItemResponses.hasFailures()) {
+						log.warn(bulkItemResponses.buildFailureMessage());
+					}
+
+					_release(batch, _rejected(batch, bulkItemResponses));
+				},
+				throwable -> {
+					log.errorf(
+						throwable, "Unable to save %d events", batch.events().size());
+
+					_droppedCounter.increment(batch.events().size());
+
+					_release(batch, List.of());
+				}
+			);
+
+	}
+
+	/**
+	 * The events of the batch rejected by a busy node, that are offered
+	 * again. The events that failed otherwise are dropped.
+	 */
+	private List<byte[]> _rejected(EventSpool.Batch batch, BulkResponse bulkResponse) {
+
+		List<byte[]> rejected = new ArrayList<>();
+
+		for (BulkItemResponse item : bulkResponse.getItems()) {
+			if (!item.isFailed()) {
+				continue;
+			}
+
+			if (item.status() == RestStatus.TOO_MANY_REQUESTS) {
+				rejected.add(batch.events().get(item.getItemId()));
+			}
+			else {
+				_droppedCounter.increment();
+			}
+		}
+
+		return rejected;
+	}
+
+	/**
+	 * Acknowledges the batch on the spool worker. Once the worker is shut
+	 * down the spool is closed, and the events of the batch are kept with
+	 * the ones not acknowledged, to be saved after a restart.
+	 */
+	private void _release(EventSpool.Batch batch, List<byte[]> rejected) {
+
+		_onSpool(() -> {
+			_spool.ack(batch);
+
+			for (byte[] spooled : rejected) {
+				if (!_spool.offer(spooled)) {
+					_droppedCounter.increment();
+				}
+			}
+
+			_inFlight--;
+
+			_drain(false);
+		});
+
+	}
+
+	/**
+	 * The event as it is spooled, its id followed by its source.
+	 */
+	private static byte[] _spooled(UUID id, byte[] source) {
+		return ByteBuffer.allocate(ID_BYTES + source.length)
+			.putLong(id.getMostSignificantBits())
+			.putLong(id.getLeastSignificantBits())
+			.put(source)
+			.array();
+	}
+
 	private IndexRequest _getIndexRequest(Event event) {
 		IndexRequest indexRequest = new IndexRequest(config.getIndexName());
 		return indexRequest.source(Json.encode(event), XContentType.JSON);
@@ -306,9 +542,22 @@ public class EventRepositoryImpl implements EventRepository {
 	@Inject
 	EventConfig config;
 
-	private Sinks.Many<IndexRequest> many;
+	@Inject
+	MeterRegistry meterRegistry;
+
+	private EventSpool _spool;
+
+	private ExecutorService _spoolExecutor;
+
+	private final AtomicLong _handoffBytes = new AtomicLong();
+
+	private Cancellable _flusher;
+
+	private Counter _droppedCounter;
+
+	private Timer _bulkTimer;
 
-	private Disposable _disposable;
+	private int _inFlight;
 
 	@Data
 	@AllArgsConstructor
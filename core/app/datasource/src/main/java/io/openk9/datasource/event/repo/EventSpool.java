@@ -0,0 +1,483 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.event.repo;
+
+import org.jboss.logging.Logger;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The events waiting to be saved by {@link EventRepositoryImpl#batchSave}.
+ *
+ * <p>Events are kept in memory up to the memory budget. Past the budget
+ * they are appended to segment files in the spill directory, and every new
+ * event goes to the files until they are drained, so that the events are
+ * taken in the order they were offered. Past the spill budget, events are
+ * dropped.</p>
+ *
+ * <p>A segment file is deleted once all its events are taken and the
+ * batches that carry them are acknowledged. The segment files left by a
+ * previous run are replayed, and on close the events still in memory, or
+ * taken from memory and not acknowledged yet, are spilled, so that they
+ * are saved after a restart. The spill is best effort, the events survive
+ * a restart only as long as the spill directory does.</p>
+ *
+ * <p>The file operations block the caller, {@link EventRepositoryImpl}
+ * runs them on a thread of its own.</p>
+ */
+final class EventSpool implements Closeable {
+
+	private static final Logger log = Logger.getLogger(EventSpool.class);
+	private static final String SEGMENT_PREFIX = "events-";
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private final Path directory;
+	private final long memoryBudget;
+	private final long spillBudget;
+	private final long segmentSize;
+	private final Deque<byte[]> memory = new ArrayDeque<>();
+	private final Deque<Segment> segments = new ArrayDeque<>();
+	private final Set<Batch> memoryBatches =
+		Collections.newSetFromMap(new IdentityHashMap<>());
+	private long memoryBytes;
+	private long spilledBytes;
+	private long nextSegmentId;
+	private boolean closed;
+
+	EventSpool(Path directory, long memoryBudget, long spillBudget, long segmentSize)
+	throws IOException {
+
+		this.directory = directory;
+		this.memoryBudget = memoryBudget;
+		this.spillBudget = spillBudget;
+		this.segmentSize = segmentSize;
+
+		Files.createDirectories(directory);
+
+		_recover();
+	}
+
+	/**
+	 * Adds the event to the spool, returns {@code false} when it is dropped.
+	 */
+	synchronized boolean offer(byte[] event) {
+
+		if (closed) {
+			return false;
+		}
+
+		boolean fitsInMemory = memoryBytes + event.length <= memoryBudget;
+
+		if (!segments.isEmpty() || !fitsInMemory) {
+			if (_spill(event)) {
+				return true;
+			}
+
+			// the spill budget is used up, the memory is used while it has room.
+			if (!fitsInMemory) {
+				return false;
+			}
+		}
+
+		memory.add(event);
+		memoryBytes += event.length;
+
+		return true;
+	}
+
+	/**
+	 * Takes the next batch of at most {@code maxEvents} events, or
+	 * {@code null} when there are less than {@code maxEvents} events and
+	 * {@code partial} is {@code false}, or no events at all.
+	 */
+	synchronized Batch poll(int maxEvents, boolean partial) {
+
+		if (closed || size() == 0 || !partial && size() < maxEvents) {
+			return null;
+		}
+
+		List<byte[]> events = new ArrayList<>(maxEvents);
+
+		while (events.size() < maxEvents && !memory.isEmpty()) {
+			byte[] event = memory.poll();
+
+			memoryBytes -= event.length;
+			events.add(event);
+		}
+
+		if (!events.isEmpty()) {
+			Batch batch = new Batch(events, null);
+
+			memoryBatches.add(batch);
+
+			return batch;
+		}
+
+		for (Segment segment : segments) {
+			if (!segment.isRead()) {
+				try {
+					while (events.size() < maxEvents) {
+						byte[] event = segment.read();
+
+						if (event == null) {
+							break;
+						}
+
+						events.add(event);
+					}
+				}
+				catch (IOException e) {
+					log.errorf(
+						e, "Dropping %d events spilled in %s, unable to read them",
+						segment.unreadEvents, segment.path);
+
+					segment.skip();
+				}
+
+				if (events.isEmpty()) {
+					continue;
+				}
+
+				segment.pendingBatches++;
+
+				return new Batch(events, segment);
+			}
+		}
+
+		_deleteDrainedSegments();
+
+		return null;
+	}
+
+	/**
+	 * Acknowledges a batch taken with {@link #poll}, whether its events were
+	 * saved or given up.
+	 */
+	synchronized void ack(Batch batch) {
+
+		if (closed) {
+			return;
+		}
+
+		if (batch.segment == null) {
+			memoryBatches.remove(batch);
+
+			return;
+		}
+
+		batch.segment.pendingBatches--;
+
+		_deleteDrainedSegments();
+	}
+
+	/**
+	 * The events in memory and in the segment files.
+	 */
+	synchronized long size() {
+
+		long size = memory.size();
+
+		for (Segment segment : segments) {
+			size += segment.unreadEvents;
+		}
+
+		return size;
+	}
+
+	synchronized long spilledBytes() {
+		return spilledBytes;
+	}
+
+	@Override
+	public synchronized void close() {
+
+		if (closed) {
+			return;
+		}
+
+		int unsaved = 0;
+		int dropped = 0;
+
+		for (Batch batch : memoryBatches) {
+			for (byte[] event : batch.events) {
+				unsaved++;
+				dropped += _spill(event) ? 0 : 1;
+			}
+		}
+
+		for (byte[] event : memory) {
+			unsaved++;
+			dropped += _spill(event) ? 0 : 1;
+		}
+
+		if (dropped > 0) {
+			log.warnf("%d of %d events not saved yet are dropped", dropped, unsaved);
+		}
+
+		closed = true;
+		memory.clear();
+		memoryBatches.clear();
+
+		for (Segment segment : segments) {
+			try {
+				segment.channel.close();
+			}
+			catch (IOException e) {
+				log.warnf(e, "Unable to close %s", segment.path);
+			}
+		}
+	}
+
+	private boolean _spill(byte[] event) {
+
+		long recordSize = Integer.BYTES + event.length;
+
+		if (spilledBytes + recordSize > spillBudget) {
+			return false;
+		}
+
+		Segment segment = segments.peekLast();
+
+		try {
+			if (segment == null || segment.writePosition >= segmentSize) {
+				segment = new Segment(
+					directory.resolve(SEGMENT_PREFIX + nextSegmentId++ + SEGMENT_SUFFIX));
+
+				segments.add(segment);
+			}
+
+			segment.write(event);
+		}
+		catch (IOException e) {
+			log.errorf(e, "Unable to spill an event in %s", directory);
+
+			return false;
+		}
+
+		spilledBytes += recordSize;
+
+		return true;
+	}
+
+	private void _deleteDrainedSegments() {
+
+		Iterator<Segment> iterator = segments.iterator();
+
+		while (iterator.hasNext()) {
+			Segment segment = iterator.next();
+
+			if (segment.isRead() && segment.pendingBatches == 0) {
+				iterator.remove();
+				spilledBytes -= segment.writePosition;
+				_delete(segment);
+			}
+		}
+	}
+
+	private void _recover() throws IOException {
+
+		List<Path> paths;
+
+		try (Stream<Path> files = Files.list(directory)) {
+			paths = files
+				.filter(path -> _segmentId(path) >= 0)
+				.sorted(Comparator.comparingLong(EventSpool::_segmentId))
+				.toList();
+		}
+
+		long events = 0;
+
+		for (Path path : paths) {
+			Segment segment = new Segment(path);
+
+			segment.recover();
+
+			nextSegmentId = _segmentId(path) + 1;
+
+			if (segment.unreadEvents == 0) {
+				_delete(segment);
+				continue;
+			}
+
+			segments.add(segment);
+			spilledBytes += segment.writePosition;
+			events += segment.unreadEvents;
+		}
+
+		if (events > 0) {
+			log.infof(
+				"%d events spilled by a previous run are replayed from %s", events, directory);
+		}
+	}
+
+	private static void _delete(Segment segment) {
+		try {
+			segment.channel.close();
+			Files.deleteIfExists(segment.path);
+		}
+		catch (IOException e) {
+			log.warnf(e, "Unable to delete %s", segment.path);
+		}
+	}
+
+	private static long _segmentId(Path path) {
+
+		String fileName = path.getFileName().toString();
+
+		if (!fileName.startsWith(SEGMENT_PREFIX) || !fileName.endsWith(SEGMENT_SUFFIX)) {
+			return -1;
+		}
+
+		try {
+			return Long.parseLong(fileName.substring(
+				SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+		}
+		catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	record Batch(List<byte[]> events, Segment segment) {}
+
+	/**
+	 * An append-only file of length-prefixed events.
+	 */
+	static final class Segment {
+
+		private final Path path;
+		private final FileChannel channel;
+		private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+		private long readPosition;
+		private long writePosition;
+		private long unreadEvents;
+		private int pendingBatches;
+
+		private Segment(Path path) throws IOException {
+			this.path = path;
+			this.channel = FileChannel.open(
+				path,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.READ,
+				StandardOpenOption.WRITE
+			);
+		}
+
+		private void write(byte[] event) throws IOException {
+
+			ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + event.length);
+
+			record.putInt(event.length).put(event).flip();
+
+			while (record.hasRemaining()) {
+				writePosition += channel.write(record, writePosition);
+			}
+
+			unreadEvents++;
+		}
+
+		private byte[] read() throws IOException {
+
+			if (isRead()) {
+				return null;
+			}
+
+			int length = _readLength(readPosition);
+			ByteBuffer event = ByteBuffer.allocate(length);
+
+			_readFully(event, readPosition + Integer.BYTES);
+
+			readPosition += Integer.BYTES + length;
+			unreadEvents--;
+
+			return event.array();
+		}
+
+		private boolean isRead() {
+			return readPosition >= writePosition;
+		}
+
+		private void skip() {
+			readPosition = writePosition;
+			unreadEvents = 0;
+		}
+
+		/**
+		 * Counts the events of the file, and truncates the last one when it
+		 * was not written completely.
+		 */
+		private void recover() throws IOException {
+
+			long size = channel.size();
+
+			while (writePosition + Integer.BYTES <= size) {
+				int length = _readLength(writePosition);
+
+				if (length < 0 || writePosition + Integer.BYTES + length > size) {
+					break;
+				}
+
+				writePosition += Integer.BYTES + length;
+				unreadEvents++;
+			}
+
+			if (writePosition < size) {
+				log.warnf("Truncating the incomplete event at the end of %s", path);
+
+				channel.truncate(writePosition);
+			}
+		}
+
+		private int _readLength(long position) throws IOException {
+			header.clear();
+			_readFully(header, position);
+
+			return header.flip().getInt();
+		}
+
+		private void _readFully(ByteBuffer buffer, long position) throws IOException {
+			while (buffer.hasRemaining()) {
+				int read = channel.read(buffer, position);
+
+				if (read < 0) {
+					throw new EOFException(path.toString());
+				}
+
+				position += read;
+			}
+		}
+
+	}
+
+}
@@ -34,6 +34,12 @@ import org.eclipse.microprofile.reactive.messaging.Metadata;
 @Startup
 public class DatasourceEventBus {
 
+	/**
+	 * The address where every message sent is also published, for the
+	 * consumers of this node that follow the indexing.
+	 */
+	public static final String PUBLISHED_EVENT = "DatasourceEventBus#publishedEvent";
+
 	private static final String SEND_EVENT = "DatasourceEventBus#sendEvent";
 
 	public static void sendMessage(DatasourceMessage message) {
@@ -56,6 +62,8 @@ public class DatasourceEventBus {
 				)
 			)
 		);
+
+		EventBusInstanceHolder.getEventBus().publish(PUBLISHED_EVENT, datasourceMessage);
 	}
 
 }
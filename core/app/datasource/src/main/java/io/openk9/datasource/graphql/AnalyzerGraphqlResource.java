@@ -26,6 +26,7 @@ import io.openk9.common.graphql.util.relay.Connection;
 import io.openk9.common.util.Response;
 import io.openk9.common.util.SortBy;
 import io.openk9.datasource.model.Analyzer;
+import io.openk9.datasource.model.Analyzer_;
 import io.openk9.datasource.model.CharFilter;
 import io.openk9.datasource.model.TokenFilter;
 import io.openk9.datasource.model.Tokenizer;
@@ -33,6 +34,7 @@ import io.openk9.datasource.model.dto.base.AnalyzerDTO;
 import io.openk9.datasource.model.dto.request.AnalyzerWithListsDTO;
 import io.openk9.datasource.service.AnalyzerService;
 import io.openk9.datasource.service.util.K9EntityEvent;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.openk9.datasource.service.util.Tuple2;
 
 import io.smallrye.graphql.api.Subscription;
@@ -106,8 +108,8 @@ public class AnalyzerGraphqlResource {
 			sortByList, notEqual);
 	}
 
-	public Uni<Tokenizer> tokenizer(@Source Analyzer analyzer) {
-		return _analyzerService.getTokenizer(analyzer.getId());
+	public Uni<List<Tokenizer>> tokenizer(@Source List<Analyzer> analyzers) {
+		return relationCache.findRelated(_analyzerService, analyzers, Analyzer_.tokenizer);
 	}
 
 	@Mutation
@@ -226,4 +228,7 @@ public class AnalyzerGraphqlResource {
 
 	@Inject
 	AnalyzerService _analyzerService;
+
+	@Inject
+	K9EntityRelationCache relationCache;
 }
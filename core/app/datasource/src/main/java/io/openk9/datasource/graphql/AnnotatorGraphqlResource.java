@@ -17,6 +17,7 @@
 
 package io.openk9.datasource.graphql;
 
+import java.util.List;
 import java.util.Set;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -25,11 +26,13 @@ import io.openk9.common.graphql.util.relay.Connection;
 import io.openk9.common.util.Response;
 import io.openk9.common.util.SortBy;
 import io.openk9.datasource.model.Annotator;
+import io.openk9.datasource.model.Annotator_;
 import io.openk9.datasource.model.DocTypeField;
 import io.openk9.datasource.model.dto.base.AnnotatorDTO;
 import io.openk9.datasource.model.dto.request.AnnotatorWithDocTypeFieldDTO;
 import io.openk9.datasource.service.AnnotatorService;
 import io.openk9.datasource.service.util.K9EntityEvent;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.openk9.datasource.service.util.Tuple2;
 
 import io.smallrye.graphql.api.Subscription;
@@ -43,7 +46,6 @@ import org.eclipse.microprofile.graphql.Id;
 import org.eclipse.microprofile.graphql.Mutation;
 import org.eclipse.microprofile.graphql.Query;
 import org.eclipse.microprofile.graphql.Source;
-import org.hibernate.reactive.mutiny.Mutiny;
 
 @GraphQLApi
 @ApplicationScoped
@@ -91,8 +93,8 @@ public class AnnotatorGraphqlResource {
 		return annotatorService.findById(id);
 	}
 
-	public Uni<DocTypeField> docTypeField(@Source Annotator annotator) {
-		return sessionFactory.withTransaction(s -> s.fetch(annotator.getDocTypeField()));
+	public Uni<List<DocTypeField>> docTypeField(@Source List<Annotator> annotators) {
+		return relationCache.findRelated(annotatorService, annotators, Annotator_.docTypeField);
 	}
 
 	public Uni<Response<Annotator>> patchAnnotator(@Id long id, AnnotatorDTO annotatorDTO) {
@@ -171,9 +173,9 @@ public class AnnotatorGraphqlResource {
 	}
 
 	@Inject
-	Mutiny.SessionFactory sessionFactory;
+	AnnotatorService annotatorService;
 
 	@Inject
-	AnnotatorService annotatorService;
+	K9EntityRelationCache relationCache;
 
 }
\ No newline at end of file
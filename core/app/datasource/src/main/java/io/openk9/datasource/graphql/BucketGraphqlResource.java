@@ -28,6 +28,7 @@ import io.openk9.common.util.Response;
 import io.openk9.common.util.SortBy;
 import io.openk9.datasource.index.response.CatResponse;
 import io.openk9.datasource.model.Bucket;
+import io.openk9.datasource.model.Bucket_;
 import io.openk9.datasource.model.Datasource;
 import io.openk9.datasource.model.Language;
 import io.openk9.datasource.model.QueryAnalysis;
@@ -42,6 +43,7 @@ import io.openk9.datasource.model.dto.request.BucketWithListsDTO;
 import io.openk9.datasource.service.BucketService;
 import io.openk9.datasource.service.LanguageService;
 import io.openk9.datasource.service.util.K9EntityEvent;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.openk9.datasource.service.util.Tuple2;
 
 import io.smallrye.graphql.api.Subscription;
@@ -262,8 +264,8 @@ public class BucketGraphqlResource {
 		return bucketService.findUnboundBucketsByTab(tabId);
 	}
 
-	public Uni<Language> language(@Source Bucket bucket) {
-		return bucketService.getLanguage(bucket.getId());
+	public Uni<List<Language>> language(@Source List<Bucket> buckets) {
+		return relationCache.findRelated(bucketService, buckets, Bucket_.defaultLanguage);
 	}
 
 	public Uni<Connection<Language>> languages(
@@ -284,20 +286,21 @@ public class BucketGraphqlResource {
 		return bucketService.getValidator().patch(id, bucketDTO);
 	}
 
-	public Uni<QueryAnalysis> queryAnalysis(@Source Bucket bucket) {
-		return bucketService.getQueryAnalysis(bucket.getId());
+	public Uni<List<QueryAnalysis>> queryAnalysis(@Source List<Bucket> buckets) {
+		return relationCache.findRelated(bucketService, buckets, Bucket_.queryAnalysis);
 	}
 
-	public Uni<RAGConfiguration> ragConfigurationChat(@Source Bucket bucket) {
-		return bucketService.getRagConfigurationChat(bucket.getId());
+	public Uni<List<RAGConfiguration>> ragConfigurationChat(@Source List<Bucket> buckets) {
+		return relationCache.findRelated(bucketService, buckets, Bucket_.ragConfigurationChat);
 	}
 
-	public Uni<RAGConfiguration> ragConfigurationChatTool(@Source Bucket bucket) {
-		return bucketService.getRagConfigurationChatTool(bucket.getId());
+	public Uni<List<RAGConfiguration>> ragConfigurationChatTool(@Source List<Bucket> buckets) {
+		return relationCache.findRelated(bucketService, buckets, Bucket_.ragConfigurationChatTool);
 	}
 
-	public Uni<RAGConfiguration> ragConfigurationSimpleGenerate(@Source Bucket bucket) {
-		return bucketService.getRagConfigurationSimpleGenerate(bucket.getId());
+	public Uni<List<RAGConfiguration>> ragConfigurationSimpleGenerate(@Source List<Bucket> buckets) {
+		return relationCache.findRelated(
+			bucketService, buckets, Bucket_.ragConfigurationSimpleGenerate);
 	}
 
 	@Mutation
@@ -327,8 +330,8 @@ public class BucketGraphqlResource {
 		return bucketService.removeTabFromBucket(id, tabId);
 	}
 
-	public Uni<SearchConfig> searchConfig(@Source Bucket bucket) {
-		return bucketService.getSearchConfig(bucket.getId());
+	public Uni<List<SearchConfig>> searchConfig(@Source List<Bucket> buckets) {
+		return relationCache.findRelated(bucketService, buckets, Bucket_.searchConfig);
 	}
 
 	public Uni<Connection<Sorting>> sortings(
@@ -419,6 +422,9 @@ public class BucketGraphqlResource {
 	@Inject
 	BucketService bucketService;
 
+	@Inject
+	K9EntityRelationCache relationCache;
+
 	@Inject
 	LanguageService languageService;
 
@@ -22,12 +22,14 @@ import io.openk9.common.util.Response;
 import io.openk9.common.util.SortBy;
 import io.openk9.datasource.index.response.CatResponse;
 import io.openk9.datasource.model.DataIndex;
+import io.openk9.datasource.model.DataIndex_;
 import io.openk9.datasource.model.Datasource;
 import io.openk9.datasource.model.DocType;
 import io.openk9.datasource.model.DocTypeField;
 import io.openk9.datasource.model.dto.base.DataIndexDTO;
 import io.openk9.datasource.service.DataIndexService;
 import io.openk9.datasource.service.util.K9EntityEvent;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.openk9.datasource.service.util.Tuple2;
 import io.smallrye.graphql.api.Subscription;
 import io.smallrye.mutiny.Multi;
@@ -43,6 +45,7 @@ import org.eclipse.microprofile.graphql.Mutation;
 import org.eclipse.microprofile.graphql.Query;
 import org.eclipse.microprofile.graphql.Source;
 
+import java.util.List;
 import java.util.Set;
 
 @GraphQLApi
@@ -53,6 +56,9 @@ public class DataIndexGraphqlResource {
 	@Inject
 	DataIndexService dataIndexService;
 
+	@Inject
+	K9EntityRelationCache relationCache;
+
 	@Mutation
 	public Uni<Tuple2<DataIndex, DocType>> addDocTypeToDataIndex(@Id long dataIndexId, @Id long docTypeId) {
 		return dataIndexService.addDocType(dataIndexId, docTypeId);
@@ -128,16 +134,17 @@ public class DataIndexGraphqlResource {
 			after, before, first, last, searchText, sortByList);
 	}
 
-	public Uni<Datasource> getDatasource(@Source DataIndex dataIndex){
-		return dataIndexService.datasource(dataIndex.getId());
+	public Uni<List<Datasource>> getDatasource(@Source List<DataIndex> dataIndexes) {
+		return relationCache.findRelated(dataIndexService, dataIndexes, DataIndex_.datasource);
 	}
 
 	public Uni<Long> getDocCount(@Source DataIndex dataIndex) {
 		return dataIndexService.getCountIndexDocuments(dataIndex.getId());
 	}
 
-	public Uni<DocTypeField> getEmbeddingDocTypeField(@Source DataIndex dataIndex) {
-		return dataIndexService.getEmbeddingDocTypeField(dataIndex.getId());
+	public Uni<List<DocTypeField>> getEmbeddingDocTypeField(@Source List<DataIndex> dataIndexes) {
+		return relationCache.findRelated(
+			dataIndexService, dataIndexes, DataIndex_.embeddingDocTypeField);
 	}
 
 	public Uni<String> mappings(@Source DataIndex dataIndex) {
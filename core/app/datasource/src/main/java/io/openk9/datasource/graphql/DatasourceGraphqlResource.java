@@ -17,6 +17,7 @@
 
 package io.openk9.datasource.graphql;
 
+import java.util.List;
 import java.util.Set;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -26,6 +27,7 @@ import io.openk9.common.util.Response;
 import io.openk9.common.util.SortBy;
 import io.openk9.datasource.model.DataIndex;
 import io.openk9.datasource.model.Datasource;
+import io.openk9.datasource.model.Datasource_;
 import io.openk9.datasource.model.EnrichPipeline;
 import io.openk9.datasource.model.PluginDriver;
 import io.openk9.datasource.model.Scheduler;
@@ -34,6 +36,7 @@ import io.openk9.datasource.model.dto.request.CreateDatasourceDTO;
 import io.openk9.datasource.model.dto.request.UpdateDatasourceDTO;
 import io.openk9.datasource.service.DatasourceService;
 import io.openk9.datasource.service.util.K9EntityEvent;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.openk9.datasource.service.util.Tuple2;
 
 import io.smallrye.graphql.api.Subscription;
@@ -57,6 +60,9 @@ public class DatasourceGraphqlResource {
 	@Inject
 	DatasourceService datasourceService;
 
+	@Inject
+	K9EntityRelationCache relationCache;
+
 	@Mutation
 	public Uni<Tuple2<Datasource, DataIndex>> bindDataIndexToDatasource(
 		@Id @Name("datasourceId") long datasourceId,
@@ -97,8 +103,8 @@ public class DatasourceGraphqlResource {
 		return datasourceService.createDatasourceConnection(datasourceConnection);
 	}
 
-	public Uni<DataIndex> dataIndex(@Source Datasource datasource) {
-		return datasourceService.getDataIndex(datasource.getId());
+	public Uni<List<DataIndex>> dataIndex(@Source List<Datasource> datasources) {
+		return relationCache.findRelated(datasourceService, datasources, Datasource_.dataIndex);
 	}
 
 	public Uni<Connection<DataIndex>> dataIndexes(
@@ -159,9 +165,9 @@ public class DatasourceGraphqlResource {
 		return datasourceService.deleteById(datasourceId, datasourceName);
 	}
 
-	public Uni<EnrichPipeline> enrichPipeline(
-		@Source Datasource datasource) {
-		return datasourceService.getEnrichPipeline(datasource.getId());
+	public Uni<List<EnrichPipeline>> enrichPipeline(@Source List<Datasource> datasources) {
+		return relationCache.findRelated(
+			datasourceService, datasources, Datasource_.enrichPipeline);
 	}
 
 	@Query
@@ -184,8 +190,8 @@ public class DatasourceGraphqlResource {
 		return datasourceService.getValidator().patch(id, datasourceDTO);
 	}
 
-	public Uni<PluginDriver> pluginDriver(@Source Datasource datasource) {
-		return datasourceService.getPluginDriver(datasource.getId());
+	public Uni<List<PluginDriver>> pluginDriver(@Source List<Datasource> datasources) {
+		return relationCache.findRelated(datasourceService, datasources, Datasource_.pluginDriver);
 	}
 
 	public Uni<Connection<Scheduler>> schedulers(
@@ -28,11 +28,13 @@ import io.openk9.common.util.Response;
 import io.openk9.common.util.SortBy;
 import io.openk9.datasource.model.Analyzer;
 import io.openk9.datasource.model.DocTypeField;
+import io.openk9.datasource.model.DocTypeField_;
 import io.openk9.datasource.model.Tab;
 import io.openk9.datasource.model.dto.base.DocTypeFieldDTO;
 import io.openk9.datasource.model.dto.base.TranslationDTO;
 import io.openk9.datasource.service.DocTypeFieldService;
 import io.openk9.datasource.service.TranslationService;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.openk9.datasource.service.util.Tuple2;
 
 import io.smallrye.mutiny.Uni;
@@ -73,9 +75,9 @@ public class DocTypeFieldGraphqlResource {
 			parentId, after, before, first, last, searchText, sortByList);
 	}
 
-	public Uni<DocTypeField> parent(
-		@Source DocTypeField docTypeField) {
-		return docTypeFieldService.getParent(docTypeField);
+	public Uni<List<DocTypeField>> parent(@Source List<DocTypeField> docTypeFields) {
+		return relationCache.findRelated(
+			docTypeFieldService, docTypeFields, DocTypeField_.parentDocTypeField);
 	}
 
 	public Uni<Connection<DocTypeField>> subFields(
@@ -93,8 +95,9 @@ public class DocTypeFieldGraphqlResource {
 	}
 
 
-	public Uni<Analyzer> analyzer(@Source DocTypeField docTypeField) {
-		return docTypeFieldService.getAnalyzer(docTypeField.getId());
+	public Uni<List<Analyzer>> analyzer(@Source List<DocTypeField> docTypeFields) {
+		return relationCache.findRelated(
+			docTypeFieldService, docTypeFields, DocTypeField_.analyzer);
 	}
 
 	@Mutation
@@ -169,6 +172,9 @@ public class DocTypeFieldGraphqlResource {
 	@Inject
 	DocTypeFieldService docTypeFieldService;
 
+	@Inject
+	K9EntityRelationCache relationCache;
+
 	@Inject
 	TranslationService translationService;
 }
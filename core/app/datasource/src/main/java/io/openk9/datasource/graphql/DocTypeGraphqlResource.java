@@ -28,7 +28,9 @@ import io.openk9.common.util.Response;
 import io.openk9.common.util.SortBy;
 import io.openk9.datasource.model.DocType;
 import io.openk9.datasource.model.DocTypeField;
+import io.openk9.datasource.model.DocTypeField_;
 import io.openk9.datasource.model.DocTypeTemplate;
+import io.openk9.datasource.model.DocType_;
 import io.openk9.datasource.model.dto.base.DocTypeDTO;
 import io.openk9.datasource.model.dto.base.DocTypeFieldDTO;
 import io.openk9.datasource.model.dto.request.DocTypeFieldWithAnalyzerDTO;
@@ -36,6 +38,7 @@ import io.openk9.datasource.model.dto.request.DocTypeWithTemplateDTO;
 import io.openk9.datasource.service.DocTypeFieldService;
 import io.openk9.datasource.service.DocTypeService;
 import io.openk9.datasource.service.util.K9EntityEvent;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.openk9.datasource.service.util.Tuple2;
 
 import io.smallrye.graphql.api.Subscription;
@@ -50,7 +53,6 @@ import org.eclipse.microprofile.graphql.Mutation;
 import org.eclipse.microprofile.graphql.Name;
 import org.eclipse.microprofile.graphql.Query;
 import org.eclipse.microprofile.graphql.Source;
-import org.hibernate.reactive.mutiny.Mutiny;
 
 @GraphQLApi
 @ApplicationScoped
@@ -68,17 +70,16 @@ public class DocTypeGraphqlResource {
 			after, before, first, last, searchText, sortByList);
 	}
 
-	public Uni<Connection<DocTypeField>> docTypeFields(
-		@Source DocType docType,
+	public Uni<List<Connection<DocTypeField>>> docTypeFields(
+		@Source List<DocType> docTypes,
 		@Description("fetching only nodes after this node (exclusive)") String after,
 		@Description("fetching only nodes before this node (exclusive)") String before,
 		@Description("fetching only the first certain number of nodes") Integer first,
 		@Description("fetching only the last certain number of nodes") Integer last,
 		String searchText, Set<SortBy> sortByList,
 		@Description("if notEqual is true, it returns unbound entities") @DefaultValue("false") boolean notEqual) {
-		return getDocTypeFieldsFromDocType(
-			docType.getId(), after, before, first, last, searchText, sortByList,
-			notEqual);
+		return docTypeService.getDocTypeFieldsConnections(
+			docTypes, after, before, first, last, searchText, sortByList, notEqual);
 	}
 
 	@Query
@@ -118,18 +119,12 @@ public class DocTypeGraphqlResource {
 		return docTypeFieldService.findById(id);
 	}
 
-	public Uni<DocType> docType(@Source DocTypeField docTypeField) {
-		return sessionFactory.withTransaction(s -> s
-			.merge(docTypeField)
-			.flatMap(merged -> s.fetch(merged.getDocType()))
-		);
+	public Uni<List<DocType>> docType(@Source List<DocTypeField> docTypeFields) {
+		return relationCache.findRelated(docTypeFieldService, docTypeFields, DocTypeField_.docType);
 	}
 
-	public Uni<DocTypeTemplate> docTypeTemplate(@Source DocType docType) {
-		return sessionFactory.withTransaction(s -> s
-			.merge(docType)
-			.flatMap(merged -> s.fetch(merged.getDocTypeTemplate()))
-		);
+	public Uni<List<DocTypeTemplate>> docTypeTemplate(@Source List<DocType> docTypes) {
+		return relationCache.findRelated(docTypeService, docTypes, DocType_.docTypeTemplate);
 	}
 
 	public Uni<Response<DocType>> patchDocType(@Id long id, DocTypeDTO docTypeDTO) {
@@ -271,7 +266,7 @@ public class DocTypeGraphqlResource {
 	DocTypeService docTypeService;
 
 	@Inject
-	Mutiny.SessionFactory sessionFactory;
+	K9EntityRelationCache relationCache;
 
 	@Inject
 	DocTypeFieldService docTypeFieldService;
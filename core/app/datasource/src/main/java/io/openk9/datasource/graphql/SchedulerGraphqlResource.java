@@ -22,7 +22,9 @@ import io.openk9.common.util.SortBy;
 import io.openk9.datasource.model.DataIndex;
 import io.openk9.datasource.model.Datasource;
 import io.openk9.datasource.model.Scheduler;
+import io.openk9.datasource.model.Scheduler_;
 import io.openk9.datasource.service.SchedulerService;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -33,6 +35,7 @@ import org.eclipse.microprofile.graphql.Id;
 import org.eclipse.microprofile.graphql.Query;
 import org.eclipse.microprofile.graphql.Source;
 
+import java.util.List;
 import java.util.Set;
 
 @GraphQLApi
@@ -56,19 +59,22 @@ public class SchedulerGraphqlResource {
 		return schedulerService.findById(id);
 	}
 
-	public Uni<Datasource> datasource(@Source Scheduler scheduler) {
-		return schedulerService.getDatasource(scheduler);
+	public Uni<List<Datasource>> datasource(@Source List<Scheduler> schedulers) {
+		return relationCache.findRelated(schedulerService, schedulers, Scheduler_.datasource);
 	}
 
-	public Uni<DataIndex> oldDataIndex(@Source Scheduler scheduler) {
-		return schedulerService.getOldDataIndex(scheduler);
+	public Uni<List<DataIndex>> oldDataIndex(@Source List<Scheduler> schedulers) {
+		return relationCache.findRelated(schedulerService, schedulers, Scheduler_.oldDataIndex);
 	}
 
-	public Uni<DataIndex> newDataIndex(@Source Scheduler scheduler) {
-		return schedulerService.getNewDataIndex(scheduler);
+	public Uni<List<DataIndex>> newDataIndex(@Source List<Scheduler> schedulers) {
+		return relationCache.findRelated(schedulerService, schedulers, Scheduler_.newDataIndex);
 	}
 
 	@Inject
 	SchedulerService schedulerService;
 
+	@Inject
+	K9EntityRelationCache relationCache;
+
 }
\ No newline at end of file
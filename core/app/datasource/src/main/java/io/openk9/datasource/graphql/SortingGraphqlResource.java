@@ -17,6 +17,7 @@
 
 package io.openk9.datasource.graphql;
 
+import java.util.List;
 import java.util.Set;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -26,9 +27,11 @@ import io.openk9.common.util.Response;
 import io.openk9.common.util.SortBy;
 import io.openk9.datasource.model.DocTypeField;
 import io.openk9.datasource.model.Sorting;
+import io.openk9.datasource.model.Sorting_;
 import io.openk9.datasource.model.dto.base.SortingDTO;
 import io.openk9.datasource.service.SortingService;
 import io.openk9.datasource.service.TranslationService;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.openk9.datasource.service.util.Tuple2;
 
 import io.smallrye.mutiny.Uni;
@@ -63,8 +66,8 @@ public class SortingGraphqlResource {
 			after, before, first, last, searchText, sortByList);
 	}
 
-	public Uni<DocTypeField> docTypeField(@Source Sorting sorting) {
-		return sortingService.getDocTypeField(sorting);
+	public Uni<List<DocTypeField>> docTypeField(@Source List<Sorting> sortings) {
+		return relationCache.findRelated(sortingService, sortings, Sorting_.docTypeField);
 	}
 
 	@Mutation
@@ -154,6 +157,9 @@ public class SortingGraphqlResource {
 	@Inject
 	SortingService sortingService;
 
+	@Inject
+	K9EntityRelationCache relationCache;
+
 	@Inject
 	TranslationService translationService;
 }
@@ -28,12 +28,14 @@ import io.openk9.common.util.SortBy;
 import io.openk9.datasource.model.Bucket;
 import io.openk9.datasource.model.DocTypeField;
 import io.openk9.datasource.model.SuggestionCategory;
+import io.openk9.datasource.model.SuggestionCategory_;
 import io.openk9.datasource.model.dto.base.SuggestionCategoryDTO;
 import io.openk9.datasource.model.dto.base.TranslationDTO;
 import io.openk9.datasource.model.dto.request.SuggestionCategoryWithDocTypeFieldDTO;
 import io.openk9.datasource.service.SuggestionCategoryService;
 import io.openk9.datasource.service.TranslationService;
 import io.openk9.datasource.service.util.K9EntityEvent;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.openk9.datasource.service.util.Tuple2;
 
 import io.smallrye.graphql.api.Subscription;
@@ -56,6 +58,9 @@ public class SuggestionCategoryGraphqlResource {
 
 	@Inject
 	SuggestionCategoryService suggestionCategoryService;
+
+	@Inject
+	K9EntityRelationCache relationCache;
 	@Inject
 	TranslationService translationService;
 
@@ -109,11 +114,9 @@ public class SuggestionCategoryGraphqlResource {
 			.map((__) -> Tuple2.of("ok", null));
 	}
 
-	public Uni<DocTypeField> docTypeField(
-			@Source SuggestionCategory suggestionCategory) {
-
-		return suggestionCategoryService.getDocTypeField(
-			suggestionCategory.getId());
+	public Uni<List<DocTypeField>> docTypeField(@Source List<SuggestionCategory> suggestionCategories) {
+		return relationCache.findRelated(
+			suggestionCategoryService, suggestionCategories, SuggestionCategory_.docTypeField);
 	}
 
 	@Query
@@ -17,6 +17,7 @@
 
 package io.openk9.datasource.graphql;
 
+import java.util.List;
 import java.util.Set;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -26,9 +27,11 @@ import io.openk9.common.util.Response;
 import io.openk9.common.util.SortBy;
 import io.openk9.datasource.model.DocTypeField;
 import io.openk9.datasource.model.TokenTab;
+import io.openk9.datasource.model.TokenTab_;
 import io.openk9.datasource.model.dto.base.TokenTabDTO;
 import io.openk9.datasource.model.dto.request.TokenTabWithDocTypeFieldDTO;
 import io.openk9.datasource.service.TokenTabService;
+import io.openk9.datasource.service.util.K9EntityRelationCache;
 import io.openk9.datasource.service.util.Tuple2;
 
 import io.smallrye.mutiny.Uni;
@@ -61,8 +64,8 @@ public class TokenTabGraphqlResource {
 		return tokenTabService.deleteById(tokenTabId);
 	}
 
-	public Uni<DocTypeField> docTypeField(@Source TokenTab tokenTab) {
-		return tokenTabService.getDocTypeField(tokenTab);
+	public Uni<List<DocTypeField>> docTypeField(@Source List<TokenTab> tokenTabs) {
+		return relationCache.findRelated(tokenTabService, tokenTabs, TokenTab_.docTypeField);
 	}
 
 	public Uni<Connection<DocTypeField>> docTypeFieldsNotInTokenTab(
@@ -153,4 +156,7 @@ public class TokenTabGraphqlResource {
 
 	@Inject
 	TokenTabService tokenTabService;
+
+	@Inject
+	K9EntityRelationCache relationCache;
 }
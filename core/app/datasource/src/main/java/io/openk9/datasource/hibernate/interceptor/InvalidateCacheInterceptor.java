@@ -20,7 +20,9 @@ package io.openk9.datasource.hibernate.interceptor;
 import io.openk9.datasource.actor.ActorSystemProvider;
 import io.openk9.datasource.cache.P2PCache;
 import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import io.vertx.ext.web.RoutingContext;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 import org.apache.pekko.actor.typed.ActorSystem;
 import org.hibernate.CallbackException;
@@ -37,6 +39,9 @@ public class InvalidateCacheInterceptor extends EmptyInterceptor {
 	@Inject
 	ActorSystemProvider actorSystemProvider;
 
+	@Inject
+	Instance<RoutingContext> routingContextInstance;
+
 	@Inject
 	Logger log;
 
@@ -98,7 +103,23 @@ public class InvalidateCacheInterceptor extends EmptyInterceptor {
 
 	private void invalidateLocalCache() {
 		ActorSystem<?> actorSystem = actorSystemProvider.getActorSystem();
-		P2PCache.askInvalidation(actorSystem);
+		P2PCache.askInvalidation(actorSystem, getCurrentTenantId());
+	}
+
+	/*
+	 * The tenant is known when the change comes from an HTTP request,
+	 * otherwise every cache key is invalidated.
+	 */
+	private String getCurrentTenantId() {
+		try {
+			return routingContextInstance.get().get("_tenantId");
+		}
+		catch (RuntimeException e) {
+			if (log.isTraceEnabled()) {
+				log.trace("tenant cannot be resolved, no RoutingContext is active");
+			}
+			return null;
+		}
 	}
 
 }
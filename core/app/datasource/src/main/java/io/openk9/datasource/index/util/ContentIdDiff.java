@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.index.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import io.openk9.datasource.util.UniActionListener;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.search.aggregations.AggregationBuilders;
+import org.opensearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.opensearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.opensearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.opensearch.search.builder.SearchSourceBuilder;
+
+/**
+ * Finds the contents of an index that are missing from another one.
+ *
+ * <p>Both indices are paged through with a {@code composite} aggregation
+ * on {@code contentId.keyword}, that returns every contentId once, sorted.
+ * The two sorted streams are merge-joined, so only a page of each index is
+ * held in memory, and the next pages are requested only when the
+ * subscriber asks for more contentIds.</p>
+ */
+public final class ContentIdDiff {
+
+	public static final int DEFAULT_PAGE_SIZE = 1000;
+	private static final String CONTENT_ID_AGG = "contentId_agg";
+	private static final String CONTENT_ID_FIELD = "contentId.keyword";
+	private static final List<String> END = List.of();
+
+	/*
+	 * The composite aggregation sorts the keyword terms by their UTF-8 bytes.
+	 */
+	private static final Comparator<String> TERM_ORDER = (a, b) -> Arrays.compareUnsigned(
+		a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+
+	private ContentIdDiff() {}
+
+	/**
+	 * Returns the contentIds present in {@code oldIndexName} and missing
+	 * from {@code newIndexName}.
+	 */
+	public static Multi<String> missingContentIds(
+		RestHighLevelClient client, String oldIndexName, String newIndexName) {
+
+		return missingContentIds(client, oldIndexName, newIndexName, DEFAULT_PAGE_SIZE);
+	}
+
+	public static Multi<String> missingContentIds(
+		RestHighLevelClient client, String oldIndexName, String newIndexName,
+		int pageSize) {
+
+		return Multi.createBy()
+			.repeating()
+			.uni(
+				() -> new Join(
+					new Cursor(client, oldIndexName, pageSize),
+					new Cursor(client, newIndexName, pageSize)
+				),
+				Join::next
+			)
+			.until(batch -> batch == END)
+			.onItem()
+			.disjoint();
+	}
+
+	private static final class Join {
+
+		private final Cursor left;
+		private final Cursor right;
+
+		private Join(Cursor left, Cursor right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		private Uni<List<String>> next() {
+
+			if (left.isDone()) {
+				return Uni.createFrom().item(END);
+			}
+
+			return Uni.combine()
+				.all()
+				.unis(left.fill(), right.fill())
+				.discardItems()
+				.map(ignore -> _join());
+		}
+
+		private List<String> _join() {
+
+			List<String> missing = new ArrayList<>();
+
+			while (!left.buffer.isEmpty()) {
+
+				if (right.buffer.isEmpty()) {
+
+					if (!right.exhausted) {
+						break;
+					}
+
+					missing.add(left.buffer.poll());
+
+					continue;
+				}
+
+				int compare = TERM_ORDER.compare(left.buffer.peek(), right.buffer.peek());
+
+				if (compare < 0) {
+					missing.add(left.buffer.poll());
+				}
+				else if (compare == 0) {
+					left.buffer.poll();
+					right.buffer.poll();
+				}
+				else {
+					right.buffer.poll();
+				}
+			}
+
+			return missing;
+		}
+
+	}
+
+	private static final class Cursor {
+
+		private final RestHighLevelClient client;
+		private final String indexName;
+		private final int pageSize;
+		private final Deque<String> buffer = new ArrayDeque<>();
+		private Map<String, Object> afterKey;
+		private boolean exhausted;
+
+		private Cursor(RestHighLevelClient client, String indexName, int pageSize) {
+			this.client = client;
+			this.indexName = indexName;
+			this.pageSize = pageSize;
+		}
+
+		private boolean isDone() {
+			return exhausted && buffer.isEmpty();
+		}
+
+		private Uni<Void> fill() {
+
+			if (exhausted || !buffer.isEmpty()) {
+				return Uni.createFrom().voidItem();
+			}
+
+			CompositeAggregationBuilder aggregation = AggregationBuilders
+				.composite(
+					CONTENT_ID_AGG,
+					List.of(new TermsValuesSourceBuilder(CONTENT_ID_AGG).field(CONTENT_ID_FIELD)))
+				.size(pageSize);
+
+			if (afterKey != null) {
+				aggregation.aggregateAfter(afterKey);
+			}
+
+			SearchRequest searchRequest = new SearchRequest(indexName)
+				.source(new SearchSourceBuilder().size(0).aggregation(aggregation));
+
+			return Uni.createFrom().<SearchResponse>emitter(emitter ->
+					client.searchAsync(
+						searchRequest,
+						RequestOptions.DEFAULT,
+						UniActionListener.of(emitter)
+					)
+				)
+				.invoke(this::_onPage)
+				.replaceWithVoid();
+		}
+
+		private void _onPage(SearchResponse searchResponse) {
+
+			CompositeAggregation composite =
+				searchResponse.getAggregations().get(CONTENT_ID_AGG);
+
+			for (CompositeAggregation.Bucket bucket : composite.getBuckets()) {
+				buffer.add(String.valueOf(bucket.getKey().get(CONTENT_ID_AGG)));
+			}
+
+			afterKey = composite.afterKey();
+			exhausted = afterKey == null || composite.getBuckets().isEmpty();
+		}
+
+	}
+
+}
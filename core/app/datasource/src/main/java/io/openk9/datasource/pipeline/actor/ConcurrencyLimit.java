@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.pipeline.actor;
+
+/**
+ * An additive-increase/multiplicative-decrease limit on the number of
+ * documents that a {@link Scheduling} keeps in flight.
+ *
+ * <p>Every completed document is a sample. The limit grows by one every
+ * {@code limit} samples, as long as the workers are busy and the latency
+ * stays within {@code latencyTolerance} times the baseline, that is a slow
+ * moving average of the observed latencies. A failure or a latency spike
+ * multiplies the limit by {@code backoffRatio}.</p>
+ */
+public class ConcurrencyLimit {
+
+	private static final double BASELINE_SMOOTHING = 0.05;
+
+	private final double backoffRatio;
+	private final double latencyTolerance;
+	private double baselineNanos = 0;
+	private double limit;
+	private long lastLatencyNanos = 0;
+	private int maxLimit;
+	private int minLimit;
+	private boolean sampled = false;
+
+	public ConcurrencyLimit(
+		int initialLimit, int minLimit, int maxLimit,
+		double backoffRatio, double latencyTolerance) {
+
+		this.minLimit = minLimit;
+		this.maxLimit = Math.max(minLimit, maxLimit);
+		this.backoffRatio = backoffRatio;
+		this.latencyTolerance = latencyTolerance;
+		this.limit = _bound(initialLimit);
+	}
+
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	public long getLastLatencyNanos() {
+		return lastLatencyNanos;
+	}
+
+	public double getBaselineNanos() {
+		return baselineNanos;
+	}
+
+	/**
+	 * Updates the bounds of the limit, e.g. when the number of nodes of the
+	 * cluster changes, keeping the current limit within them.
+	 */
+	public void setBounds(int minLimit, int maxLimit) {
+		this.minLimit = minLimit;
+		this.maxLimit = Math.max(minLimit, maxLimit);
+		this.limit = _bound(limit);
+	}
+
+	/**
+	 * Sets the limit to the given value, within the bounds, as long as no
+	 * document was recorded yet, e.g. when the nodes of the cluster become
+	 * known after the limit was created.
+	 */
+	public void seed(int initialLimit) {
+		if (!sampled) {
+			this.limit = _bound(initialLimit);
+		}
+	}
+
+	/**
+	 * Records a completed document.
+	 *
+	 * @param latencyNanos the time the document has been in flight.
+	 * @param inFlight the documents in flight when it was sent.
+	 * @param failed whether the document failed.
+	 */
+	public void onSample(long latencyNanos, int inFlight, boolean failed) {
+
+		sampled = true;
+		lastLatencyNanos = latencyNanos;
+
+		if (baselineNanos == 0) {
+			baselineNanos = latencyNanos;
+		}
+
+		boolean spike = latencyNanos > baselineNanos * latencyTolerance;
+
+		baselineNanos += (latencyNanos - baselineNanos) * BASELINE_SMOOTHING;
+
+		if (failed || spike) {
+			limit = _bound(limit * backoffRatio);
+		}
+		else if (inFlight * 2 >= (int) limit) {
+			limit = _bound(limit + 1.0 / limit);
+		}
+	}
+
+	private double _bound(double value) {
+		return Math.max(minLimit, Math.min(maxLimit, value));
+	}
+
+}
@@ -22,6 +22,7 @@ import io.openk9.datasource.pipeline.service.EmbeddingService;
 import io.openk9.datasource.pipeline.service.dto.SchedulerDTO;
 import io.openk9.datasource.pipeline.stages.working.HeldMessage;
 import io.openk9.datasource.pipeline.stages.working.Processor;
+import io.openk9.datasource.processor.payload.PayloadTree;
 
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
@@ -107,7 +108,7 @@ public class EmbeddingProcessor extends AbstractBehavior<Processor.Command> {
 		return this;
 	}
 
-	private record EmbeddingResponse(byte[] payload, Throwable throwable)
+	private record EmbeddingResponse(PayloadTree payload, Throwable throwable)
 		implements Processor.Command {}
 
 }
@@ -20,8 +20,11 @@ package io.openk9.datasource.pipeline.actor;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import io.openk9.common.util.ShardingKey;
 import io.openk9.common.util.collection.Collections;
@@ -33,11 +36,15 @@ import io.openk9.datasource.pipeline.service.dto.SchedulerDTO;
 import io.openk9.datasource.pipeline.stages.working.HeldMessage;
 import io.openk9.datasource.pipeline.stages.working.Processor;
 import io.openk9.datasource.processor.payload.DataPayload;
+import io.openk9.datasource.processor.payload.PayloadTree;
 import io.openk9.datasource.util.JsonMerge;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.DatabindCodec;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
 import org.apache.pekko.actor.typed.javadsl.ActorContext;
@@ -50,6 +57,7 @@ public class EnrichPipeline {
 	public static final EntityTypeKey<Processor.Command> ENTITY_TYPE_KEY =
 		EntityTypeKey.create(Processor.Command.class, "enrich-pipeline");
 	private static final Logger log = Logger.getLogger(EnrichPipeline.class);
+	private static final Set<String> DATA_PAYLOAD_PROPERTIES = _getProperties(DataPayload.class);
 
 	public static Behavior<Processor.Command> create(ShardingKey processKey) {
 		return Behaviors.setup(ctx -> Behaviors
@@ -70,12 +78,12 @@ public class EnrichPipeline {
 	) {
 
 		SchedulerDTO scheduler = setup.scheduler();
-		byte[] payloadArray = setup.ingestPayload();
+		PayloadTree payload = setup.ingestPayload();
 
 		ActorRef<Processor.Response> scheduling = setup.replyTo();
 		HeldMessage heldMessage = setup.heldMessage();
 
-		var dataPayload = prepareDataPayload(payloadArray, scheduler);
+		var dataPayload = prepareDataPayload(payload, scheduler);
 
 		log.infof(
 			"[schedulerId: %s, messageNumber: %s] start enrichPipeline for %s.",
@@ -104,7 +112,7 @@ public class EnrichPipeline {
 		ActorRef<HttpSupervisor.Command> httpSupervisor,
 		ActorRef<Processor.Response> replyTo,
 		HeldMessage heldMessage,
-		DataPayload dataPayload,
+		JsonObject dataPayload,
 		SchedulerDTO scheduler,
 		Set<EnrichItemDTO> enrichPipelineItems
 	) {
@@ -122,9 +130,8 @@ public class EnrichPipeline {
 				);
 			}
 
-			var buffer = Json.encodeToBuffer(dataPayload);
-
-			replyTo.tell(new Processor.Success(buffer.getBytes(), scheduler, heldMessage));
+			replyTo.tell(new Processor.Success(
+				PayloadTree.of(dataPayload), scheduler, heldMessage));
 
 			return Behaviors.stopped();
 		}
@@ -231,10 +238,8 @@ public class EnrichPipeline {
 							enrichItem.getId()
 						);
 
-						var buffer = Json.encodeToBuffer(dataPayload);
-
 						replyTo.tell(new Processor.Success(
-							buffer.getBytes(),
+							PayloadTree.of(dataPayload),
 							scheduler,
 							heldMessage
 						));
@@ -308,7 +313,7 @@ public class EnrichPipeline {
 
 				try {
 
-					JsonObject result = new JsonObject(new String(srw.jsonObject()));
+					JsonObject result = new JsonObject(Buffer.buffer(srw.jsonObject()));
 					newJsonPayload = result.getJsonObject("payload", result);
 
 				}
@@ -328,7 +333,7 @@ public class EnrichPipeline {
 						"can be skipped.",
 						schedulerId,
 						heldMessage.messageNumber(),
-						dataPayload.getContentId()
+						dataPayload.getString("contentId")
 					);
 
 					replyTo.tell(new Processor.Skip(heldMessage));
@@ -336,14 +341,14 @@ public class EnrichPipeline {
 					return Behaviors.stopped();
 				}
 
-				DataPayload newDataPayload = null;
+				JsonObject newDataPayload = null;
 
 				try {
 
 					newDataPayload =
 						mergeResponse(
 							jsonPath, behaviorMergeType, dataPayload,
-							newJsonPayload.mapTo(DataPayload.class)
+							_getRest(newJsonPayload)
 						);
 
 				}
@@ -381,12 +386,21 @@ public class EnrichPipeline {
 
 	}
 
-	private static DataPayload mergeResponse(
+	private static JsonObject mergeResponse(
 		String jsonPath, EnrichItem.BehaviorMergeType behaviorMergeType,
-		DataPayload prevDataPayload, DataPayload newDataPayload) {
+		JsonObject prevDataPayload, JsonObject newJsonObject) {
+
+		JsonObject dataPayload = new JsonObject(new LinkedHashMap<>(prevDataPayload.size()));
+		JsonObject prevJsonObject = new JsonObject(new LinkedHashMap<>(prevDataPayload.size()));
 
-		JsonObject prevJsonObject = new JsonObject(new LinkedHashMap<>(prevDataPayload.getRest()));
-		JsonObject newJsonObject = new JsonObject(new LinkedHashMap<>(newDataPayload.getRest()));
+		for (Map.Entry<String, Object> entry : prevDataPayload.getMap().entrySet()) {
+			if (DATA_PAYLOAD_PROPERTIES.contains(entry.getKey())) {
+				dataPayload.put(entry.getKey(), entry.getValue());
+			}
+			else {
+				prevJsonObject.put(entry.getKey(), entry.getValue());
+			}
+		}
 
 		if (jsonPath == null || jsonPath.isBlank()) {
 			jsonPath = "$";
@@ -401,23 +415,66 @@ public class EnrichPipeline {
 			prevJsonObject, newJsonObject
 		);
 
-		return prevDataPayload.rest(jsonMerge.merge(jsonPath).getMap());
+		dataPayload.getMap().putAll(jsonMerge.merge(jsonPath).getMap());
+
+		return dataPayload;
 
 	}
 
-	private static DataPayload prepareDataPayload(byte[] payloadArray, SchedulerDTO scheduler) {
-		DataPayload dataPayload =
-			Json.decodeValue(Buffer.buffer(payloadArray), DataPayload.class);
+	/**
+	 * Returns the fields of the enrich item response that are not properties
+	 * of {@link DataPayload}, skipping the empty ones like
+	 * {@link DataPayload#addRest} does, the only ones that are merged.
+	 */
+	private static JsonObject _getRest(JsonObject jsonPayload) {
+
+		JsonObject rest = new JsonObject(new LinkedHashMap<>(jsonPayload.size()));
 
-		dataPayload.setIndexName(scheduler.getIndexName());
+		for (Map.Entry<String, Object> entry : jsonPayload.getMap().entrySet()) {
+
+			String key = entry.getKey();
+			Object value = entry.getValue();
+
+			if (DATA_PAYLOAD_PROPERTIES.contains(key)
+				|| value == null
+				|| value instanceof Collection<?> collection && collection.isEmpty()
+				|| value instanceof Map<?, ?> map && map.isEmpty()
+				|| value instanceof JsonArray array && array.isEmpty()
+				|| value instanceof JsonObject object && object.isEmpty()) {
+
+				continue;
+			}
+
+			rest.put(key, value);
+		}
+
+		return rest;
+	}
+
+	private static JsonObject prepareDataPayload(PayloadTree payload, SchedulerDTO scheduler) {
+		JsonObject dataPayload = payload.asObject();
+
+		dataPayload.put("indexName", scheduler.getIndexName());
 
 		String oldDataIndexName = scheduler.getOldIndexName();
 		if (oldDataIndexName != null) {
-			dataPayload.setOldIndexName(oldDataIndexName);
+			dataPayload.put("oldIndexName", oldDataIndexName);
 		}
 		return dataPayload;
 	}
 
+	private static Set<String> _getProperties(Class<?> type) {
+
+		ObjectMapper mapper = DatabindCodec.mapper();
+
+		return mapper.getSerializationConfig()
+			.introspect(mapper.constructType(type))
+			.findProperties()
+			.stream()
+			.map(BeanPropertyDefinition::getName)
+			.collect(Collectors.toUnmodifiableSet());
+	}
+
 	private record EnrichItemSupervisorResponseWrapper(
 		EnrichItemSupervisor.Response response
 	) implements Processor.Command {}
@@ -17,25 +17,33 @@
 
 package io.openk9.datasource.pipeline.actor;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 import jakarta.enterprise.inject.spi.CDI;
 
+import io.openk9.datasource.actor.PekkoUtils;
 import io.openk9.datasource.events.DatasourceEventBus;
 import io.openk9.datasource.events.DatasourceMessage;
 import io.openk9.datasource.pipeline.service.dto.SchedulerDTO;
 import io.openk9.datasource.pipeline.stages.working.HeldMessage;
 import io.openk9.datasource.pipeline.stages.working.Writer;
-import io.openk9.datasource.processor.payload.DataPayload;
+import io.openk9.datasource.processor.payload.PayloadTree;
 
-import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.Json;
+import com.typesafe.config.Config;
 import io.vertx.core.json.JsonObject;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
 import org.apache.pekko.actor.typed.javadsl.ActorContext;
 import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.actor.typed.javadsl.TimerScheduler;
 import org.opensearch.action.DocWriteRequest;
 import org.opensearch.action.DocWriteResponse;
 import org.opensearch.action.bulk.BulkItemResponse;
@@ -45,66 +53,122 @@ import org.opensearch.action.delete.DeleteRequest;
 import org.opensearch.action.index.IndexRequest;
 import org.opensearch.action.search.SearchRequest;
 import org.opensearch.action.search.SearchResponse;
-import org.opensearch.action.support.WriteRequest;
 import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
 import org.opensearch.common.xcontent.XContentType;
 import org.opensearch.core.action.ActionListener;
 import org.opensearch.index.query.QueryBuilders;
-import org.opensearch.index.query.TermQueryBuilder;
+import org.opensearch.search.SearchHit;
 import org.opensearch.search.builder.SearchSourceBuilder;
 import org.slf4j.Logger;
 
+/**
+ * Writes the documents of a scheduling in micro-batches.
+ *
+ * <p>Every {@link Writer.Start} is collected in a pending batch, that is
+ * written with a single bulk request as soon as no other bulk of the writer
+ * is in flight, so that a lone document is not delayed. While a bulk is in
+ * flight, the documents that arrive are batched together, and the batch is
+ * written when the bulk completes, when it reaches the configured number of
+ * actions ({@value #BULK_MAX_ACTIONS}) or size in bytes
+ * ({@value #BULK_MAX_BYTES}), or when the linger time ({@value #BULK_LINGER})
+ * elapses since the first document was added to it. The bulk does not force
+ * a refresh, and every {@link BulkItemResponse} is mapped back to the
+ * {@link HeldMessage} that produced it, so that the replies and the
+ * datasource events are still sent per document.</p>
+ *
+ * <p>Documents are indexed with the id returned by
+ * {@link #documentId(long, String)}, so that upserts and deletes do not need
+ * to read the index first. Indices written before this id scheme contain
+ * documents with generated ids: unless {@value #ID_MIGRATION} is disabled,
+ * the ids of the documents of a batch are looked up in the old index with a
+ * single terms query, and the documents already present are overwritten or
+ * deleted in place, so that they are not duplicated. It can be disabled
+ * once every index was written with the new ids.</p>
+ */
 public class IndexWriter {
 
+	public static final String BULK_MAX_ACTIONS =
+		"io.openk9.pipeline.index-writer.bulk.max-actions";
+	public static final String BULK_MAX_BYTES =
+		"io.openk9.pipeline.index-writer.bulk.max-bytes";
+	public static final String BULK_LINGER =
+		"io.openk9.pipeline.index-writer.bulk.linger";
+	public static final String ID_MIGRATION =
+		"io.openk9.pipeline.index-writer.id-migration";
+	public static final int BULK_MAX_ACTIONS_DEFAULT = 500;
+	public static final long BULK_MAX_BYTES_DEFAULT = 5L * 1024 * 1024;
+	public static final Duration BULK_LINGER_DEFAULT = Duration.ofMillis(200);
+	public static final boolean ID_MIGRATION_DEFAULT = true;
+	private static final String CONTENT_ID = "contentId";
+	private static final int MAX_LOOKUP_SIZE = 10000;
+
 	public static Behavior<Writer.Command> create(
 		SchedulerDTO scheduler,
 		ActorRef<Writer.Response> replyTo) {
 
-		return Behaviors.setup(ctx -> {
+		return Behaviors.setup(ctx -> Behaviors.withTimers(timers -> {
 
 			RestHighLevelClient restHighLevelClient =
 				CDI.current().select(RestHighLevelClient.class).get();
 
-			var oldDataIndexName = scheduler.getOldIndexName();
-			var newDataIndexName = scheduler.getNewIndexName();
+			Config config = ctx.getSystem().settings().config();
 
 			return initial(
 				ctx,
+				timers,
 				restHighLevelClient,
-				oldDataIndexName,
-				newDataIndexName,
+				scheduler,
+				new Batch(config),
+				PekkoUtils.getProperty(
+					config, ID_MIGRATION, config::getBoolean, ID_MIGRATION_DEFAULT),
 				replyTo
 			);
 
-		});
+		}));
 	}
 
-	private static DocWriteRequest createDocWriteRequest(
-		String indexName, byte[] dataPayload, Logger logger,
-		SearchResponse searchResponse, HeldMessage heldMessage) {
+	/**
+	 * Returns the id of the document with the given contentId, in the indices
+	 * of the given datasource.
+	 */
+	public static String documentId(long datasourceId, String contentId) {
+		return UUID
+			.nameUUIDFromBytes(
+				(datasourceId + ":" + contentId).getBytes(StandardCharsets.UTF_8))
+			.toString();
+	}
 
-		IndexRequest indexRequest = new IndexRequest(indexName);
+	private static DocWriteRequest<?> createDocWriteRequest(
+		String indexName, String documentId, Document document, Logger logger) {
 
-		if (searchResponse != null && searchResponse.getHits().getHits().length > 0) {
+		var heldMessage = document.heldMessage();
 
-			logger.info("found document for contentId: " + heldMessage.contentId());
+		if (document.dataPayload() == null) {
 
-			String documentId = searchResponse.getHits().getAt(0).getId();
+			logger.info("delete document for contentId: " + heldMessage.contentId());
 
-			indexRequest.id(documentId);
+			return new DeleteRequest(indexName, documentId);
+		}
 
-			if (dataPayload == null) {
+		logger.info("index document for contentId: " + heldMessage.contentId());
 
-				logger.info("delete document for contentId: " + heldMessage.contentId());
+		return new IndexRequest(indexName)
+			.id(documentId)
+			.source(document.source(), XContentType.JSON);
+	}
 
-				return new DeleteRequest(indexName, documentId);
-			}
-		}
+	/**
+	 * Returns the document to write for the payload, with its source encoded
+	 * once for all the indices it is written to.
+	 */
+	static Document createDocument(HeldMessage heldMessage, PayloadTree payload) {
 
-		logger.info("index document for contentId: " + heldMessage.contentId());
+		if (payload == null) {
+			return new Document(heldMessage, null, null);
+		}
 
-		var jsonObject = (JsonObject) Json.decodeValue(Buffer.buffer(dataPayload));
+		var jsonObject = payload.asObject();
 
 		JsonObject acl =
 			jsonObject.getJsonObject("acl");
@@ -113,296 +177,530 @@ public class IndexWriter {
 			jsonObject.put("acl", Map.of("public", true));
 		}
 
-		return indexRequest.source(jsonObject.toString(), XContentType.JSON);
+		return new Document(heldMessage, jsonObject, jsonObject.toBuffer().getBytes());
 	}
 
 	private static Behavior<Writer.Command> initial(
-		ActorContext<Writer.Command> ctx, RestHighLevelClient restHighLevelClient,
-		String oldDataIndexName,
-		String newDataIndexName,
+		ActorContext<Writer.Command> ctx,
+		TimerScheduler<Writer.Command> timers,
+		RestHighLevelClient restHighLevelClient,
+		SchedulerDTO scheduler,
+		Batch batch,
+		boolean idMigration,
 		ActorRef<Writer.Response> replyTo) {
 
 		Logger logger = ctx.getLog();
 
 		return Behaviors.receive(Writer.Command.class)
-			.onMessage(Writer.Start.class, (start) -> onStart(
-					ctx,
-					restHighLevelClient,
-					oldDataIndexName,
-					start
-				)
+			.onMessage(Writer.Start.class, start -> onStart(
+				ctx, timers, restHighLevelClient, scheduler, batch, idMigration, start, replyTo)
 			)
-			.onMessage(SearchResponseCommand.class, src -> onSearchResponseCommand(
-				ctx, restHighLevelClient, src, logger, oldDataIndexName, newDataIndexName)
+			.onMessageEquals(Flush.INSTANCE, () -> onFlush(
+				ctx, timers, restHighLevelClient, scheduler, batch, idMigration)
+			)
+			.onMessage(LookupResponseCommand.class, lrc -> onLookupResponseCommand(
+				ctx, restHighLevelClient, scheduler, lrc, logger)
 			)
 			.onMessage(BulkResponseCommand.class, brc -> onBulkResponseCommand(
-				logger, brc, replyTo)
+				ctx, timers, restHighLevelClient, scheduler, batch, idMigration, brc, replyTo)
 			)
 			.build();
 	}
 
-	private static Behavior<Writer.Command> onBulkResponseCommand(
-		Logger logger, BulkResponseCommand brc, ActorRef<Writer.Response> replyTo) {
+	private static Behavior<Writer.Command> onStart(
+		ActorContext<Writer.Command> ctx,
+		TimerScheduler<Writer.Command> timers,
+		RestHighLevelClient restHighLevelClient,
+		SchedulerDTO scheduler,
+		Batch batch,
+		boolean idMigration,
+		Writer.Start start,
+		ActorRef<Writer.Response> replyTo) {
 
-		BulkResponse bulkResponse = brc.bulkResponse;
-		Exception throwable = brc.exception;
-		DataPayload dataPayload =
-			Json.decodeValue(Buffer.buffer(brc.dataPayload()), DataPayload.class);
+		var heldMessage = start.heldMessage();
 
-		var heldMessage = brc.heldMessage;
+		ctx.getLog().info("index writer start for content: " + heldMessage.contentId());
 
-		if (throwable != null) {
-			logger.warn("Error on bulk request", throwable);
-			replyTo.tell(new Writer.Failure(new WriterException(throwable), heldMessage));
+		Document document;
+
+		try {
+			document = createDocument(heldMessage, start.dataPayload());
+		}
+		catch (Exception e) {
+			ctx.getLog().warn(
+				"Cannot create the document for contentId: " + heldMessage.contentId(), e);
+
+			replyTo.tell(new Writer.Failure(new WriterException(e), heldMessage));
 
 			return Behaviors.same();
 		}
 
-		if (bulkResponse != null) {
-
-			if (bulkResponse.hasFailures()) {
-				String errorMessage = bulkResponse.buildFailureMessage();
-
-				DatasourceEventBus.sendMessage(DatasourceMessage.Failure
-					.builder()
-					.ingestionId(dataPayload.getIngestionId())
-					.datasourceId(dataPayload.getDatasourceId())
-					.contentId(dataPayload.getContentId())
-					.parsingDate(dataPayload.getParsingDate())
-					.tenantId(dataPayload.getTenantId())
-					.indexName(dataPayload.getIndexName())
-					.error(errorMessage)
-					.build()
-				);
+		int actions =
+			(scheduler.getOldIndexName() != null ? 1 : 0)
+			+ (scheduler.getNewIndexName() != null ? 1 : 0);
 
-				logger.warn("Bulk request error: {}", errorMessage);
-				replyTo.tell(new Writer.Failure(
-					new WriterException(errorMessage),
-					heldMessage
-				));
-			}
-			else {
+		batch.add(document, actions);
 
-				for (BulkItemResponse itemResponse : bulkResponse) {
+		// with no bulk in flight, lingering would only delay the document.
+		if (batch.isFull() || batch.inFlight == 0) {
+			flush(ctx, timers, restHighLevelClient, scheduler, batch, idMigration);
+		}
+		else if (batch.size() == 1) {
+			timers.startSingleTimer(Flush.INSTANCE, batch.linger);
+		}
 
-					DocWriteResponse response = itemResponse.getResponse();
-					String index = response.getIndex();
-					DocWriteResponse.Result result = response.getResult();
+		return Behaviors.same();
+	}
 
-					DatasourceMessage.DatasourceMessageBuilder<?, ?> messageBuilder =
-						switch (result) {
-							case CREATED -> DatasourceMessage.New.builder();
-							case UPDATED -> DatasourceMessage.Update.builder();
-							case DELETED -> DatasourceMessage.Delete.builder();
-							default -> DatasourceMessage.Unknown.builder();
-						};
+	private static Behavior<Writer.Command> onFlush(
+		ActorContext<Writer.Command> ctx,
+		TimerScheduler<Writer.Command> timers,
+		RestHighLevelClient restHighLevelClient,
+		SchedulerDTO scheduler,
+		Batch batch,
+		boolean idMigration) {
 
-					DatasourceEventBus.sendMessage(messageBuilder
-						.ingestionId(dataPayload.getIngestionId())
-						.datasourceId(dataPayload.getDatasourceId())
-						.contentId(dataPayload.getContentId())
-						.parsingDate(dataPayload.getParsingDate())
-						.tenantId(dataPayload.getTenantId())
-						.indexName(index)
-						.build()
-					);
+		if (!batch.isEmpty()) {
+			flush(ctx, timers, restHighLevelClient, scheduler, batch, idMigration);
+		}
 
-				}
+		return Behaviors.same();
+	}
 
-				replyTo.tell(new Writer.Success(heldMessage));
-			}
+	private static void flush(
+		ActorContext<Writer.Command> ctx,
+		TimerScheduler<Writer.Command> timers,
+		RestHighLevelClient restHighLevelClient,
+		SchedulerDTO scheduler,
+		Batch batch,
+		boolean idMigration) {
+
+		timers.cancel(Flush.INSTANCE);
+
+		List<Document> documents = batch.documents;
+
+		batch.reset();
+		batch.inFlight++;
 
+		var oldDataIndexName = scheduler.getOldIndexName();
+
+		if (!idMigration || oldDataIndexName == null) {
+			bulk(ctx, restHighLevelClient, scheduler, documents, Map.of());
+
+			return;
 		}
 
-		return Behaviors.same();
+		Set<String> contentIds = documents.stream()
+			.map(document -> document.heldMessage().contentId())
+			.collect(Collectors.toSet());
+
+		SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+			.query(QueryBuilders.termsQuery("contentId.keyword", contentIds))
+			.fetchSource(CONTENT_ID, null)
+			.size(Math.min(contentIds.size() * 2, MAX_LOOKUP_SIZE));
+
+		SearchRequest searchRequest = new SearchRequest(oldDataIndexName)
+			.source(searchSourceBuilder);
+
+		restHighLevelClient.searchAsync(
+			searchRequest, RequestOptions.DEFAULT,
+			new ActionListener<>() {
+				@Override
+				public void onResponse(SearchResponse searchResponse) {
+					ctx.getSelf().tell(
+						new LookupResponseCommand(documents, searchResponse, null));
+				}
+
+				@Override
+				public void onFailure(Exception e) {
+					ctx.getSelf().tell(
+						new LookupResponseCommand(documents, null, e));
+				}
+			});
 	}
 
-	private static Behavior<Writer.Command> onSearchResponseCommand(
+	private static Behavior<Writer.Command> onLookupResponseCommand(
 		ActorContext<Writer.Command> ctx,
 		RestHighLevelClient restHighLevelClient,
-		SearchResponseCommand src,
-		Logger logger,
-		String oldDataIndexName,
-		String newDataIndexName) {
+		SchedulerDTO scheduler,
+		LookupResponseCommand lrc,
+		Logger logger) {
 
-		Exception exception = src.exception;
-		byte[] dataPayload = src.dataPayload;
-		SearchResponse searchResponse = src.searchResponse;
-		var heldMessage = src.heldMessage();
+		Exception exception = lrc.exception;
+		SearchResponse searchResponse = lrc.searchResponse;
+
+		Map<String, String> legacyIds = Map.of();
 
 		if (exception != null) {
 			logger.error("Error on search", exception);
 		}
+		else if (searchResponse != null) {
 
-		BulkRequest bulkRequest = new BulkRequest();
-		bulkRequest.setRefreshPolicy(WriteRequest.RefreshPolicy.WAIT_UNTIL);
-
-		if (oldDataIndexName != null) {
-			bulkRequest.add(createDocWriteRequest(
-				oldDataIndexName,
-				dataPayload,
-				logger,
-				searchResponse,
-				heldMessage
-			));
+			legacyIds = legacyIds(searchResponse.getHits());
+
+			logger.debug("found {} documents to migrate", legacyIds.size());
 		}
-		if (newDataIndexName != null) {
-			bulkRequest.add(createDocWriteRequest(
-				newDataIndexName,
-				dataPayload,
-				logger,
-				searchResponse,
-				heldMessage
-			));
+
+		bulk(ctx, restHighLevelClient, scheduler, lrc.documents, legacyIds);
+
+		return Behaviors.same();
+	}
+
+	/**
+	 * Returns the ids of the documents found in the old index, by contentId.
+	 */
+	static Map<String, String> legacyIds(Iterable<SearchHit> hits) {
+
+		Map<String, String> legacyIds = new HashMap<>();
+
+		for (SearchHit hit : hits) {
+
+			Object contentId = hit.getSourceAsMap().get(CONTENT_ID);
+
+			if (contentId != null) {
+				legacyIds.putIfAbsent(contentId.toString(), hit.getId());
+			}
 		}
 
+		return legacyIds;
+	}
+
+	private static void bulk(
+		ActorContext<Writer.Command> ctx,
+		RestHighLevelClient restHighLevelClient,
+		SchedulerDTO scheduler,
+		List<Document> documents,
+		Map<String, String> legacyIds) {
+
+		Logger logger = ctx.getLog();
+
+		List<BatchItem> items = new ArrayList<>(documents.size());
+
+		BulkRequest bulkRequest = bulkRequest(
+			documents,
+			scheduler.getOldIndexName(),
+			scheduler.getNewIndexName(),
+			scheduler.getDatasourceId(),
+			legacyIds,
+			items,
+			logger
+		);
+
+		if (bulkRequest.numberOfActions() == 0) {
+			ctx.getSelf().tell(new BulkResponseCommand(items, null, null));
+
+			return;
+		}
+
+		logger.debug(
+			"send bulk request with {} documents and {} actions",
+			items.size(), bulkRequest.numberOfActions());
+
 		restHighLevelClient.bulkAsync(
 			bulkRequest, RequestOptions.DEFAULT,
 			new ActionListener<>() {
 				@Override
 				public void onResponse(BulkResponse bulkResponse) {
 					ctx.getSelf().tell(
-						new BulkResponseCommand(dataPayload, heldMessage, bulkResponse, null));
+						new BulkResponseCommand(items, bulkResponse, null));
 				}
 
 				@Override
 				public void onFailure(Exception e) {
 					ctx.getSelf().tell(
-						new BulkResponseCommand(dataPayload, heldMessage, null, e));
+						new BulkResponseCommand(items, null, e));
 				}
 			});
+	}
 
-		return Behaviors.same();
+	/**
+	 * Returns the bulk request that writes the documents, adding to
+	 * {@code items} the range of the actions of every document in it.
+	 */
+	static BulkRequest bulkRequest(
+		List<Document> documents,
+		String oldDataIndexName,
+		String newDataIndexName,
+		long datasourceId,
+		Map<String, String> legacyIds,
+		List<BatchItem> items,
+		Logger logger) {
+
+		BulkRequest bulkRequest = new BulkRequest();
+
+		for (Document document : documents) {
+
+			var heldMessage = document.heldMessage();
+			var contentId = heldMessage.contentId();
+			var documentId = documentId(datasourceId, contentId);
+
+			int from = bulkRequest.numberOfActions();
+
+			try {
+
+				if (oldDataIndexName != null) {
+					bulkRequest.add(createDocWriteRequest(
+						oldDataIndexName,
+						legacyIds.getOrDefault(contentId, documentId),
+						document,
+						logger
+					));
+				}
+				if (newDataIndexName != null) {
+					bulkRequest.add(createDocWriteRequest(
+						newDataIndexName,
+						documentId,
+						document,
+						logger
+					));
+				}
+
+			}
+			catch (Exception e) {
+				logger.warn("Cannot create the write request for contentId: " + contentId, e);
+
+				items.add(new BatchItem(heldMessage, null, from, from, e));
+
+				continue;
+			}
+
+			items.add(new BatchItem(
+				heldMessage,
+				document.dataPayload(),
+				from,
+				bulkRequest.numberOfActions(),
+				null
+			));
+		}
+
+		return bulkRequest;
 	}
 
-	private static Behavior<Writer.Command> onStart(
+	/**
+	 * Returns the failures of the actions of the item, or an empty list when
+	 * they all succeeded.
+	 */
+	static List<String> failures(BulkItemResponse[] itemResponses, BatchItem item) {
+
+		List<String> failures = new ArrayList<>();
+
+		for (int i = item.from(); i < item.to(); i++) {
+			BulkItemResponse itemResponse = itemResponses[i];
+
+			if (itemResponse.isFailed()) {
+				failures.add(String.format(
+					"[%s]: index [%s], id [%s], message [%s]",
+					itemResponse.getItemId(),
+					itemResponse.getIndex(),
+					itemResponse.getId(),
+					itemResponse.getFailureMessage()
+				));
+			}
+		}
+
+		return failures;
+	}
+
+	private static Behavior<Writer.Command> onBulkResponseCommand(
 		ActorContext<Writer.Command> ctx,
+		TimerScheduler<Writer.Command> timers,
 		RestHighLevelClient restHighLevelClient,
-		String oldDataIndexName,
-		Writer.Start start) {
+		SchedulerDTO scheduler,
+		Batch batch,
+		boolean idMigration,
+		BulkResponseCommand brc,
+		ActorRef<Writer.Response> replyTo) {
 
-		var dataPayload = start.dataPayload();
-		var heldMessage = start.heldMessage();
+		Logger logger = ctx.getLog();
 
+		_reply(logger, brc, replyTo);
 
-		ctx.getLog().info("index writer start for content: " + heldMessage.contentId());
+		batch.inFlight--;
 
-		if (oldDataIndexName != null) {
-			SearchRequest searchRequest = new SearchRequest(oldDataIndexName);
+		// the documents that arrived during the bulk do not wait the linger.
+		if (!batch.isEmpty() && batch.inFlight == 0) {
+			flush(ctx, timers, restHighLevelClient, scheduler, batch, idMigration);
+		}
 
-			TermQueryBuilder termQueryBuilder =
-				QueryBuilders.termQuery("contentId.keyword", heldMessage.contentId());
+		return Behaviors.same();
+	}
 
-			SearchSourceBuilder searchSourceBuilder =
-				new SearchSourceBuilder();
+	private static void _reply(
+		Logger logger, BulkResponseCommand brc, ActorRef<Writer.Response> replyTo) {
 
-			searchSourceBuilder.query(termQueryBuilder);
+		BulkResponse bulkResponse = brc.bulkResponse;
+		Exception throwable = brc.exception;
+
+		if (throwable != null) {
+			logger.warn("Error on bulk request", throwable);
+		}
+
+		BulkItemResponse[] itemResponses =
+			bulkResponse != null ? bulkResponse.getItems() : new BulkItemResponse[0];
+
+		for (BatchItem item : brc.items) {
 
-			searchRequest.source(searchSourceBuilder);
+			var heldMessage = item.heldMessage();
+			var dataPayload = item.dataPayload();
 
-			restHighLevelClient.searchAsync(
-				searchRequest, RequestOptions.DEFAULT,
-				new ActionListener<>() {
-					@Override
-					public void onResponse(SearchResponse searchResponse) {
-						ctx.getSelf().tell(
-							new SearchResponseCommand(
-								dataPayload, heldMessage, searchResponse, null));
-					}
+			if (item.exception() != null) {
+				replyTo.tell(new Writer.Failure(
+					new WriterException(item.exception()), heldMessage));
+
+				continue;
+			}
+
+			if (throwable != null) {
+				replyTo.tell(new Writer.Failure(
+					new WriterException(throwable), heldMessage));
+
+				continue;
+			}
 
-					@Override
-					public void onFailure(Exception e) {
-						ctx.getSelf().tell(
-							new SearchResponseCommand(
-								dataPayload, heldMessage, null, e));
-					}
-				});
+			List<BulkItemResponse> responses =
+				Arrays.asList(itemResponses).subList(item.from(), item.to());
+
+			List<String> failures = failures(itemResponses, item);
+
+			if (!failures.isEmpty()) {
+				String errorMessage = String.join("\n", failures);
+
+				sendDatasourceMessage(
+					DatasourceMessage.Failure.builder().error(errorMessage),
+					dataPayload,
+					heldMessage,
+					responses.get(0).getIndex()
+				);
+
+				logger.warn("Bulk request error: {}", errorMessage);
+				replyTo.tell(new Writer.Failure(
+					new WriterException(errorMessage),
+					heldMessage
+				));
+			}
+			else {
+
+				for (BulkItemResponse itemResponse : responses) {
+
+					DocWriteResponse response = itemResponse.getResponse();
+					String index = response.getIndex();
+					DocWriteResponse.Result result = response.getResult();
+
+					DatasourceMessage.DatasourceMessageBuilder<?, ?> messageBuilder =
+						switch (result) {
+							case CREATED -> DatasourceMessage.New.builder();
+							case UPDATED -> DatasourceMessage.Update.builder();
+							case DELETED -> DatasourceMessage.Delete.builder();
+							default -> DatasourceMessage.Unknown.builder();
+						};
+
+					sendDatasourceMessage(
+						messageBuilder, dataPayload, heldMessage, index);
+
+				}
+
+				replyTo.tell(new Writer.Success(heldMessage));
+			}
+		}
+	}
+
+	private static void sendDatasourceMessage(
+		DatasourceMessage.DatasourceMessageBuilder<?, ?> messageBuilder,
+		JsonObject dataPayload,
+		HeldMessage heldMessage,
+		String indexName) {
+
+		if (dataPayload != null) {
+			messageBuilder
+				.ingestionId(dataPayload.getString("ingestionId"))
+				.datasourceId(dataPayload.getLong("datasourceId", 0L))
+				.contentId(dataPayload.getString("contentId"))
+				.parsingDate(dataPayload.getLong("parsingDate", 0L))
+				.tenantId(dataPayload.getString("tenantId"));
 		}
 		else {
-			ctx.getSelf().tell(
-				new SearchResponseCommand(
-					dataPayload, heldMessage, null, null));
+			messageBuilder
+				.contentId(heldMessage.contentId())
+				.parsingDate(heldMessage.parsingDate())
+				.tenantId(heldMessage.processKey().tenantId());
 		}
 
-		return Behaviors.same();
+		DatasourceEventBus.sendMessage(messageBuilder
+			.indexName(indexName)
+			.build()
+		);
 	}
 
+	private enum Flush implements Writer.Command {
+		INSTANCE
+	}
+
+	private record LookupResponseCommand(
+		List<Document> documents,
+		SearchResponse searchResponse,
+		Exception exception
+	) implements Writer.Command {}
+
 	private record BulkResponseCommand(
-		byte[] dataPayload,
-		HeldMessage heldMessage,
+		List<BatchItem> items,
 		BulkResponse bulkResponse,
 		Exception exception
-	) implements Writer.Command {
-		@Override
-		public boolean equals(Object o) {
-			if (o == null || getClass() != o.getClass()) {
-				return false;
-			}
-			BulkResponseCommand that = (BulkResponseCommand) o;
-			return Objects.deepEquals(dataPayload, that.dataPayload) && Objects.equals(
-				exception,
-				that.exception
-			) && Objects.equals(heldMessage, that.heldMessage) && Objects.equals(
-				bulkResponse,
-				that.bulkResponse
-			);
+	) implements Writer.Command {}
+
+	record Document(HeldMessage heldMessage, JsonObject dataPayload, byte[] source) {}
+
+	record BatchItem(
+		HeldMessage heldMessage,
+		JsonObject dataPayload,
+		int from,
+		int to,
+		Exception exception
+	) {}
+
+	private static class Batch {
+
+		private final int maxActions;
+		private final long maxBytes;
+		private final Duration linger;
+		private List<Document> documents = new ArrayList<>();
+		private int actions;
+		private long bytes;
+		private int inFlight;
+
+		private Batch(Config config) {
+			this.maxActions = PekkoUtils.getInteger(
+				config, BULK_MAX_ACTIONS, BULK_MAX_ACTIONS_DEFAULT);
+			this.maxBytes = PekkoUtils.getProperty(
+				config, BULK_MAX_BYTES, config::getBytes, BULK_MAX_BYTES_DEFAULT);
+			this.linger = PekkoUtils.getDuration(
+				config, BULK_LINGER, BULK_LINGER_DEFAULT);
 		}
 
-		@Override
-		public int hashCode() {
-			return Objects.hash(Arrays.hashCode(dataPayload), heldMessage, bulkResponse, exception);
+		private void add(Document document, int actions) {
+			this.documents.add(document);
+			this.actions += actions;
+
+			if (document.source() != null) {
+				this.bytes += (long) document.source().length * actions;
+			}
 		}
 
-		@Override
-		public String toString() {
-			return "BulkResponseCommand{" +
-				   "dataPayload=" + Arrays.toString(dataPayload) +
-				   ", heldMessage=" + heldMessage +
-				   ", bulkResponse=" + bulkResponse +
-				   ", exception=" + exception +
-				   '}';
+		private boolean isEmpty() {
+			return documents.isEmpty();
 		}
-	}
 
-	private record SearchResponseCommand(
-		byte[] dataPayload,
-		HeldMessage heldMessage,
-		SearchResponse searchResponse,
-		Exception exception
-	) implements Writer.Command {
-		@Override
-		public boolean equals(Object o) {
-			if (o == null || getClass() != o.getClass()) {
-				return false;
-			}
-			SearchResponseCommand that = (SearchResponseCommand) o;
-			return Objects.deepEquals(dataPayload, that.dataPayload) && Objects.equals(
-				exception,
-				that.exception
-			) && Objects.equals(heldMessage, that.heldMessage) && Objects.equals(
-				searchResponse,
-				that.searchResponse
-			);
+		private int size() {
+			return documents.size();
 		}
 
-		@Override
-		public int hashCode() {
-			return Objects.hash(
-				Arrays.hashCode(dataPayload),
-				heldMessage,
-				searchResponse,
-				exception
-			);
+		private boolean isFull() {
+			return actions >= maxActions || bytes >= maxBytes;
 		}
 
-		@Override
-		public String toString() {
-			return "SearchResponseCommand{" +
-				   "dataPayload=" + Arrays.toString(dataPayload) +
-				   ", heldMessage=" + heldMessage +
-				   ", searchResponse=" + searchResponse +
-				   ", exception=" + exception +
-				   '}';
+		private void reset() {
+			this.documents = new ArrayList<>();
+			this.actions = 0;
+			this.bytes = 0;
 		}
 
 	}
@@ -256,7 +256,7 @@ public class MessageGateway
 		QueueManager.QueueBind queueBind = spawnConsumer.queueBind;
 
 		try {
-			channel.basicQos(getWorkersPerNode(getContext()));
+			channel.basicQos(getMaxWorkersPerNode(getContext()));
 			channel.basicConsume(
 				queueBind.getMainQueue(),
 				false,
@@ -373,13 +373,26 @@ public class MessageGateway
 
 	}
 
-	private int getWorkersPerNode(ActorContext<Command> context) {
+	/*
+	 * The consumers of every scheduling share the same channel, and the
+	 * prefetch cannot be changed for a consumer that is already registered:
+	 * the prefetch is the upper bound of the concurrency limit, the Scheduling
+	 * actor keeps the messages over its current limit waiting.
+	 */
+	private int getMaxWorkersPerNode(ActorContext<Command> context) {
 		Config config = context.getSystem().settings().config();
 
-		return PekkoUtils.getInteger(
-			config,
-			Scheduling.WORKERS_PER_NODE,
-			Scheduling.WORKERS_PER_NODE_DEFAULT
+		return Math.max(
+			PekkoUtils.getInteger(
+				config,
+				Scheduling.WORKERS_PER_NODE,
+				Scheduling.WORKERS_PER_NODE_DEFAULT
+			),
+			PekkoUtils.getInteger(
+				config,
+				Scheduling.MAX_WORKERS_PER_NODE,
+				Scheduling.MAX_WORKERS_PER_NODE_DEFAULT
+			)
 		);
 	}
 }
@@ -31,6 +31,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import jakarta.enterprise.inject.spi.CDI;
 
 import io.openk9.common.util.ShardingKey;
 import io.openk9.datasource.actor.PekkoUtils;
@@ -47,9 +49,15 @@ import io.openk9.datasource.pipeline.stages.closing.CloseStage;
 import io.openk9.datasource.pipeline.stages.working.HeldMessage;
 import io.openk9.datasource.pipeline.stages.working.Processor;
 import io.openk9.datasource.pipeline.stages.working.WorkStage;
+import io.openk9.datasource.processor.payload.PayloadTree;
 import io.openk9.datasource.util.CborSerializable;
 
 import com.typesafe.config.Config;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.runtime.util.ExceptionUtil;
 import lombok.Getter;
 import org.apache.pekko.actor.typed.ActorRef;
@@ -77,6 +85,14 @@ public class Scheduling extends AbstractBehavior<Scheduling.Command> {
 	public static final String SCHEDULING_TIMEOUT = "io.openk9.scheduling.timeout";
 	public static final String WORKERS_PER_NODE = "io.openk9.scheduling.workers-per-node";
 	public static final int WORKERS_PER_NODE_DEFAULT = 2;
+	public static final String MAX_WORKERS_PER_NODE =
+		"io.openk9.scheduling.concurrency.max-workers-per-node";
+	public static final int MAX_WORKERS_PER_NODE_DEFAULT = 16;
+	public static final String BACKOFF_RATIO = "io.openk9.scheduling.concurrency.backoff-ratio";
+	public static final double BACKOFF_RATIO_DEFAULT = 0.9;
+	public static final String LATENCY_TOLERANCE =
+		"io.openk9.scheduling.concurrency.latency-tolerance";
+	public static final double LATENCY_TOLERANCE_DEFAULT = 2.0;
 	private static final String BUSY_BEHAVIOR = "Busy";
 	private static final String CLOSING_BEHAVIOR = "Closing";
 	private static final String GRACEFUL_ENDING_BEHAVIOR = "Graceful Ending";
@@ -86,19 +102,24 @@ public class Scheduling extends AbstractBehavior<Scheduling.Command> {
 	private static final String STOPPED_BEHAVIOR = "Stopped";
 	private static final Logger log = Logger.getLogger(Scheduling.class);
 	private final Map<HeldMessage, ActorRef<Response>> heldMessages = new HashMap<>();
+	private final Map<HeldMessage, Long> heldSince = new HashMap<>();
 	private final Deque<Command> lag = new ArrayDeque<>();
 	@Getter
 	private final ShardingKey shardingKey;
 	private final Duration timeout;
 	private final TimerScheduler<Command> timers;
 	private final int workersPerNode;
+	private final int maxWorkersPerNode;
+	private final ConcurrencyLimit concurrencyLimit;
+	private final MeterRegistry meterRegistry;
+	private final Timer workLatency;
+	private final List<Meter> meters;
 	private ActorRef<WorkStage.Command> workStage;
 	private ActorRef<AggregateBehavior.Command> closeStage;
 	private boolean failureTracked = false;
 	private OffsetDateTime lastIngestionDate;
 	private boolean lastReceived = false;
 	private LocalDateTime lastRequest = LocalDateTime.now();
-	private int maxWorkers;
 	private int nodes = 0;
 	@Getter
 	private SchedulerDTO scheduler;
@@ -112,9 +133,40 @@ public class Scheduling extends AbstractBehavior<Scheduling.Command> {
 		this.shardingKey = shardingKey;
 		this.timeout = getTimeout(context);
 		this.workersPerNode = getWorkersPerNode(context);
-		this.maxWorkers = workersPerNode;
+		this.maxWorkersPerNode = getMaxWorkersPerNode(context);
+		this.concurrencyLimit = createConcurrencyLimit(context, workersPerNode, maxWorkersPerNode);
 		this.timers = timers;
 
+		this.meterRegistry = CDI.current().select(MeterRegistry.class).get();
+
+		var tags = Tags.of(
+			"tenantId", shardingKey.tenantId(),
+			"scheduleId", shardingKey.scheduleId()
+		);
+
+		this.workLatency = Timer
+			.builder("openk9.scheduling.work.latency")
+			.description("Time spent by a document in the work stage")
+			.tags(tags)
+			.register(meterRegistry);
+
+		this.meters = List.of(
+			workLatency,
+			Gauge
+				.builder(
+					"openk9.scheduling.concurrency.limit",
+					concurrencyLimit,
+					ConcurrencyLimit::getLimit)
+				.description("Maximum number of documents in the work stage")
+				.tags(tags)
+				.register(meterRegistry),
+			Gauge
+				.builder("openk9.scheduling.concurrency.in-flight", heldMessages, Map::size)
+				.description("Number of documents in the work stage")
+				.tags(tags)
+				.register(meterRegistry)
+		);
+
 		var cluster = Cluster.get(getContext().getSystem());
 		var subscriber = getContext().messageAdapter(
 			org.apache.pekko.cluster.ClusterEvent.MemberEvent.class,
@@ -200,6 +252,31 @@ public class Scheduling extends AbstractBehavior<Scheduling.Command> {
 		return PekkoUtils.getInteger(config, WORKERS_PER_NODE, WORKERS_PER_NODE_DEFAULT);
 	}
 
+	private static int getMaxWorkersPerNode(ActorContext<Command> context) {
+		Config config = context.getSystem().settings().config();
+
+		return Math.max(
+			getWorkersPerNode(context),
+			PekkoUtils.getInteger(config, MAX_WORKERS_PER_NODE, MAX_WORKERS_PER_NODE_DEFAULT)
+		);
+	}
+
+	private static ConcurrencyLimit createConcurrencyLimit(
+		ActorContext<Command> context, int workersPerNode, int maxWorkersPerNode) {
+
+		Config config = context.getSystem().settings().config();
+
+		return new ConcurrencyLimit(
+			workersPerNode,
+			1,
+			maxWorkersPerNode,
+			PekkoUtils.getProperty(
+				config, BACKOFF_RATIO, config::getDouble, BACKOFF_RATIO_DEFAULT),
+			PekkoUtils.getProperty(
+				config, LATENCY_TOLERANCE, config::getDouble, LATENCY_TOLERANCE_DEFAULT)
+		);
+	}
+
 	private void createWorkStage(SchedulingType schedulingType) {
 		if (this.workStage != null) {
 			return;
@@ -379,13 +456,16 @@ public class Scheduling extends AbstractBehavior<Scheduling.Command> {
 			nodes--;
 		}
 
-		maxWorkers = workersPerNode * nodes;
+		concurrencyLimit.setBounds(1, maxWorkersPerNode * Math.max(nodes, 1));
+		// until the first document completes, start from the cluster-wide workers.
+		concurrencyLimit.seed(workersPerNode * Math.max(nodes, 1));
 
 		if (log.isDebugEnabled()) {
 			log.debugf(
-				"Max Workers updated to %d for %s",
-				maxWorkers,
-				shardingKey
+				"Max Workers bounded to %d for %s, current limit is %d",
+				maxWorkersPerNode * Math.max(nodes, 1),
+				shardingKey,
+				concurrencyLimit.getLimit()
 			);
 		}
 
@@ -511,6 +591,10 @@ public class Scheduling extends AbstractBehavior<Scheduling.Command> {
 			}
 		}
 
+		for (Meter meter : meters) {
+			meterRegistry.remove(meter);
+		}
+
 		return Behaviors.same();
 	}
 
@@ -776,11 +860,15 @@ public class Scheduling extends AbstractBehavior<Scheduling.Command> {
 				var heldMessage = working.heldMessage();
 
 				heldMessages.put(heldMessage, requester);
+				heldSince.put(heldMessage, System.nanoTime());
 
 			}
 			case WorkStage.Done done -> {
 
 				var heldMessage = done.heldMessage();
+
+				sample(heldMessage, false);
+
 				var replyTo = heldMessages.remove(heldMessage);
 
 				log.infof("work done for %s", heldMessage, replyTo);
@@ -802,6 +890,9 @@ public class Scheduling extends AbstractBehavior<Scheduling.Command> {
 
 				var heldMessage = failed.heldMessage();
 				var exception = failed.exception();
+
+				sample(heldMessage, true);
+
 				var replyTo = heldMessages.remove(heldMessage);
 
 				log.errorf(exception, "work failed for %s", heldMessage);
@@ -814,7 +905,33 @@ public class Scheduling extends AbstractBehavior<Scheduling.Command> {
 			case null, default -> log.warn("unknown response type");
 		}
 
-		return heldMessages.size() < maxWorkers ? next() : busy();
+		return heldMessages.size() < concurrencyLimit.getLimit() ? next() : busy();
+	}
+
+	private void sample(HeldMessage heldMessage, boolean failed) {
+
+		Long since = heldSince.remove(heldMessage);
+
+		if (since == null) {
+			return;
+		}
+
+		long latency = System.nanoTime() - since;
+
+		workLatency.record(latency, TimeUnit.NANOSECONDS);
+
+		int limit = concurrencyLimit.getLimit();
+
+		concurrencyLimit.onSample(latency, heldMessages.size(), failed);
+
+		if (log.isDebugEnabled() && limit != concurrencyLimit.getLimit()) {
+			log.debugf(
+				"Max Workers changed from %d to %d for %s",
+				limit,
+				concurrencyLimit.getLimit(),
+				shardingKey
+			);
+		}
 	}
 
 	private Receive<Command> ready() {
@@ -882,7 +999,7 @@ public class Scheduling extends AbstractBehavior<Scheduling.Command> {
 
 	public record Halt(Exception exception) implements Command {}
 
-	public record Ingest(byte[] payload, ActorRef<Response> replyTo)
+	public record Ingest(PayloadTree payload, ActorRef<Response> replyTo)
 		implements Command {}
 
 	public record Restart(ActorRef<Response> replyTo) implements Command {}
@@ -32,9 +32,8 @@ import io.openk9.datasource.index.util.OpenSearchUtils;
 import io.openk9.datasource.pipeline.service.dto.SchedulerDTO;
 import io.openk9.datasource.pipeline.stages.working.HeldMessage;
 import io.openk9.datasource.pipeline.stages.working.Writer;
+import io.openk9.datasource.processor.payload.PayloadTree;
 
-import com.jayway.jsonpath.Configuration;
-import com.jayway.jsonpath.JsonPath;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
 import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
@@ -89,14 +88,14 @@ public class VectorIndexWriter extends AbstractBehavior<Writer.Command> {
 			.build();
 	}
 
-	protected static List<Map<String, Object>> parseChunks(byte[] json)
+	protected static List<Map<String, Object>> parseChunks(PayloadTree payload)
 		throws IllegalArgumentException {
 
-		var documentContext = JsonPath
-			.using(Configuration.defaultConfiguration())
-			.parseUtf8(json);
+		if (payload == null) {
+			throw new IllegalArgumentException("The payload is null");
+		}
 
-		Object root = documentContext.read("$");
+		Object root = payload.toPlainValue();
 
 		if (root instanceof List) {
 			return (List<Map<String, Object>>) root;
@@ -17,13 +17,15 @@
 
 package io.openk9.datasource.pipeline.actor.closing;
 
-import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+import jakarta.enterprise.inject.spi.CDI;
 
 import io.openk9.common.util.ShardingKey;
 import io.openk9.datasource.events.DatasourceEventBus;
 import io.openk9.datasource.events.DatasourceMessage;
+import io.openk9.datasource.index.util.ContentIdDiff;
 import io.openk9.datasource.pipeline.actor.common.AggregateItem;
-import io.openk9.datasource.pipeline.service.SchedulingService;
 import io.openk9.datasource.pipeline.service.dto.SchedulerDTO;
 import io.openk9.datasource.pipeline.stages.closing.CloseStage;
 
@@ -34,6 +36,7 @@ import org.apache.pekko.actor.typed.javadsl.ActorContext;
 import org.apache.pekko.actor.typed.javadsl.Behaviors;
 import org.apache.pekko.actor.typed.javadsl.Receive;
 import org.jboss.logging.Logger;
+import org.opensearch.client.RestHighLevelClient;
 
 public class DeletionCompareNotifier extends AbstractBehavior<AggregateItem.Command> {
 
@@ -55,7 +58,7 @@ public class DeletionCompareNotifier extends AbstractBehavior<AggregateItem.Comm
 	public Receive<AggregateItem.Command> createReceive() {
 		return newReceiveBuilder()
 			.onMessage(CloseStage.StartHandler.class, this::onStart)
-			.onMessage(SendEvents.class, this::onSendEvents)
+			.onMessage(EventsSent.class, this::onEventsSent)
 			.onMessage(Stop.class, this::onStop)
 			.build();
 	}
@@ -80,9 +83,8 @@ public class DeletionCompareNotifier extends AbstractBehavior<AggregateItem.Comm
 
 
 			getContext().pipeToSelf(
-				SchedulingService.getDeletedContentIds(shardingKey),
-				(list, throwable) -> new SendEvents(
-					list, throwable, scheduler, replyTo)
+				sendDeleteEvents(scheduler),
+				(count, throwable) -> new EventsSent(count, throwable, replyTo)
 			);
 
 		}
@@ -116,39 +118,59 @@ public class DeletionCompareNotifier extends AbstractBehavior<AggregateItem.Comm
 	private record Stop(ActorRef<AggregateItem.Reply> replyTo)
 		implements AggregateItem.Command {}
 
-	private record SendEvents(
-		List<String> list,
+	private record EventsSent(
+		Long count,
 		Throwable throwable,
-		SchedulerDTO scheduler,
 		ActorRef<AggregateItem.Reply> replyTo
 	) implements AggregateItem.Command {}
 
-	private Behavior<AggregateItem.Command> onSendEvents(SendEvents sendEvents) {
-		var scheduler = sendEvents.scheduler();
-		var list = sendEvents.list();
-		var tenantId = shardingKey.tenantId();
-		var replyTo = sendEvents.replyTo();
+	/*
+	 * The deleted contentIds are streamed from both indices, a page at a
+	 * time, and the next page is requested once the events of the previous
+	 * one have been sent.
+	 */
+	private CompletionStage<Long> sendDeleteEvents(SchedulerDTO scheduler) {
+
+		var restHighLevelClient = CDI.current().select(RestHighLevelClient.class).get();
 
+		var tenantId = shardingKey.tenantId();
 		Long datasourceId = scheduler.getDatasourceId();
 		String newDataIndexName = scheduler.getNewIndexName();
 
-		if (list != null) {
-			for (String deletedContentId : list) {
-
-				DatasourceEventBus.sendMessage(
-					DatasourceMessage.Delete
-						.builder()
-						.tenantId(tenantId)
-						.datasourceId(datasourceId)
-						.indexName(newDataIndexName)
-						.contentId(deletedContentId)
-						.build()
-				);
+		return ContentIdDiff
+			.missingContentIds(
+				restHighLevelClient,
+				scheduler.getOldIndexName(),
+				newDataIndexName
+			)
+			.onItem()
+			.invoke(deletedContentId -> DatasourceEventBus.sendMessage(
+				DatasourceMessage.Delete
+					.builder()
+					.tenantId(tenantId)
+					.datasourceId(datasourceId)
+					.indexName(newDataIndexName)
+					.contentId(deletedContentId)
+					.build()
+			))
+			.collect()
+			.with(Collectors.counting())
+			.subscribeAsCompletionStage();
+	}
+
+	private Behavior<AggregateItem.Command> onEventsSent(EventsSent eventsSent) {
+		var replyTo = eventsSent.replyTo();
 
-			}
+		if (eventsSent.throwable() == null) {
+			log.infof(
+				"%s sent %d delete events for deleted contents.",
+				shardingKey,
+				eventsSent.count()
+			);
 		}
 		else {
 			log.warnf(
+				eventsSent.throwable(),
 				"%s cannot send delete events because deleted contents are unknown.",
 				shardingKey
 			);
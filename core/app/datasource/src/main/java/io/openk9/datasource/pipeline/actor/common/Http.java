@@ -17,10 +17,11 @@
 
 package io.openk9.datasource.pipeline.actor.common;
 
+import io.netty.buffer.Unpooled;
 import io.openk9.datasource.actor.PekkoUtils;
 import io.quarkus.arc.Arc;
 import io.smallrye.mutiny.Uni;
-import io.vertx.core.json.JsonObject;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.mutiny.core.buffer.Buffer;
 import io.vertx.mutiny.ext.web.client.HttpResponse;
 import io.vertx.mutiny.ext.web.client.WebClient;
@@ -34,6 +35,7 @@ import java.time.Duration;
 public class Http {
 
 	public static final String HTTP_REQUEST_TIMEOUT = "io.openk9.pipeline.http.timeout";
+	private static final String APPLICATION_JSON = "application/json";
 
 	public sealed interface Command {}
 	public record GET(ActorRef<Response> replyTo, String url)
@@ -79,7 +81,8 @@ public class Http {
 			webClient
 				.postAbs(post.url())
 				.timeout(timeout)
-				.sendJson(new JsonObject(new String(post.body())))
+				.putHeader(HttpHeaders.CONTENT_TYPE.toString(), APPLICATION_JSON)
+				.sendBuffer(_wrap(post.body()))
 		);
 
 		return Behaviors.same();
@@ -100,6 +103,14 @@ public class Http {
 
 	}
 
+	/**
+	 * Wraps the body, that is already JSON, without copying it.
+	 */
+	private static Buffer _wrap(byte[] body) {
+		return Buffer.newInstance(
+			io.vertx.core.buffer.Buffer.buffer(Unpooled.wrappedBuffer(body)));
+	}
+
 	private static void _handleResponse(
 		ActorContext<Command> ctx, ActorRef<Response> responseActorRef,
 		Uni<HttpResponse<Buffer>> httpResponseUni) {
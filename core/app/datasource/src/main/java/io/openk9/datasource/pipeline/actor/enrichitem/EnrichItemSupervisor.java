@@ -33,7 +33,7 @@ public class EnrichItemSupervisor {
 
 	public sealed interface Command extends CborSerializable {}
 	public record Execute(
-		EnrichItemDTO enrichItem, DataPayload dataPayload,
+		EnrichItemDTO enrichItem, JsonObject dataPayload,
 		LocalDateTime expiredDate, ActorRef<Response> replyTo) implements Command {}
 	private record HttpSupervisorWrapper(HttpSupervisor.Response response, ActorRef<Response> replyTo) implements Command {}
 	private record GroovySupervisorWrapper(GroovyActor.Response response, ActorRef<Response> replyTo) implements Command {}
@@ -150,7 +150,7 @@ public class EnrichItemSupervisor {
 		Execute execute, ActorContext<Command> ctx) {
 
 		EnrichItemDTO enrichItem = execute.enrichItem;
-		DataPayload dataPayload = execute.dataPayload;
+		JsonObject dataPayload = execute.dataPayload;
 		ActorRef<Response> replyTo = execute.replyTo;
 		LocalDateTime expiredDate = execute.expiredDate;
 
@@ -164,8 +164,13 @@ public class EnrichItemSupervisor {
 				? new JsonObject()
 				: new JsonObject(jsonConfig);
 
+		String script = enrichItem.getScript();
+
+		// the Groovy scripts read the payload as a DataPayload bean.
 		JsonObject payload = JsonObject.of(
-			"payload", dataPayload,
+			"payload", script != null && !script.isBlank()
+				? dataPayload.mapTo(DataPayload.class)
+				: dataPayload,
 			"enrichItemConfig", enrichItemConfig
 		);
 
@@ -18,7 +18,6 @@
 package io.openk9.datasource.pipeline.actor.enrichitem;
 
 import groovy.lang.Binding;
-import groovy.lang.GroovyShell;
 import groovy.lang.Script;
 import io.openk9.datasource.util.CborSerializable;
 import io.vertx.core.json.JsonObject;
@@ -42,35 +41,35 @@ public class GroovyActor {
 	public static Behavior<Command> create() {
 		return Behaviors.setup(ctx -> {
 
-			GroovyShell groovyShell = new GroovyShell();
+			GroovyScriptCache scriptCache =
+				GroovyScriptCache.getInstance(ctx.getSystem().settings().config());
 
-			return initial(groovyShell, ctx);
+			return initial(scriptCache, ctx);
 		});
 	}
 
 	private static Behavior<Command> initial(
-		GroovyShell groovyShell, ActorContext<Command> ctx) {
+		GroovyScriptCache scriptCache, ActorContext<Command> ctx) {
 
 		return Behaviors.receive(Command.class)
-			.onMessage(Execute.class, execute -> onExecute(groovyShell, execute, ctx))
-			.onMessage(Validate.class, validate -> onValidate(groovyShell, validate, ctx))
+			.onMessage(Execute.class, execute -> onExecute(scriptCache, execute, ctx))
+			.onMessage(Validate.class, validate -> onValidate(scriptCache, validate, ctx))
 			.build();
 	}
 
 	private static Behavior<Command> onValidate(
-		GroovyShell groovyShell, Validate validate, ActorContext<Command> ctx) {
+		GroovyScriptCache scriptCache, Validate validate, ActorContext<Command> ctx) {
 
 		String groovyScript = validate.groovyScript;
 
 		JsonObject dataPayload = validate.jsonObject;
 
-		Script parse = groovyShell.parse(groovyScript);
-
-		parse.setBinding(new Binding(Map.copyOf(dataPayload.getMap())));
-
 		try {
 
-			Object response = parse.run();
+			Script script = scriptCache.newScript(
+				groovyScript, new Binding(Map.copyOf(dataPayload.getMap())));
+
+			Object response = script.run();
 
 			if (response instanceof Boolean) {
 				validate.replyTo.tell(new GroovyValidateResponse((Boolean)response));
@@ -90,19 +89,18 @@ public class GroovyActor {
 	}
 
 	private static Behavior<Command> onExecute(
-		GroovyShell groovyShell, Execute execute, ActorContext<Command> ctx) {
+		GroovyScriptCache scriptCache, Execute execute, ActorContext<Command> ctx) {
 
 		String groovyScript = execute.groovyScript;
 		JsonObject dataPayload = execute.jsonObject;
 		ActorRef<Response> replyTo = execute.replyTo;
 
-		Script parse = groovyShell.parse(groovyScript);
-
-		parse.setBinding(new Binding(Map.copyOf(dataPayload.getMap())));
-
 		try {
 
-			Object response = parse.run();
+			Script script = scriptCache.newScript(
+				groovyScript, new Binding(Map.copyOf(dataPayload.getMap())));
+
+			Object response = script.run();
 
 			if (response instanceof Map) {
 				JsonObject jsonResponse = new JsonObject((Map<String, Object>) response);
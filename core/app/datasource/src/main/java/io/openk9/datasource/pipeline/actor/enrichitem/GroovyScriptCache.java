@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.pipeline.actor.enrichitem;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import jakarta.enterprise.inject.spi.CDI;
+
+import io.openk9.datasource.actor.PekkoUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.typesafe.config.Config;
+import groovy.lang.Binding;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+/**
+ * A bounded cache of the compiled Groovy scripts, shared by every
+ * {@link GroovyActor}.
+ *
+ * <p>Scripts are keyed by the SHA-256 of their text, and are evicted by the
+ * Caffeine size policy when the cache is full. A script is compiled once
+ * even when many actors miss it together, while the compilation of other
+ * scripts goes on in parallel. Every script is compiled with its own class
+ * loader, so that its class can be unloaded once evicted. Each run gets a
+ * new instance of the cached class, with its own {@link Binding}.</p>
+ */
+final class GroovyScriptCache {
+
+	static final String MAX_SIZE = "io.openk9.pipeline.groovy.script-cache.max-size";
+	static final int MAX_SIZE_DEFAULT = 256;
+
+	private static GroovyScriptCache instance;
+
+	private final Cache<String, Class<?>> scriptClasses;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong compiles = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	GroovyScriptCache(int maxSize) {
+		this.scriptClasses = Caffeine.newBuilder()
+			.maximumSize(maxSize)
+			// evicts on the caller thread, the size stays bounded when it returns.
+			.executor(Runnable::run)
+			.removalListener((String key, Class<?> scriptClass, RemovalCause cause) -> {
+				if (cause.wasEvicted()) {
+					evictions.incrementAndGet();
+				}
+			})
+			.build();
+	}
+
+	static synchronized GroovyScriptCache getInstance(Config config) {
+
+		if (instance == null) {
+			instance = new GroovyScriptCache(
+				PekkoUtils.getInteger(config, MAX_SIZE, MAX_SIZE_DEFAULT));
+
+			instance.bindTo(CDI.current().select(MeterRegistry.class).get());
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Returns a new instance of the compiled script, bound to the given binding.
+	 */
+	Script newScript(String groovyScript, Binding binding) {
+		return InvokerHelper.createScript(_getScriptClass(groovyScript), binding);
+	}
+
+	long hits() {
+		return hits.get();
+	}
+
+	long compiles() {
+		return compiles.get();
+	}
+
+	int size() {
+		scriptClasses.cleanUp();
+
+		return (int) scriptClasses.estimatedSize();
+	}
+
+	private void bindTo(MeterRegistry meterRegistry) {
+
+		FunctionCounter
+			.builder("openk9.groovy.script-cache.hits", hits, AtomicLong::get)
+			.description("Groovy scripts run with an already compiled class")
+			.register(meterRegistry);
+
+		FunctionCounter
+			.builder("openk9.groovy.script-cache.compiles", compiles, AtomicLong::get)
+			.description("Groovy scripts compiled")
+			.register(meterRegistry);
+
+		FunctionCounter
+			.builder("openk9.groovy.script-cache.evictions", evictions, AtomicLong::get)
+			.description("Compiled Groovy scripts evicted from the cache")
+			.register(meterRegistry);
+
+		Gauge
+			.builder("openk9.groovy.script-cache.loaded-classes", this, GroovyScriptCache::size)
+			.description("Compiled Groovy script classes held by the cache")
+			.register(meterRegistry);
+	}
+
+	private Class<?> _getScriptClass(String groovyScript) {
+
+		String key = _hash(groovyScript);
+
+		Class<?> scriptClass = scriptClasses.getIfPresent(key);
+
+		if (scriptClass != null) {
+			hits.incrementAndGet();
+
+			return scriptClass;
+		}
+
+		// only the callers of the same key wait for the compilation.
+		return scriptClasses.get(key, ignore -> {
+			compiles.incrementAndGet();
+
+			return new GroovyShell().getClassLoader().parseClass(groovyScript);
+		});
+	}
+
+	private static String _hash(String groovyScript) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+
+			return HexFormat.of().formatHex(
+				messageDigest.digest(groovyScript.getBytes(StandardCharsets.UTF_8)));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
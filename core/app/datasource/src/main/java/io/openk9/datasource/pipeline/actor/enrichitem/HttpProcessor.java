@@ -19,7 +19,7 @@ package io.openk9.datasource.pipeline.actor.enrichitem;
 
 import io.openk9.datasource.pipeline.actor.common.Http;
 import io.openk9.datasource.util.CborSerializable;
-import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.Json;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
 import org.apache.pekko.actor.typed.RecipientRef;
@@ -30,8 +30,8 @@ import org.apache.pekko.actor.typed.javadsl.Receive;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Map;
 
 public class HttpProcessor extends AbstractBehavior<HttpProcessor.Command> {
 
@@ -183,17 +183,9 @@ public class HttpProcessor extends AbstractBehavior<HttpProcessor.Command> {
 					if (response instanceof Token.TokenGenerated) {
 						Token.TokenGenerated tokenGenerated =
 							(Token.TokenGenerated) response;
-						JsonObject newJson = new JsonObject();
 
-						JsonObject jsonObject = new JsonObject(new String(bytes));
-
-						for (Map.Entry<String, Object> entry : jsonObject) {
-							newJson.put(entry.getKey(), entry.getValue());
-						}
-
-						newJson.put("replyTo", tokenGenerated.token());
-
-						return started(url, newJson.toBuffer().getBytes(), replyTo);
+						return started(
+							url, withReplyTo(bytes, tokenGenerated.token()), replyTo);
 					}
 					else {
 						return Behaviors.same();
@@ -203,6 +195,42 @@ public class HttpProcessor extends AbstractBehavior<HttpProcessor.Command> {
 			.build();
 	}
 
+	/**
+	 * Adds the replyTo field to the JSON object of the body, without
+	 * decoding it.
+	 */
+	static byte[] withReplyTo(byte[] body, String token) {
+
+		int end = body.length - 1;
+
+		while (end >= 0 && Character.isWhitespace(body[end])) {
+			end--;
+		}
+
+		if (end < 0 || body[end] != '}') {
+			throw new IllegalArgumentException("The body is not a JSON object");
+		}
+
+		int last = end - 1;
+
+		while (last >= 0 && Character.isWhitespace(body[last])) {
+			last--;
+		}
+
+		boolean empty = last >= 0 && body[last] == '{';
+
+		byte[] field = ((empty ? "" : ",") + "\"replyTo\":" + Json.encode(token))
+			.getBytes(StandardCharsets.UTF_8);
+
+		byte[] newBody = new byte[end + field.length + 1];
+
+		System.arraycopy(body, 0, newBody, 0, end);
+		System.arraycopy(field, 0, newBody, end, field.length);
+		newBody[newBody.length - 1] = '}';
+
+		return newBody;
+	}
+
 	public static Behavior<Command> create(boolean async, RecipientRef<Token.Command> tokenActorRef) {
 		return Behaviors.setup(param -> new HttpProcessor(param, tokenActorRef, async));
 	}
@@ -22,8 +22,8 @@ import java.io.IOException;
 import io.openk9.datasource.mapper.IngestionPayloadMapper;
 import io.openk9.datasource.pipeline.actor.QueueManager;
 import io.openk9.datasource.pipeline.actor.Scheduling;
-import io.openk9.datasource.processor.payload.DataPayload;
 import io.openk9.datasource.processor.payload.IngestionIndexWriterPayload;
+import io.openk9.datasource.processor.payload.PayloadTree;
 
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
@@ -66,15 +66,12 @@ public class MainConsumer extends BaseConsumer {
 				IngestionIndexWriterPayload.class
 			);
 
-		DataPayload payload = payloadMapper.map(ingestionIndexWriterPayload);
+		PayloadTree payload = PayloadTree.of(payloadMapper.map(ingestionIndexWriterPayload));
 
 		AskPattern.ask(
 			getScheduling(),
 			(ActorRef<Scheduling.Response> replyTo) ->
-				new Scheduling.Ingest(
-					Json.encodeToBuffer(payload).getBytes(),
-					replyTo
-				),
+				new Scheduling.Ingest(payload, replyTo),
 			timeout,
 			context.getSystem().scheduler()
 		).whenComplete((r, t) -> {
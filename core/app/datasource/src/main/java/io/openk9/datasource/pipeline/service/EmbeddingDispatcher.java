@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.pipeline.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.openk9.datasource.actor.PekkoUtils;
+import io.openk9.ml.grpc.EmbeddingOuterClass;
+import io.openk9.ml.grpc.MutinyEmbeddingGrpc;
+
+import com.typesafe.config.Config;
+import io.grpc.Status;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import org.jboss.logging.Logger;
+
+/**
+ * Sends the embedding requests of an embedding model server in batches.
+ *
+ * <p>The texts of concurrent documents that use the same embedding model are
+ * collected in a pending batch, that is sent with a single
+ * {@code GetBatchMessages} call when it reaches the configured number of
+ * texts ({@value #BATCH_MAX_TEXTS}) or of estimated tokens
+ * ({@value #BATCH_MAX_TOKENS}), or when the linger time
+ * ({@value #BATCH_LINGER}) elapses since its first text. At most
+ * {@value #MAX_IN_FLIGHT} calls are in flight at the same time, the other
+ * batches wait for a free slot, and every call has a deadline
+ * ({@value #DEADLINE}).</p>
+ *
+ * <p>Servers that do not implement {@code GetBatchMessages} are detected from
+ * the first call, and from then on every text is sent alone with
+ * {@code GetMessages}, still bounded by the in-flight window.</p>
+ */
+public class EmbeddingDispatcher {
+
+	public static final String BATCH_MAX_TEXTS =
+		"io.openk9.pipeline.embedding.batch.max-texts";
+	public static final String BATCH_MAX_TOKENS =
+		"io.openk9.pipeline.embedding.batch.max-tokens";
+	public static final String BATCH_LINGER =
+		"io.openk9.pipeline.embedding.batch.linger";
+	public static final String MAX_IN_FLIGHT =
+		"io.openk9.pipeline.embedding.max-in-flight";
+	public static final String DEADLINE =
+		"io.openk9.pipeline.embedding.deadline";
+	public static final int BATCH_MAX_TEXTS_DEFAULT = 32;
+	public static final long BATCH_MAX_TOKENS_DEFAULT = 32768;
+	public static final Duration BATCH_LINGER_DEFAULT = Duration.ofMillis(50);
+	public static final int MAX_IN_FLIGHT_DEFAULT = 4;
+	public static final Duration DEADLINE_DEFAULT = Duration.ofMinutes(2);
+	private static final Logger log = Logger.getLogger(EmbeddingDispatcher.class);
+	// a rough estimate that avoids tokenizing the text on this side.
+	private static final int CHARS_PER_TOKEN = 4;
+
+	private final String target;
+	private final MutinyEmbeddingGrpc.MutinyEmbeddingStub stub;
+	private final Settings settings;
+	private final ScheduledExecutorService executor;
+	private final Map<EmbeddingOuterClass.EmbeddingModel, Batch> pending = new HashMap<>();
+	private final Deque<Batch> ready = new ArrayDeque<>();
+	private int inFlight;
+	private volatile boolean batchUnsupported;
+
+	public EmbeddingDispatcher(
+		String target, MutinyEmbeddingGrpc.MutinyEmbeddingStub stub, Settings settings) {
+
+		this(target, stub, settings, Infrastructure.getDefaultWorkerPool());
+	}
+
+	EmbeddingDispatcher(
+		String target,
+		MutinyEmbeddingGrpc.MutinyEmbeddingStub stub,
+		Settings settings,
+		ScheduledExecutorService executor) {
+
+		this.target = target;
+		this.stub = stub;
+		this.settings = settings;
+		this.executor = executor;
+	}
+
+	/**
+	 * Embeds the text with the given model and chunk strategy, the response
+	 * is the one of this text only, even when it is sent in a batch.
+	 */
+	public Uni<EmbeddingOuterClass.EmbeddingResponse> embed(
+		EmbeddingOuterClass.EmbeddingModel embeddingModel,
+		EmbeddingOuterClass.RequestChunk requestChunk,
+		String text) {
+
+		return Uni.createFrom().completionStage(() -> {
+
+			var item = new Item(
+				EmbeddingOuterClass.EmbeddingRequest.newBuilder()
+					.setChunk(requestChunk)
+					.setText(text)
+					.build(),
+				text.length() / CHARS_PER_TOKEN + 1,
+				new CompletableFuture<>()
+			);
+
+			_submit(embeddingModel, item);
+
+			return item.response();
+		});
+	}
+
+	private void _submit(EmbeddingOuterClass.EmbeddingModel embeddingModel, Item item) {
+
+		synchronized (this) {
+
+			var batch = pending.get(embeddingModel);
+
+			if (batch != null && !batch.accepts(item)) {
+				_close(batch);
+				batch = null;
+			}
+
+			if (batch == null) {
+				var newBatch = new Batch(embeddingModel);
+
+				pending.put(embeddingModel, newBatch);
+
+				executor.schedule(
+					() -> _linger(newBatch),
+					settings.linger().toMillis(),
+					TimeUnit.MILLISECONDS
+				);
+
+				batch = newBatch;
+			}
+
+			batch.add(item);
+
+			if (batch.isFull()) {
+				_close(batch);
+			}
+		}
+
+		_drain();
+	}
+
+	private void _linger(Batch batch) {
+
+		synchronized (this) {
+			if (pending.get(batch.embeddingModel) != batch) {
+				return;
+			}
+
+			_close(batch);
+		}
+
+		_drain();
+	}
+
+	private void _close(Batch batch) {
+		pending.remove(batch.embeddingModel);
+		ready.add(batch);
+	}
+
+	private void _drain() {
+
+		List<Batch> sendable = new ArrayList<>();
+
+		synchronized (this) {
+			while (inFlight < settings.maxInFlight() && !ready.isEmpty()) {
+				inFlight++;
+				sendable.add(ready.poll());
+			}
+		}
+
+		for (Batch batch : sendable) {
+			_send(batch).subscribe().with(
+				responses -> {
+					for (int i = 0; i < batch.items.size(); i++) {
+						batch.items.get(i).response().complete(responses.get(i));
+					}
+
+					_release();
+				},
+				throwable -> {
+					for (Item item : batch.items) {
+						item.response().completeExceptionally(throwable);
+					}
+
+					_release();
+				}
+			);
+		}
+	}
+
+	private void _release() {
+
+		synchronized (this) {
+			inFlight--;
+		}
+
+		_drain();
+	}
+
+	private Uni<List<EmbeddingOuterClass.EmbeddingResponse>> _send(Batch batch) {
+
+		if (batchUnsupported || batch.items.size() == 1) {
+			return _sendOneByOne(batch);
+		}
+
+		var batchRequest = EmbeddingOuterClass.BatchEmbeddingRequest.newBuilder()
+			.setEmbeddingModel(batch.embeddingModel);
+
+		for (Item item : batch.items) {
+			batchRequest.addRequests(item.request());
+		}
+
+		return _stub()
+			.getBatchMessages(batchRequest.build())
+			.map(batchResponse -> {
+				var responses = batchResponse.getResponsesList();
+
+				if (responses.size() != batch.items.size()) {
+					throw new PayloadEmbeddingFailed(String.format(
+						"Expected %d embedding responses, received %d",
+						batch.items.size(),
+						responses.size()
+					));
+				}
+
+				return responses;
+			})
+			.onFailure(EmbeddingDispatcher::_isUnimplemented)
+			.recoverWithUni(throwable -> {
+				log.infof(
+					"%s does not support batch embedding requests, texts are sent one by one.",
+					target
+				);
+
+				batchUnsupported = true;
+
+				return _sendOneByOne(batch);
+			});
+	}
+
+	private Uni<List<EmbeddingOuterClass.EmbeddingResponse>> _sendOneByOne(Batch batch) {
+
+		return Multi.createFrom().iterable(batch.items)
+			.onItem().transformToUniAndConcatenate(item -> _stub()
+				.getMessages(item.request().toBuilder()
+					.setEmbeddingModel(batch.embeddingModel)
+					.build()))
+			.collect().asList();
+	}
+
+	private MutinyEmbeddingGrpc.MutinyEmbeddingStub _stub() {
+		return stub.withDeadlineAfter(settings.deadline().toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	private static boolean _isUnimplemented(Throwable throwable) {
+		return Status.fromThrowable(throwable).getCode() == Status.Code.UNIMPLEMENTED;
+	}
+
+	public record Settings(
+		int maxTexts,
+		long maxTokens,
+		Duration linger,
+		int maxInFlight,
+		Duration deadline
+	) {
+
+		public static final Settings DEFAULT = new Settings(
+			BATCH_MAX_TEXTS_DEFAULT,
+			BATCH_MAX_TOKENS_DEFAULT,
+			BATCH_LINGER_DEFAULT,
+			MAX_IN_FLIGHT_DEFAULT,
+			DEADLINE_DEFAULT
+		);
+
+		public static Settings of(Config config) {
+			return new Settings(
+				PekkoUtils.getInteger(config, BATCH_MAX_TEXTS, BATCH_MAX_TEXTS_DEFAULT),
+				PekkoUtils.getLong(config, BATCH_MAX_TOKENS, BATCH_MAX_TOKENS_DEFAULT),
+				PekkoUtils.getDuration(config, BATCH_LINGER, BATCH_LINGER_DEFAULT),
+				PekkoUtils.getInteger(config, MAX_IN_FLIGHT, MAX_IN_FLIGHT_DEFAULT),
+				PekkoUtils.getDuration(config, DEADLINE, DEADLINE_DEFAULT)
+			);
+		}
+
+	}
+
+	private record Item(
+		EmbeddingOuterClass.EmbeddingRequest request,
+		long tokens,
+		CompletableFuture<EmbeddingOuterClass.EmbeddingResponse> response
+	) {}
+
+	private class Batch {
+
+		private final EmbeddingOuterClass.EmbeddingModel embeddingModel;
+		private final List<Item> items = new ArrayList<>();
+		private long tokens;
+
+		private Batch(EmbeddingOuterClass.EmbeddingModel embeddingModel) {
+			this.embeddingModel = embeddingModel;
+		}
+
+		private boolean accepts(Item item) {
+			return items.isEmpty() || tokens + item.tokens() <= settings.maxTokens();
+		}
+
+		private void add(Item item) {
+			items.add(item);
+			tokens += item.tokens();
+		}
+
+		private boolean isFull() {
+			int maxTexts = batchUnsupported ? 1 : settings.maxTexts();
+
+			return items.size() >= maxTexts || tokens >= settings.maxTokens();
+		}
+
+	}
+
+}
@@ -27,14 +27,16 @@ import jakarta.inject.Inject;
 
 import io.openk9.client.grpc.common.StructUtils;
 import io.openk9.datasource.actor.EventBusInstanceHolder;
+import io.openk9.datasource.cache.CacheScopes;
 import io.openk9.datasource.model.DocTypeField;
 import io.openk9.datasource.model.EmbeddingModel;
 import io.openk9.datasource.model.Scheduler;
 import io.openk9.datasource.model.Scheduler_;
+import io.openk9.datasource.processor.payload.PayloadTree;
 import io.openk9.datasource.service.EmbeddingModelService;
+import io.openk9.datasource.util.VertxJsonNodeJsonProvider;
 import io.openk9.ml.grpc.EmbeddingOuterClass;
 
-import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import io.quarkus.cache.Cache;
@@ -44,6 +46,7 @@ import io.quarkus.vertx.ConsumeEvent;
 import io.smallrye.mutiny.Uni;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import org.apache.commons.lang3.StringUtils;
 import org.hibernate.reactive.mutiny.Mutiny;
 import org.jboss.logging.Logger;
 
@@ -68,8 +71,16 @@ public class EmbeddingService {
 	@CacheName("bucket-resource")
 	Cache cache;
 
-	public static CompletionStage<byte[]> getEmbeddedPayload(
-		String tenantId, String scheduleId, byte[] payload) {
+	@CacheName("query-embedding")
+	Cache queryEmbeddingCache;
+
+	/**
+	 * Splits the text of the payload in chunks and embeds them. The payload
+	 * tree is handed over to this method, that removes the embedded field
+	 * from it.
+	 */
+	public static CompletionStage<PayloadTree> getEmbeddedPayload(
+		String tenantId, String scheduleId, PayloadTree payload) {
 
 		return EventBusInstanceHolder.getEventBus()
 			.request(
@@ -86,8 +97,8 @@ public class EmbeddingService {
 				var chunkWindowSize = embeddingChunksRequest.chunkWindowSize();
 
 				var documentContext = JsonPath
-					.using(Configuration.defaultConfiguration())
-					.parseUtf8(payload);
+					.using(VertxJsonNodeJsonProvider.CONFIGURATION)
+					.parse(payload.asObject());
 
 				var docTypeField = Objects.requireNonNull(
 					embeddingChunksRequest.docTypeField(),
@@ -114,14 +125,14 @@ public class EmbeddingService {
 					);
 				}
 
-				var client = EmbeddingStubRegistry.getStub(apiUrl);
+				var dispatcher = EmbeddingStubRegistry.getDispatcher(apiUrl);
 
-				return client.getMessages(EmbeddingOuterClass.EmbeddingRequest
-						.newBuilder()
-						.setEmbeddingModel(embeddingChunksRequest.embeddingModel())
-						.setChunk(embeddingChunksRequest.requestChunk())
-						.setText(text)
-						.build())
+				return dispatcher
+					.embed(
+						embeddingChunksRequest.embeddingModel(),
+						embeddingChunksRequest.requestChunk(),
+						text
+					)
 					.map(embeddingResponse -> EmbeddingService
 						.mapToPayload(embeddingResponse, root, chunkWindowSize)
 					);
@@ -149,10 +160,12 @@ public class EmbeddingService {
 
 	protected static Map<String, Object> getRoot(DocumentContext documentContext) {
 
-		return documentContext.read("$");
+		JsonObject root = documentContext.read("$");
+
+		return root.getMap();
 	}
 
-	protected static byte[] mapToPayload(
+	protected static PayloadTree mapToPayload(
 		EmbeddingOuterClass.EmbeddingResponse embeddingResponse,
 		Map<String, Object> root,
 		int windowSize) {
@@ -206,7 +219,7 @@ public class EmbeddingService {
 
 		}
 
-		return jsonArray.toBuffer().getBytes();
+		return PayloadTree.of(jsonArray);
 	}
 
 	private static JsonObject mapToChunkWindowObject(int number, String text) {
@@ -237,34 +250,65 @@ public class EmbeddingService {
 		return jsonObject;
 	}
 
+	/**
+	 * Embeds the text of a query. The vectors are cached by tenant, embedding
+	 * model and text with normalized whitespace.
+	 */
 	public Uni<EmbeddedText> getEmbeddedText(String tenantId, String text) {
 
+		var normalizedText = StringUtils.normalizeSpace(text);
+
 		return getEmbeddingModel(tenantId)
 			.onItem().ifNull().failWith(ConfigurationNotFound::new)
-			.flatMap(embeddingModel -> {
-
-				EmbeddingOuterClass.EmbeddingModel embeddingModelRequest =
-					mapToEmbeddingModelRequest(embeddingModel);
-				var apiUrl = embeddingModel.getApiUrl();
-
-				var client = EmbeddingStubRegistry.getStub(apiUrl);
-				return client.getMessages(EmbeddingOuterClass.EmbeddingRequest.newBuilder()
-					.setText(text)
-					.setEmbeddingModel(embeddingModelRequest)
-					.setChunk(REQUEST_CHUNK_DEFAULT)
-					.build());
-			})
+			.flatMap(embeddingModel -> CacheScopes.getAsync(
+				queryEmbeddingCache,
+				new CompositeCacheKey(
+					tenantId,
+					embeddingModel.getId(),
+					embeddingModel.getModifiedDate(),
+					normalizedText
+				),
+				key -> embedText(embeddingModel, normalizedText)
+			));
+
+	}
+
+	private static Uni<EmbeddedText> embedText(EmbeddingModel embeddingModel, String text) {
+
+		EmbeddingOuterClass.EmbeddingModel embeddingModelRequest =
+			mapToEmbeddingModelRequest(embeddingModel);
+		var apiUrl = embeddingModel.getApiUrl();
+
+		var client = EmbeddingStubRegistry.getStub(apiUrl);
+
+		return client.getMessages(EmbeddingOuterClass.EmbeddingRequest.newBuilder()
+				.setText(text)
+				.setEmbeddingModel(embeddingModelRequest)
+				.setChunk(REQUEST_CHUNK_DEFAULT)
+				.build())
 			.map(embeddingResponse -> new EmbeddedText(
 				// with default chunk strategy, we always have one embedding.
-				embeddingResponse.getChunks(0).getVectorsList()));
+				toVector(embeddingResponse.getChunks(0).getVectorsList())));
+	}
+
+	private static float[] toVector(List<Float> list) {
+
+		var n = list.size();
+		var arr = new float[n];
+
+		for (int i = 0; i < n; i++) {
+			arr[i] = list.get(i);
+		}
 
+		return arr;
 	}
 
 	@ConsumeEvent(GET_EMBEDDING_CHUNKS_CONFIGURATION)
 	Uni<EmbeddingChunksRequest> getEmbeddingChunksConfigurations(
 		GetConfigurationRequest configurationRequest) {
 
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(configurationRequest),
 			key -> sessionFactory.withTransaction(
 					configurationRequest.tenantId(),
@@ -352,7 +396,8 @@ public class EmbeddingService {
 	}
 
 	private Uni<EmbeddingModel> getEmbeddingModel(String tenantId) {
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(tenantId),
 			key -> sessionFactory.withTransaction(
 				tenantId, (s, t) -> getEmbeddingModel(s, tenantId))
@@ -374,7 +419,7 @@ public class EmbeddingService {
 	}
 
 	public record EmbeddedText(
-		List<Float> vector
+		float[] vector
 	) {}
 
 	private record EmbeddingChunksRequest(
@@ -385,7 +430,8 @@ public class EmbeddingService {
 		EmbeddingOuterClass.RequestChunk requestChunk
 	) {}
 
-	private record GetConfigurationRequest(String tenantId, String scheduleId) {}
+	private record GetConfigurationRequest(String tenantId, String scheduleId)
+		implements CacheScopes.TenantScoped {}
 
 
 }
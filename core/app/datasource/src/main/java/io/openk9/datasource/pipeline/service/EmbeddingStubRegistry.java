@@ -28,6 +28,10 @@ public class EmbeddingStubRegistry {
 
 	private static final ConcurrentMap<String, MutinyEmbeddingGrpc.MutinyEmbeddingStub> stubs =
 		new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, EmbeddingDispatcher> dispatchers =
+		new ConcurrentHashMap<>();
+	private static volatile EmbeddingDispatcher.Settings dispatcherSettings =
+		EmbeddingDispatcher.Settings.DEFAULT;
 
 	private EmbeddingStubRegistry() {}
 
@@ -43,8 +47,20 @@ public class EmbeddingStubRegistry {
 		});
 	}
 
+	public static EmbeddingDispatcher getDispatcher(String target) {
+
+		return dispatchers.computeIfAbsent(target, key ->
+			new EmbeddingDispatcher(key, getStub(key), dispatcherSettings));
+	}
+
+	public static void setDispatcherSettings(EmbeddingDispatcher.Settings settings) {
+		dispatcherSettings = settings;
+	}
+
 	public static void remove(String target) {
 
+		dispatchers.remove(target);
+
 		var stub = stubs.remove(target);
 
 		if (stub != null) {
@@ -61,6 +77,7 @@ public class EmbeddingStubRegistry {
 		});
 
 		stubs.clear();
+		dispatchers.clear();
 	}
 
 }
@@ -18,7 +18,6 @@
 package io.openk9.datasource.pipeline.service;
 
 import java.time.OffsetDateTime;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -39,7 +38,6 @@ import org.hibernate.reactive.mutiny.Mutiny;
 public class SchedulingService {
 
 	private final static String FETCH_SCHEDULER = "SchedulingService#fetchScheduler";
-	private static final String GET_DELETED_CONTENT_ID = "SchedulingService#getDeletedContentId";
 	private final static String PERSIST_ERROR_DESCRIPTION =
 		"SchedulingService#persistErrorDescription";
 	private final static String PERSIST_LAST_INGESTION_DATE =
@@ -60,17 +58,6 @@ public class SchedulingService {
 			.subscribeAsCompletionStage();
 	}
 
-	public static CompletableFuture<List<String>> getDeletedContentIds(ShardingKey shardingKey) {
-
-		return EventBusInstanceHolder.getEventBus()
-			.request(
-				GET_DELETED_CONTENT_ID,
-				new GetDeletedContentIdRequest(shardingKey)
-			)
-			.map(message -> (List<String>) message.body())
-			.subscribeAsCompletionStage();
-	}
-
 	public static CompletableFuture<SchedulerDTO> persistErrorDescription(
 		ShardingKey shardingKey, Exception exception) {
 
@@ -127,14 +114,6 @@ public class SchedulingService {
 			.map(scheduler -> schedulerMapper.map(scheduler, tenantId));
 	}
 
-	@ConsumeEvent(GET_DELETED_CONTENT_ID)
-	Uni<List<String>> getDeletedContentId(GetDeletedContentIdRequest request) {
-		var schedulingKey = request.shardingKey();
-
-		return schedulerService.getDeletedContentIds(
-			schedulingKey.tenantId(), schedulingKey.scheduleId());
-	}
-
 	@ConsumeEvent(PERSIST_ERROR_DESCRIPTION)
 	Uni<SchedulerDTO> persistErrorDescription(PersistErrorDescription request) {
 
@@ -195,8 +174,6 @@ public class SchedulingService {
 
 	private record FetchRequest(ShardingKey shardingKey) {}
 
-	private record GetDeletedContentIdRequest(ShardingKey shardingKey) {}
-
 	private record PersistErrorDescription(
 		ShardingKey shardingKey,
 		Exception exception
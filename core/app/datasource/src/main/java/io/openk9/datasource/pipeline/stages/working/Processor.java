@@ -19,6 +19,7 @@ package io.openk9.datasource.pipeline.stages.working;
 
 import io.openk9.datasource.pipeline.actor.DataProcessException;
 import io.openk9.datasource.pipeline.service.dto.SchedulerDTO;
+import io.openk9.datasource.processor.payload.PayloadTree;
 import io.openk9.datasource.util.CborSerializable;
 
 import org.apache.pekko.actor.typed.ActorRef;
@@ -32,7 +33,7 @@ public interface Processor {
 	}
 
 	record Start(
-		byte[] ingestPayload,
+		PayloadTree ingestPayload,
 		SchedulerDTO scheduler,
 		HeldMessage heldMessage,
 		ActorRef<Response> replyTo
@@ -41,7 +42,7 @@ public interface Processor {
 	record Skip(HeldMessage heldMessage) implements Response {}
 
 	record Success(
-		byte[] payload, SchedulerDTO scheduler, HeldMessage heldMessage
+		PayloadTree payload, SchedulerDTO scheduler, HeldMessage heldMessage
 	) implements Response {}
 
 	record Failure(
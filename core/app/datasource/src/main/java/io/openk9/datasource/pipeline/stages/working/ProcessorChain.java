@@ -23,6 +23,7 @@ import java.util.NoSuchElementException;
 
 import io.openk9.datasource.pipeline.actor.DataProcessException;
 import io.openk9.datasource.pipeline.service.dto.SchedulerDTO;
+import io.openk9.datasource.processor.payload.PayloadTree;
 
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
@@ -116,7 +117,7 @@ public class ProcessorChain extends AbstractBehavior<Processor.Command> {
 		return Behaviors.same();
 	}
 
-	private void startNextProcessor(HeldMessage heldMessage, byte[] start) {
+	private void startNextProcessor(HeldMessage heldMessage, PayloadTree start) {
 		var processKey = heldMessage.processKey();
 
 		var processorType = this.processorTypeKeys.next();
@@ -21,15 +21,15 @@ import java.util.LinkedList;
 import java.util.function.BiFunction;
 
 import io.openk9.common.util.ShardingKey;
+import io.openk9.common.util.ingestion.PayloadType;
 import io.openk9.datasource.pipeline.actor.DataProcessException;
 import io.openk9.datasource.pipeline.actor.Scheduling;
 import io.openk9.datasource.pipeline.actor.WorkStageException;
 import io.openk9.datasource.pipeline.actor.WriterException;
 import io.openk9.datasource.pipeline.service.dto.SchedulerDTO;
-import io.openk9.datasource.processor.payload.DataPayload;
+import io.openk9.datasource.processor.payload.PayloadTree;
 
-import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
 import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
@@ -137,17 +137,16 @@ public class WorkStage extends AbstractBehavior<WorkStage.Command> {
 
 	private Behavior<Command> onStartWorker(StartWorker startWorker) {
 
-		var payloadArray = startWorker.payload();
+		var payload = startWorker.payload();
 		var requester = startWorker.requester();
 		var scheduler = startWorker.scheduler();
 
-		DataPayload dataPayload =
-			Json.decodeValue(Buffer.buffer(payloadArray), DataPayload.class);
+		var dataPayload = payload.asObject();
 
-		switch (dataPayload.getType()) {
+		switch (PayloadType.valueOf(dataPayload.getString("type"))) {
 			case DOCUMENT -> {
 				// Prepares for working on this dataPayload
-				var contentId = dataPayload.getContentId();
+				var contentId = dataPayload.getString("contentId");
 
 				if (contentId == null) {
 					this.replyTo.tell(new Invalid("content-id is null", requester));
@@ -163,7 +162,7 @@ public class WorkStage extends AbstractBehavior<WorkStage.Command> {
 				}
 
 				counter++;
-				var parsingDateTimeStamp = dataPayload.getParsingDate();
+				var parsingDateTimeStamp = dataPayload.getLong("parsingDate", 0L);
 
 				var processKey = ShardingKey.concat(shardingKey, String.valueOf(counter));
 
@@ -177,9 +176,9 @@ public class WorkStage extends AbstractBehavior<WorkStage.Command> {
 				// If there are no documentTypes defined,
 				// then the associated documents has to be deleted.
 
-				var documentTypes = dataPayload.getDocumentTypes();
+				JsonArray documentTypes = dataPayload.getJsonArray("documentTypes");
 
-				if (documentTypes == null || documentTypes.length == 0) {
+				if (documentTypes == null || documentTypes.isEmpty()) {
 
 					log.infof("%s: Document with this contentId has to be deleted.", heldMessage);
 					writer.tell(new Writer.Start(null, heldMessage));
@@ -191,7 +190,7 @@ public class WorkStage extends AbstractBehavior<WorkStage.Command> {
 					getContext().spawnAnonymous(ProcessorChain.create(processorTypes));
 
 				processorChain.tell(new Processor.Start(
-					Json.encodeToBuffer(dataPayload).getBytes(),
+					payload,
 					scheduler,
 					heldMessage,
 					this.dataProcessAdapter
@@ -208,7 +207,7 @@ public class WorkStage extends AbstractBehavior<WorkStage.Command> {
 
 				DataProcessException exception;
 
-				var rawContent = dataPayload.getRawContent();
+				var rawContent = dataPayload.getString("rawContent");
 
 				if (rawContent != null
 					&& !rawContent.isEmpty()) {
@@ -257,7 +256,7 @@ public class WorkStage extends AbstractBehavior<WorkStage.Command> {
 
 	public record StartWorker(
 		SchedulerDTO scheduler,
-		byte[] payload,
+		PayloadTree payload,
 		ActorRef<Scheduling.Response> requester
 	) implements Command {}
 
@@ -274,7 +273,7 @@ public class WorkStage extends AbstractBehavior<WorkStage.Command> {
 	public record Invalid(String errorMessage, ActorRef<Scheduling.Response> requester)
 		implements Response {}
 
-	private record Write(byte[] payload, HeldMessage heldMessage) implements Command {}
+	private record Write(PayloadTree payload, HeldMessage heldMessage) implements Command {}
 
 	private record PostWrite(Writer.Response response) implements Command {}
 
@@ -18,6 +18,7 @@
 package io.openk9.datasource.pipeline.stages.working;
 
 import io.openk9.datasource.pipeline.actor.WriterException;
+import io.openk9.datasource.processor.payload.PayloadTree;
 import io.openk9.datasource.util.CborSerializable;
 
 public interface Writer {
@@ -28,7 +29,7 @@ public interface Writer {
 		HeldMessage heldMessage();
 	}
 
-	record Start(byte[] dataPayload, HeldMessage heldMessage)
+	record Start(PayloadTree dataPayload, HeldMessage heldMessage)
 		implements Command {}
 
 	record Success(HeldMessage heldMessage) implements Response {}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.processor.payload;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The payload of a document, as it flows through the pipeline.
+ *
+ * <p>The payload is decoded once, when it is consumed from the ingestion
+ * queue, and every stage works on the same tree: a {@link JsonObject} with
+ * the {@link DataPayload} fields, or a {@link JsonArray} of documents once
+ * it is split in chunks. Between actors of the same node the tree is passed
+ * by reference, and the stage that receives it owns it, so it can change it
+ * in place. When a message crosses the cluster sharding boundary, the tree
+ * is written with the {@code jackson-cbor} serializer of the message.</p>
+ */
+@RegisterForReflection
+public final class PayloadTree {
+
+	private final Object value;
+
+	private PayloadTree(Object value) {
+		this.value = value;
+	}
+
+	public static PayloadTree of(JsonObject jsonObject) {
+		return new PayloadTree(jsonObject);
+	}
+
+	public static PayloadTree of(JsonArray jsonArray) {
+		return new PayloadTree(jsonArray);
+	}
+
+	public static PayloadTree of(DataPayload dataPayload) {
+		return new PayloadTree(JsonObject.mapFrom(dataPayload));
+	}
+
+	@JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+	@SuppressWarnings("unchecked")
+	public static PayloadTree wrap(Object value) {
+		return switch (value) {
+			case JsonObject jsonObject -> of(jsonObject);
+			case JsonArray jsonArray -> of(jsonArray);
+			case Map<?, ?> map -> of(new JsonObject((Map<String, Object>) map));
+			case List<?> list -> of(new JsonArray(list));
+			case null, default -> throw new IllegalArgumentException(
+				"A payload is a JSON object or array, not " + value);
+		};
+	}
+
+	@JsonValue
+	public Object getValue() {
+		return value;
+	}
+
+	public boolean isArray() {
+		return value instanceof JsonArray;
+	}
+
+	public JsonObject asObject() {
+		if (value instanceof JsonObject jsonObject) {
+			return jsonObject;
+		}
+
+		throw new IllegalStateException("The payload is not a JSON object");
+	}
+
+	public JsonArray asArray() {
+		if (value instanceof JsonArray jsonArray) {
+			return jsonArray;
+		}
+
+		throw new IllegalStateException("The payload is not a JSON array");
+	}
+
+	/**
+	 * Returns the tree as plain maps and lists, unwrapping in place the
+	 * {@link JsonObject} and {@link JsonArray} nested in it, for the
+	 * serializers that do not know the Vert.x types.
+	 */
+	public Object toPlainValue() {
+		return _unwrap(value);
+	}
+
+	@Override
+	public String toString() {
+		return value.toString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object _unwrap(Object value) {
+		return switch (value) {
+			case JsonObject jsonObject -> _unwrap(jsonObject.getMap());
+			case JsonArray jsonArray -> _unwrap(jsonArray.getList());
+			case Map<?, ?> map -> {
+				((Map<Object, Object>) map).replaceAll((key, item) -> _unwrap(item));
+				yield map;
+			}
+			case List<?> list -> {
+				((List<Object>) list).replaceAll(PayloadTree::_unwrap);
+				yield list;
+			}
+			case null, default -> value;
+		};
+	}
+
+}
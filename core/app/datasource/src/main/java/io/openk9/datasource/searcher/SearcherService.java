@@ -18,25 +18,27 @@
 package io.openk9.datasource.searcher;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.SequencedSet;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.control.ActivateRequestContext;
 import jakarta.inject.Inject;
 
 import io.openk9.client.grpc.common.StructUtils;
+import io.openk9.datasource.cache.StaleWhileRevalidateCache;
 import io.openk9.datasource.model.Bucket;
+import io.openk9.datasource.model.Datasource;
 import io.openk9.datasource.model.DocTypeField;
 import io.openk9.datasource.model.FieldType;
 import io.openk9.datasource.model.Language;
@@ -47,11 +49,17 @@ import io.openk9.datasource.model.SuggestionCategory;
 import io.openk9.datasource.model.util.JWT;
 import io.openk9.datasource.searcher.parser.ParserContext;
 import io.openk9.datasource.searcher.parser.impl.HybridQueryParser;
+import io.openk9.datasource.searcher.model.SearchPlan;
+import io.openk9.datasource.searcher.model.TenantWithBucket;
+import io.openk9.datasource.searcher.queryanalysis.AnnotationCache;
+import io.openk9.datasource.searcher.queryanalysis.ChartCache;
 import io.openk9.datasource.searcher.queryanalysis.Grammar;
 import io.openk9.datasource.searcher.queryanalysis.GrammarProvider;
 import io.openk9.datasource.searcher.queryanalysis.Parse;
 import io.openk9.datasource.searcher.queryanalysis.SemanticType;
 import io.openk9.datasource.searcher.queryanalysis.SemanticTypes;
+import io.openk9.datasource.searcher.suggestions.SuggestionIndex;
+import io.openk9.datasource.searcher.suggestions.SuggestionIndexRegistry;
 import io.openk9.datasource.searcher.suggestions.SuggestionsUtil;
 import io.openk9.datasource.searcher.util.Tuple;
 import io.openk9.datasource.searcher.util.Utils;
@@ -82,8 +90,7 @@ import io.openk9.searcher.grpc.Value;
 
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
-import io.quarkus.cache.Cache;
-import io.quarkus.cache.CacheName;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.cache.CompositeCacheKey;
 import io.quarkus.grpc.GrpcService;
 import io.smallrye.mutiny.Uni;
@@ -125,12 +132,13 @@ public class SearcherService extends BaseSearchService implements Searcher {
 
 	private static final Logger log = Logger.getLogger(SearcherService.class);
 
-	@Inject
-	BucketService bucketService;
+	/**
+	 * The size of a composite aggregation when the request has no range.
+	 */
+	private static final int SUGGESTIONS_DEFAULT_SIZE = 10;
 
 	@Inject
-	@CacheName("searcher-service")
-	Cache cache;
+	BucketService bucketService;
 
 	@Inject
 	RestHighLevelClient client;
@@ -138,9 +146,21 @@ public class SearcherService extends BaseSearchService implements Searcher {
 	@Inject
 	GrammarProvider grammarProvider;
 
+	@Inject
+	AnnotationCache annotationCache;
+
+	@Inject
+	ChartCache chartCache;
+
 	@Inject
 	HybridQueryParser hybridQueryParser;
 
+	@Inject
+	SuggestionIndexRegistry suggestionIndexRegistry;
+
+	@Inject
+	MeterRegistry meterRegistry;
+
 	@Inject
 	LargeLanguageModelService largeLanguageModelService;
 
@@ -156,6 +176,30 @@ public class SearcherService extends BaseSearchService implements Searcher {
 	)
 	Integer maxSearchPageSize;
 
+	@ConfigProperty(
+		name = "openk9.datasource.searcher-service.tenant-cache.soft-ttl",
+		defaultValue = "5m"
+	)
+	Duration tenantCacheSoftTtl;
+
+	@ConfigProperty(
+		name = "openk9.datasource.searcher-service.tenant-cache.hard-ttl",
+		defaultValue = "1h"
+	)
+	Duration tenantCacheHardTtl;
+
+	@ConfigProperty(
+		name = "openk9.datasource.searcher-service.tenant-cache.maximum-size",
+		defaultValue = "2000"
+	)
+	Integer tenantCacheMaximumSize;
+
+	/**
+	 * Loads the tenant with its bucket once per key, and serves the previous
+	 * one while a refresh runs after an invalidation or after the soft TTL.
+	 */
+	private StaleWhileRevalidateCache<TenantWithBucket> tenantCache;
+
 	private static String _getLanguage(QueryParserRequest request, Bucket tenant) {
 		String requestLanguage = request.getLanguage();
 		if (requestLanguage != null && !requestLanguage.isBlank()) {
@@ -203,7 +247,7 @@ public class SearcherService extends BaseSearchService implements Searcher {
 	}
 
 	private SearchSourceBuilder _getSearchSourceBuilder(
-		QueryParserRequest request, Bucket tenant, String language) {
+		QueryParserRequest request, TenantWithBucket tenantWithBucket, String language) {
 
 		SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
 
@@ -217,25 +261,18 @@ public class SearcherService extends BaseSearchService implements Searcher {
 				request.getRange(1), maxSearchPageSize));
 		}
 
-		List<DocTypeField> docTypeFieldList = Utils
-			.getDocTypeFieldsFrom(tenant)
-			.filter(docTypeField -> !docTypeField.isI18N())
-			.toList();
+		SearchPlan searchPlan = tenantWithBucket.getSearchPlan(language);
 
 		applySort(
-			docTypeFieldList, request.getSortList(), request.getSortAfterKey(),
+			searchPlan, request.getSortList(), request.getSortAfterKey(),
 			searchSourceBuilder
 		);
 
-		applyHighlightAndIncludeExclude(
-			searchSourceBuilder,
-			docTypeFieldList,
-			language
-		);
+		applyHighlightAndIncludeExclude(searchSourceBuilder, searchPlan);
 
 		List<SearchTokenRequest> searchQuery = request.getSearchQueryList();
 
-		SearchConfig searchConfig = tenant.getSearchConfig();
+		SearchConfig searchConfig = tenantWithBucket.getBucket().getSearchConfig();
 
 		applyMinScore(searchSourceBuilder, searchQuery, searchConfig);
 
@@ -255,74 +292,7 @@ public class SearcherService extends BaseSearchService implements Searcher {
 	}
 
 	private static void applyHighlightAndIncludeExclude(
-		SearchSourceBuilder searchSourceBuilder,
-		List<DocTypeField> docTypeFieldList,
-		String language) {
-
-		Set<String> includes = new HashSet<>();
-		Set<String> excludes = new HashSet<>();
-		Set<HighlightBuilder.Field> highlightFields = new HashSet<>();
-		Map<DocTypeField, Tuple2<Set<DocTypeField>, Set<DocTypeField>>> i18nMap = new HashMap<>();
-
-		for (DocTypeField docTypeField : docTypeFieldList) {
-			DocTypeField i18nParent = getI18nParent(docTypeField);
-			if (i18nParent != null) {
-
-				i18nMap.compute(i18nParent, (k, v) -> {
-					String fieldName = docTypeField.getPath();
-					if (v == null) {
-						v = Tuple2.of(new HashSet<>(), new HashSet<>());
-					}
-
-					if (fieldName.contains(".i18n." + language)) {
-						v.getItem2().add(docTypeField);
-					}
-					else if (fieldName.contains(".base")) {
-						v.getItem1().add(docTypeField);
-					}
-
-					return v;
-				});
-
-			}
-			else {
-				String name = docTypeField.getPath();
-				if (docTypeField.isDefaultExclude()) {
-					excludes.add(name);
-				}
-				else {
-					if (docTypeField.getFieldType() != FieldType.OBJECT) {
-						includes.add(name);
-					}
-					if (docTypeField.isSearchableAndText()) {
-						highlightFields.add(new HighlightBuilder.Field(name));
-					}
-				}
-			}
-		}
-
-		for (Map.Entry<DocTypeField, Tuple2<Set<DocTypeField>, Set<DocTypeField>>> entry
-			: i18nMap.entrySet()) {
-
-			Tuple2<Set<DocTypeField>, Set<DocTypeField>> tuple = entry.getValue();
-			Set<DocTypeField> docTypeFields =
-				!tuple.getItem2().isEmpty() ? tuple.getItem2() : tuple.getItem1();
-
-			for (DocTypeField docTypeField : docTypeFields) {
-				String name = docTypeField.getPath();
-				if (docTypeField.isDefaultExclude()) {
-					excludes.add(name);
-				}
-				else {
-					includes.add(name);
-					if (docTypeField.isSearchableAndText()) {
-						highlightFields.add(new HighlightBuilder.Field(name));
-					}
-				}
-
-			}
-
-		}
+		SearchSourceBuilder searchSourceBuilder, SearchPlan searchPlan) {
 
 		HighlightBuilder highlightBuilder = new HighlightBuilder();
 
@@ -330,13 +300,15 @@ public class SearcherService extends BaseSearchService implements Searcher {
 
 		highlightBuilder.tagsSchema("default");
 
-		highlightBuilder.fields().addAll(highlightFields);
+		for (String highlightField : searchPlan.getHighlightFields()) {
+			highlightBuilder.field(highlightField);
+		}
 
 		searchSourceBuilder.highlighter(highlightBuilder);
 
 		searchSourceBuilder.fetchSource(
-			includes.toArray(String[]::new),
-			excludes.toArray(String[]::new)
+			searchPlan.getIncludes().toArray(String[]::new),
+			searchPlan.getExcludes().toArray(String[]::new)
 		);
 
 	}
@@ -365,19 +337,14 @@ public class SearcherService extends BaseSearchService implements Searcher {
 	}
 
 	private static void applySort(
-		List<DocTypeField> docTypeFieldList, List<Sort> sortList,
+		SearchPlan searchPlan, List<Sort> sortList,
 		String sortAfterKey, SearchSourceBuilder searchSourceBuilder) {
 
 		if (sortList == null || sortList.isEmpty()) {
 			return;
 		}
 
-		List<String> docTypeFieldNameSortable =
-			docTypeFieldList
-				.stream()
-				.filter(DocTypeField::isSortable)
-				.map(DocTypeField::getPath)
-				.toList();
+		Set<String> docTypeFieldNameSortable = searchPlan.getSortableFields();
 
 		if (docTypeFieldNameSortable.isEmpty()) {
 			log.warn("No sortable doc type field found");
@@ -439,41 +406,6 @@ public class SearcherService extends BaseSearchService implements Searcher {
 		return false;
 	}
 
-	private static DocTypeField getI18nDocTypeField(
-		DocTypeField docTypeField, String language, List<DocTypeField> docTypeFieldList) {
-
-		DocTypeField docTypeFieldBase = null;
-
-		for (DocTypeField e : docTypeFieldList) {
-
-			if (e.isKeyword() && e.getPath().startsWith(docTypeField.getPath())) {
-				if (e.getPath().contains(language)) {
-					return e;
-				}
-				else if (e.getPath().contains(".base")) {
-					docTypeFieldBase = e;
-				}
-			}
-		}
-
-		return docTypeFieldBase;
-
-	}
-
-	private static DocTypeField getI18nParent(DocTypeField docTypeField) {
-		if (docTypeField == null) {
-			return null;
-		}
-
-		DocTypeField parent = docTypeField.getParentDocTypeField();
-
-		return parent != null
-			&& parent.getFieldType() != null
-			&& parent.getFieldType() == FieldType.I18N
-			? parent
-			: getI18nParent(parent);
-	}
-
 	/**
 	 * Retrieves the {@link RAGConfiguration} associated with the given {@link Bucket}
 	 * based on the specified {@link RAGType}.
@@ -510,6 +442,14 @@ public class SearcherService extends BaseSearchService implements Searcher {
 			);
 	}
 
+	@PostConstruct
+	void init() {
+		tenantCache = new StaleWhileRevalidateCache<>(
+			tenantCacheSoftTtl, tenantCacheHardTtl, tenantCacheMaximumSize);
+
+		tenantCache.bindTo(meterRegistry, "searcher-tenant");
+	}
+
 	@Override
 	public Uni<GetLLMConfigurationsResponse> getLLMConfigurations(GetLLMConfigurationsRequest request) {
 		return tenantRegistry.getTenantByVirtualHost(request.getVirtualHost())
@@ -630,7 +570,14 @@ public class SearcherService extends BaseSearchService implements Searcher {
 		Uni<Grammar> grammarUni =
 			grammarProvider.getOrCreateGrammar(request.getVirtualHost(), JWT.of(request.getJwt()));
 
-		return grammarUni.map(grammar -> {
+		// autocomplete sends the input at every keystroke, its charts are reused.
+		return grammarUni
+			.flatMap(grammar -> Objects.equals(mode, "semantic-autocomplete")
+				? grammar.parseInput(
+					client, annotationCache, chartCache,
+					request.getVirtualHost() + " " + request.getJwt(), searchText)
+				: grammar.parseInput(client, annotationCache, searchText))
+			.map(parses -> {
 
 				Map<Integer, ? extends Utils.TokenIndex> tokenIndexMap =
 					Utils.toTokenIndexMap(searchText);
@@ -638,8 +585,6 @@ public class SearcherService extends BaseSearchService implements Searcher {
 				Map<Tuple<Integer>, Map<String, Object>> chart =
 					_getRequestTokensMap(tokenIndexMap, request.getTokensList());
 
-				List<Parse> parses = grammar.parseInput(request.getSearchText());
-
 				parses = parses
 					.stream()
 					.limit(20)
@@ -804,7 +749,7 @@ public class SearcherService extends BaseSearchService implements Searcher {
 				createTokenGroup(request);
 
 
-			return cache.getAsync(
+			return tenantCache.getAsync(
 					new CompositeCacheKey(request.getVirtualHost(), "getTenantAndFetchRelations"),
 					key -> getTenantAndFetchRelations(request.getVirtualHost(), false, 0)
 				)
@@ -823,7 +768,8 @@ public class SearcherService extends BaseSearchService implements Searcher {
 
 					String language = _getLanguage(request, bucket);
 
-					var searchSourceBuilder = _getSearchSourceBuilder(request, bucket, language);
+					var searchSourceBuilder =
+						_getSearchSourceBuilder(request, tenantWithBucket, language);
 
 					Map<String, String> queryParams;
 
@@ -896,7 +842,7 @@ public class SearcherService extends BaseSearchService implements Searcher {
 			Map<QueryParserType, List<ParserSearchToken>> tokenGroup =
 				createTokenGroup(request);
 
-			return cache.getAsync(
+			return tenantCache.getAsync(
 					new CompositeCacheKey(
 						request.getVirtualHost(),
 						"getTenantAndFetchRelations",
@@ -949,11 +895,7 @@ public class SearcherService extends BaseSearchService implements Searcher {
 
 							String suggestKeyword = request.getSuggestKeyword();
 
-							List<DocTypeField> docTypeFieldList =
-								Utils
-									.getDocTypeFieldsFrom(bucket)
-									.filter(docTypeField -> !docTypeField.isI18N())
-									.toList();
+							SearchPlan searchPlan = tenantWithBucket.getSearchPlan(language);
 
 							List<Tuple2<Long, DocTypeField>> suggestionDocTypeFields =
 								new ArrayList<>();
@@ -962,11 +904,8 @@ public class SearcherService extends BaseSearchService implements Searcher {
 								DocTypeField docTypeField =
 									suggestionCategory.getDocTypeField();
 								if (docTypeField.isI18N()) {
-									DocTypeField field = getI18nDocTypeField(
-										docTypeField,
-										language,
-										docTypeFieldList
-									);
+									DocTypeField field =
+										searchPlan.getI18nKeywordField(docTypeField);
 									if (field != null) {
 										suggestionDocTypeFields.add(
 											Tuple2.of(suggestionCategory.getId(), field));
@@ -978,6 +917,14 @@ public class SearcherService extends BaseSearchService implements Searcher {
 								}
 							}
 
+							SuggestionIndex suggestionIndex = _getSuggestionIndex(
+								request, tokenGroup, tenantWithBucket, suggestionDocTypeFields);
+
+							if (suggestionIndex != null) {
+								return Uni.createFrom().item(_suggestionsResponse(
+									request, suggestionIndex, suggestionDocTypeFields.getFirst()));
+							}
+
 							if (!suggestionCategories.isEmpty()) {
 
 								for (Tuple2<Long, DocTypeField> tuple2 : suggestionDocTypeFields) {
@@ -993,18 +940,11 @@ public class SearcherService extends BaseSearchService implements Searcher {
 									AggregationBuilders.composite(
 										"composite", compositeValuesSourceBuilders);
 
-								String afterKey = request.getAfterKey();
-
-								if (StringUtils.isNotBlank(afterKey)) {
-									byte[] afterKeyDecoded =
-										Base64.getDecoder().decode(afterKey);
-
-									Map<String, Object> map =
-										new JsonObject(
-											new String(afterKeyDecoded)).getMap();
-
-									compositeAggregation.aggregateAfter(map);
+								Map<String, Object> afterKey =
+									_decodeAfterKey(request.getAfterKey());
 
+								if (afterKey != null) {
+									compositeAggregation.aggregateAfter(afterKey);
 								}
 
 								if (request.getRangeCount() == 2) {
@@ -1107,28 +1047,7 @@ public class SearcherService extends BaseSearchService implements Searcher {
 								List<? extends CompositeAggregation.Bucket> buckets =
 									responseCompositeAggregation.getBuckets();
 
-								LinkedList<Suggestions> suggestions =
-									new LinkedList<>();
-
-								BiConsumer<String, Suggestions> addSuggestions;
-
-								if (StringUtils.isNotBlank(suggestKeyword)) {
-									addSuggestions = (key, sugg) -> {
-
-										if (!suggestions.contains(sugg)) {
-											if (containsIgnoreCase(key, suggestKeyword)) {
-												suggestions.addFirst(sugg);
-											}
-										}
-									};
-								}
-								else {
-									addSuggestions = (key, sugg) -> {
-										if (!suggestions.contains(sugg)) {
-											suggestions.add(sugg);
-										}
-									};
-								}
+								SequencedSet<Suggestions> suggestions = new LinkedHashSet<>();
 
 								for (CompositeAggregation.Bucket aggregationBucket : buckets) {
 
@@ -1149,7 +1068,9 @@ public class SearcherService extends BaseSearchService implements Searcher {
 
 										long docCount = aggregationBucket.getDocCount();
 
-										addSuggestions.accept(
+										_addSuggestion(
+											suggestions,
+											suggestKeyword,
 											value,
 											SuggestionsUtil.filter(
 												value, suggestionCategoryId,
@@ -1160,21 +1081,11 @@ public class SearcherService extends BaseSearchService implements Searcher {
 
 								}
 
-								Map<String, Object> map =
-									responseCompositeAggregation.afterKey();
-								String newAfterKey = "";
-
-								if (map != null) {
-									newAfterKey = Json.encode(map);
-									newAfterKey = Base64.getEncoder().encodeToString(
-										newAfterKey.getBytes(StandardCharsets.UTF_8));
-								}
-
-								return SuggestionsResponse
-									.newBuilder()
-									.addAllResult(suggestions)
-									.setAfterKey(newAfterKey)
-									.build();
+								return _suggestionsResponse(
+									suggestions,
+									suggestKeyword,
+									responseCompositeAggregation.afterKey()
+								);
 
 							});
 
@@ -1184,6 +1095,161 @@ public class SearcherService extends BaseSearchService implements Searcher {
 		});
 	}
 
+	/**
+	 * Returns the in-memory index of the suggestion field, when it answers
+	 * the request as the composite aggregation would, or {@code null}. The
+	 * index only holds the public documents, so it is not used when the
+	 * request has search tokens, when the datasources of the bucket have ACL
+	 * mappings, or when the documents are filtered by score, and as it holds
+	 * a single field, when the suggestions are for more fields.
+	 */
+	private SuggestionIndex _getSuggestionIndex(
+		QueryParserRequest request, Map<QueryParserType, List<ParserSearchToken>> tokenGroup,
+		TenantWithBucket tenantWithBucket, List<Tuple2<Long, DocTypeField>> suggestionDocTypeFields) {
+
+		if (!suggestionIndexRegistry.isEnabled() || !tokenGroup.isEmpty()
+			|| suggestionDocTypeFields.size() != 1) {
+
+			return null;
+		}
+
+		Bucket bucket = tenantWithBucket.getBucket();
+
+		SearchConfig searchConfig = bucket.getSearchConfig();
+
+		if (searchConfig != null && searchConfig.isMinScoreSuggestions()) {
+			return null;
+		}
+
+		boolean aclMapped = bucket
+			.getDatasources()
+			.stream()
+			.map(Datasource::getPluginDriver)
+			.anyMatch(pluginDriver -> pluginDriver != null
+				&& pluginDriver.getAclMappings() != null
+				&& !pluginDriver.getAclMappings().isEmpty());
+
+		if (aclMapped) {
+			return null;
+		}
+
+		DocTypeField docTypeField = suggestionDocTypeFields.getFirst().getItem2();
+
+		// the aggregation matches the keyword on the text field of the values,
+		// that the index tokenizes as the standard analyzer.
+		if (request.getSuggestionCategoryId() != 0
+			&& StringUtils.isNotBlank(request.getSuggestKeyword())) {
+
+			DocTypeField parent = docTypeField.getParentDocTypeField();
+
+			if (parent == null || parent.getFieldType() != FieldType.TEXT
+				|| parent.getAnalyzer() != null) {
+
+				return null;
+			}
+		}
+
+		Map<String, Object> afterKey = _decodeAfterKey(request.getAfterKey());
+
+		// the keys of the index are strings, any other after key is paged by the aggregation.
+		if (afterKey != null && (!afterKey.keySet().equals(Set.of(docTypeField.getPath()))
+			|| afterKey.get(docTypeField.getPath()) != null
+			&& !(afterKey.get(docTypeField.getPath()) instanceof String))) {
+
+			return null;
+		}
+
+		return suggestionIndexRegistry.get(
+			tenantWithBucket.getTenant().schemaName(),
+			tenantWithBucket.getIndexNames(),
+			docTypeField.getPath()
+		);
+	}
+
+	private static SuggestionsResponse _suggestionsResponse(
+		QueryParserRequest request, SuggestionIndex suggestionIndex,
+		Tuple2<Long, DocTypeField> suggestionDocTypeField) {
+
+		String path = suggestionDocTypeField.getItem2().getPath();
+
+		Map<String, Object> afterKey = _decodeAfterKey(request.getAfterKey());
+
+		String after = afterKey != null && afterKey.get(path) instanceof String value
+			? value
+			: null;
+
+		int size = request.getRangeCount() == 2
+			? request.getRange(1)
+			: SUGGESTIONS_DEFAULT_SIZE;
+
+		String suggestKeyword = request.getSuggestKeyword();
+
+		List<SuggestionIndex.Entry> entries =
+			request.getSuggestionCategoryId() != 0 && StringUtils.isNotBlank(suggestKeyword)
+				? suggestionIndex.page(suggestKeyword, after, size)
+				: suggestionIndex.page(after, size);
+
+		SequencedSet<Suggestions> suggestions = new LinkedHashSet<>();
+
+		for (SuggestionIndex.Entry entry : entries) {
+			_addSuggestion(
+				suggestions,
+				suggestKeyword,
+				entry.value(),
+				SuggestionsUtil.filter(
+					entry.value(), suggestionDocTypeField.getItem1(), path, entry.docCount())
+			);
+		}
+
+		return _suggestionsResponse(
+			suggestions,
+			suggestKeyword,
+			entries.isEmpty() ? null : Map.of(path, entries.getLast().value())
+		);
+	}
+
+	private static void _addSuggestion(
+		Set<Suggestions> suggestions, String suggestKeyword, String key,
+		Suggestions suggestion) {
+
+		if (StringUtils.isBlank(suggestKeyword) || containsIgnoreCase(key, suggestKeyword)) {
+			suggestions.add(suggestion);
+		}
+	}
+
+	/**
+	 * With a keyword, the suggestions are returned from the last one added.
+	 */
+	private static SuggestionsResponse _suggestionsResponse(
+		SequencedSet<Suggestions> suggestions, String suggestKeyword,
+		Map<String, Object> afterKey) {
+
+		String newAfterKey = "";
+
+		if (afterKey != null) {
+			newAfterKey = Base64.getEncoder().encodeToString(
+				Json.encode(afterKey).getBytes(StandardCharsets.UTF_8));
+		}
+
+		return SuggestionsResponse
+			.newBuilder()
+			.addAllResult(
+				StringUtils.isNotBlank(suggestKeyword) ? suggestions.reversed() : suggestions)
+			.setAfterKey(newAfterKey)
+			.build();
+	}
+
+	private static Map<String, Object> _decodeAfterKey(String afterKey) {
+
+		if (StringUtils.isBlank(afterKey)) {
+			return null;
+		}
+
+		byte[] afterKeyDecoded = Base64.getDecoder().decode(afterKey);
+
+		return new JsonObject(new String(afterKeyDecoded)).getMap();
+	}
+
 	private CompositeAggregation _getCompositeAggregation(
 		SearchResponse searchResponse) {
 		Aggregations aggregations = searchResponse.getAggregations();
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.openk9.datasource.model.Bucket;
+import io.openk9.datasource.model.DocTypeField;
+import io.openk9.datasource.model.FieldType;
+import io.openk9.datasource.model.Language;
+import io.openk9.datasource.searcher.util.Utils;
+
+import lombok.Getter;
+
+/**
+ * The fields of a bucket that a search uses, resolved once for a language.
+ *
+ * <p>A plan is built on the first search of its language (see
+ * {@link TenantWithBucket#getSearchPlan}) and is read by every search of
+ * that bucket and language, so that the parsers and the
+ * {@code SearcherService} do not walk the {@link DocTypeField} graph of the
+ * bucket on each request.</p>
+ */
+@Getter
+public class SearchPlan {
+
+	private final String language;
+	/**
+	 * The searchable text fields of the language, with their boost.
+	 */
+	private final Map<String, Float> textFieldBoosts;
+	private final List<String> includes;
+	private final List<String> excludes;
+	private final List<String> highlightFields;
+	private final Set<String> sortableFields;
+	/**
+	 * The keyword field that an i18n field is resolved to, by the id of the
+	 * i18n field.
+	 */
+	private final Map<Long, DocTypeField> i18nKeywordFields;
+
+	SearchPlan(Bucket bucket, String language) {
+
+		this.language = language;
+
+		List<DocTypeField> docTypeFields = Utils.getDocTypeFieldsFrom(bucket).toList();
+
+		List<DocTypeField> notI18nFields = docTypeFields
+			.stream()
+			.filter(docTypeField -> !docTypeField.isI18N())
+			.toList();
+
+		this.textFieldBoosts = _textFieldBoosts(docTypeFields, language);
+
+		Set<String> includes = new LinkedHashSet<>();
+		Set<String> excludes = new LinkedHashSet<>();
+		Set<String> highlightFields = new LinkedHashSet<>();
+
+		_includesAndHighlights(notI18nFields, language, includes, excludes, highlightFields);
+
+		this.includes = List.copyOf(includes);
+		this.excludes = List.copyOf(excludes);
+		this.highlightFields = List.copyOf(highlightFields);
+
+		Set<String> sortableFields = new LinkedHashSet<>();
+
+		for (DocTypeField docTypeField : notI18nFields) {
+			if (docTypeField.isSortable()) {
+				sortableFields.add(docTypeField.getPath());
+			}
+		}
+
+		this.sortableFields = Collections.unmodifiableSet(sortableFields);
+
+		Map<Long, DocTypeField> i18nKeywordFields = new HashMap<>();
+
+		for (DocTypeField docTypeField : docTypeFields) {
+			if (docTypeField.isI18N()) {
+				DocTypeField keywordField =
+					_getI18nKeywordField(docTypeField, language, notI18nFields);
+
+				if (keywordField != null) {
+					i18nKeywordFields.put(docTypeField.getId(), keywordField);
+				}
+			}
+		}
+
+		this.i18nKeywordFields = Collections.unmodifiableMap(i18nKeywordFields);
+	}
+
+	/**
+	 * Returns the text fields with their boost, restricted to the given path
+	 * when it is not blank.
+	 */
+	public Map<String, Float> getTextFieldBoosts(String path) {
+
+		if (path == null || path.isBlank()) {
+			return textFieldBoosts;
+		}
+
+		Float boost = textFieldBoosts.get(path);
+
+		return boost != null ? Map.of(path, boost) : Map.of();
+	}
+
+	/**
+	 * Returns the keyword field that the i18n field is resolved to for this
+	 * language, or {@code null} when there is none.
+	 */
+	public DocTypeField getI18nKeywordField(DocTypeField docTypeField) {
+		return i18nKeywordFields.get(docTypeField.getId());
+	}
+
+	private static Map<String, Float> _textFieldBoosts(
+		List<DocTypeField> docTypeFields, String language) {
+
+		Map<String, Float> textFieldBoosts = new HashMap<>();
+
+		for (DocTypeField docTypeField : docTypeFields) {
+			if (docTypeField.isSearchableAndText() && _i18nFilter(docTypeField, language)) {
+				textFieldBoosts.merge(
+					docTypeField.getPath(), docTypeField.getFloatBoost(), Math::max);
+			}
+		}
+
+		return Collections.unmodifiableMap(textFieldBoosts);
+	}
+
+	private static void _includesAndHighlights(
+		List<DocTypeField> docTypeFields,
+		String language,
+		Set<String> includes,
+		Set<String> excludes,
+		Set<String> highlightFields) {
+
+		// for every i18n parent, the fields of the language, or else the base fields.
+		Map<DocTypeField, Set<DocTypeField>> baseFields = new HashMap<>();
+		Map<DocTypeField, Set<DocTypeField>> languageFields = new HashMap<>();
+
+		for (DocTypeField docTypeField : docTypeFields) {
+			DocTypeField i18nParent = _getI18nParent(docTypeField);
+
+			if (i18nParent != null) {
+
+				Set<DocTypeField> base =
+					baseFields.computeIfAbsent(i18nParent, k -> new LinkedHashSet<>());
+				Set<DocTypeField> localized =
+					languageFields.computeIfAbsent(i18nParent, k -> new LinkedHashSet<>());
+
+				String fieldName = docTypeField.getPath();
+
+				if (fieldName.contains(".i18n." + language)) {
+					localized.add(docTypeField);
+				}
+				else if (fieldName.contains(".base")) {
+					base.add(docTypeField);
+				}
+
+			}
+			else {
+				String name = docTypeField.getPath();
+				if (docTypeField.isDefaultExclude()) {
+					excludes.add(name);
+				}
+				else {
+					if (docTypeField.getFieldType() != FieldType.OBJECT) {
+						includes.add(name);
+					}
+					if (docTypeField.isSearchableAndText()) {
+						highlightFields.add(name);
+					}
+				}
+			}
+		}
+
+		for (Map.Entry<DocTypeField, Set<DocTypeField>> entry : languageFields.entrySet()) {
+
+			Set<DocTypeField> fields = !entry.getValue().isEmpty()
+				? entry.getValue()
+				: baseFields.get(entry.getKey());
+
+			for (DocTypeField docTypeField : fields) {
+				String name = docTypeField.getPath();
+				if (docTypeField.isDefaultExclude()) {
+					excludes.add(name);
+				}
+				else {
+					includes.add(name);
+					if (docTypeField.isSearchableAndText()) {
+						highlightFields.add(name);
+					}
+				}
+			}
+		}
+	}
+
+	private static DocTypeField _getI18nKeywordField(
+		DocTypeField docTypeField, String language, List<DocTypeField> docTypeFields) {
+
+		DocTypeField docTypeFieldBase = null;
+
+		for (DocTypeField e : docTypeFields) {
+
+			if (e.isKeyword() && e.getPath().startsWith(docTypeField.getPath())) {
+				if (e.getPath().contains(language)) {
+					return e;
+				}
+				else if (e.getPath().contains(".base")) {
+					docTypeFieldBase = e;
+				}
+			}
+		}
+
+		return docTypeFieldBase;
+	}
+
+	private static DocTypeField _getI18nParent(DocTypeField docTypeField) {
+		if (docTypeField == null) {
+			return null;
+		}
+
+		DocTypeField parent = docTypeField.getParentDocTypeField();
+
+		return parent != null
+			&& parent.getFieldType() != null
+			&& parent.getFieldType() == FieldType.I18N
+			? parent
+			: _getI18nParent(parent);
+	}
+
+	private static boolean _i18nFilter(DocTypeField docTypeField, String language) {
+		String fieldPath = docTypeField.getPath();
+
+		if (!language.equals(Language.NONE)) {
+			return fieldPath.contains(".i18n." + language)
+				|| !fieldPath.contains(".base") && !fieldPath.contains(".i18n");
+		}
+		else {
+			return fieldPath.contains(".base") || !fieldPath.contains(".i18n");
+		}
+	}
+
+}
@@ -18,12 +18,16 @@
 package io.openk9.datasource.searcher.model;
 
 import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.openk9.api.tenantmanager.TenantManager;
 import io.openk9.datasource.index.model.IndexName;
 import io.openk9.datasource.model.Bucket;
 import io.openk9.datasource.model.Datasource;
+import io.openk9.datasource.model.Language;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 @Getter
@@ -32,6 +36,8 @@ public class TenantWithBucket {
 	private final TenantManager.Tenant tenant;
 	private final Bucket bucket;
 	private final String[] indexNames;
+	@Getter(AccessLevel.NONE)
+	private final Map<String, SearchPlan> searchPlans = new ConcurrentHashMap<>();
 
 	public TenantWithBucket(TenantManager.Tenant tenant, Bucket bucket) {
 
@@ -52,4 +58,41 @@ public class TenantWithBucket {
 
 	}
 
+	/**
+	 * Returns the plan of the language, built on its first search. The plans
+	 * read the doc type fields and the languages of the bucket, that only the
+	 * searcher fetches, so they are not built with the bucket.
+	 *
+	 * <p>A language that the bucket does not support gets the plan of the
+	 * default language, as the searcher resolves it, so that only the
+	 * languages of the bucket are held.</p>
+	 */
+	public SearchPlan getSearchPlan(String language) {
+		return searchPlans.computeIfAbsent(
+			_supportedLanguage(language), key -> new SearchPlan(this.bucket, key));
+	}
+
+	private String _supportedLanguage(String language) {
+
+		if (Language.NONE.equals(language)) {
+			return Language.NONE;
+		}
+
+		Language defaultLanguage = this.bucket.getDefaultLanguage();
+
+		if (defaultLanguage != null && defaultLanguage.getValue().equals(language)) {
+			return language;
+		}
+
+		if (this.bucket.getAvailableLanguages() != null) {
+			for (Language available : this.bucket.getAvailableLanguages()) {
+				if (available.getValue().equals(language)) {
+					return language;
+				}
+			}
+		}
+
+		return defaultLanguage != null ? defaultLanguage.getValue() : Language.NONE;
+	}
+
 }
@@ -77,13 +77,19 @@ public class KnnQueryParser implements QueryParser {
 
 		}
 
+		if (knnQueryUnis.isEmpty()) {
+			return Uni.createFrom().voidItem();
+		}
+
+		// the values missing from the query embedding cache are embedded concurrently.
 		return Uni.join().all(knnQueryUnis)
-			.usingConcurrencyOf(1)
 			.andCollectFailures()
 			.onItemOrFailure()
 			.invoke((knnQueries, throwable) -> {
 				if (throwable != null) {
 					log.warn("Error during knnQuery parsing.", throwable);
+
+					return;
 				}
 
 				for (Query knnQuery : knnQueries) {
@@ -111,7 +117,7 @@ public class KnnQueryParser implements QueryParser {
 		return new KnnQuery.Builder()
 			.k(kNeighbors)
 			.field("vector")
-			.vector(toVector(embeddedText))
+			.vector(embeddedText.vector())
 			.build()
 			.toQuery();
 	}
@@ -123,17 +129,4 @@ public class KnnQueryParser implements QueryParser {
 		parserContext.getMutableQuery().must(wrapperQueryBuilder);
 	}
 
-	private static float[] toVector(EmbeddingService.EmbeddedText embeddedText) {
-
-		var list = embeddedText.vector();
-		var n = list.size();
-		var arr = new float[n];
-
-		for (int i = 0; i < n; i++) {
-			arr[i] = list.get(i);
-		}
-
-		return arr;
-	}
-
 }
@@ -17,22 +17,16 @@
 
 package io.openk9.datasource.searcher.parser.impl;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Default;
 import jakarta.inject.Named;
 
 import io.openk9.datasource.mapper.FuzzinessMapper;
-import io.openk9.datasource.model.Bucket;
-import io.openk9.datasource.model.Datasource;
-import io.openk9.datasource.model.DocTypeField;
-import io.openk9.datasource.model.Language;
 import io.openk9.datasource.model.QueryParserType;
 import io.openk9.datasource.model.util.Fuzziness;
+import io.openk9.datasource.searcher.model.SearchPlan;
 import io.openk9.datasource.searcher.parser.ParserContext;
 import io.openk9.datasource.searcher.parser.QueryParser;
 import io.openk9.datasource.searcher.util.QueryType;
@@ -67,21 +61,13 @@ public class TextQueryParser implements QueryParser {
 
 		BoolQueryBuilder mutableQuery = parserContext.getMutableQuery();
 
-		Bucket bucket = parserContext.getTenantWithBucket().getBucket();
-
-		Set<Datasource> datasources = bucket.getDatasources();
-
-		String language = parserContext.getLanguage();
+		SearchPlan searchPlan = parserContext
+			.getTenantWithBucket()
+			.getSearchPlan(parserContext.getLanguage());
 
 		JsonObject jsonConfig = parserContext.getQueryParserConfig();
 
-		List<DocTypeField> docTypeFieldList =
-			Utils.getDocTypeFieldsFrom(datasources)
-				.filter(DocTypeField::isSearchableAndText)
-				.filter(f -> i18nFilter(f, language))
-				.toList();
-
-		if (docTypeFieldList.isEmpty()) {
+		if (searchPlan.getTextFieldBoosts().isEmpty()) {
 			return Uni.createFrom().voidItem();
 		}
 
@@ -93,24 +79,8 @@ public class TextQueryParser implements QueryParser {
 				return Uni.createFrom().voidItem();
 			}
 
-			String keywordKey = token.getKeywordKey();
-
-			boolean keywordKeyIsPresent =
-				keywordKey != null && !keywordKey.isBlank();
-
 			Map<String, Float> keywordBoostMap =
-				docTypeFieldList
-					.stream()
-					.filter(docTypeField ->
-						!keywordKeyIsPresent || docTypeField.getPath().equals(keywordKey))
-					.collect(
-						Collectors.toMap(
-							DocTypeField::getPath,
-							DocTypeField::getFloatBoost,
-							Math::max,
-							HashMap::new
-						)
-					);
+				searchPlan.getTextFieldBoosts(token.getKeywordKey());
 
 			BoolQueryBuilder tokenClauseBuilder = QueryBuilders.boolQuery();
 
@@ -191,26 +161,6 @@ public class TextQueryParser implements QueryParser {
 
 	}
 
-	private static boolean i18nFilter(DocTypeField f, String language) {
-		String fieldPath = f.getPath();
-
-		if (!language.equals(Language.NONE)) {
-			return isI18nOrNotBase(fieldPath, language);
-		}
-		else {
-			return isBaseOrNotI18n(fieldPath);
-		}
-	}
-
-	private static boolean isBaseOrNotI18n(String fieldPath) {
-		return fieldPath.contains(".base") || !fieldPath.contains(".i18n");
-	}
-
-	private static boolean isI18nOrNotBase(String fieldPath, String language) {
-		return fieldPath.contains(".i18n." + language)
-			   || !fieldPath.contains(".base") && !fieldPath.contains(".i18n");
-	}
-
 	protected static float getBoost(
 		ParserSearchToken token, JsonObject jsonConfig) {
 
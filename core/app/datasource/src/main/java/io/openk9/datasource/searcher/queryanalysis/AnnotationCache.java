@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.openk9.datasource.cache.CacheScopes;
+import io.openk9.datasource.searcher.queryanalysis.annotator.SearchAnnotator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+
+/**
+ * The annotations that the {@link SearchAnnotator}s collected for a token
+ * span, shared by the query analysis requests of every user.
+ *
+ * <p>Annotations are keyed by the {@link Scope} of the annotator and the
+ * span. The scope holds the tenant, so that the entries are evicted by the
+ * {@code P2PCache} invalidations of the tenant, the indices of the bucket,
+ * so that the entries of an index that is no longer used are not read
+ * anymore, and the ACL terms of the caller, for the annotators that filter
+ * the documents by ACL. The entries expire shortly after they are written
+ * (see the {@code query-annotation} cache configuration), and every hit
+ * increments {@value #SAVED_SEARCHES}, the searches that were not sent to
+ * OpenSearch.</p>
+ */
+@ApplicationScoped
+public class AnnotationCache {
+
+	static final String SAVED_SEARCHES = "openk9.query-analysis.annotation-cache.saved-searches";
+
+	/**
+	 * Returns the annotations cached for the span, or {@code null} when they
+	 * are not cached.
+	 */
+	public List<CategorySemantics> get(Key key) {
+
+		CompletableFuture<List<CategorySemantics>> annotations =
+			cache.as(CaffeineCache.class).getIfPresent(key);
+
+		if (annotations == null || !annotations.isDone()
+			|| annotations.isCompletedExceptionally()) {
+
+			return null;
+		}
+
+		savedSearches.increment();
+
+		return annotations.join();
+	}
+
+	public void put(Key key, List<CategorySemantics> annotations) {
+		cache.as(CaffeineCache.class).put(
+			key, CompletableFuture.completedFuture(List.copyOf(annotations)));
+	}
+
+	/**
+	 * What the annotations of an annotator depend on, besides the span.
+	 */
+	public record Scope(
+		String tenantId,
+		Set<String> indexNames,
+		Long annotatorId,
+		List<List<String>> aclTerms
+	) {}
+
+	public record Key(Scope scope, List<String> span) implements CacheScopes.TenantScoped {
+
+		@Override
+		public String tenantId() {
+			return scope.tenantId();
+		}
+
+	}
+
+	@PostConstruct
+	void init() {
+		savedSearches = Counter
+			.builder(SAVED_SEARCHES)
+			.description("Annotator searches answered by the query annotation cache")
+			.register(meterRegistry);
+	}
+
+	@CacheName("query-annotation")
+	Cache cache;
+
+	@Inject
+	MeterRegistry meterRegistry;
+
+	private Counter savedSearches;
+
+}
@@ -0,0 +1,467 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import io.openk9.datasource.searcher.queryanalysis.annotator.Annotator;
+import io.openk9.datasource.searcher.util.Tuple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A chart parser that stores the chart as a flat triangular array indexed
+ * by span, with the rule symbols interned to int ids.
+ *
+ * <p>Binary rules are looked up by the ids of their two children, lexical
+ * rules by a view over the input tokens, so that no key is allocated while
+ * filling the chart. The parses, and their order, are the same produced by
+ * the map-keyed parser that the tests keep as reference.</p>
+ *
+ * <p>When {@code maxParsesPerCell} is positive, every cell stops accepting
+ * parses once it holds that many, bounding the combinatorial growth of
+ * long inputs.</p>
+ *
+ * <p>The cells of a column only depend on the tokens up to the column, and
+ * on whether the column is the last one, for the annotators that apply to
+ * the last tokens only. So every parse returns the chart without its last
+ * column as a {@link Prefix}, and the parse of an input that starts with
+ * the same tokens can continue from it, filling the remaining columns
+ * only.</p>
+ */
+class ArrayChartParser implements ChartParser {
+
+	ArrayChartParser(
+		String startSymbol,
+		Map<Tuple, List<Rule>> lexicalRules,
+		Map<Tuple, List<Rule>> unaryRules,
+		Map<Tuple, List<Rule>> binaryRules,
+		int maxParsesPerCell) {
+
+		this.maxParsesPerCell =
+			maxParsesPerCell > 0 ? maxParsesPerCell : Integer.MAX_VALUE;
+
+		if (startSymbol != null && !startSymbol.isBlank()) {
+			this.startSymbolId = _intern(startSymbol);
+		}
+		else {
+			this.startSymbolId = -1;
+		}
+
+		for (List<Rule> rules : unaryRules.values()) {
+			for (Rule rule : rules) {
+				_intern(rule.getLhs());
+				_intern(rule.getRhs()[0]);
+			}
+		}
+
+		for (List<Rule> rules : binaryRules.values()) {
+			for (Rule rule : rules) {
+				_intern(rule.getLhs());
+				_intern(rule.getRhs()[0]);
+				_intern(rule.getRhs()[1]);
+			}
+		}
+
+		for (List<Rule> rules : lexicalRules.values()) {
+			for (Rule rule : rules) {
+				_intern(rule.getLhs());
+			}
+		}
+
+		int symbolCount = symbolIds.size();
+
+		this.unaryRules = new Rule[symbolCount][];
+
+		for (Map.Entry<Tuple, List<Rule>> entry : unaryRules.entrySet()) {
+			int rhs = symbolIds.get((String) entry.getKey().get(0));
+			this.unaryRules[rhs] = entry.getValue().toArray(Rule[]::new);
+		}
+
+		this.binaryRules = new Rule[symbolCount][][];
+
+		for (Map.Entry<Tuple, List<Rule>> entry : binaryRules.entrySet()) {
+			int left = symbolIds.get((String) entry.getKey().get(0));
+			int right = symbolIds.get((String) entry.getKey().get(1));
+
+			Rule[][] byRight = this.binaryRules[left];
+
+			if (byRight == null) {
+				byRight = new Rule[symbolCount][];
+				this.binaryRules[left] = byRight;
+			}
+
+			byRight[right] = entry.getValue().toArray(Rule[]::new);
+		}
+
+		this.lexicalRules = new HashMap<>(lexicalRules.size());
+
+		for (Map.Entry<Tuple, List<Rule>> entry : lexicalRules.entrySet()) {
+
+			Object[] words = entry.getKey().toArray();
+
+			String[] rhs = Arrays.copyOf(words, words.length, String[].class);
+
+			this.lexicalRules.put(
+				new TokenSpan(rhs, 0, rhs.length),
+				entry.getValue().toArray(Rule[]::new)
+			);
+		}
+
+	}
+
+	@Override
+	public List<Parse> parse(
+		String[] tokens, List<Annotator> annotators, SpanAnnotations spanAnnotations) {
+
+		return parse(tokens, annotators, spanAnnotations, null).parses();
+	}
+
+	/**
+	 * Parses the tokens continuing from the given prefix, when it
+	 * {@linkplain Prefix#continues continues} to the input, and returns the
+	 * parses with the prefix of this input.
+	 */
+	Result parse(
+		String[] tokens, List<Annotator> annotators, SpanAnnotations spanAnnotations,
+		Prefix prefix) {
+
+		int length = tokens.length;
+
+		if (length == 0) {
+			return new Result(List.of(), null);
+		}
+
+		Cell[] chart = new Cell[length * (length + 1) / 2];
+
+		int columns = 0;
+
+		if (prefix != null && prefix.continues(this, tokens)) {
+			columns = prefix.columns();
+			System.arraycopy(prefix.cells, 0, chart, 0, prefix.cells.length);
+		}
+
+		for (int j = columns + 1; j < length + 1; j++) {
+			for (int i = j - 1; i != -1 ; i--) {
+
+				Cell cell = new Cell();
+
+				chart[_index(i, j)] = cell;
+
+				Tuple<Integer> chartKey = Tuple.of(i, j);
+
+				String[] span = Arrays.copyOfRange(tokens, i, j);
+
+				Set<String> context = new HashSet<>();
+
+				_applyAnnotators(
+					cell, chartKey, span, i, j, length, context, annotators,
+					spanAnnotations);
+				_applyLexicalRules(cell, chartKey, tokens, span, i, j);
+				_applyBinaryRules(chart, cell, chartKey, i, j);
+				_applyUnaryRules(cell, chartKey);
+			}
+		}
+
+		Prefix next = length > 1
+			? new Prefix(
+				this, Arrays.copyOf(tokens, length - 1),
+				Arrays.copyOf(chart, _index(0, length)))
+			: null;
+
+		Cell root = chart[_index(0, length)];
+
+		if (startSymbolId != -1) {
+
+			List<Parse> parses = new ArrayList<>();
+
+			for (int p = 0; p < root.size; p++) {
+				if (root.symbols[p] == startSymbolId) {
+					parses.add(root.parses[p]);
+				}
+			}
+
+			return new Result(parses, next);
+		}
+
+		return new Result(Arrays.asList(Arrays.copyOf(root.parses, root.size)), next);
+
+	}
+
+	private void _applyAnnotators(
+		Cell cell, Tuple<Integer> chartKey, String[] span, int i, int j,
+		int length, Set<String> context, List<Annotator> annotators,
+		SpanAnnotations spanAnnotations) {
+
+		for (int a = 0; a < annotators.size(); a++) {
+
+			Annotator annotator = annotators.get(a);
+
+			if (!Grammar.isApplicable(annotator, i, j, length)) {
+				continue;
+			}
+
+			List<CategorySemantics> annotations =
+				spanAnnotations.annotate(a, annotator, context, span, i, j);
+
+			for (CategorySemantics categorySemantics : annotations) {
+
+				String category = categorySemantics.getCategory();
+
+				Rule rule = new Rule(
+					category, span,
+					Semantic.of(chartKey, categorySemantics.getSemantics()));
+
+				cell.add(
+					Parse.of(rule, chartKey, span),
+					symbolIds.getOrDefault(category, -1),
+					maxParsesPerCell);
+			}
+		}
+
+	}
+
+	private void _applyLexicalRules(
+		Cell cell, Tuple<Integer> chartKey, String[] tokens, String[] span,
+		int i, int j) {
+
+		Rule[] rules = lexicalRules.get(new TokenSpan(tokens, i, j));
+
+		if (rules == null) {
+			return;
+		}
+
+		for (Rule rule : rules) {
+			cell.add(
+				Parse.of(
+					Rule.of(
+						rule.getLhs(),
+						rule.getRhs(),
+						Semantic.of(
+							chartKey, sems ->
+								rule
+									.getSem()
+									.apply(sems)
+									.stream()
+									.map(maps -> SemanticType.of(chartKey, maps.getValue()))
+									.collect(
+										Collectors.collectingAndThen(
+											Collectors.toList(), SemanticTypes::of))
+						)
+					),
+					chartKey,
+					span),
+				symbolIds.get(rule.getLhs()),
+				maxParsesPerCell
+			);
+		}
+
+	}
+
+	private void _applyBinaryRules(
+		Cell[] chart, Cell cell, Tuple<Integer> chartKey, int i, int j) {
+
+		for (int k = i + 1; k < j; k++) {
+
+			Cell left = chart[_index(i, k)];
+			Cell right = chart[_index(k, j)];
+
+			for (int l = 0; l < left.size; l++) {
+
+				int leftSymbol = left.symbols[l];
+
+				Rule[][] byRight =
+					leftSymbol != -1 ? binaryRules[leftSymbol] : null;
+
+				if (byRight == null) {
+					continue;
+				}
+
+				for (int r = 0; r < right.size; r++) {
+
+					int rightSymbol = right.symbols[r];
+
+					Rule[] rules = rightSymbol != -1 ? byRight[rightSymbol] : null;
+
+					if (rules == null) {
+						continue;
+					}
+
+					for (Rule rule : rules) {
+						cell.add(
+							Parse.of(rule, chartKey, left.parses[l], right.parses[r]),
+							symbolIds.get(rule.getLhs()),
+							maxParsesPerCell);
+					}
+				}
+			}
+		}
+
+	}
+
+	private void _applyUnaryRules(Cell cell, Tuple<Integer> chartKey) {
+
+		for (int p = 0; p < cell.size; p++) {
+
+			int symbol = cell.symbols[p];
+
+			Rule[] rules = symbol != -1 ? unaryRules[symbol] : null;
+
+			if (rules == null) {
+				continue;
+			}
+
+			Parse parse = cell.parses[p];
+
+			for (Rule rule : rules) {
+				cell.add(
+					Parse.of(rule, chartKey, parse),
+					symbolIds.get(rule.getLhs()),
+					maxParsesPerCell);
+			}
+		}
+
+	}
+
+	private int _intern(String symbol) {
+		return symbolIds.computeIfAbsent(symbol, k -> symbolIds.size());
+	}
+
+	private static int _index(int i, int j) {
+		return j * (j - 1) / 2 + i;
+	}
+
+	private final Map<String, Integer> symbolIds = new HashMap<>();
+	private final int startSymbolId;
+	private final Map<TokenSpan, Rule[]> lexicalRules;
+	private final Rule[][] unaryRules;
+	private final Rule[][][] binaryRules;
+	private final int maxParsesPerCell;
+
+	record Result(List<Parse> parses, Prefix prefix) {}
+
+	/**
+	 * The first columns of a chart, with the tokens they span. The cells are
+	 * never modified once their column is filled, so a prefix can be shared
+	 * by concurrent parses.
+	 */
+	static final class Prefix {
+
+		private Prefix(ArrayChartParser parser, String[] tokens, Cell[] cells) {
+			this.parser = parser;
+			this.tokens = tokens;
+			this.cells = cells;
+		}
+
+		int columns() {
+			return tokens.length;
+		}
+
+		String[] tokens() {
+			return tokens;
+		}
+
+		/**
+		 * Whether the input can be parsed continuing from this prefix.
+		 */
+		boolean continues(ArrayChartParser parser, String[] input) {
+			return this.parser == parser && input.length > tokens.length
+				&& Arrays.equals(tokens, 0, tokens.length, input, 0, tokens.length);
+		}
+
+		private final ArrayChartParser parser;
+		private final String[] tokens;
+		private final Cell[] cells;
+
+	}
+
+	private static final class Cell {
+
+		void add(Parse parse, int symbol, int maxSize) {
+
+			if (size == maxSize) {
+				return;
+			}
+
+			if (size == parses.length) {
+				int capacity = Math.max(4, size * 2);
+				parses = Arrays.copyOf(parses, capacity);
+				symbols = Arrays.copyOf(symbols, capacity);
+			}
+
+			parses[size] = parse;
+			symbols[size] = symbol;
+			size++;
+		}
+
+		private Parse[] parses = new Parse[0];
+		private int[] symbols = new int[0];
+		private int size;
+
+	}
+
+	/**
+	 * A view over a range of tokens, comparable with the rhs of the
+	 * lexical rules without copying the range.
+	 */
+	private static final class TokenSpan {
+
+		TokenSpan(String[] tokens, int from, int to) {
+			this.tokens = tokens;
+			this.from = from;
+			this.to = to;
+
+			int result = 1;
+
+			for (int i = from; i < to; i++) {
+				result = 31 * result + tokens[i].hashCode();
+			}
+
+			this.hash = result;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof TokenSpan tokenSpan)) {
+				return false;
+			}
+			return hash == tokenSpan.hash && Arrays.equals(
+				tokens, from, to, tokenSpan.tokens, tokenSpan.from, tokenSpan.to);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		private final String[] tokens;
+		private final int from;
+		private final int to;
+		private final int hash;
+
+	}
+
+}
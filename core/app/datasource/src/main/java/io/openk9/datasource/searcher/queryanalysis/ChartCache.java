@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import io.openk9.datasource.cache.CacheScopes;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+
+/**
+ * The chart prefixes of the latest inputs analyzed for a caller, so that
+ * the analysis of an input typed one keystroke at a time only fills the
+ * columns of the tokens that changed.
+ *
+ * <p>A prefix is keyed by the caller, the virtual host and the JWT, that
+ * select the annotators, and by its tokens. A lookup tries the prefixes of
+ * the input from the longest one. The entries expire shortly after they are
+ * written (see the {@code query-chart} cache configuration).</p>
+ */
+@ApplicationScoped
+public class ChartCache {
+
+	/**
+	 * Returns the longest cached prefix of the tokens that the parser can
+	 * continue from, or {@code null}.
+	 */
+	ArrayChartParser.Prefix find(
+		String tenantId, String caller, ArrayChartParser parser, String[] tokens) {
+
+		CaffeineCache caffeineCache = cache.as(CaffeineCache.class);
+
+		for (int columns = tokens.length - 1; columns > 0; columns--) {
+
+			CompletableFuture<ArrayChartParser.Prefix> prefix = caffeineCache.getIfPresent(
+				new Key(tenantId, caller, List.of(Arrays.copyOf(tokens, columns))));
+
+			if (prefix != null && prefix.isDone() && !prefix.isCompletedExceptionally()
+				&& prefix.join().continues(parser, tokens)) {
+
+				return prefix.join();
+			}
+		}
+
+		return null;
+	}
+
+	void put(String tenantId, String caller, ArrayChartParser.Prefix prefix) {
+		cache.as(CaffeineCache.class).put(
+			new Key(tenantId, caller, List.of(prefix.tokens())),
+			CompletableFuture.completedFuture(prefix)
+		);
+	}
+
+	private record Key(String tenantId, String caller, List<String> tokens)
+		implements CacheScopes.TenantScoped {}
+
+	@CacheName("query-chart")
+	Cache cache;
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import io.openk9.datasource.searcher.queryanalysis.annotator.Annotator;
+
+import java.util.List;
+
+/**
+ * Builds the CKY chart of a tokenized input and returns the parses that
+ * span the whole input.
+ */
+interface ChartParser {
+
+	List<Parse> parse(
+		String[] tokens, List<Annotator> annotators, SpanAnnotations spanAnnotations);
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import io.openk9.datasource.model.util.JWT;
+import io.openk9.datasource.searcher.queryanalysis.annotator.Annotator;
+
+/**
+ * The JWT independent part of a bucket {@link Grammar}: the rule tables,
+ * already expanded and binarized, and the annotator configurations.
+ *
+ * <p>Annotators that do not depend on the caller are built once, the
+ * others are bound to the {@link JWT} of every request with
+ * {@link #bind(JWT)}.</p>
+ */
+public class CompiledGrammar {
+
+	public CompiledGrammar(
+		Grammar grammar, List<Function<JWT, Annotator>> annotatorBindings) {
+
+		this.grammar = grammar;
+		this.annotatorBindings = List.copyOf(annotatorBindings);
+	}
+
+	public Grammar bind(JWT jwt) {
+
+		List<Annotator> annotators = new ArrayList<>(annotatorBindings.size());
+
+		for (Function<JWT, Annotator> annotatorBinding : annotatorBindings) {
+			annotators.add(annotatorBinding.apply(jwt));
+		}
+
+		return grammar.withAnnotators(annotators);
+	}
+
+	private final Grammar grammar;
+	private final List<Function<JWT, Annotator>> annotatorBindings;
+
+}
@@ -18,9 +18,10 @@
 package io.openk9.datasource.searcher.queryanalysis;
 
 import io.openk9.datasource.searcher.queryanalysis.annotator.Annotator;
-import io.openk9.datasource.searcher.queryanalysis.util.Itertools;
 import io.openk9.datasource.searcher.util.Tuple;
 import io.openk9.datasource.searcher.util.Utils;
+import io.smallrye.mutiny.Uni;
+import org.opensearch.client.RestHighLevelClient;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -42,7 +43,23 @@ public class Grammar {
 
 	public Grammar(
 		String tenantId, List<GrammarMixin> bases, String startSymbol) {
+		this(tenantId, bases, startSymbol, 0);
+	}
+
+	/**
+	 * @param maxParsesPerCell the maximum number of parses kept for every
+	 *                         span of the input, {@code 0} keeps them all.
+	 */
+	public Grammar(
+		String tenantId, List<GrammarMixin> bases, String startSymbol,
+		int maxParsesPerCell) {
 		this.tenantId = tenantId;
+		this.lexicalRules = new HashMap<>();
+		this.unaryRules = new HashMap<>();
+		this.binaryRules = new HashMap<>();
+		this.categories = new HashSet<>();
+		this.rules = new ArrayList<>();
+		this.annotators = new ArrayList<>();
 		for (GrammarMixin base : bases) {
 			rules.addAll(base.getRules());
 			annotators.addAll(base.getAnnotators());
@@ -55,182 +72,150 @@ public class Grammar {
 			addRule(rule);
 		}
 
-	}
+		this.chartParser = new ArrayChartParser(
+			startSymbol, lexicalRules, unaryRules, binaryRules, maxParsesPerCell);
 
-	public List<Parse> parseInput(String input) {
-		return parseInput(Utils.split(input.toLowerCase()));
 	}
 
-	public List<Parse> parseInput(String[] tokens) {
-
-		Map<Tuple, List<Parse>> chart = new HashMap<>();
-
-		for (int j = 1; j < tokens.length + 1; j++) {
-			for (int i = j - 1; i != -1 ; i--) {
-				Set<String> context = new HashSet<>();
-				applyAnnotators(chart, tokens, i, j, context);
-				applyLexicalRules(chart, tokens, i, j);
-				applyBinaryRules(chart, i, j);
-				applyUnaryRules(chart, i, j);
-			}
-		}
-
-		List<Parse> parses =
-			chart.getOrDefault(Tuple.of(0, tokens.length), List.of());
-
-		if (startSymbol != null && !startSymbol.isBlank()) {
-			return parses
-				.stream()
-				.filter(parse ->
-					parse.getRule().getLhs().equals(startSymbol))
-				.collect(Collectors.toList());
-		}
-
-		return parses;
-
+	private Grammar(Grammar grammar, List<Annotator> annotators) {
+		this.tenantId = grammar.tenantId;
+		this.startSymbol = grammar.startSymbol;
+		this.lexicalRules = grammar.lexicalRules;
+		this.unaryRules = grammar.unaryRules;
+		this.binaryRules = grammar.binaryRules;
+		this.categories = grammar.categories;
+		this.rules = grammar.rules;
+		this.chartParser = grammar.chartParser;
+		this.annotators = new ArrayList<>(annotators);
+		this.annotators.sort(null);
 	}
 
-	@Override
-	public String toString() {
-		return "Grammar{" +
-			   "startSymbol='" + startSymbol + '\'' +
-			   ", lexicalRules=" + lexicalRules +
-			   ", unaryRules=" + unaryRules +
-			   ", binaryRules=" + binaryRules +
-			   ", categories=" + categories +
-			   ", rules=" + rules +
-			   ", annotators=" + annotators +
-			   '}';
+	/**
+	 * Returns a grammar that shares the compiled rule tables of this one,
+	 * annotating the input with the given annotators. The rule tables are
+	 * never modified after construction, so this is safe to call concurrently.
+	 */
+	public Grammar withAnnotators(List<Annotator> annotators) {
+		return new Grammar(this, annotators);
 	}
 
-	private void applyUnaryRules(
-		Map<Tuple, List<Parse>> chart, int i, int j) {
+	public List<Parse> parseInput(String input) {
+		return parseInput(Utils.split(input.toLowerCase()));
+	}
 
-		Tuple<Integer> chartKey = Tuple.of(i, j);
+	public List<Parse> parseInput(String[] tokens) {
+		return parseInput(tokens, SpanAnnotations.none());
+	}
 
-		List<Parse> parseList = chart.getOrDefault(chartKey, List.of());
+	/**
+	 * Parses the input fetching the annotations of every span with a single
+	 * multi search, instead of a blocking search per span and annotator. The
+	 * spans found in the annotation cache are not searched.
+	 */
+	public Uni<List<Parse>> parseInput(
+		RestHighLevelClient client, AnnotationCache annotationCache, String input) {
 
-		for (int i1 = 0; i1 < parseList.size(); i1++) {
-			Parse parse = parseList.get(i1);
-			for (Rule rule : unaryRules.getOrDefault(
-				Tuple.of(parse.getRule().getLhs()), List.of())) {
-				chart
-					.computeIfAbsent(chartKey, k -> new ArrayList<>())
-					.add(Parse.of(rule, chartKey, parse));
-			}
-		}
+		String[] tokens = Utils.split(input.toLowerCase());
 
+		return SpanAnnotations
+			.fetch(client, annotationCache, annotators, tokens)
+			.map(spanAnnotations -> parseInput(tokens, spanAnnotations));
 	}
 
-	private void applyBinaryRules(
-		Map<Tuple, List<Parse>> chart, int i, int j) {
+	/**
+	 * Same as {@link #parseInput(RestHighLevelClient, AnnotationCache, String)},
+	 * continuing the chart of a previous input of the caller that starts
+	 * with the same tokens, so that only the spans ending in the tokens that
+	 * changed are annotated and parsed.
+	 *
+	 * @param caller identifies the annotators of the request, as the virtual
+	 *               host and the JWT.
+	 */
+	public Uni<List<Parse>> parseInput(
+		RestHighLevelClient client, AnnotationCache annotationCache,
+		ChartCache chartCache, String caller, String input) {
 
-		Tuple<Integer> chartKey = Tuple.of(i, j);
+		String[] tokens = Utils.split(input.toLowerCase());
 
-		for (int k = i + 1; k < j; k++) {
+		ArrayChartParser.Prefix prefix =
+			chartCache.find(tenantId, caller, chartParser, tokens);
 
-			Iterable<List<Parse>> product = Itertools.product(
-				chart.getOrDefault(Tuple.of(i, k), List.of()),
-				chart.getOrDefault(Tuple.of(k, j), List.of()));
+		int columns = prefix != null ? prefix.columns() : 0;
 
-			for (List<Parse> parses : product) {
-				Parse parse1 = parses.get(0);
-				Parse parse2 = parses.get(1);
+		return SpanAnnotations
+			.fetch(client, annotationCache, annotators, tokens, columns)
+			.map(spanAnnotations -> {
 
-				for (Rule rule : binaryRules.getOrDefault(
-					Tuple.of(
-						parse1.getRule().getLhs(),
-						parse2.getRule().getLhs()), List.of())) {
-
-					chart
-						.computeIfAbsent(chartKey, key -> new ArrayList<>())
-						.add(Parse.of(rule, chartKey, parse1, parse2));
+				ArrayChartParser.Result result =
+					parseInput(tokens, spanAnnotations, prefix);
 
+				if (result.prefix() != null) {
+					chartCache.put(tenantId, caller, result.prefix());
 				}
 
-			}
-		}
+				return result.parses();
+			});
+	}
 
+	public List<Parse> parseInput(String[] tokens, SpanAnnotations spanAnnotations) {
+		return chartParser.parse(tokens, annotators, spanAnnotations);
 	}
 
-	private void applyLexicalRules(
-		Map<Tuple, List<Parse>> chart, String[] tokens, int i, int j) {
-
-		tokens = Arrays.stream(tokens, i, j).toArray(String[]::new);
-
-		Tuple tokenKey = Utils.toTuple(tokens);
-
-		Tuple<Integer> chartKey = Tuple.of(i, j);
-
-		for (Rule rule : lexicalRules.getOrDefault(tokenKey, List.of())) {
-
-			chart
-				.computeIfAbsent(chartKey, (k) -> new ArrayList<>())
-				.add(
-					Parse.of(
-						Rule.of(
-							rule.getLhs(),
-							rule.getRhs(),
-							Semantic.of(
-								chartKey, sems ->
-									rule
-										.getSem()
-										.apply(sems)
-										.stream()
-										.map(maps -> SemanticType.of(chartKey, maps.getValue()))
-										.collect(
-											Collectors.collectingAndThen(
-												Collectors.toList(), SemanticTypes::of))
-								)
-						),
-						chartKey,
-						tokens)
-				);
-		}
+	ArrayChartParser.Result parseInput(
+		String[] tokens, SpanAnnotations spanAnnotations, ArrayChartParser.Prefix prefix) {
 
+		return chartParser.parse(tokens, annotators, spanAnnotations, prefix);
 	}
 
-	private void applyAnnotators(
-		Map<Tuple, List<Parse>> chart, String[] tokens, int i, int j, Set<String> context) {
+	List<Annotator> getAnnotators() {
+		return annotators;
+	}
 
-		int originalLength = tokens.length;
+	String getStartSymbol() {
+		return startSymbol;
+	}
 
-		tokens = Arrays.stream(tokens, i, j).toArray(String[]::new);
+	Map<Tuple, List<Rule>> getLexicalRules() {
+		return lexicalRules;
+	}
 
-		Tuple<Integer> chartKey = Tuple.of(i, j);
+	Map<Tuple, List<Rule>> getUnaryRules() {
+		return unaryRules;
+	}
 
-		for (Annotator annotator : annotators) {
+	Map<Tuple, List<Rule>> getBinaryRules() {
+		return binaryRules;
+	}
 
-			int lastTokenCount = annotator.getLastTokenCount();
+	@Override
+	public String toString() {
+		return "Grammar{" +
+			   "startSymbol='" + startSymbol + '\'' +
+			   ", lexicalRules=" + lexicalRules +
+			   ", unaryRules=" + unaryRules +
+			   ", binaryRules=" + binaryRules +
+			   ", categories=" + categories +
+			   ", rules=" + rules +
+			   ", annotators=" + annotators +
+			   '}';
+	}
 
-			if (lastTokenCount != -1) {
+	static boolean isApplicable(Annotator annotator, int i, int j, int length) {
 
-				if (j != originalLength) {
-					continue;
-				}
+		int lastTokenCount = annotator.getLastTokenCount();
 
-				if (j - i > lastTokenCount) {
-					continue;
-				}
+		if (lastTokenCount != -1) {
 
+			if (j != length) {
+				return false;
 			}
 
-			for (CategorySemantics categorySemantics : annotator.annotate(context, tokens)) {
-
-				String category = categorySemantics.getCategory();
+			return j - i <= lastTokenCount;
 
-				Map<String, Object> semantics =
-					categorySemantics.getSemantics();
-
-				Rule rule = new Rule(
-					category, tokens, Semantic.of(chartKey, semantics));
-
-				chart.computeIfAbsent(
-					chartKey, (k) -> new ArrayList<>())
-					.add(Parse.of(rule, chartKey, tokens));
-			}
 		}
 
+		return true;
+
 	}
 
 	private void addRule(Rule rule) {
@@ -360,12 +345,13 @@ public class Grammar {
 	}
 
 	private final String startSymbol;
-	private final Map<Tuple, List<Rule>> lexicalRules = new HashMap<>();
-	private final Map<Tuple, List<Rule>> unaryRules = new HashMap<>();
-	private final Map<Tuple, List<Rule>> binaryRules = new HashMap<>();
-	private final Set<String> categories = new HashSet<>();
-	private final List<Rule> rules = new ArrayList<>();
-	private final List<Annotator> annotators = new ArrayList<>();
+	private final Map<Tuple, List<Rule>> lexicalRules;
+	private final Map<Tuple, List<Rule>> unaryRules;
+	private final Map<Tuple, List<Rule>> binaryRules;
+	private final Set<String> categories;
+	private final List<Rule> rules;
+	private final List<Annotator> annotators;
 	private final String tenantId;
+	private final ArrayChartParser chartParser;
 
 }
@@ -20,22 +20,26 @@ package io.openk9.datasource.searcher.queryanalysis;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 import io.openk9.auth.tenant.TenantRegistry;
+import io.openk9.datasource.cache.CacheScopes;
 import io.openk9.datasource.model.Bucket;
 import io.openk9.datasource.model.QueryAnalysis;
 import io.openk9.datasource.model.Rule;
 import io.openk9.datasource.model.TenantBinding_;
 import io.openk9.datasource.model.util.JWT;
 import io.openk9.datasource.searcher.model.TenantWithBucket;
+import io.openk9.datasource.searcher.queryanalysis.annotator.Annotator;
 import io.openk9.datasource.searcher.queryanalysis.annotator.AnnotatorFactory;
 
 import io.quarkus.cache.Cache;
 import io.quarkus.cache.CacheName;
 import io.quarkus.cache.CompositeCacheKey;
 import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.hibernate.reactive.mutiny.Mutiny;
 
 @ApplicationScoped
@@ -43,39 +47,48 @@ public class GrammarProvider {
 
 	public Uni<Grammar> getOrCreateGrammar(String virtualHost, JWT jwt) {
 
-		return getTenantWithBucket(virtualHost)
+		return getCompiledGrammar(virtualHost)
 			.onItem().ifNull().fail()
-			.onItem().ifNotNull().transform(tenantWithBucket -> {
+			.onItem().ifNotNull().transform(compiledGrammar -> compiledGrammar.bind(jwt));
+	}
+
+	private Uni<CompiledGrammar> getCompiledGrammar(String virtualHost) {
+		return CacheScopes.getAsync(
+			cache,
+			new CompositeCacheKey(virtualHost, "grammarProvider", "getCompiledGrammar"),
+			key -> getTenantWithBucket(virtualHost)
+				.onItem().ifNotNull().transform(this::_compileGrammar)
+		);
+	}
 
-				var bucket = tenantWithBucket.getBucket();
-				var tenantId = tenantWithBucket.getTenant().schemaName();
+	private CompiledGrammar _compileGrammar(TenantWithBucket tenantWithBucket) {
 
-				QueryAnalysis queryAnalysis = bucket.getQueryAnalysis();
+		var bucket = tenantWithBucket.getBucket();
+		var tenantId = tenantWithBucket.getTenant().schemaName();
 
-				Set<Rule> rules = queryAnalysis.getRules();
+		QueryAnalysis queryAnalysis = bucket.getQueryAnalysis();
 
-				List<io.openk9.datasource.searcher.queryanalysis.Rule> mappedRules =
-					_toGrammarRule(rules);
+		Set<Rule> rules = queryAnalysis.getRules();
 
-				List<io.openk9.datasource.searcher.queryanalysis.annotator.Annotator>
-					mappedAnnotators =
-					_toAnnotator(tenantWithBucket, queryAnalysis, jwt);
+		List<io.openk9.datasource.searcher.queryanalysis.Rule> mappedRules =
+			_toGrammarRule(rules);
 
-				GrammarMixin grammarMixin = GrammarMixin.of(
-					mappedRules, mappedAnnotators);
+		GrammarMixin grammarMixin = GrammarMixin.of(mappedRules, List.of());
 
-				return new Grammar(tenantId, List.of(grammarMixin));
-			});
+		return new CompiledGrammar(
+			new Grammar(tenantId, List.of(grammarMixin), "$ROOT", maxParsesPerCell),
+			_toAnnotatorBindings(tenantWithBucket, queryAnalysis)
+		);
 	}
 
-	private List<io.openk9.datasource.searcher.queryanalysis.annotator.Annotator> _toAnnotator(
-		TenantWithBucket tenantWithBucket, QueryAnalysis queryAnalysis, JWT jwt) {
+	private List<Function<JWT, Annotator>> _toAnnotatorBindings(
+		TenantWithBucket tenantWithBucket, QueryAnalysis queryAnalysis) {
 
 		var stopWords = queryAnalysis.getStopWordsList();
 
 		return queryAnalysis.getAnnotators()
 			.stream()
-			.map(a -> annotatorFactory.getAnnotator(tenantWithBucket, a, stopWords, jwt))
+			.map(a -> annotatorFactory.getAnnotatorBinding(tenantWithBucket, a, stopWords))
 			.toList();
 	}
 
@@ -98,8 +111,15 @@ public class GrammarProvider {
 	@Inject
 	AnnotatorFactory annotatorFactory;
 
+	@ConfigProperty(
+		name = "openk9.datasource.searcher-service.query-analysis.max-parses-per-cell",
+		defaultValue = "0"
+	)
+	int maxParsesPerCell;
+
 	private Uni<TenantWithBucket> getTenantWithBucket(String virtualHost) {
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(virtualHost, "grammarProvider", "getTenantWithBucket"),
 			key -> tenantRegistry
 				.getTenantByVirtualHost(virtualHost)
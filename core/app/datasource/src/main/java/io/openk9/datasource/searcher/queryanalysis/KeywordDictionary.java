@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import io.openk9.datasource.searcher.util.EditDistance;
+
+/**
+ * The values of a keyword field, with the documents that hold them, for the
+ * aggregator annotators to match a span without searching the indices.
+ *
+ * <p>The values are kept in a BK-tree: every child of a node is at a
+ * different edit distance from it, so that a lookup only visits the
+ * children whose distance can be within the maximum edits from the span,
+ * by the triangle inequality. As a BK-tree needs a metric, the tree is
+ * built on the Levenshtein distance, where a transposition counts as two
+ * edits. A lookup counts a transposition as a single edit, as the fuzzy
+ * queries do, so it visits the values within twice the maximum edits and
+ * keeps the ones within the maximum edits when counting the
+ * transpositions.</p>
+ *
+ * <p>A dictionary is immutable, it is replaced when the values are loaded
+ * again.</p>
+ */
+public final class KeywordDictionary {
+
+	private final Node root;
+	private final int size;
+
+	private KeywordDictionary(Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	public static KeywordDictionary of(Map<String, Long> docCounts) {
+
+		Node root = null;
+		int[] row = new int[1];
+
+		for (Map.Entry<String, Long> docCount : docCounts.entrySet()) {
+			Node node = new Node(docCount.getKey(), docCount.getValue());
+
+			if (root == null) {
+				root = node;
+				continue;
+			}
+
+			Node parent = root;
+
+			while (true) {
+				if (row.length <= parent.value.length()) {
+					row = EditDistance.row(parent.value);
+				}
+
+				int distance = EditDistance.levenshtein(parent.value, node.value, row);
+
+				Node child = parent.child(distance);
+
+				if (child == null) {
+					parent.addChild(distance, node);
+					break;
+				}
+
+				parent = child;
+			}
+		}
+
+		return new KeywordDictionary(root, docCounts.size());
+	}
+
+	/**
+	 * Returns at most {@code size} values within {@code maxEdits} of the
+	 * token, counting a transposition as a single edit, from the one held by
+	 * more documents.
+	 */
+	public List<Entry> lookup(String token, int maxEdits, int size) {
+
+		if (root == null || size <= 0) {
+			return List.of();
+		}
+
+		List<Entry> entries = new ArrayList<>();
+		Deque<Node> nodes = new ArrayDeque<>();
+		int[] row = EditDistance.row(token);
+		int maxDistance = 2 * maxEdits;
+
+		nodes.push(root);
+
+		while (!nodes.isEmpty()) {
+			Node node = nodes.pop();
+
+			int distance = EditDistance.levenshtein(token, node.value, row);
+
+			if (distance <= maxEdits || distance <= maxDistance
+				&& EditDistance.optimalStringAlignment(token, node.value) <= maxEdits) {
+
+				entries.add(new Entry(node.value, node.docCount));
+			}
+
+			int from = Math.max(distance - maxDistance, 0);
+			int to = Math.min(distance + maxDistance, node.children.length - 1);
+
+			for (int d = from; d <= to; d++) {
+				if (node.children[d] != null) {
+					nodes.push(node.children[d]);
+				}
+			}
+		}
+
+		entries.sort(
+			Comparator.comparingLong(Entry::docCount).reversed()
+				.thenComparing(Entry::value));
+
+		return entries.size() > size ? entries.subList(0, size) : entries;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public record Entry(String value, long docCount) {}
+
+	private static final class Node {
+
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		private final String value;
+		private final long docCount;
+		private Node[] children = NO_CHILDREN;
+
+		private Node(String value, long docCount) {
+			this.value = value;
+			this.docCount = docCount;
+		}
+
+		private Node child(int distance) {
+			return distance < children.length ? children[distance] : null;
+		}
+
+		private void addChild(int distance, Node child) {
+
+			if (distance >= children.length) {
+				children = Arrays.copyOf(children, distance + 1);
+			}
+
+			children[distance] = child;
+		}
+
+	}
+
+}
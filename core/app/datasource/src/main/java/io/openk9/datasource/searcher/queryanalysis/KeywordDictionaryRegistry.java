@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import java.time.Duration;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.openk9.datasource.searcher.util.KeywordFieldValues;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.opensearch.client.RestHighLevelClient;
+
+/**
+ * Holds the {@link KeywordDictionary} of the keyword fields of the bucket
+ * indices, see {@link KeywordFieldValues}. Until a dictionary is loaded
+ * the callers get {@code null} and keep searching the indices.
+ */
+@ApplicationScoped
+public class KeywordDictionaryRegistry {
+
+	@Inject
+	RestHighLevelClient client;
+
+	@ConfigProperty(name = "openk9.keyword-dictionary.enabled", defaultValue = "true")
+	boolean enabled;
+
+	@ConfigProperty(name = "openk9.keyword-dictionary.refresh-interval", defaultValue = "5m")
+	Duration refreshInterval;
+
+	@ConfigProperty(name = "openk9.keyword-dictionary.idle-ttl", defaultValue = "1h")
+	Duration idleTtl;
+
+	@ConfigProperty(name = "openk9.keyword-dictionary.max-values", defaultValue = "200000")
+	int maxValues;
+
+	private KeywordFieldValues<KeywordDictionary> dictionaries;
+
+	/**
+	 * Returns the dictionary of the field on the given indices, or
+	 * {@code null} when it is not loaded yet or the field is not held in
+	 * memory.
+	 */
+	public KeywordDictionary get(String tenantId, String[] indexNames, String field) {
+
+		if (!enabled) {
+			return null;
+		}
+
+		return dictionaries.get(tenantId, indexNames, field);
+	}
+
+	@PostConstruct
+	void init() {
+		dictionaries = new KeywordFieldValues<>(
+			client, "values", refreshInterval, idleTtl, maxValues, KeywordDictionary::of);
+	}
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import io.openk9.datasource.searcher.queryanalysis.annotator.Annotator;
+import io.openk9.datasource.searcher.queryanalysis.annotator.SearchAnnotator;
+import io.openk9.datasource.util.UniActionListener;
+
+import io.smallrye.mutiny.Uni;
+import org.jboss.logging.Logger;
+import org.opensearch.action.search.MultiSearchRequest;
+import org.opensearch.action.search.MultiSearchResponse;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+
+/**
+ * Holds the annotations of every {@link SearchAnnotator} for every token
+ * span of a parse.
+ *
+ * <p>All the requests are collected before the chart is built and are sent
+ * as a single {@code _msearch}, so that the query analysis costs one round
+ * trip instead of one per span and annotator. The spans that an annotator
+ * resolves without searching, and the spans already annotated by a previous
+ * request, read from the {@link AnnotationCache}, are not searched.</p>
+ */
+public class SpanAnnotations {
+
+	public static SpanAnnotations none() {
+		return NONE;
+	}
+
+	public static Uni<SpanAnnotations> fetch(
+		RestHighLevelClient client, AnnotationCache annotationCache,
+		List<Annotator> annotators, String[] tokens) {
+
+		return fetch(client, annotationCache, annotators, tokens, 0);
+	}
+
+	/**
+	 * Same as {@link #fetch(RestHighLevelClient, AnnotationCache, List, String[])},
+	 * for the spans ending after the first {@code columns} tokens only, when
+	 * the chart of the first ones is already filled.
+	 */
+	public static Uni<SpanAnnotations> fetch(
+		RestHighLevelClient client, AnnotationCache annotationCache,
+		List<Annotator> annotators, String[] tokens, int columns) {
+
+		int length = tokens.length;
+
+		@SuppressWarnings("unchecked")
+		List<CategorySemantics>[][] annotations = new List[annotators.size()][];
+
+		AnnotationCache.Scope[] scopes = new AnnotationCache.Scope[annotators.size()];
+
+		for (int a = 0; a < annotators.size(); a++) {
+			if (annotators.get(a) instanceof SearchAnnotator searchAnnotator) {
+				scopes[a] = searchAnnotator.annotationScope();
+			}
+		}
+
+		MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+
+		List<Position> positions = new ArrayList<>();
+
+		for (int j = columns + 1; j < length + 1; j++) {
+			for (int i = j - 1; i != -1; i--) {
+
+				String[] span = null;
+
+				for (int a = 0; a < annotators.size(); a++) {
+
+					Annotator annotator = annotators.get(a);
+
+					if (!(annotator instanceof SearchAnnotator searchAnnotator)
+						|| !Grammar.isApplicable(annotator, i, j, length)) {
+						continue;
+					}
+
+					if (span == null) {
+						span = Arrays.copyOfRange(tokens, i, j);
+					}
+
+					List<CategorySemantics> found = searchAnnotator.lookup(span);
+
+					if (found != null) {
+						_put(annotations, a, _cell(i, j, length), length, found);
+						continue;
+					}
+
+					AnnotationCache.Key key = scopes[a] != null
+						? new AnnotationCache.Key(scopes[a], List.of(span))
+						: null;
+
+					List<CategorySemantics> cached =
+						key != null ? annotationCache.get(key) : null;
+
+					if (cached != null) {
+						_put(annotations, a, _cell(i, j, length), length, cached);
+						continue;
+					}
+
+					SearchRequest searchRequest = searchAnnotator.prepare(span);
+
+					if (searchRequest != null) {
+						multiSearchRequest.add(searchRequest);
+						positions.add(new Position(a, _cell(i, j, length), span, key));
+					}
+
+				}
+
+			}
+		}
+
+		if (positions.isEmpty()) {
+			return Uni.createFrom().item(new SpanAnnotations(length, annotations));
+		}
+
+		if (log.isDebugEnabled()) {
+			log.debugf(
+				"sending %d annotator requests in one msearch", positions.size());
+		}
+
+		return Uni.createFrom()
+			.<MultiSearchResponse>emitter(sink -> client.msearchAsync(
+				multiSearchRequest, RequestOptions.DEFAULT,
+				UniActionListener.of(sink)))
+			.map(multiSearchResponse -> {
+
+				MultiSearchResponse.Item[] items =
+					multiSearchResponse.getResponses();
+
+				for (int k = 0; k < items.length; k++) {
+
+					MultiSearchResponse.Item item = items[k];
+
+					if (item.isFailure()) {
+						log.error(item.getFailureMessage(), item.getFailure());
+						continue;
+					}
+
+					Position position = positions.get(k);
+
+					SearchAnnotator searchAnnotator =
+						(SearchAnnotator) annotators.get(position.annotator());
+
+					List<CategorySemantics> collected;
+
+					try {
+						collected = searchAnnotator.collect(item.getResponse(), position.span());
+					}
+					catch (Exception e) {
+						log.error(e.getMessage(), e);
+						continue;
+					}
+
+					_put(annotations, position.annotator(), position.cell(), length, collected);
+
+					if (position.key() != null) {
+						annotationCache.put(position.key(), collected);
+					}
+				}
+
+				return new SpanAnnotations(length, annotations);
+			})
+			.onFailure()
+			.recoverWithItem(throwable -> {
+				log.error(throwable.getMessage(), throwable);
+				return new SpanAnnotations(length, annotations);
+			});
+	}
+
+	List<CategorySemantics> annotate(
+		int annotatorIndex, Annotator annotator, Set<String> context,
+		String[] tokens, int i, int j) {
+
+		if (annotations == null || !(annotator instanceof SearchAnnotator searchAnnotator)) {
+			return annotator.annotate(context, tokens);
+		}
+
+		List<CategorySemantics>[] annotatorAnnotations = annotations[annotatorIndex];
+
+		List<CategorySemantics> spanAnnotations = annotatorAnnotations != null
+			? annotatorAnnotations[_cell(i, j, length)]
+			: null;
+
+		if (spanAnnotations == null) {
+			return List.of();
+		}
+
+		return searchAnnotator.annotate(context, spanAnnotations, tokens);
+	}
+
+	private SpanAnnotations(int length, List<CategorySemantics>[][] annotations) {
+		this.length = length;
+		this.annotations = annotations;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void _put(
+		List<CategorySemantics>[][] annotations, int annotatorIndex, int cell, int length,
+		List<CategorySemantics> spanAnnotations) {
+
+		List<CategorySemantics>[] annotatorAnnotations = annotations[annotatorIndex];
+
+		if (annotatorAnnotations == null) {
+			annotatorAnnotations = new List[_cell(length, length, length) + 1];
+			annotations[annotatorIndex] = annotatorAnnotations;
+		}
+
+		annotatorAnnotations[cell] = spanAnnotations;
+	}
+
+	private static int _cell(int i, int j, int length) {
+		return i * (length + 1) + j;
+	}
+
+	private record Position(
+		int annotator, int cell, String[] span, AnnotationCache.Key key) {}
+
+	private final int length;
+	private final List<CategorySemantics>[][] annotations;
+
+	private static final SpanAnnotations NONE = new SpanAnnotations(0, null);
+
+	private static final Logger log = Logger.getLogger(SpanAnnotations.class);
+
+}
@@ -26,6 +26,7 @@ import io.openk9.datasource.model.Annotator;
 import io.openk9.datasource.model.util.JWT;
 import io.openk9.datasource.searcher.model.TenantWithBucket;
 import io.openk9.datasource.searcher.queryanalysis.CategorySemantics;
+import io.openk9.datasource.searcher.queryanalysis.KeywordDictionaryRegistry;
 
 import org.opensearch.client.RestHighLevelClient;
 
@@ -37,9 +38,13 @@ public class AggregatorAnnotator extends BaseAggregatorAnnotator {
 		Annotator annotator,
 		List<String> stopWords,
 		RestHighLevelClient restHighLevelClient,
+		KeywordDictionaryRegistry keywordDictionaryRegistry,
 		JWT jwt) {
 
-		super(tenantWithBucket, annotator, stopWords, restHighLevelClient, jwt, keyword);
+		super(
+			tenantWithBucket, annotator, stopWords, restHighLevelClient,
+			keywordDictionaryRegistry, jwt, keyword
+		);
 	}
 
 	@Override
@@ -18,17 +18,41 @@
 package io.openk9.datasource.searcher.queryanalysis.annotator;
 
 import java.util.List;
+import java.util.function.Function;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import io.openk9.datasource.entity.EntityGazetteerRegistry;
 import io.openk9.datasource.model.util.JWT;
 import io.openk9.datasource.searcher.model.TenantWithBucket;
+import io.openk9.datasource.searcher.queryanalysis.KeywordDictionaryRegistry;
 
 import org.opensearch.client.RestHighLevelClient;
 
 @ApplicationScoped
 public class AnnotatorFactory {
 
+	/**
+	 * Returns a function that binds the annotator to the {@link JWT} of a
+	 * request. Annotators that do not apply ACL filters are built once and
+	 * shared by every binding.
+	 */
+	public Function<JWT, Annotator> getAnnotatorBinding(
+		TenantWithBucket tenantWithBucket,
+		io.openk9.datasource.model.Annotator annotator,
+		List<String> stopWords) {
+
+		return switch (annotator.getType()) {
+			case DOCTYPE, AGGREGATOR, AUTOCOMPLETE, KEYWORD_AUTOCOMPLETE ->
+				jwt -> getAnnotator(tenantWithBucket, annotator, stopWords, jwt);
+			default -> {
+				Annotator instance =
+					getAnnotator(tenantWithBucket, annotator, stopWords, null);
+				yield jwt -> instance;
+			}
+		};
+	}
+
 	public Annotator getAnnotator(
 		TenantWithBucket tenantWithBucket,
 		io.openk9.datasource.model.Annotator annotator,
@@ -39,12 +63,13 @@ public class AnnotatorFactory {
 			case KEYWORD -> new KeywordAnnotator(tenantWithBucket, annotator, stopWords);
 			case STOPWORD -> new StopWordsAnnotator(tenantWithBucket, annotator, stopWords);
 			case NER -> new BaseNerAnnotator(
-				tenantWithBucket, annotator, stopWords, annotator.getFieldName(), client);
+				tenantWithBucket, annotator, stopWords, annotator.getFieldName(), client,
+				entityGazetteerRegistry);
 			case DOCTYPE -> new DocTypeAnnotator(
-				tenantWithBucket, annotator, stopWords, client, jwt);
+				tenantWithBucket, annotator, stopWords, client, keywordDictionaryRegistry, jwt);
 			case AGGREGATOR -> new AggregatorAnnotator(
 				annotator.getDocTypeField().getPath(),
-				tenantWithBucket, annotator, stopWords, client, jwt
+				tenantWithBucket, annotator, stopWords, client, keywordDictionaryRegistry, jwt
 			);
 			case AUTOCOMPLETE -> new BaseAutoCompleteAnnotator(
 				tenantWithBucket, annotator, stopWords, client,
@@ -66,4 +91,10 @@ public class AnnotatorFactory {
 	@Inject
 	RestHighLevelClient client;
 
+	@Inject
+	EntityGazetteerRegistry entityGazetteerRegistry;
+
+	@Inject
+	KeywordDictionaryRegistry keywordDictionaryRegistry;
+
 }
@@ -17,14 +17,9 @@
 
 package io.openk9.datasource.searcher.queryanalysis.annotator;
 
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.function.Supplier;
 
 import io.openk9.datasource.mapper.FuzzinessMapper;
 import io.openk9.datasource.model.AclMapping;
@@ -34,12 +29,13 @@ import io.openk9.datasource.model.util.JWT;
 import io.openk9.datasource.searcher.model.TenantWithBucket;
 import io.openk9.datasource.searcher.parser.impl.AclQueryParser;
 import io.openk9.datasource.searcher.queryanalysis.CategorySemantics;
-import io.openk9.datasource.searcher.util.Tuple;
+import io.openk9.datasource.searcher.queryanalysis.KeywordDictionary;
+import io.openk9.datasource.searcher.queryanalysis.KeywordDictionaryRegistry;
+import io.openk9.datasource.searcher.util.EditDistance;
 
 import org.jboss.logging.Logger;
 import org.opensearch.action.search.SearchRequest;
 import org.opensearch.action.search.SearchResponse;
-import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
 import org.opensearch.index.query.BoolQueryBuilder;
 import org.opensearch.index.query.QueryBuilder;
@@ -50,17 +46,29 @@ import org.opensearch.search.aggregations.Aggregations;
 import org.opensearch.search.aggregations.bucket.terms.Terms;
 import org.opensearch.search.builder.SearchSourceBuilder;
 
-abstract class BaseAggregatorAnnotator extends BaseAnnotator {
+/**
+ * Annotates the spans that match the values of keyword fields.
+ *
+ * <p>When the caller sees only the public documents, the values are looked
+ * up in the {@link KeywordDictionary} of the fields, once loaded. Otherwise,
+ * the values are the top terms of the documents that the caller can see
+ * with a value within the fuzziness of the span.</p>
+ */
+abstract class BaseAggregatorAnnotator extends BaseSearchAnnotator {
 
 	public BaseAggregatorAnnotator(
 		TenantWithBucket tenantWithBucket,
 		io.openk9.datasource.model.Annotator annotator,
 		List<String> stopWords,
 		RestHighLevelClient restHighLevelClient,
+		KeywordDictionaryRegistry keywordDictionaryRegistry,
 		JWT jwt,
 		String...keywords) {
 
-		this(tenantWithBucket, annotator, stopWords, restHighLevelClient, jwt, List.of(keywords));
+		this(
+			tenantWithBucket, annotator, stopWords, restHighLevelClient,
+			keywordDictionaryRegistry, jwt, List.of(keywords)
+		);
 	}
 
 	public BaseAggregatorAnnotator(
@@ -68,33 +76,70 @@ abstract class BaseAggregatorAnnotator extends BaseAnnotator {
 		io.openk9.datasource.model.Annotator annotator,
 		List<String> stopWords,
 		RestHighLevelClient restHighLevelClient,
+		KeywordDictionaryRegistry keywordDictionaryRegistry,
 		JWT jwt,
 		List<String> keywords) {
 
-		super(tenantWithBucket, annotator, stopWords);
+		super(tenantWithBucket, annotator, stopWords, restHighLevelClient);
 		this.keywords = keywords;
-		this.restHighLevelClient = restHighLevelClient;
+		this.keywordDictionaryRegistry = keywordDictionaryRegistry;
 		this.jwt = jwt;
 	}
 
 	@Override
-	public List<CategorySemantics> annotate(String...tokens) {
+	public List<CategorySemantics> lookup(String...tokens) {
 
-		List<String> normalizedKeywords = keywords;
+		if (keywords == null || keywordDictionaryRegistry == null) {
+			return null;
+		}
 
-		if (normalizedKeywords == null) {
-			return List.of();
+		// the values of the documents restricted by ACL are searched.
+		for (List<String> terms : _aclTerms()) {
+			if (!terms.isEmpty()) {
+				return null;
+			}
 		}
 
-		String token;
+		String token = _toToken(tokens);
 
-		if (tokens.length == 1) {
-			token = tokens[0];
+		int maxEdits =
+			FuzzinessMapper.map(annotator.getFuziness()).asDistance(token);
+
+		List<String[]> candidates = new ArrayList<>();
+
+		for (String keyword : keywords) {
+
+			KeywordDictionary dictionary = keywordDictionaryRegistry.get(
+				tenantWithBucket.getTenant().schemaName(),
+				tenantWithBucket.getIndexNames(),
+				keyword
+			);
+
+			if (dictionary == null) {
+				return null;
+			}
+
+			for (KeywordDictionary.Entry entry :
+				dictionary.lookup(token, maxEdits, TERMS_SIZE)) {
+
+				candidates.add(new String[] {keyword, entry.value()});
+			}
 		}
-		else {
-			token = String.join(" ", tokens);
+
+		return _select(token, candidates);
+	}
+
+	@Override
+	public SearchRequest prepare(String...tokens) {
+
+		List<String> normalizedKeywords = keywords;
+
+		if (normalizedKeywords == null) {
+			return null;
 		}
 
+		String token = _toToken(tokens);
+
 		BoolQueryBuilder builder = QueryBuilders.boolQuery();
 
 		BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
@@ -148,7 +193,7 @@ abstract class BaseAggregatorAnnotator extends BaseAnnotator {
 				AggregationBuilders
 					.terms(keyword)
 					.field(keyword)
-					.size(10)
+					.size(TERMS_SIZE)
 			);
 		}
 
@@ -158,59 +203,35 @@ abstract class BaseAggregatorAnnotator extends BaseAnnotator {
 			_log.debug(builder.toString());
 		}
 
-		List<Tuple> scoreKeys = new ArrayList<>();
-
-		try {
-			SearchResponse search =
-				restHighLevelClient.search(
-					searchRequest, RequestOptions.DEFAULT);
+		return searchRequest;
 
-			Aggregations aggregations = search.getAggregations();
+	}
 
-			if (aggregations != null) {
+	@Override
+	public List<CategorySemantics> collect(
+		SearchResponse search, String...tokens) {
 
-				for (Aggregation aggregation : aggregations) {
+		String token = _toToken(tokens);
 
-					Terms terms = (Terms) aggregation;
-					for (Terms.Bucket termBucket : terms.getBuckets()) {
-						String keyAsString = termBucket.getKeyAsString();
+		List<String[]> candidates = new ArrayList<>();
 
-						if (token.equalsIgnoreCase(keyAsString)) {
-							return List.of(_createCategorySemantics(
-								terms.getName(), keyAsString, annotator.getFieldName()));
-						}
+		Aggregations aggregations = search.getAggregations();
 
-						scoreKeys.add(
-							Tuple.of(
-								(Supplier<Double>) () -> _levenshteinDistance(
-									token, keyAsString),
-								keyAsString,
-								terms.getName()));
+		if (aggregations != null) {
 
-					}
+			for (Aggregation aggregation : aggregations) {
 
+				Terms terms = (Terms) aggregation;
+				for (Terms.Bucket termBucket : terms.getBuckets()) {
+					candidates.add(
+						new String[] {terms.getName(), termBucket.getKeyAsString()});
 				}
 
 			}
 
 		}
-		catch (IOException e) {
-			_log.error(e.getMessage(), e);
-		}
 
-		if (scoreKeys.isEmpty()) {
-			return List.of();
-		}
-
-		scoreKeys.sort(
-			Collections.reverseOrder(
-				Comparator.comparingDouble(
-					t -> ((Supplier<Double>)t.get(0)).get())));
-
-		String key = (String)scoreKeys.get(0).get(1);
-		String name = (String)scoreKeys.get(0).get(2);
-
-		return List.of(_createCategorySemantics(name, key, annotator.getFieldName()));
+		return _select(token, candidates);
 
 	}
 
@@ -224,45 +245,65 @@ abstract class BaseAggregatorAnnotator extends BaseAnnotator {
 
 	protected abstract CategorySemantics _createCategorySemantics(
 		String aggregatorName, String aggregatorKey, String fieldName);
-	private static double _levenshteinDistance(String x, String y) {
-
-		int xLength = x.length();
-		int yLength = y.length();
 
-		int[][] dp = new int[xLength + 1][yLength + 1];
+	private static String _toToken(String[] tokens) {
 
-		for (int i = 0; i <= xLength; i++) {
-			for (int j = 0; j <= yLength; j++) {
-				if (i == 0) {
-					dp[i][j] = j;
-				}
-				else if (j == 0) {
-					dp[i][j] = i;
-				}
-				else {
-					dp[i][j] = _min(dp[i - 1][j - 1]
-									+ _costOfSubstitution(x.charAt(i - 1), y.charAt(j - 1)),
-						dp[i - 1][j] + 1,
-						dp[i][j - 1] + 1);
-				}
-			}
+		if (tokens.length == 1) {
+			return tokens[0];
+		}
+		else {
+			return String.join(" ", tokens);
 		}
 
-		return 1 - ((double)dp[xLength][yLength] / Math.max(xLength, yLength));
 	}
 
-	private static int _min(int... numbers) {
-		return Arrays.stream(numbers)
-			.min().orElse(Integer.MAX_VALUE);
+	@Override
+	protected List<List<String>> _aclTerms() {
+		return _aclTerms(tenantWithBucket, jwt);
 	}
 
-	private static int _costOfSubstitution(char a, char b) {
-		return a == b ? 0 : 1;
+	/**
+	 * Annotates the token with the candidate, a keyword and one of its
+	 * values, equal to it ignoring the case, or else the most similar one,
+	 * the first on ties.
+	 */
+	private List<CategorySemantics> _select(String token, List<String[]> candidates) {
+
+		String[] best = null;
+		double bestSimilarity = Double.NEGATIVE_INFINITY;
+		int[] row = EditDistance.row(token);
+
+		for (String[] candidate : candidates) {
+
+			if (token.equalsIgnoreCase(candidate[1])) {
+				return List.of(_createCategorySemantics(
+					candidate[0], candidate[1], annotator.getFieldName()));
+			}
+
+			double similarity = EditDistance.similarity(token, candidate[1], row);
+
+			if (similarity > bestSimilarity) {
+				best = candidate;
+				bestSimilarity = similarity;
+			}
+
+		}
+
+		if (best == null) {
+			return List.of();
+		}
+
+		return List.of(_createCategorySemantics(
+			best[0], best[1], annotator.getFieldName()));
+
 	}
 
-	private final RestHighLevelClient restHighLevelClient;
+	private static final int TERMS_SIZE = 10;
+
 	private final List<String> keywords;
 
+	private final KeywordDictionaryRegistry keywordDictionaryRegistry;
+
 	protected final JWT jwt;
 
 	private static final Logger _log = Logger.getLogger(
@@ -59,7 +59,12 @@ abstract class BaseAnnotator implements Annotator {
 	public List<CategorySemantics> annotate(
 		Set<String> context, String...tokens) {
 
-		List<CategorySemantics> result = annotate(tokens);
+		return _updateContext(context, annotate(tokens), tokens);
+
+	}
+
+	protected static List<CategorySemantics> _updateContext(
+		Set<String> context, List<CategorySemantics> result, String...tokens) {
 
 		if (tokens.length == 1 && !result.isEmpty()) {
 
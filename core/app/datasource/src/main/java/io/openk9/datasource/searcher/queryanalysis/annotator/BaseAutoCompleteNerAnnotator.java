@@ -17,7 +17,6 @@
 
 package io.openk9.datasource.searcher.queryanalysis.annotator;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -30,7 +29,6 @@ import io.openk9.datasource.searcher.queryanalysis.CategorySemantics;
 import org.jboss.logging.Logger;
 import org.opensearch.action.search.SearchRequest;
 import org.opensearch.action.search.SearchResponse;
-import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
 import org.opensearch.index.query.BoolQueryBuilder;
 import org.opensearch.index.query.MultiMatchQueryBuilder;
@@ -38,7 +36,7 @@ import org.opensearch.index.query.QueryBuilders;
 import org.opensearch.search.SearchHit;
 import org.opensearch.search.builder.SearchSourceBuilder;
 
-public class BaseAutoCompleteNerAnnotator extends BaseAnnotator {
+public class BaseAutoCompleteNerAnnotator extends BaseSearchAnnotator {
 
 	public BaseAutoCompleteNerAnnotator(
 		TenantWithBucket tenantWithBucket,
@@ -47,13 +45,12 @@ public class BaseAutoCompleteNerAnnotator extends BaseAnnotator {
 		String category,
 		RestHighLevelClient restHighLevelClient) {
 
-		super(tenantWithBucket, annotator, stopWords);
+		super(tenantWithBucket, annotator, stopWords, restHighLevelClient);
 		this.category = category;
-		this.restHighLevelClient = restHighLevelClient;
 	}
 
 	@Override
-	public List<CategorySemantics> annotate(String...tokens) {
+	public SearchRequest prepare(String...tokens) {
 
 		String token = String.join(" ", tokens);
 
@@ -90,71 +87,67 @@ public class BaseAutoCompleteNerAnnotator extends BaseAnnotator {
 			_log.debug(builder.toString());
 		}
 
-		try {
+		return searchRequest;
 
-			List<CategorySemantics> categorySemantics = new ArrayList<>();
-
-			SearchResponse search =
-				restHighLevelClient.search(
-					searchRequest, RequestOptions.DEFAULT);
+	}
 
-			for (SearchHit hit : search.getHits()) {
-				Map<String, Object> sourceAsMap = hit.getSourceAsMap();
+	@Override
+	public List<CategorySemantics> collect(
+		SearchResponse search, String...tokens) {
 
-				if (!sourceAsMap.isEmpty()) {
+		String token = String.join(" ", tokens);
 
-					Map<String, Object> entitySemantics = new HashMap<>();
+		List<CategorySemantics> categorySemantics = new ArrayList<>();
 
-					entitySemantics.put("tokenType", "AUTOCOMPLETE");
+		for (SearchHit hit : search.getHits()) {
+			Map<String, Object> sourceAsMap = hit.getSourceAsMap();
 
-					entitySemantics.put("score", hit.getScore());
+			if (!sourceAsMap.isEmpty()) {
 
-					for (Map.Entry<String, Object> entitySourceField : sourceAsMap.entrySet()) {
-						String key = entitySourceField.getKey();
-						Object value = entitySourceField.getValue();
+				Map<String, Object> entitySemantics = new HashMap<>();
 
-						switch (key) {
-							case "name" -> {
-								entitySemantics.put("entityName", value);
-								entitySemantics.put("value", value);
-							}
-							case "type" -> {
-								entitySemantics.put("entityType", value);
-								entitySemantics.put("label", value);
-							}
-							case "tenantId" ->
-								entitySemantics.put("tenantId", value);
-						}
+				entitySemantics.put("tokenType", "AUTOCOMPLETE");
 
-					}
+				entitySemantics.put("score", hit.getScore());
 
-					String name = entitySemantics.get("value").toString();
+				for (Map.Entry<String, Object> entitySourceField : sourceAsMap.entrySet()) {
+					String key = entitySourceField.getKey();
+					Object value = entitySourceField.getValue();
 
-					if (!name.startsWith(token) || !name.equals(token)) {
-						categorySemantics.add(
-							CategorySemantics.of(
-								"$" + entitySemantics.get("entityType"),
-								entitySemantics)
-						);
+					switch (key) {
+						case "name" -> {
+							entitySemantics.put("entityName", value);
+							entitySemantics.put("value", value);
+						}
+						case "type" -> {
+							entitySemantics.put("entityType", value);
+							entitySemantics.put("label", value);
+						}
+						case "tenantId" ->
+							entitySemantics.put("tenantId", value);
 					}
 
 				}
-			}
-
-			if (_log.isDebugEnabled()) {
-				_log.debug(
-					"for token " + token + " found " + categorySemantics + " category semantics");
-			}
 
-			return categorySemantics;
+				String name = entitySemantics.get("value").toString();
 
+				if (!name.startsWith(token) || !name.equals(token)) {
+					categorySemantics.add(
+						CategorySemantics.of(
+							"$" + entitySemantics.get("entityType"),
+							entitySemantics)
+					);
+				}
 
+			}
 		}
-		catch (IOException e) {
-			_log.error(e.getMessage(), e);
+
+		if (_log.isDebugEnabled()) {
+			_log.debug(
+				"for token " + token + " found " + categorySemantics + " category semantics");
 		}
 
-		return List.of();
+		return categorySemantics;
 
 	}
 
@@ -162,6 +155,4 @@ public class BaseAutoCompleteNerAnnotator extends BaseAnnotator {
 
 	private static final Logger _log = Logger.getLogger(BaseNerAnnotator.class);
 
-	private final RestHighLevelClient restHighLevelClient;
-
 }
\ No newline at end of file
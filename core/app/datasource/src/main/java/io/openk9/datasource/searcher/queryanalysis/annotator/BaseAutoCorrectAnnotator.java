@@ -17,7 +17,6 @@
 
 package io.openk9.datasource.searcher.queryanalysis.annotator;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +28,6 @@ import io.openk9.datasource.searcher.queryanalysis.CategorySemantics;
 import org.jboss.logging.Logger;
 import org.opensearch.action.search.SearchRequest;
 import org.opensearch.action.search.SearchResponse;
-import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
 import org.opensearch.search.builder.SearchSourceBuilder;
 import org.opensearch.search.suggest.Suggest;
@@ -38,7 +36,7 @@ import org.opensearch.search.suggest.SuggestBuilders;
 import org.opensearch.search.suggest.phrase.DirectCandidateGeneratorBuilder;
 import org.opensearch.search.suggest.phrase.PhraseSuggestionBuilder;
 
-public class BaseAutoCorrectAnnotator extends BaseAnnotator {
+public class BaseAutoCorrectAnnotator extends BaseSearchAnnotator {
 
 	public BaseAutoCorrectAnnotator(
 		TenantWithBucket tenantWithBucket,
@@ -47,14 +45,13 @@ public class BaseAutoCorrectAnnotator extends BaseAnnotator {
 		RestHighLevelClient restHighLevelClient,
 		String includeField, String searchKeyword) {
 
-		super(tenantWithBucket, annotator, stopWords);
+		super(tenantWithBucket, annotator, stopWords, restHighLevelClient);
 		this.includeField = includeField;
 		this.searchKeyword = searchKeyword;
-		this.restHighLevelClient = restHighLevelClient;
 	}
 
 	@Override
-	public List<CategorySemantics> annotate(String...tokens) {
+	public SearchRequest prepare(String...tokens) {
 
 		String token = String.join(" ", tokens);
 		
@@ -79,54 +76,52 @@ public class BaseAutoCorrectAnnotator extends BaseAnnotator {
 
 		searchRequest.source(searchSourceBuilder);
 
-		try {
+		return searchRequest;
 
-			List<CategorySemantics> categorySemantics = new ArrayList<>();
+	}
 
-			SearchResponse search =
-				restHighLevelClient.search(
-					searchRequest, RequestOptions.DEFAULT);
+	@Override
+	public List<CategorySemantics> collect(
+		SearchResponse search, String...tokens) {
 
-			for (Suggest.Suggestion<? extends Suggest.Suggestion.Entry<?
-				extends Suggest.Suggestion.Entry.Option>> entries : search.getSuggest()) {
+		String token = String.join(" ", tokens);
 
-				for (Suggest.Suggestion.Entry<? extends Suggest.Suggestion.Entry.Option> entry : entries) {
+		List<CategorySemantics> categorySemantics = new ArrayList<>();
 
-					for (Suggest.Suggestion.Entry.Option option : entry) {
+		for (Suggest.Suggestion<? extends Suggest.Suggestion.Entry<?
+			extends Suggest.Suggestion.Entry.Option>> entries : search.getSuggest()) {
 
-						String text = option.getText().string();
+			for (Suggest.Suggestion.Entry<? extends Suggest.Suggestion.Entry.Option> entry : entries) {
 
-						if (!text.startsWith(token)) {
-							categorySemantics.add(
-								CategorySemantics.of(
-									"$AUTOCORRECT",
-									Map.of(
-										"tokenType", "AUTOCORRECT",
-										"value", text,
-										"score", 0.0f
-									)
-								)
-							);
-						}
+				for (Suggest.Suggestion.Entry.Option option : entry) {
+
+					String text = option.getText().string();
 
+					if (!text.startsWith(token)) {
+						categorySemantics.add(
+							CategorySemantics.of(
+								"$AUTOCORRECT",
+								Map.of(
+									"tokenType", "AUTOCORRECT",
+									"value", text,
+									"score", 0.0f
+								)
+							)
+						);
 					}
 
 				}
 
 			}
 
-			if (_log.isDebugEnabled()) {
-				_log.debug(
-					"for token " + token + " found " + categorySemantics + " category semantics");
-			}
-
-			return categorySemantics;
 		}
-		catch (IOException e) {
-			_log.error(e.getMessage(), e);
+
+		if (_log.isDebugEnabled()) {
+			_log.debug(
+				"for token " + token + " found " + categorySemantics + " category semantics");
 		}
 
-		return List.of();
+		return categorySemantics;
 
 	}
 
@@ -149,8 +144,6 @@ public class BaseAutoCorrectAnnotator extends BaseAnnotator {
 
 	}
 
-	protected final RestHighLevelClient restHighLevelClient;
-
 	protected final String searchKeyword;
 
 	protected final String includeField;
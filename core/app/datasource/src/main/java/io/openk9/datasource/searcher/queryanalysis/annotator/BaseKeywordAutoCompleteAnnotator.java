@@ -17,7 +17,6 @@
 
 package io.openk9.datasource.searcher.queryanalysis.annotator;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -35,7 +34,6 @@ import io.openk9.datasource.searcher.queryanalysis.CategorySemantics;
 import org.jboss.logging.Logger;
 import org.opensearch.action.search.SearchRequest;
 import org.opensearch.action.search.SearchResponse;
-import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
 import org.opensearch.index.query.BoolQueryBuilder;
 import org.opensearch.index.query.MultiMatchQueryBuilder;
@@ -43,7 +41,7 @@ import org.opensearch.index.query.QueryBuilders;
 import org.opensearch.search.SearchHit;
 import org.opensearch.search.builder.SearchSourceBuilder;
 
-public class BaseKeywordAutoCompleteAnnotator extends BaseAnnotator {
+public class BaseKeywordAutoCompleteAnnotator extends BaseSearchAnnotator {
 
 	public BaseKeywordAutoCompleteAnnotator(
 		TenantWithBucket tenantWithBucket,
@@ -52,15 +50,14 @@ public class BaseKeywordAutoCompleteAnnotator extends BaseAnnotator {
 		RestHighLevelClient restHighLevelClient,
 		String includeField, String searchKeyword, JWT jwt) {
 
-		super(tenantWithBucket, annotator, stopWords);
+		super(tenantWithBucket, annotator, stopWords, restHighLevelClient);
 		this.includeField = includeField;
 		this.searchKeyword = searchKeyword;
-		this.restHighLevelClient = restHighLevelClient;
 		this.jwt = jwt;
 	}
 
 	@Override
-	public List<CategorySemantics> annotate(String...tokens) {
+	public SearchRequest prepare(String...tokens) {
 
 		String token = String.join("", tokens);
 
@@ -121,75 +118,61 @@ public class BaseKeywordAutoCompleteAnnotator extends BaseAnnotator {
 			_log.debug(builder.toString());
 		}
 
-		try {
+		return searchRequest;
 
-			List<CategorySemantics> categorySemantics = new ArrayList<>();
+	}
 
-			SearchResponse search =
-				restHighLevelClient.search(
-					searchRequest, RequestOptions.DEFAULT);
+	@Override
+	public List<CategorySemantics> collect(
+		SearchResponse search, String...tokens) {
 
-			for (SearchHit hit : search.getHits()) {
-				Map<String, Object> sourceAsMap = hit.getSourceAsMap();
+		String token = String.join("", tokens);
 
-				for (Map.Entry<String, Object> entry : sourceAsMap.entrySet()) {
+		List<CategorySemantics> categorySemantics = new ArrayList<>();
 
-					String keyword = entry.getKey();
-					Object value = entry.getValue();
+		for (SearchHit hit : search.getHits()) {
+			Map<String, Object> sourceAsMap = hit.getSourceAsMap();
 
-					String label;
-					String keyword_value;
+			for (Map.Entry<String, Object> entry : sourceAsMap.entrySet()) {
 
-					if (annotator.getDocTypeField().getParentDocTypeField() == null) {
-						label = annotator.getDocTypeField().getName();
-						keyword_value = annotator.getDocTypeField().getPath();
-					}
-					else {
-						label = annotator.getDocTypeField().getParentDocTypeField().getName();
-						keyword_value = annotator.getDocTypeField().getParentDocTypeField().getPath();
-					}
+				String keyword = entry.getKey();
+				Object value = entry.getValue();
 
+				String label;
+				String keyword_value;
 
-					if (value instanceof String) {
-						if (((String) value).startsWith(token)) {
-							categorySemantics.add(
-								CategorySemantics.of(
-									"$KEYWORD_AUTOCOMPLETE",
-									Map.of(
-										"tokenType", "TEXT",
-										"keywordKey", keyword_value + ".keyword",
-										"label", label,
-										"value", value,
-										"score", 0.2f,
-										"extra", annotator.getExtraParams()
-									)
-								));
-						}
+				if (annotator.getDocTypeField().getParentDocTypeField() == null) {
+					label = annotator.getDocTypeField().getName();
+					keyword_value = annotator.getDocTypeField().getPath();
+				}
+				else {
+					label = annotator.getDocTypeField().getParentDocTypeField().getName();
+					keyword_value = annotator.getDocTypeField().getParentDocTypeField().getPath();
+				}
+
+
+				if (value instanceof String) {
+					if (((String) value).startsWith(token)) {
+						categorySemantics.add(
+							CategorySemantics.of(
+								"$KEYWORD_AUTOCOMPLETE",
+								Map.of(
+									"tokenType", "TEXT",
+									"keywordKey", keyword_value + ".keyword",
+									"label", label,
+									"value", value,
+									"score", 0.2f,
+									"extra", annotator.getExtraParams()
+								)
+							));
 					}
-					else if (value instanceof Map) {
-						for (Map.Entry<?, ?> e2 : ((Map<?, ?>) value).entrySet()) {
-							if (e2.getValue() instanceof ArrayList) {
-								for (String name : ((ArrayList<String>) e2.getValue())) {
-									if (!name.equals(token) &&
-										(name.contains(token))) {
-										categorySemantics.add(
-											CategorySemantics.of(
-												"$KEYWORD_AUTOCOMPLETE",
-												Map.of(
-													"tokenType", "TEXT",
-													"keywordKey", keyword_value + ".keyword",
-													"label", label,
-													"value", e2.getValue(),
-													"score", 0.2f,
-													"extra", annotator.getExtraParams()
-												)
-											)
-										);
-									}
-								}
-							}
-							else {
-								if (!e2.getValue().equals(token)) {
+				}
+				else if (value instanceof Map) {
+					for (Map.Entry<?, ?> e2 : ((Map<?, ?>) value).entrySet()) {
+						if (e2.getValue() instanceof ArrayList) {
+							for (String name : ((ArrayList<String>) e2.getValue())) {
+								if (!name.equals(token) &&
+									(name.contains(token))) {
 									categorySemantics.add(
 										CategorySemantics.of(
 											"$KEYWORD_AUTOCOMPLETE",
@@ -205,30 +188,45 @@ public class BaseKeywordAutoCompleteAnnotator extends BaseAnnotator {
 									);
 								}
 							}
-
 						}
-					}
+						else {
+							if (!e2.getValue().equals(token)) {
+								categorySemantics.add(
+									CategorySemantics.of(
+										"$KEYWORD_AUTOCOMPLETE",
+										Map.of(
+											"tokenType", "TEXT",
+											"keywordKey", keyword_value + ".keyword",
+											"label", label,
+											"value", e2.getValue(),
+											"score", 0.2f,
+											"extra", annotator.getExtraParams()
+										)
+									)
+								);
+							}
+						}
 
+					}
 				}
-			}
 
-			if (_log.isDebugEnabled()) {
-				_log.debug(
-					"for token " + token + " found " + categorySemantics + " category semantics");
 			}
-
-			return categorySemantics;
-
-
 		}
-		catch (IOException e) {
-			_log.error(e.getMessage(), e);
+
+		if (_log.isDebugEnabled()) {
+			_log.debug(
+				"for token " + token + " found " + categorySemantics + " category semantics");
 		}
 
-		return List.of();
+		return categorySemantics;
 
 	}
 
+	@Override
+	protected List<List<String>> _aclTerms() {
+		return _aclTerms(tenantWithBucket, jwt);
+	}
+
 	private boolean _arrayContains(
 		List<String> autocompleteEntityFields, String keyword) {
 		return autocompleteEntityFields.contains(keyword);
@@ -248,8 +246,6 @@ public class BaseKeywordAutoCompleteAnnotator extends BaseAnnotator {
 
 	}
 
-	protected final RestHighLevelClient restHighLevelClient;
-
 	protected final String searchKeyword;
 
 	protected final String includeField;
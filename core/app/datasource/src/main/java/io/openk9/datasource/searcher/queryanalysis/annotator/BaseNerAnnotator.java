@@ -17,11 +17,12 @@
 
 package io.openk9.datasource.searcher.queryanalysis.annotator;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import io.openk9.datasource.entity.EntityGazetteer;
+import io.openk9.datasource.entity.EntityGazetteerRegistry;
 import io.openk9.datasource.mapper.FuzzinessMapper;
 import io.openk9.datasource.model.Annotator;
 import io.openk9.datasource.searcher.model.TenantWithBucket;
@@ -30,25 +31,34 @@ import io.openk9.datasource.searcher.queryanalysis.CategorySemantics;
 import org.jboss.logging.Logger;
 import org.opensearch.action.search.SearchRequest;
 import org.opensearch.action.search.SearchResponse;
-import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.common.unit.Fuzziness;
 import org.opensearch.index.query.BoolQueryBuilder;
 import org.opensearch.index.query.QueryBuilder;
 import org.opensearch.index.query.QueryBuilders;
 import org.opensearch.search.SearchHit;
 import org.opensearch.search.builder.SearchSourceBuilder;
 
-public class BaseNerAnnotator extends BaseAnnotator {
+/**
+ * Annotates the spans that match the names of the entities of a category.
+ *
+ * <p>The entities are looked up in the {@link EntityGazetteer} of the
+ * tenant, when it is loaded, and searched in the {@code <tenant>-entity}
+ * index otherwise. Both score the entities with BM25, on the scale of the
+ * scores of the other annotators.</p>
+ */
+public class BaseNerAnnotator extends BaseSearchAnnotator {
 
 	public BaseNerAnnotator(
 		TenantWithBucket tenantWithBucket,
 		Annotator annotator,
 		List<String> stopWords,
 		String category,
-		RestHighLevelClient restHighLevelClient) {
-		super(tenantWithBucket, annotator, stopWords);
+		RestHighLevelClient restHighLevelClient,
+		EntityGazetteerRegistry entityGazetteerRegistry) {
+		super(tenantWithBucket, annotator, stopWords, restHighLevelClient);
 		this.category = category;
-		this.restHighLevelClient = restHighLevelClient;
+		this.entityGazetteerRegistry = entityGazetteerRegistry;
 	}
 
 	@Override
@@ -60,10 +70,42 @@ public class BaseNerAnnotator extends BaseAnnotator {
 	}
 
 	@Override
-	public List<CategorySemantics> annotate(String...tokens) {
+	public List<CategorySemantics> lookup(String...tokens) {
+
+		if (_containsStopword(tokens) || entityGazetteerRegistry == null) {
+			return null;
+		}
+
+		EntityGazetteer gazetteer =
+			entityGazetteerRegistry.get(tenantWithBucket.getTenant().schemaName());
+
+		if (gazetteer == null) {
+			return null;
+		}
+
+		Fuzziness fuzziness = FuzzinessMapper.map(annotator.getFuziness());
+
+		List<CategorySemantics> list = new ArrayList<>();
+
+		for (EntityGazetteer.Match match : gazetteer.lookup(
+			category, _words(tokens), fuzziness::asDistance, annotator.getSize())) {
+
+			list.add(_categorySemantics(
+				match.type(), match.name(), match.tenantId(), match.id(), match.score()));
+		}
+
+		if (_log.isDebugEnabled()) {
+			_log.debug(list.toString());
+		}
+
+		return list;
+	}
+
+	@Override
+	public SearchRequest prepare(String...tokens) {
 
 		if (_containsStopword(tokens)) {
-			return List.of();
+			return null;
 		}
 
 		BoolQueryBuilder builder = QueryBuilders.boolQuery();
@@ -72,13 +114,8 @@ public class BaseNerAnnotator extends BaseAnnotator {
 			QueryBuilders.matchQuery(
 				"type.keyword", category));
 
-		for (String token : tokens) {
-			String[] words = token.split("\\s+");
-			for (String word : words) {
-				if (!stopWords.contains(word)) {
-					builder.must(query("name", word));
-				}
-			}
+		for (String word : _words(tokens)) {
+			builder.must(query("name", word));
 		}
 
 		var tenant = tenantWithBucket.getTenant();
@@ -94,52 +131,72 @@ public class BaseNerAnnotator extends BaseAnnotator {
 
 		searchRequest.source(searchSourceBuilder);
 
-		List<CategorySemantics> list = new ArrayList<>();
-
 		if (_log.isDebugEnabled()) {
 			_log.debug(builder.toString());
 		}
 
-		try {
-			SearchResponse search =
-				restHighLevelClient.search(
-					searchRequest, RequestOptions.DEFAULT);
-
-			for (SearchHit hit : search.getHits()) {
-				Map<String, Object> senamtics = hit.getSourceAsMap();
-				list.add(
-					CategorySemantics.of(
-						"$" + senamtics.get("type"),
-						Map.of(
-							"tokenType", "ENTITY",
-							"entityType", senamtics.get("type"),
-							"label", senamtics.get("type"),
-							"entityName", senamtics.get("name"),
-							"tenantId", senamtics.get("tenantId"),
-							"value", senamtics.get("id"),
-							"score", hit.getScore()
-						)
-					)
-				);
-			}
+		return searchRequest;
+	}
 
-			if (_log.isDebugEnabled()) {
-				_log.debug(list.toString());
-			}
+	@Override
+	public List<CategorySemantics> collect(
+		SearchResponse search, String...tokens) {
 
+		List<CategorySemantics> list = new ArrayList<>();
+
+		for (SearchHit hit : search.getHits()) {
+			Map<String, Object> senamtics = hit.getSourceAsMap();
+			list.add(
+				_categorySemantics(
+					senamtics.get("type"), senamtics.get("name"),
+					senamtics.get("tenantId"), senamtics.get("id"), hit.getScore()
+				)
+			);
 		}
-		catch (IOException e) {
-			_log.error(e.getMessage(), e);
+
+		if (_log.isDebugEnabled()) {
+			_log.debug(list.toString());
 		}
 
+		return list;
+	}
+
+	private List<String> _words(String...tokens) {
+
+		List<String> list = new ArrayList<>();
+
+		for (String token : tokens) {
+			String[] words = token.split("\\s+");
+			for (String word : words) {
+				if (!stopWords.contains(word)) {
+					list.add(word);
+				}
+			}
+		}
 
 		return list;
 	}
 
+	private static CategorySemantics _categorySemantics(
+		Object type, Object name, Object tenantId, Object id, float score) {
+
+		return CategorySemantics.of(
+			"$" + type,
+			Map.of(
+				"tokenType", "ENTITY",
+				"entityType", type,
+				"label", type,
+				"entityName", name,
+				"tenantId", tenantId,
+				"value", id,
+				"score", score
+			)
+		);
+	}
+
 	private final String category;
+	private final EntityGazetteerRegistry entityGazetteerRegistry;
 
 	private static final Logger _log = Logger.getLogger(BaseNerAnnotator.class);
 
-	private final RestHighLevelClient restHighLevelClient;
-
 }
\ No newline at end of file
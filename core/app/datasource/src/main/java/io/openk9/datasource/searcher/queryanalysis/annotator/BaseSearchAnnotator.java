@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis.annotator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import io.openk9.datasource.model.util.JWT;
+import io.openk9.datasource.searcher.model.TenantWithBucket;
+import io.openk9.datasource.searcher.queryanalysis.AnnotationCache;
+import io.openk9.datasource.searcher.queryanalysis.CategorySemantics;
+
+import org.jboss.logging.Logger;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+
+abstract class BaseSearchAnnotator extends BaseAnnotator implements SearchAnnotator {
+
+	public BaseSearchAnnotator(
+		TenantWithBucket tenantWithBucket,
+		io.openk9.datasource.model.Annotator annotator,
+		List<String> stopWords,
+		RestHighLevelClient restHighLevelClient) {
+
+		super(tenantWithBucket, annotator, stopWords);
+		this.restHighLevelClient = restHighLevelClient;
+	}
+
+	@Override
+	public List<CategorySemantics> annotate(String...tokens) {
+
+		List<CategorySemantics> found = lookup(tokens);
+
+		if (found != null) {
+			return found;
+		}
+
+		SearchRequest searchRequest = prepare(tokens);
+
+		if (searchRequest == null) {
+			return List.of();
+		}
+
+		try {
+			SearchResponse search =
+				restHighLevelClient.search(
+					searchRequest, RequestOptions.DEFAULT);
+
+			return collect(search, tokens);
+		}
+		catch (IOException e) {
+			_log.error(e.getMessage(), e);
+		}
+
+		return List.of();
+
+	}
+
+	@Override
+	public List<CategorySemantics> annotate(
+		Set<String> context, List<CategorySemantics> annotations, String...tokens) {
+
+		return _updateContext(context, annotations, tokens);
+
+	}
+
+	@Override
+	public AnnotationCache.Scope annotationScope() {
+
+		return new AnnotationCache.Scope(
+			tenantWithBucket.getTenant().schemaName(),
+			Set.copyOf(List.of(tenantWithBucket.getIndexNames())),
+			annotator.getId(),
+			_aclTerms()
+		);
+
+	}
+
+	/**
+	 * The ACL terms of the caller that filter the searches of this
+	 * annotator, none by default.
+	 */
+	protected List<List<String>> _aclTerms() {
+		return List.of();
+	}
+
+	/**
+	 * Returns the terms of the user fields of the bucket ACL mappings, in
+	 * the order they are applied to the searches.
+	 */
+	protected static List<List<String>> _aclTerms(
+		TenantWithBucket tenantWithBucket, JWT jwt) {
+
+		if (jwt == null || jwt.isEmpty()) {
+			return List.of();
+		}
+
+		return tenantWithBucket.getBucket()
+			.getDatasources()
+			.stream()
+			.flatMap(d -> d.getPluginDriver().getAclMappings().stream())
+			.distinct()
+			.map(aclMapping -> Objects.requireNonNullElse(
+				aclMapping.getUserField().getTerms(jwt), List.<String>of()))
+			.toList();
+
+	}
+
+	protected final RestHighLevelClient restHighLevelClient;
+
+	private static final Logger _log = Logger.getLogger(
+		BaseSearchAnnotator.class);
+
+}
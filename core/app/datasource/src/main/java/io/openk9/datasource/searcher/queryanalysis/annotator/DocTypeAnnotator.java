@@ -24,6 +24,7 @@ import io.openk9.datasource.model.Annotator;
 import io.openk9.datasource.model.util.JWT;
 import io.openk9.datasource.searcher.model.TenantWithBucket;
 import io.openk9.datasource.searcher.queryanalysis.CategorySemantics;
+import io.openk9.datasource.searcher.queryanalysis.KeywordDictionaryRegistry;
 
 import org.opensearch.client.RestHighLevelClient;
 
@@ -34,11 +35,12 @@ public class DocTypeAnnotator extends BaseAggregatorAnnotator {
 		Annotator annotator,
 		List<String> stopWords,
 		RestHighLevelClient restHighLevelClient,
+		KeywordDictionaryRegistry keywordDictionaryRegistry,
 		JWT jwt) {
 
 		super(
-			tenantWithBucket, annotator, stopWords, restHighLevelClient, jwt,
-			"documentTypes.keyword"
+			tenantWithBucket, annotator, stopWords, restHighLevelClient,
+			keywordDictionaryRegistry, jwt, "documentTypes.keyword"
 		);
 	}
 
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis.annotator;
+
+import java.util.List;
+import java.util.Set;
+
+import io.openk9.datasource.searcher.queryanalysis.AnnotationCache;
+import io.openk9.datasource.searcher.queryanalysis.CategorySemantics;
+
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+
+/**
+ * An {@link Annotator} backed by a single OpenSearch search per token span.
+ *
+ * <p>The lookup is split in two phases, so that the requests for every span
+ * of a query can be collected up front and sent together in one
+ * {@code _msearch}, instead of one blocking round trip per span.</p>
+ */
+public interface SearchAnnotator extends Annotator {
+
+	/**
+	 * @return the search request needed to annotate the given tokens, or
+	 * {@code null} when the span cannot produce any annotation.
+	 */
+	SearchRequest prepare(String...tokens);
+
+	/**
+	 * @return the annotations for the given tokens when they can be resolved
+	 * without searching, or {@code null} when the request built by
+	 * {@link #prepare(String...)} is needed.
+	 */
+	default List<CategorySemantics> lookup(String...tokens) {
+		return null;
+	}
+
+	/**
+	 * Maps the response of the request built by {@link #prepare(String...)}
+	 * to the annotations for the given tokens.
+	 */
+	List<CategorySemantics> collect(SearchResponse response, String...tokens);
+
+	/**
+	 * Same as {@link #annotate(Set, String...)}, using the annotations
+	 * already collected from a response with {@link #collect}.
+	 */
+	List<CategorySemantics> annotate(
+		Set<String> context, List<CategorySemantics> annotations, String...tokens);
+
+	/**
+	 * @return what the annotations depend on besides the tokens, so that
+	 * they can be shared through the {@link AnnotationCache}, or
+	 * {@code null} when they must not be cached.
+	 */
+	default AnnotationCache.Scope annotationScope() {
+		return null;
+	}
+
+}
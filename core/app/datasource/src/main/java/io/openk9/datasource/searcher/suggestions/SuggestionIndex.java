@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.suggestions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+/**
+ * The values of a suggestion field, with the documents that hold them, for
+ * the suggestions to be served without aggregating the indices.
+ *
+ * <p>The values are kept in sorted arrays, in the order of the
+ * {@code composite} aggregation of a keyword field, the order of the code
+ * points, so that a page starts with a binary search of the value after
+ * which it starts. To match a keyword as the
+ * {@code match_phrase_prefix} query on the text field of the values, every
+ * value is also indexed from the start of each of its words: the tokens of
+ * the value by the standard analyzer, which is the one of the text field
+ * unless the field sets another analyzer, are joined by a single space, and
+ * the positions of
+ * the words are sorted by the text that follows them. The values holding
+ * the keyword as a phrase, whose last word is a prefix, are those whose
+ * text from one of their words starts with the joined words of the
+ * keyword, a range of the sorted positions.</p>
+ *
+ * <p>An index is immutable, it is replaced when the values are loaded
+ * again.</p>
+ */
+public final class SuggestionIndex {
+
+	private static final Analyzer ANALYZER = new StandardAnalyzer();
+
+	/**
+	 * The order of the terms of a keyword field, their UTF-8 bytes, which is
+	 * the order of the code points and not the one of {@link String}.
+	 */
+	static final Comparator<String> TERM_ORDER = SuggestionIndex::_compareCodePoints;
+
+	private final String[] values;
+	private final long[] docCounts;
+	private final String[] texts;
+	private final int[] wordValues;
+	private final int[] wordOffsets;
+
+	private SuggestionIndex(
+		String[] values, long[] docCounts, String[] texts, int[] wordValues,
+		int[] wordOffsets) {
+
+		this.values = values;
+		this.docCounts = docCounts;
+		this.texts = texts;
+		this.wordValues = wordValues;
+		this.wordOffsets = wordOffsets;
+	}
+
+	public static SuggestionIndex of(Map<String, Long> docCounts) {
+
+		String[] values = docCounts.keySet().toArray(String[]::new);
+
+		Arrays.sort(values, TERM_ORDER);
+
+		long[] counts = new long[values.length];
+		String[] texts = new String[values.length];
+		List<int[]> words = new ArrayList<>();
+
+		for (int i = 0; i < values.length; i++) {
+			counts[i] = docCounts.get(values[i]);
+			texts[i] = text(values[i]);
+
+			String text = texts[i];
+
+			for (int offset = 0; offset < text.length(); ) {
+				words.add(new int[] {i, offset});
+
+				int space = text.indexOf(' ', offset);
+
+				offset = space < 0 ? text.length() : space + 1;
+			}
+		}
+
+		words.sort((a, b) -> _compare(texts[a[0]], a[1], texts[b[0]], b[1]));
+
+		int[] wordValues = new int[words.size()];
+		int[] wordOffsets = new int[words.size()];
+
+		for (int i = 0; i < wordValues.length; i++) {
+			wordValues[i] = words.get(i)[0];
+			wordOffsets[i] = words.get(i)[1];
+		}
+
+		return new SuggestionIndex(values, counts, texts, wordValues, wordOffsets);
+	}
+
+	/**
+	 * Returns at most {@code size} values following {@code after}, or the
+	 * first ones when it is {@code null}.
+	 */
+	public List<Entry> page(String after, int size) {
+
+		List<Entry> entries = new ArrayList<>(Math.min(Math.max(size, 0), values.length));
+
+		for (int i = _start(after); i < values.length && entries.size() < size; i++) {
+			entries.add(new Entry(values[i], docCounts[i]));
+		}
+
+		return entries;
+	}
+
+	/**
+	 * Returns at most {@code size} values following {@code after} that hold
+	 * the keyword as a phrase, the last word of the keyword being a prefix.
+	 */
+	public List<Entry> page(String keyword, String after, int size) {
+
+		String prefix = text(keyword);
+
+		if (prefix.isEmpty()) {
+			return page(after, size);
+		}
+
+		BitSet matches = new BitSet(values.length);
+
+		for (int i = _firstWord(prefix); i < wordValues.length; i++) {
+			String text = texts[wordValues[i]];
+
+			if (!text.startsWith(prefix, wordOffsets[i])) {
+				break;
+			}
+
+			matches.set(wordValues[i]);
+		}
+
+		List<Entry> entries = new ArrayList<>();
+
+		for (int i = matches.nextSetBit(_start(after));
+			 i >= 0 && entries.size() < size;
+			 i = matches.nextSetBit(i + 1)) {
+
+			entries.add(new Entry(values[i], docCounts[i]));
+		}
+
+		return entries;
+	}
+
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * Returns the tokens of the value by the standard analyzer, joined by a
+	 * single space.
+	 */
+	static String text(String value) {
+
+		if (value == null) {
+			return "";
+		}
+
+		StringBuilder sb = new StringBuilder(value.length());
+
+		try (TokenStream tokenStream = ANALYZER.tokenStream("text", value)) {
+			CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
+
+			tokenStream.reset();
+
+			while (tokenStream.incrementToken()) {
+				if (!sb.isEmpty()) {
+					sb.append(' ');
+				}
+
+				sb.append(term);
+			}
+
+			tokenStream.end();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * The position of the first value following {@code after}, as the
+	 * {@code after} of a {@code composite} aggregation, where the missing
+	 * value comes first.
+	 */
+	private int _start(String after) {
+
+		if (after == null) {
+			return 0;
+		}
+
+		int index = Arrays.binarySearch(values, after, TERM_ORDER);
+
+		return index >= 0 ? index + 1 : -index - 1;
+	}
+
+	/**
+	 * The first word whose text is not before the prefix.
+	 */
+	private int _firstWord(String prefix) {
+
+		int low = 0;
+		int high = wordValues.length;
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+
+			if (_compare(texts[wordValues[mid]], wordOffsets[mid], prefix, 0) < 0) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+
+		return low;
+	}
+
+	private static int _compareCodePoints(String a, String b) {
+
+		int i = 0;
+		int j = 0;
+
+		while (i < a.length() && j < b.length()) {
+			int aCodePoint = a.codePointAt(i);
+			int bCodePoint = b.codePointAt(j);
+
+			if (aCodePoint != bCodePoint) {
+				return Integer.compare(aCodePoint, bCodePoint);
+			}
+
+			i += Character.charCount(aCodePoint);
+			j += Character.charCount(bCodePoint);
+		}
+
+		return Integer.compare(a.length() - i, b.length() - j);
+	}
+
+	private static int _compare(String a, int aOffset, String b, int bOffset) {
+
+		int length = Math.min(a.length() - aOffset, b.length() - bOffset);
+
+		for (int i = 0; i < length; i++) {
+			int diff = a.charAt(aOffset + i) - b.charAt(bOffset + i);
+
+			if (diff != 0) {
+				return diff;
+			}
+		}
+
+		return (a.length() - aOffset) - (b.length() - bOffset);
+	}
+
+	public record Entry(String value, long docCount) {}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.suggestions;
+
+import java.time.Duration;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.openk9.datasource.events.DatasourceEventBus;
+import io.openk9.datasource.events.DatasourceMessage;
+import io.openk9.datasource.searcher.util.KeywordFieldValues;
+
+import io.quarkus.vertx.ConsumeEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.opensearch.client.RestHighLevelClient;
+
+/**
+ * Holds the {@link SuggestionIndex} of the suggestion fields of the bucket
+ * indices, see {@link KeywordFieldValues}.
+ *
+ * <p>Until an index is loaded the callers get {@code null} and keep
+ * aggregating the indices. Besides every {@code refresh-interval}, an index
+ * is loaded again {@code event-delay} after the indexing pipeline of this
+ * node sent a {@link DatasourceMessage} for one of its indices, so that a
+ * burst of documents is followed by a single load.</p>
+ */
+@ApplicationScoped
+public class SuggestionIndexRegistry {
+
+	@Inject
+	RestHighLevelClient client;
+
+	@ConfigProperty(name = "openk9.suggestions.index.enabled", defaultValue = "true")
+	boolean enabled;
+
+	@ConfigProperty(name = "openk9.suggestions.index.refresh-interval", defaultValue = "5m")
+	Duration refreshInterval;
+
+	@ConfigProperty(name = "openk9.suggestions.index.event-delay", defaultValue = "10s")
+	Duration eventDelay;
+
+	@ConfigProperty(name = "openk9.suggestions.index.idle-ttl", defaultValue = "1h")
+	Duration idleTtl;
+
+	@ConfigProperty(name = "openk9.suggestions.index.max-values", defaultValue = "200000")
+	int maxValues;
+
+	private KeywordFieldValues<SuggestionIndex> indices;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns the index of the field on the given indices, or {@code null}
+	 * when it is not loaded yet or the field is not held in memory.
+	 */
+	public SuggestionIndex get(String tenantId, String[] indexNames, String field) {
+
+		if (!enabled) {
+			return null;
+		}
+
+		return indices.get(tenantId, indexNames, field);
+	}
+
+	/**
+	 * Brings forward the load of the indices of the index the message is
+	 * about.
+	 */
+	@ConsumeEvent(DatasourceEventBus.PUBLISHED_EVENT)
+	void onDatasourceMessage(DatasourceMessage message) {
+
+		if (message instanceof DatasourceMessage.Failure || message.getIndexName() == null) {
+			return;
+		}
+
+		indices.refresh(message.getIndexName(), eventDelay);
+	}
+
+	@PostConstruct
+	void init() {
+		indices = new KeywordFieldValues<>(
+			client, "suggestions", refreshInterval, idleTtl, maxValues, SuggestionIndex::of);
+	}
+
+}
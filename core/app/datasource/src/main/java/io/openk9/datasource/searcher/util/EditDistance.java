@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.util;
+
+/**
+ * Edit distances between strings. The Levenshtein distance is computed on a
+ * single row that the caller can reuse across comparisons.
+ */
+public final class EditDistance {
+
+	/**
+	 * Returns a row large enough to compare the given string with any other.
+	 */
+	public static int[] row(CharSequence x) {
+		return new int[x.length() + 1];
+	}
+
+	/**
+	 * Returns the edits needed to turn {@code x} into {@code y}, using
+	 * {@code row}, as returned by {@link #row(CharSequence)} for {@code x}, as
+	 * working memory.
+	 */
+	public static int levenshtein(CharSequence x, CharSequence y, int[] row) {
+
+		int xLength = x.length();
+		int yLength = y.length();
+
+		for (int i = 0; i <= xLength; i++) {
+			row[i] = i;
+		}
+
+		for (int j = 1; j <= yLength; j++) {
+			char yChar = y.charAt(j - 1);
+			int diagonal = row[0];
+
+			row[0] = j;
+
+			for (int i = 1; i <= xLength; i++) {
+				int above = row[i];
+				int cost = x.charAt(i - 1) == yChar ? 0 : 1;
+
+				row[i] = Math.min(Math.min(row[i - 1] + 1, above + 1), diagonal + cost);
+				diagonal = above;
+			}
+		}
+
+		return row[xLength];
+	}
+
+	/**
+	 * Returns the edits needed to turn {@code x} into {@code y} when the
+	 * transposition of two adjacent characters counts as a single edit, as in
+	 * the fuzzy queries, and no substring is edited more than once.
+	 */
+	public static int optimalStringAlignment(CharSequence x, CharSequence y) {
+
+		int xLength = x.length();
+		int yLength = y.length();
+
+		int[] previousRow = new int[xLength + 1];
+		int[] lastRow = new int[xLength + 1];
+		int[] row = new int[xLength + 1];
+
+		for (int i = 0; i <= xLength; i++) {
+			lastRow[i] = i;
+		}
+
+		for (int j = 1; j <= yLength; j++) {
+			char yChar = y.charAt(j - 1);
+
+			row[0] = j;
+
+			for (int i = 1; i <= xLength; i++) {
+				char xChar = x.charAt(i - 1);
+				int cost = xChar == yChar ? 0 : 1;
+
+				row[i] = Math.min(
+					Math.min(row[i - 1] + 1, lastRow[i] + 1), lastRow[i - 1] + cost);
+
+				if (i > 1 && j > 1 && xChar == y.charAt(j - 2) && x.charAt(i - 2) == yChar) {
+					row[i] = Math.min(row[i], previousRow[i - 2] + 1);
+				}
+			}
+
+			int[] swap = previousRow;
+
+			previousRow = lastRow;
+			lastRow = row;
+			row = swap;
+		}
+
+		return lastRow[xLength];
+	}
+
+	/**
+	 * Returns the similarity of the strings, from {@code 0}, nothing in
+	 * common, to {@code 1}, equal.
+	 */
+	public static double similarity(CharSequence x, CharSequence y, int[] row) {
+
+		int maxLength = Math.max(x.length(), y.length());
+
+		if (maxLength == 0) {
+			return 1;
+		}
+
+		return 1 - (double) levenshtein(x, y, row) / maxLength;
+	}
+
+	private EditDistance() {}
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import io.openk9.datasource.util.UniActionListener;
+
+import io.smallrye.mutiny.Uni;
+import org.jboss.logging.Logger;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.aggregations.AggregationBuilders;
+import org.opensearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.opensearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.opensearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.opensearch.search.builder.SearchSourceBuilder;
+
+/**
+ * Holds what is built from the values of the keyword fields of the bucket
+ * indices, with the documents that hold them, loaded with a composite
+ * aggregation over the public documents.
+ *
+ * <p>The values of a field are loaded the first time they are asked for,
+ * and until they are loaded the callers get {@code null}. They are loaded
+ * again, in background, at most every {@code refreshInterval}, or earlier
+ * when {@link #refresh} is called for one of the indices, and the previous
+ * ones are served in the meantime. A field with more than
+ * {@code maxValues} values, or whose values are not strings, is not held
+ * in memory, and the fields not asked for in the {@code idleTtl} are
+ * dropped.</p>
+ *
+ * @param <V> what is built from the values and their document counts
+ */
+public final class KeywordFieldValues<V> {
+
+	private static final Logger log = Logger.getLogger(KeywordFieldValues.class);
+	private static final String COMPOSITE = "composite";
+	private static final int PAGE_SIZE = 1000;
+
+	private final Map<Key, FieldValues<V>> fields = new ConcurrentHashMap<>();
+	private final RestHighLevelClient client;
+	private final String description;
+	private final Duration refreshInterval;
+	private final Duration idleTtl;
+	private final int maxValues;
+	private final Function<Map<String, Long>, V> factory;
+
+	/**
+	 * @param description what the values are used for, in the log messages
+	 */
+	public KeywordFieldValues(
+		RestHighLevelClient client, String description, Duration refreshInterval,
+		Duration idleTtl, int maxValues, Function<Map<String, Long>, V> factory) {
+
+		this.client = client;
+		this.description = description;
+		this.refreshInterval = refreshInterval;
+		this.idleTtl = idleTtl;
+		this.maxValues = maxValues;
+		this.factory = factory;
+	}
+
+	/**
+	 * Returns what is built from the values of the field on the given
+	 * indices, or {@code null} when they are not loaded yet or the field is
+	 * not held in memory.
+	 */
+	public V get(String tenantId, String[] indexNames, String field) {
+
+		Key key = new Key(tenantId, Set.copyOf(List.of(indexNames)), field);
+
+		FieldValues<V> fieldValues = fields.computeIfAbsent(key, ignore -> new FieldValues<>());
+
+		long now = System.currentTimeMillis();
+
+		fieldValues.lastAccessAt = now;
+
+		if (now >= fieldValues.nextRefreshAt && fieldValues.refreshing.compareAndSet(false, true)) {
+
+			// the refreshes asked from now on are for documents the load may miss.
+			fieldValues.nextRefreshAt = Long.MAX_VALUE;
+
+			_page(key, indexNames, null, new HashMap<>())
+				.invoke(value -> {
+					fieldValues.value = value;
+					fieldValues.skipped = value == null;
+				})
+				.onFailure()
+				.invoke(throwable -> log.warnf(
+					throwable, "Unable to load the %s of %s in %s", description, field,
+					key.indexNames()))
+				.onTermination()
+				.invoke(() -> {
+					long end = System.currentTimeMillis();
+
+					fieldValues.nextRefreshAt =
+						Math.min(fieldValues.nextRefreshAt, end + refreshInterval.toMillis());
+					fieldValues.refreshing.set(false);
+
+					fields.values().removeIf(idle -> end - idle.lastAccessAt > idleTtl.toMillis());
+				})
+				.subscribe()
+				.with(ignore -> {}, ignore -> {});
+		}
+
+		return fieldValues.value;
+	}
+
+	/**
+	 * Brings forward to {@code delay} from now the load of the fields of the
+	 * index, except the ones not held in memory, which wait for the next
+	 * refresh.
+	 */
+	public void refresh(String indexName, Duration delay) {
+
+		long refreshAt = System.currentTimeMillis() + delay.toMillis();
+
+		fields.forEach((key, fieldValues) -> {
+			if (!fieldValues.skipped && fieldValues.nextRefreshAt > refreshAt
+				&& key.indexNames().contains(indexName)) {
+
+				fieldValues.nextRefreshAt = refreshAt;
+			}
+		});
+	}
+
+	private Uni<V> _page(
+		Key key, String[] indexNames, Map<String, Object> afterKey,
+		Map<String, Long> docCounts) {
+
+		CompositeAggregationBuilder composite = AggregationBuilders
+			.composite(
+				COMPOSITE, List.of(new TermsValuesSourceBuilder(key.field()).field(key.field())))
+			.size(PAGE_SIZE);
+
+		if (afterKey != null) {
+			composite.aggregateAfter(afterKey);
+		}
+
+		SearchRequest searchRequest = new SearchRequest(indexNames)
+			.source(new SearchSourceBuilder()
+				.size(0)
+				.query(QueryBuilders.matchQuery("acl.public", true))
+				.aggregation(composite));
+
+		return Uni.createFrom()
+			.<SearchResponse>emitter(sink -> client.searchAsync(
+				searchRequest, RequestOptions.DEFAULT, UniActionListener.of(sink)))
+			.flatMap(response -> {
+
+				CompositeAggregation aggregation = response.getAggregations() != null
+					? response.getAggregations().get(COMPOSITE)
+					: null;
+
+				if (aggregation != null) {
+					for (CompositeAggregation.Bucket bucket : aggregation.getBuckets()) {
+
+						// the order of the values is the one of the keyword terms.
+						if (!(bucket.getKey().get(key.field()) instanceof String value)) {
+							log.infof(
+								"%s is not a keyword field in %s, its %s are not held in memory",
+								key.field(), key.indexNames(), description);
+
+							return Uni.createFrom().nullItem();
+						}
+
+						docCounts.put(value, bucket.getDocCount());
+					}
+				}
+
+				if (docCounts.size() > maxValues) {
+					log.infof(
+						"%s has more than %d values in %s, its %s are not held in memory",
+						key.field(), maxValues, key.indexNames(), description);
+
+					return Uni.createFrom().nullItem();
+				}
+
+				if (aggregation == null || aggregation.afterKey() == null
+					|| aggregation.getBuckets().isEmpty()) {
+
+					return Uni.createFrom().item(factory.apply(docCounts));
+				}
+
+				return _page(key, indexNames, aggregation.afterKey(), docCounts);
+			});
+	}
+
+	private record Key(String tenantId, Set<String> indexNames, String field) {}
+
+	private static final class FieldValues<V> {
+
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+		private volatile V value;
+		private volatile boolean skipped;
+		private volatile long nextRefreshAt;
+		private volatile long lastAccessAt;
+
+	}
+
+}
@@ -20,12 +20,15 @@ package io.openk9.datasource.service;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import jakarta.inject.Inject;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Join;
@@ -303,6 +306,65 @@ public abstract class BaseK9EntityService<ENTITY extends K9Entity, DTO extends K
 
 	}
 
+	/**
+	 * Loads a to-one relation of many entities with a single query.
+	 *
+	 * <p>The returned list has the related entity of every given entity at the
+	 * same position, or {@code null} when the relation is not set.</p>
+	 */
+	@Override
+	public <T extends K9Entity> Uni<List<T>> findRelated(
+		List<ENTITY> entities, SingularAttribute<? super ENTITY, T> relation) {
+
+		if (entities.isEmpty()) {
+			return Uni.createFrom().item(List.of());
+		}
+
+		return sessionFactory.withTransaction(s -> findRelated(s, entities, relation));
+
+	}
+
+	@Override
+	public <T extends K9Entity> Uni<List<T>> findRelated(
+		Mutiny.Session session, List<ENTITY> entities,
+		SingularAttribute<? super ENTITY, T> relation) {
+
+		Set<Long> entityIds = entities.stream()
+			.map(K9Entity::getId)
+			.collect(Collectors.toSet());
+
+		CriteriaBuilder builder = sessionFactory.getCriteriaBuilder();
+
+		CriteriaQuery<Tuple> query = builder.createTupleQuery();
+
+		Root<ENTITY> root = query.from(getEntityClass());
+
+		Join<ENTITY, T> join = root.join(relation);
+
+		query.multiselect(root.get(K9Entity_.id), join);
+
+		query.where(root.get(K9Entity_.id).in(entityIds));
+
+		return session.createQuery(query).getResultList().map(tuples -> {
+
+			Map<Long, T> relatedById = new HashMap<>();
+
+			for (Tuple tuple : tuples) {
+				relatedById.put(
+					tuple.get(0, Long.class), tuple.get(1, relation.getJavaType()));
+			}
+
+			List<T> related = new ArrayList<>(entities.size());
+
+			for (ENTITY entity : entities) {
+				related.add(relatedById.get(entity.getId()));
+			}
+
+			return related;
+		});
+
+	}
+
 	@Override
 	public Uni<ENTITY> patch(long id, DTO dto) {
 
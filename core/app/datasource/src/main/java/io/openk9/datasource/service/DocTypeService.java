@@ -57,6 +57,7 @@ import io.openk9.datasource.resource.util.Pageable;
 import io.openk9.datasource.service.exception.K9Error;
 import io.openk9.datasource.service.util.Tuple2;
 
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import org.hibernate.FlushMode;
 import org.hibernate.exception.ConstraintViolationException;
@@ -250,6 +251,29 @@ public class DocTypeService extends BaseK9EntityService<DocType, DocTypeDTO> {
 			searchText, sortByList, notEqual);
 	}
 
+	/**
+	 * Returns the connections of the fields of many doc types, at the same
+	 * positions of the doc types, with a single query. The unbound fields of
+	 * {@code notEqual} are still queried for each doc type.
+	 */
+	public Uni<List<Connection<DocTypeField>>> getDocTypeFieldsConnections(
+		List<DocType> docTypes, String after, String before, Integer first, Integer last,
+		String searchText, Set<SortBy> sortByList, boolean notEqual) {
+
+		if (notEqual) {
+			return Multi.createFrom().iterable(docTypes)
+				.onItem().transformToUniAndConcatenate(docType -> getDocTypeFieldsConnection(
+					docType.getId(), after, before, first, last, searchText, sortByList, true))
+				.collect().asList();
+		}
+
+		return findJoinConnections(
+			docTypes.stream().map(DocType::getId).toList(),
+			DocType_.DOC_TYPE_FIELDS, DocTypeField.class,
+			docTypeFieldService.getSearchFields(), after, before, first, last,
+			searchText, sortByList);
+	}
+
 	public Uni<Connection<DocTypeField>> getDocTypeFieldsConnectionByParent(
 		long docTypeId, long parentId, String after, String before, Integer first, Integer last,
 		String searchText, Set<SortBy> sortByList, boolean notEqual) {
@@ -19,7 +19,6 @@ package io.openk9.datasource.service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.Tuple;
@@ -27,6 +26,7 @@ import jakarta.persistence.Tuple;
 import io.openk9.common.util.ShardingKey;
 import io.openk9.datasource.actor.ActorSystemProvider;
 import io.openk9.datasource.index.model.IndexName;
+import io.openk9.datasource.index.util.ContentIdDiff;
 import io.openk9.datasource.model.DataIndex;
 import io.openk9.datasource.model.Datasource;
 import io.openk9.datasource.model.Scheduler;
@@ -34,23 +34,12 @@ import io.openk9.datasource.model.Scheduler_;
 import io.openk9.datasource.model.dto.base.SchedulerDTO;
 import io.openk9.datasource.pipeline.actor.MessageGateway;
 import io.openk9.datasource.pipeline.actor.Scheduling;
-import io.openk9.datasource.util.UniActionListener;
 
 import io.smallrye.mutiny.Uni;
 import org.apache.pekko.actor.typed.ActorSystem;
 import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
 import org.apache.pekko.cluster.sharding.typed.javadsl.EntityRef;
-import org.opensearch.action.search.SearchRequest;
-import org.opensearch.action.search.SearchResponse;
-import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
-import org.opensearch.script.Script;
-import org.opensearch.search.aggregations.AggregationBuilders;
-import org.opensearch.search.aggregations.PipelineAggregatorBuilders;
-import org.opensearch.search.aggregations.bucket.MultiBucketsAggregation;
-import org.opensearch.search.aggregations.bucket.terms.Terms;
-import org.opensearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
-import org.opensearch.search.builder.SearchSourceBuilder;
 
 @ApplicationScoped
 public class SchedulerService extends BaseK9EntityService<Scheduler, SchedulerDTO> {
@@ -244,52 +233,14 @@ public class SchedulerService extends BaseK9EntityService<Scheduler, SchedulerDT
 			return Uni.createFrom().item(List.of());
 		}
 
-		SearchRequest searchRequest = new SearchRequest();
-		searchRequest.indices(
-			IndexName.from(tenantId, scheduler.getOldDataIndex()).toString(),
-			IndexName.from(tenantId, scheduler.getNewDataIndex()).toString()
-		);
-
-		SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
-		TermsAggregationBuilder aggregation = AggregationBuilders
-			.terms("contentId_agg")
-			.field("contentId.keyword")
-			.size(10000)
-			.subAggregation(PipelineAggregatorBuilders
-				.bucketSelector(
-					"count_bucket_selector",
-					Map.of("count", "_count"),
-					Script.parse(
-						Map.of(
-							"inline", "count < 2",
-							"lang", "expression"
-						)
-					)
-				)
-			);
-		sourceBuilder.size(0);
-		sourceBuilder.aggregation(aggregation);
-
-		searchRequest.source(sourceBuilder);
-
-		return Uni.createFrom().<SearchResponse>emitter(emitter ->
-				restHighLevelClient.searchAsync(
-					searchRequest,
-					RequestOptions.DEFAULT,
-					UniActionListener.of(emitter)
-				)
+		return ContentIdDiff
+			.missingContentIds(
+				restHighLevelClient,
+				IndexName.from(tenantId, scheduler.getOldDataIndex()).toString(),
+				IndexName.from(tenantId, scheduler.getNewDataIndex()).toString()
 			)
-			.map(this::mapToList);
-	}
-
-	private List<String> mapToList(SearchResponse searchResponse) {
-		return searchResponse
-			.getAggregations()
-			.<Terms>get("contentId_agg")
-			.getBuckets()
-			.stream()
-			.map(MultiBucketsAggregation.Bucket::getKeyAsString)
-			.toList();
+			.collect()
+			.asList();
 	}
 
 	/**
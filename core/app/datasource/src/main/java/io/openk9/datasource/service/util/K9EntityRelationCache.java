@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.service.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.persistence.metamodel.SingularAttribute;
+
+import io.openk9.datasource.model.util.K9Entity;
+
+import io.smallrye.mutiny.Uni;
+
+/**
+ * The to-one relations loaded while resolving a GraphQL request.
+ *
+ * <p>The batched {@code @Source} resolvers load a relation of all the parent
+ * entities of a field with a single query, through
+ * {@link K9EntityService#findRelated}. This cache keeps the loaded relations
+ * for the rest of the request, so that the same relation is not queried
+ * again when the parents appear in more than one place of the response, and
+ * only the parents not seen yet are loaded.</p>
+ */
+@RequestScoped
+public class K9EntityRelationCache {
+
+	private final Map<RelationKey, Optional<K9Entity>> relations = new ConcurrentHashMap<>();
+
+	public <E extends K9Entity, T extends K9Entity> Uni<List<T>> findRelated(
+		K9EntityService<E, ?> service,
+		List<E> entities,
+		SingularAttribute<? super E, T> relation) {
+
+		List<E> missing = new ArrayList<>();
+
+		for (E entity : entities) {
+			if (!relations.containsKey(new RelationKey(relation, entity.getId()))) {
+				missing.add(entity);
+			}
+		}
+
+		Uni<Void> load = missing.isEmpty()
+			? Uni.createFrom().voidItem()
+			: service.findRelated(missing, relation)
+				.invoke(related -> {
+					for (int i = 0; i < missing.size(); i++) {
+						relations.put(
+							new RelationKey(relation, missing.get(i).getId()),
+							Optional.ofNullable(related.get(i))
+						);
+					}
+				})
+				.replaceWithVoid();
+
+		return load.map(ignore -> {
+
+			List<T> related = new ArrayList<>(entities.size());
+
+			for (E entity : entities) {
+				related.add(relation.getJavaType().cast(relations
+					.get(new RelationKey(relation, entity.getId()))
+					.orElse(null)));
+			}
+
+			return related;
+		});
+	}
+
+	private record RelationKey(SingularAttribute<?, ?> relation, Long entityId) {}
+
+}
@@ -19,6 +19,7 @@ package io.openk9.datasource.service.util;
 
 import java.util.List;
 import java.util.Set;
+import jakarta.persistence.metamodel.SingularAttribute;
 
 import io.openk9.common.model.EntityService;
 import io.openk9.datasource.model.dto.base.K9EntityDTO;
@@ -86,6 +87,13 @@ public interface K9EntityService<ENTITY extends K9Entity, DTO extends K9EntityDT
 
 	Uni<List<ENTITY>> findByIds(Mutiny.Session session, Set<Long> ids);
 
+	<T extends K9Entity> Uni<List<T>> findRelated(
+		List<ENTITY> entities, SingularAttribute<? super ENTITY, T> relation);
+
+	<T extends K9Entity> Uni<List<T>> findRelated(
+		Mutiny.Session session, List<ENTITY> entities,
+		SingularAttribute<? super ENTITY, T> relation);
+
 	Uni<ENTITY> patch(String tenantId, long id, DTO dto);
 
 	Uni<ENTITY> update(String tenantId, long id, DTO dto);
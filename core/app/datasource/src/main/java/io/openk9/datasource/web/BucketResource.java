@@ -37,6 +37,7 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Context;
 
+import io.openk9.datasource.cache.CacheScopes;
 import io.openk9.datasource.mapper.BucketResourceMapper;
 import io.openk9.datasource.model.Bucket;
 import io.openk9.datasource.model.Bucket_;
@@ -84,7 +85,8 @@ public class BucketResource {
 	@Path("/current/templates")
 	@GET
 	public Uni<List<TemplateResponseDTO>> getTemplates() {
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(request.host(), "getTemplates"),
 			key -> getDocTypeTemplateList(request.host())
 		);
@@ -95,7 +97,8 @@ public class BucketResource {
 	public Uni<List<TabResponseDTO>> getTabs(
 			@QueryParam("translated") @DefaultValue("true") boolean translated) {
 
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(request.host(), "getTabs", translated),
 			key -> getTabList(request.host(), translated)
 		);
@@ -106,7 +109,8 @@ public class BucketResource {
 	public Uni<List<? extends SuggestionCategory>> getSuggestionCategories(
 			@QueryParam("translated") @DefaultValue("true") boolean translated) {
 
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(request.host(), "getSuggestionCategories", translated),
 			key -> getSuggestionCategoryList(request.host(), translated)
 		);
@@ -116,7 +120,8 @@ public class BucketResource {
 	@GET
 	public Uni<List<DocTypeFieldResponseDTO>> getDocTypeFieldsSortable(
 		@QueryParam("translated") @DefaultValue("true") boolean translated){
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(request.host(), "getDocTypeFieldsSortable", translated),
 			key -> getDocTypeFieldsSortableList(request.host(), translated)
 		);
@@ -126,7 +131,8 @@ public class BucketResource {
 	@GET
 	public Uni<List<SortingResponseDTO>> getSortings(
 		@QueryParam("translated") @DefaultValue("true") boolean translated){
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(request.host(), "getSortings", translated),
 			key -> getSortingList(request.host(), translated)
 		);
@@ -135,7 +141,8 @@ public class BucketResource {
 	@Path("/current/defaultLanguage")
 	@GET
 	public Uni<Language> getDefaultLanguage(){
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(request.host(), "getDefaultLanguage"),
 			key -> getDefaultLanguage(request.host())
 		);
@@ -144,7 +151,8 @@ public class BucketResource {
 	@Path("/current/availableLanguage")
 	@GET
 	public Uni<List<Language>> getAvailableLanguage(){
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(request.host(), "getAvailableLanguage"),
 			key -> getAvailableLanguageList(request.host())
 		);
@@ -153,7 +161,8 @@ public class BucketResource {
 	@Path("/current")
 	@GET
 	public Uni<CurrentBucket> getCurrentBucket() {
-		return cache.getAsync(
+		return CacheScopes.getAsync(
+			cache,
 			new CompositeCacheKey(request.host(), "getCurrentBucket"),
 			key -> _getCurrentBucket()
 		);
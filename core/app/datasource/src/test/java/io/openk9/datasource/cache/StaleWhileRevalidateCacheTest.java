@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.cache.CompositeCacheKey;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+class StaleWhileRevalidateCacheTest {
+
+	private static final Duration SOFT_TTL = Duration.ofMinutes(5);
+	private static final Duration HARD_TTL = Duration.ofHours(1);
+
+	private final AtomicLong clock = new AtomicLong();
+	private final AtomicInteger loads = new AtomicInteger();
+	private final StaleWhileRevalidateCache<String> cache =
+		new StaleWhileRevalidateCache<>(SOFT_TTL, HARD_TTL, 10, clock::get);
+
+	@Test
+	void should_load_once_for_concurrent_misses() {
+		var key = new CompositeCacheKey("single.flight.local", "tenant");
+		var pending = new CompletableFuture<String>();
+
+		var first = cache.getAsync(key, k -> {
+			loads.incrementAndGet();
+			return Uni.createFrom().completionStage(pending);
+		}).subscribeAsCompletionStage();
+
+		var second = cache.getAsync(key, k -> {
+			loads.incrementAndGet();
+			return Uni.createFrom().completionStage(pending);
+		}).subscribeAsCompletionStage();
+
+		pending.complete("v1");
+
+		assertEquals("v1", first.join());
+		assertEquals("v1", second.join());
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void should_serve_stale_value_while_refreshing_after_soft_ttl() {
+		var key = new CompositeCacheKey("soft.ttl.local", "tenant");
+
+		assertEquals("v1", _get(key));
+
+		clock.addAndGet(SOFT_TTL.toNanos());
+
+		var pending = new CompletableFuture<String>();
+
+		assertEquals("v1", cache.getAsync(key, k -> {
+			loads.incrementAndGet();
+			return Uni.createFrom().completionStage(pending);
+		}).await().indefinitely());
+
+		pending.complete("v2");
+
+		assertEquals("v2", _get(key));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void should_serve_stale_value_while_refreshing_after_invalidation() {
+		var key = new CompositeCacheKey("invalidated.local", "tenant");
+
+		assertEquals("v1", _get(key));
+
+		CacheScopes.increment(Set.of("invalidated.local"));
+
+		assertEquals("v1", _get(key));
+		assertEquals("v2", _get(key));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void should_not_serve_stale_value_after_invalidation_of_another_key_element() {
+		var key = new CompositeCacheKey("method.local", "getTenantAndFetchRelations");
+
+		assertEquals("v1", _get(key));
+
+		// only the first element of the key, the virtual host, is a scope.
+		CacheScopes.increment(Set.of("getTenantAndFetchRelations"));
+
+		assertEquals("v1", _get(key));
+		assertEquals("v1", _get(key));
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void should_wait_for_load_after_hard_ttl() {
+		var key = new CompositeCacheKey("hard.ttl.local", "tenant");
+
+		assertEquals("v1", _get(key));
+
+		clock.addAndGet(HARD_TTL.toNanos());
+
+		assertEquals("v2", _get(key));
+	}
+
+	@Test
+	void should_keep_stale_value_when_refresh_fails() {
+		var key = new CompositeCacheKey("failure.local", "tenant");
+
+		assertEquals("v1", _get(key));
+
+		clock.addAndGet(SOFT_TTL.toNanos());
+
+		assertEquals("v1", cache.getAsync(
+			key, k -> Uni.createFrom().failure(new IllegalStateException())
+		).await().indefinitely());
+
+		assertEquals("v1", _get(key));
+		assertEquals("v2", _get(key));
+	}
+
+	@Test
+	void should_meter_hits_stale_hits_and_misses() {
+		var meterRegistry = new SimpleMeterRegistry();
+		var key = new CompositeCacheKey("metered.local", "tenant");
+
+		cache.bindTo(meterRegistry, "metered");
+
+		_get(key);
+		_get(key);
+
+		clock.addAndGet(SOFT_TTL.toNanos());
+
+		_get(key);
+
+		assertEquals(1, _gets(meterRegistry, "miss"));
+		assertEquals(1, _gets(meterRegistry, "hit"));
+		assertEquals(1, _gets(meterRegistry, "stale"));
+		assertEquals(2, meterRegistry
+			.get("cache.load").tag("result", "success").functionCounter().count());
+		assertEquals(1, meterRegistry.get("cache.size").gauge().value());
+	}
+
+	@Test
+	void should_match_only_the_tenant_elements_of_a_key() {
+		var key = new CompositeCacheKey("tenant.local", "grammarProvider", "getCompiledGrammar");
+
+		assertTrue(CacheScopes.matches(key, Set.of("tenant.local")));
+		assertFalse(CacheScopes.matches(key, Set.of("grammarProvider")));
+		assertFalse(CacheScopes.matches(key, Set.of("getCompiledGrammar")));
+	}
+
+	private static double _gets(SimpleMeterRegistry meterRegistry, String result) {
+		return meterRegistry
+			.get("cache.gets")
+			.tag("cache", "metered")
+			.tag("result", result)
+			.functionCounter()
+			.count();
+	}
+
+	private String _get(CompositeCacheKey key) {
+		return cache
+			.getAsync(key, k -> Uni.createFrom().item(() -> "v" + loads.incrementAndGet()))
+			.await()
+			.indefinitely();
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.entity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class EntityGazetteerTest {
+
+	@Test
+	void should_match_every_word_within_the_edits() {
+
+		EntityGazetteer gazetteer = _gazetteer();
+
+		List<EntityGazetteer.Match> matches =
+			gazetteer.lookup("person", List.of("mario", "rossi"), word -> 0, 10);
+
+		Assertions.assertEquals(List.of("1"), _ids(matches));
+		// the BM25 scores of mario, rossi and the person type, in 3 entities of 8 words.
+		Assertions.assertEquals(
+			_bm25(1, 2, 8f / 3) + _bm25(2, 2, 8f / 3) + _bm25(2, 1, 1f),
+			matches.getFirst().score(), 1e-5f);
+
+		Assertions.assertEquals(
+			List.of("1"),
+			_ids(gazetteer.lookup("person", List.of("maro", "rosis"), word -> 1, 10))
+		);
+
+		Assertions.assertTrue(
+			gazetteer.lookup("person", List.of("maro", "rosis"), word -> 0, 10).isEmpty());
+	}
+
+	@Test
+	void should_filter_by_type_and_rank_by_score() {
+
+		EntityGazetteer gazetteer = _gazetteer();
+
+		Assertions.assertEquals(
+			List.of("1", "2"),
+			_ids(gazetteer.lookup("person", List.of("rossi"), word -> 1, 10))
+		);
+
+		Assertions.assertEquals(
+			List.of("2", "1"),
+			_ids(gazetteer.lookup("person", List.of("rosso"), word -> 1, 10))
+		);
+
+		Assertions.assertEquals(
+			List.of("3"),
+			_ids(gazetteer.lookup("organization", List.of("rossi"), word -> 1, 10))
+		);
+
+		Assertions.assertEquals(
+			List.of("2"),
+			_ids(gazetteer.lookup("person", List.of("rosso"), word -> 1, 1))
+		);
+	}
+
+	@Test
+	void should_replace_an_entity_added_again() {
+
+		EntityGazetteer gazetteer = _gazetteer();
+
+		Assertions.assertFalse(gazetteer.add("1", "Mario Rossi", "person", "tenant"));
+		Assertions.assertTrue(gazetteer.add("1", "Mario Bianchi", "person", "tenant"));
+
+		Assertions.assertEquals(
+			List.of("2"),
+			_ids(gazetteer.lookup("person", List.of("rossi"), word -> 1, 10))
+		);
+
+		Assertions.assertEquals(
+			List.of("1"),
+			_ids(gazetteer.lookup("person", List.of("bianchi"), word -> 0, 10))
+		);
+	}
+
+	@Test
+	void should_score_the_rare_words_higher() {
+
+		EntityGazetteer gazetteer = _gazetteer();
+
+		for (int i = 0; i < 10; i++) {
+			gazetteer.add("mario-" + i, "Mario Verdi " + i, "person", "tenant");
+		}
+
+		float mario = gazetteer.lookup("person", List.of("mario"), word -> 0, 1)
+			.getFirst().score();
+		float rossi = gazetteer.lookup("person", List.of("rossi"), word -> 0, 1)
+			.getFirst().score();
+
+		Assertions.assertTrue(rossi > mario);
+	}
+
+	private static EntityGazetteer _gazetteer() {
+
+		EntityGazetteer gazetteer = new EntityGazetteer();
+
+		gazetteer.add("1", "Mario Rossi", "person", "tenant");
+		gazetteer.add("2", "Luca Rosso", "person", "tenant");
+		gazetteer.add("3", "Rossi S.p.A.", "organization", "tenant");
+
+		return gazetteer;
+	}
+
+	private static float _bm25(int docFreq, int length, float averageLength) {
+		return (float) Math.log(1 + (3 - docFreq + 0.5) / (docFreq + 0.5))
+			/ (1 + 1.2f * (0.25f + 0.75f * length / averageLength));
+	}
+
+	private static List<String> _ids(List<EntityGazetteer.Match> matches) {
+		return matches.stream().map(EntityGazetteer.Match::id).toList();
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.event.repo;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class EventSpoolTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void should_spill_past_the_memory_budget() throws IOException {
+
+		EventSpool spool = new EventSpool(directory, 5, 1024, 1024);
+
+		for (int i = 0; i < 5; i++) {
+			Assertions.assertTrue(spool.offer(_event(i)));
+		}
+
+		Assertions.assertEquals(5, spool.size());
+		Assertions.assertTrue(spool.spilledBytes() > 0);
+		Assertions.assertNull(spool.poll(10, false));
+
+		List<String> events = new ArrayList<>();
+		List<EventSpool.Batch> batches = new ArrayList<>();
+		EventSpool.Batch batch;
+
+		while ((batch = spool.poll(2, true)) != null) {
+			batches.add(batch);
+			batch.events().forEach(event -> events.add(_toString(event)));
+		}
+
+		Assertions.assertEquals(List.of("e0", "e1", "e2", "e3", "e4"), events);
+		Assertions.assertEquals(1, _segments());
+
+		batches.forEach(spool::ack);
+
+		Assertions.assertEquals(0, spool.size());
+		Assertions.assertEquals(0, spool.spilledBytes());
+		Assertions.assertEquals(0, _segments());
+
+		spool.close();
+	}
+
+	@Test
+	void should_drop_past_the_spill_budget() throws IOException {
+
+		EventSpool spool = new EventSpool(directory, 0, 12, 1024);
+
+		Assertions.assertTrue(spool.offer(_event(0)));
+		Assertions.assertTrue(spool.offer(_event(1)));
+		Assertions.assertFalse(spool.offer(_event(2)));
+
+		spool.close();
+	}
+
+	@Test
+	void should_replay_unsaved_events_after_close() throws IOException {
+
+		EventSpool spool = new EventSpool(directory, 1024, 1024, 8);
+
+		spool.offer(_event(0));
+		spool.offer(_event(1));
+		spool.offer(_event(2));
+
+		EventSpool.Batch batch = spool.poll(1, true);
+
+		Assertions.assertEquals("e0", _toString(batch.events().get(0)));
+
+		spool.close();
+
+		EventSpool replayed = new EventSpool(directory, 1024, 1024, 8);
+
+		Assertions.assertEquals(3, replayed.size());
+
+		List<String> events = new ArrayList<>();
+
+		while ((batch = replayed.poll(10, true)) != null) {
+			batch.events().forEach(event -> events.add(_toString(event)));
+			replayed.ack(batch);
+		}
+
+		Assertions.assertEquals(List.of("e0", "e1", "e2"), events);
+		Assertions.assertEquals(0, _segments());
+
+		replayed.close();
+	}
+
+	@Test
+	void should_truncate_an_incomplete_event() throws IOException {
+
+		EventSpool spool = new EventSpool(directory, 0, 1024, 1024);
+
+		spool.offer(_event(0));
+		spool.close();
+
+		try (Stream<Path> files = Files.list(directory)) {
+			Path segment = files.findFirst().orElseThrow();
+
+			Files.write(segment, new byte[] {0, 0, 0, 9, 1}, StandardOpenOption.APPEND);
+		}
+
+		EventSpool recovered = new EventSpool(directory, 0, 1024, 1024);
+
+		Assertions.assertEquals(1, recovered.size());
+		Assertions.assertEquals("e0", _toString(recovered.poll(10, true).events().get(0)));
+
+		recovered.close();
+	}
+
+	private long _segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private static byte[] _event(int i) {
+		return ("e" + i).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String _toString(byte[] event) {
+		return new String(event, StandardCharsets.UTF_8);
+	}
+
+}
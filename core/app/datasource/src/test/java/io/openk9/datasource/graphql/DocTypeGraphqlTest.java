@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.graphql;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.graphql.client.GraphQLClient;
+import io.smallrye.graphql.client.core.OperationType;
+import io.smallrye.graphql.client.dynamic.api.DynamicGraphQLClient;
+import jakarta.inject.Inject;
+import org.hibernate.reactive.mutiny.Mutiny;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static io.smallrye.graphql.client.core.Argument.arg;
+import static io.smallrye.graphql.client.core.Argument.args;
+import static io.smallrye.graphql.client.core.Document.document;
+import static io.smallrye.graphql.client.core.Field.field;
+import static io.smallrye.graphql.client.core.Operation.operation;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@QuarkusTest
+public class DocTypeGraphqlTest {
+
+	private static final String DOC_TYPE_FIELDS = "docTypeFields";
+	private static final String DOC_TYPES = "docTypes";
+	private static final String EDGES = "edges";
+	private static final String FIRST = "first";
+	private static final String ID = "id";
+	private static final String NODE = "node";
+	private static final String RESPONSE = "response: %s";
+
+	private static final Logger log = Logger.getLogger(DocTypeGraphqlTest.class);
+
+	@Inject
+	@GraphQLClient("openk9-dynamic")
+	DynamicGraphQLClient graphQLClient;
+
+	@Inject
+	Mutiny.SessionFactory sessionFactory;
+
+	@Test
+	void should_resolve_the_fields_of_every_doc_type_with_one_query()
+		throws ExecutionException, InterruptedException {
+
+		var statistics = sessionFactory.getStatistics();
+
+		long start = statistics.getQueryExecutionCount();
+
+		int oneDocType = _docTypesWithFields(1);
+
+		long oneDocTypeQueries = statistics.getQueryExecutionCount() - start;
+
+		start = statistics.getQueryExecutionCount();
+
+		int allDocTypes = _docTypesWithFields(100);
+
+		long allDocTypesQueries = statistics.getQueryExecutionCount() - start;
+
+		assumeTrue(allDocTypes > oneDocType);
+
+		assertEquals(oneDocTypeQueries, allDocTypesQueries);
+	}
+
+	private int _docTypesWithFields(int first)
+		throws ExecutionException, InterruptedException {
+
+		var query = document(
+			operation(
+				OperationType.QUERY,
+				field(
+					DOC_TYPES,
+					args(arg(FIRST, first)),
+					field(EDGES,
+						field(NODE,
+							field(ID),
+							field(
+								DOC_TYPE_FIELDS,
+								args(arg(FIRST, 5)),
+								field(EDGES,
+									field(NODE,
+										field(ID)
+									)
+								)
+							)
+						)
+					)
+				)
+			)
+		);
+
+		var response = graphQLClient.executeSync(query);
+
+		log.info(String.format(RESPONSE, response));
+
+		assertFalse(response.hasError());
+
+		return response.getData()
+			.getJsonObject(DOC_TYPES)
+			.getJsonArray(EDGES)
+			.size();
+	}
+
+}
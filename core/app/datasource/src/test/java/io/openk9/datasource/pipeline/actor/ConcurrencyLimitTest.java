@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.pipeline.actor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimitTest {
+
+	private static final long LATENCY = 100_000_000L;
+
+	@Test
+	void should_grow_while_latency_is_flat() {
+		var limit = new ConcurrencyLimit(2, 1, 16, 0.9, 2.0);
+
+		for (int i = 0; i < 500; i++) {
+			limit.onSample(LATENCY, limit.getLimit(), false);
+		}
+
+		assertEquals(16, limit.getLimit());
+	}
+
+	@Test
+	void should_not_grow_when_workers_are_idle() {
+		var limit = new ConcurrencyLimit(8, 1, 16, 0.9, 2.0);
+
+		for (int i = 0; i < 100; i++) {
+			limit.onSample(LATENCY, 1, false);
+		}
+
+		assertEquals(8, limit.getLimit());
+	}
+
+	@Test
+	void should_back_off_on_failures_and_latency_spikes() {
+		var limit = new ConcurrencyLimit(10, 1, 16, 0.5, 2.0);
+
+		limit.onSample(LATENCY, 10, true);
+
+		assertEquals(5, limit.getLimit());
+
+		limit.onSample(LATENCY * 10, 5, false);
+
+		assertEquals(2, limit.getLimit());
+
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(LATENCY, 2, true);
+		}
+
+		assertEquals(1, limit.getLimit());
+	}
+
+	@Test
+	void should_seed_the_limit_until_the_first_sample() {
+		var limit = new ConcurrencyLimit(4, 1, 16, 0.9, 2.0);
+
+		limit.setBounds(1, 48);
+		limit.seed(12);
+
+		assertEquals(12, limit.getLimit());
+
+		limit.onSample(LATENCY, 12, true);
+		limit.seed(24);
+
+		assertEquals(10, limit.getLimit());
+	}
+
+	@Test
+	void should_keep_the_limit_within_the_bounds() {
+		var limit = new ConcurrencyLimit(8, 1, 16, 0.9, 2.0);
+
+		limit.setBounds(1, 4);
+
+		assertEquals(4, limit.getLimit());
+
+		limit.setBounds(6, 32);
+
+		assertTrue(limit.getLimit() >= 6);
+	}
+
+}
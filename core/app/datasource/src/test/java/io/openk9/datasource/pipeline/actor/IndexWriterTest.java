@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.pipeline.actor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import io.openk9.common.util.ShardingKey;
+import io.openk9.datasource.pipeline.stages.working.HeldMessage;
+import io.openk9.datasource.processor.payload.PayloadTree;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.index.IndexResponse;
+import org.opensearch.core.common.bytes.BytesArray;
+import org.opensearch.core.index.shard.ShardId;
+import org.opensearch.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class IndexWriterTest {
+
+	private static final Logger log = LoggerFactory.getLogger(IndexWriterTest.class);
+	private static final long DATASOURCE_ID = 1L;
+	private static final String OLD_INDEX = "tenant-old";
+	private static final String NEW_INDEX = "tenant-new";
+
+	@Test
+	void should_map_the_actions_of_every_document() {
+
+		List<IndexWriter.BatchItem> items = new ArrayList<>();
+
+		BulkRequest bulkRequest = IndexWriter.bulkRequest(
+			List.of(_document("c1"), _deletion("c2"), _document("c3")),
+			OLD_INDEX, NEW_INDEX, DATASOURCE_ID, Map.of(), items, log);
+
+		Assertions.assertEquals(6, bulkRequest.numberOfActions());
+		Assertions.assertEquals(3, items.size());
+
+		for (int i = 0; i < items.size(); i++) {
+			IndexWriter.BatchItem item = items.get(i);
+
+			Assertions.assertEquals(i * 2, item.from());
+			Assertions.assertEquals(i * 2 + 2, item.to());
+
+			String documentId =
+				IndexWriter.documentId(DATASOURCE_ID, item.heldMessage().contentId());
+
+			for (int action = item.from(); action < item.to(); action++) {
+				Assertions.assertEquals(documentId, bulkRequest.requests().get(action).id());
+			}
+		}
+
+		Assertions.assertEquals(
+			DocWriteRequest.OpType.DELETE, bulkRequest.requests().get(2).opType());
+		Assertions.assertNull(items.get(1).dataPayload());
+	}
+
+	@Test
+	void should_map_a_single_index_write() {
+
+		List<IndexWriter.BatchItem> items = new ArrayList<>();
+
+		BulkRequest bulkRequest = IndexWriter.bulkRequest(
+			List.of(_document("c1"), _document("c2")),
+			null, NEW_INDEX, DATASOURCE_ID, Map.of(), items, log);
+
+		Assertions.assertEquals(2, bulkRequest.numberOfActions());
+		Assertions.assertEquals(
+			List.of(0, 1), items.stream().map(IndexWriter.BatchItem::from).toList());
+		Assertions.assertEquals(
+			List.of(1, 2), items.stream().map(IndexWriter.BatchItem::to).toList());
+		Assertions.assertEquals(NEW_INDEX, bulkRequest.requests().get(1).index());
+	}
+
+	@Test
+	void should_fail_only_the_document_of_a_failed_action() {
+
+		List<IndexWriter.BatchItem> items = new ArrayList<>();
+
+		IndexWriter.bulkRequest(
+			List.of(_document("c1"), _document("c2"), _document("c3")),
+			OLD_INDEX, NEW_INDEX, DATASOURCE_ID, Map.of(), items, log);
+
+		BulkItemResponse[] responses = {
+			_success(0, OLD_INDEX, "c1"),
+			_success(1, NEW_INDEX, "c1"),
+			_success(2, OLD_INDEX, "c2"),
+			_failure(3, NEW_INDEX, "c2"),
+			_success(4, OLD_INDEX, "c3"),
+			_success(5, NEW_INDEX, "c3")
+		};
+
+		Assertions.assertTrue(IndexWriter.failures(responses, items.get(0)).isEmpty());
+		Assertions.assertTrue(IndexWriter.failures(responses, items.get(2)).isEmpty());
+
+		List<String> failures = IndexWriter.failures(responses, items.get(1));
+
+		Assertions.assertEquals(1, failures.size());
+		Assertions.assertTrue(failures.getFirst().contains(NEW_INDEX));
+		Assertions.assertTrue(failures.getFirst().contains("mapping conflict"));
+	}
+
+	@Test
+	void should_derive_the_same_id_for_the_same_content() {
+
+		String documentId = IndexWriter.documentId(DATASOURCE_ID, "c1");
+
+		Assertions.assertEquals(documentId, IndexWriter.documentId(DATASOURCE_ID, "c1"));
+		Assertions.assertNotEquals(documentId, IndexWriter.documentId(DATASOURCE_ID, "c2"));
+		Assertions.assertNotEquals(documentId, IndexWriter.documentId(2L, "c1"));
+		Assertions.assertEquals(
+			documentId, UUID.fromString(documentId).toString(), "the id is a UUID");
+	}
+
+	@Test
+	void should_write_the_legacy_documents_in_place() {
+
+		Map<String, String> legacyIds = IndexWriter.legacyIds(List.of(
+			_hit("legacy-1", "{\"contentId\":\"c1\"}"),
+			_hit("legacy-2", "{\"contentId\":\"c2\"}"),
+			_hit("legacy-3", "{\"title\":\"no content id\"}")
+		));
+
+		Assertions.assertEquals(Map.of("c1", "legacy-1", "c2", "legacy-2"), legacyIds);
+
+		List<IndexWriter.BatchItem> items = new ArrayList<>();
+
+		BulkRequest bulkRequest = IndexWriter.bulkRequest(
+			List.of(_document("c1"), _deletion("c2"), _document("c3")),
+			OLD_INDEX, NEW_INDEX, DATASOURCE_ID, legacyIds, items, log);
+
+		List<String> oldIndexIds = new ArrayList<>();
+		List<String> newIndexIds = new ArrayList<>();
+
+		for (DocWriteRequest<?> request : bulkRequest.requests()) {
+			(request.index().equals(OLD_INDEX) ? oldIndexIds : newIndexIds).add(request.id());
+		}
+
+		Assertions.assertEquals(
+			List.of("legacy-1", "legacy-2", IndexWriter.documentId(DATASOURCE_ID, "c3")),
+			oldIndexIds);
+		Assertions.assertEquals(
+			List.of(
+				IndexWriter.documentId(DATASOURCE_ID, "c1"),
+				IndexWriter.documentId(DATASOURCE_ID, "c2"),
+				IndexWriter.documentId(DATASOURCE_ID, "c3")),
+			newIndexIds);
+	}
+
+	private static SearchHit _hit(String id, String source) {
+		return new SearchHit(0, id, Map.of(), Map.of()).sourceRef(new BytesArray(source));
+	}
+
+	private static IndexWriter.Document _document(String contentId) {
+		return IndexWriter.createDocument(
+			_heldMessage(contentId),
+			PayloadTree.of(new JsonObject().put("contentId", contentId)));
+	}
+
+	private static IndexWriter.Document _deletion(String contentId) {
+		return IndexWriter.createDocument(_heldMessage(contentId), null);
+	}
+
+	private static HeldMessage _heldMessage(String contentId) {
+		return new HeldMessage(
+			ShardingKey.fromStrings("tenant", "schedule"), contentId.hashCode(), 0L, contentId);
+	}
+
+	private static BulkItemResponse _success(int itemId, String index, String contentId) {
+		return BulkItemResponse.success(
+			itemId,
+			DocWriteRequest.OpType.INDEX,
+			new IndexResponse(
+				new ShardId(index, "_na_", 0),
+				IndexWriter.documentId(DATASOURCE_ID, contentId),
+				1L, 1L, 1L, true)
+		);
+	}
+
+	private static BulkItemResponse _failure(int itemId, String index, String contentId) {
+		return BulkItemResponse.failure(
+			itemId,
+			DocWriteRequest.OpType.INDEX,
+			new BulkItemResponse.Failure(
+				index,
+				IndexWriter.documentId(DATASOURCE_ID, contentId),
+				new IllegalArgumentException("mapping conflict"))
+		);
+	}
+
+}
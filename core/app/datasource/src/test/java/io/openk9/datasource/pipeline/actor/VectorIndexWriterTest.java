@@ -20,25 +20,21 @@ package io.openk9.datasource.pipeline.actor;
 import java.util.Map;
 
 import io.openk9.datasource.TestUtils;
+import io.openk9.datasource.processor.payload.PayloadTree;
 
+import io.vertx.core.json.JsonArray;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 class VectorIndexWriterTest {
 
-	static byte[] chunks = TestUtils
-		.getResourceAsJsonArray("vectoridxwriter/chunks.json")
-		.toBuffer()
-		.getBytes();
+	static PayloadTree chunks = PayloadTree.of(
+		TestUtils.getResourceAsJsonArray("vectoridxwriter/chunks.json"));
 
-	static byte[] document = TestUtils
-		.getResourceAsJsonObject("vectoridxwriter/document.json")
-		.toBuffer()
-		.getBytes();
+	static PayloadTree document = PayloadTree.of(
+		TestUtils.getResourceAsJsonObject("vectoridxwriter/document.json"));
 
-	static byte[] empty = new byte[]{};
-
-	static byte[] emptyArray = "[]".getBytes();
+	static PayloadTree emptyArray = PayloadTree.of(new JsonArray());
 
 	static Sample johnDoe = new Sample("John", "Doe", "john.doe@acme.com", 20);
 
@@ -86,11 +82,11 @@ class VectorIndexWriterTest {
 	}
 
 	@Test
-	void should_throws_on_empty_string() {
+	void should_throws_on_null_payload() {
 
 		Assertions.assertThrows(
 			IllegalArgumentException.class,
-			() -> VectorIndexWriter.parseChunks(VectorIndexWriterTest.empty)
+			() -> VectorIndexWriter.parseChunks(null)
 		);
 
 	}
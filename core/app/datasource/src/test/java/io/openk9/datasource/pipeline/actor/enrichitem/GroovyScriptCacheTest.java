@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.pipeline.actor.enrichitem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import groovy.lang.Binding;
+import groovy.lang.Script;
+import org.junit.jupiter.api.Test;
+
+class GroovyScriptCacheTest {
+
+	private static final String SCRIPT = "return [sum: a + b]";
+
+	@Test
+	void should_compile_a_script_once() {
+		var cache = new GroovyScriptCache(2);
+
+		Script first = cache.newScript(SCRIPT, new Binding(Map.of("a", 1, "b", 2)));
+		Script second = cache.newScript(SCRIPT, new Binding(Map.of("a", 3, "b", 4)));
+
+		assertNotSame(first, second);
+		assertSame(first.getClass(), second.getClass());
+		assertEquals(Map.of("sum", 3), first.run());
+		assertEquals(Map.of("sum", 7), second.run());
+		assertEquals(1, cache.compiles());
+		assertEquals(1, cache.hits());
+	}
+
+	@Test
+	void should_bound_the_compiled_scripts() {
+		var cache = new GroovyScriptCache(2);
+		var binding = new Binding(Map.of("a", 1, "b", 2));
+
+		cache.newScript(SCRIPT, binding);
+		cache.newScript("return a", binding);
+		cache.newScript("return b", binding);
+		cache.newScript("return a + 1", binding);
+
+		assertEquals(2, cache.size());
+		assertEquals(4, cache.compiles());
+	}
+
+	@Test
+	void should_compile_a_script_once_for_concurrent_misses() throws Exception {
+		var cache = new GroovyScriptCache(2);
+		var executor = Executors.newFixedThreadPool(8);
+		var start = new CountDownLatch(1);
+
+		try {
+			var scripts = new ArrayList<Future<Object>>();
+
+			for (int i = 0; i < 8; i++) {
+				int a = i;
+
+				scripts.add(executor.submit(() -> {
+					start.await();
+
+					return cache.newScript(SCRIPT, new Binding(Map.of("a", a, "b", 1))).run();
+				}));
+			}
+
+			start.countDown();
+
+			for (int i = 0; i < 8; i++) {
+				assertEquals(Map.of("sum", i + 1), scripts.get(i).get(5, TimeUnit.SECONDS));
+			}
+
+			assertEquals(1, cache.compiles());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.pipeline.actor.enrichitem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+class HttpProcessorTest {
+
+	@Test
+	void should_add_the_replyTo_field() {
+		byte[] body = "{\"payload\":{\"contentId\":\"1\"},\"enrichItemConfig\":{}} \n"
+			.getBytes(StandardCharsets.UTF_8);
+
+		var json = new JsonObject(Buffer.buffer(HttpProcessor.withReplyTo(body, "a\"token")));
+
+		assertEquals("a\"token", json.getString("replyTo"));
+		assertEquals("1", json.getJsonObject("payload").getString("contentId"));
+		assertEquals(new JsonObject(), json.getJsonObject("enrichItemConfig"));
+	}
+
+	@Test
+	void should_add_the_replyTo_field_to_an_empty_object() {
+		byte[] body = "{ }".getBytes(StandardCharsets.UTF_8);
+
+		var json = new JsonObject(Buffer.buffer(HttpProcessor.withReplyTo(body, "token")));
+
+		assertEquals(JsonObject.of("replyTo", "token"), json);
+	}
+
+	@Test
+	void should_reject_a_body_that_is_not_an_object() {
+		byte[] body = "[1]".getBytes(StandardCharsets.UTF_8);
+
+		assertThrows(
+			IllegalArgumentException.class, () -> HttpProcessor.withReplyTo(body, "token"));
+	}
+
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.pipeline.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.openk9.ml.grpc.EmbeddingOuterClass;
+import io.openk9.ml.grpc.MutinyEmbeddingGrpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class EmbeddingDispatcherTest {
+
+	private static final Duration NEVER = Duration.ofHours(1);
+	private static final Duration DEADLINE = Duration.ofMinutes(1);
+	private static final EmbeddingOuterClass.EmbeddingModel EMBEDDING_MODEL =
+		EmbeddingOuterClass.EmbeddingModel.getDefaultInstance();
+
+	private final FakeChannel channel = new FakeChannel();
+	private final ScheduledExecutorService executor =
+		Executors.newSingleThreadScheduledExecutor();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void should_send_a_batch_when_it_reaches_the_max_texts() throws Exception {
+		var dispatcher = _dispatcher(new EmbeddingDispatcher.Settings(
+			3, Long.MAX_VALUE, NEVER, 4, DEADLINE));
+
+		var first = _embed(dispatcher, "first");
+		var second = _embed(dispatcher, "second");
+
+		assertNull(channel.calls.poll());
+
+		var third = _embed(dispatcher, "third");
+
+		var call = channel.next();
+
+		assertEquals(List.of("first", "second", "third"), _texts(call));
+
+		call.respond(_batchResponse(call));
+
+		assertEquals("first", _text(first));
+		assertEquals("second", _text(second));
+		assertEquals("third", _text(third));
+	}
+
+	@Test
+	void should_send_a_batch_when_it_reaches_the_max_tokens() throws Exception {
+		// every text is estimated 20 / 4 + 1 = 6 tokens.
+		var dispatcher = _dispatcher(new EmbeddingDispatcher.Settings(
+			32, 12, NEVER, 4, DEADLINE));
+
+		var first = _embed(dispatcher, "a".repeat(20));
+		var second = _embed(dispatcher, "b".repeat(20));
+		var third = _embed(dispatcher, "c".repeat(20));
+
+		var call = channel.next();
+
+		assertEquals(List.of("a".repeat(20), "b".repeat(20)), _texts(call));
+		assertNull(channel.calls.poll());
+
+		call.respond(_batchResponse(call));
+
+		assertEquals("a".repeat(20), _text(first));
+		assertEquals("b".repeat(20), _text(second));
+		assertFalse(third.isDone());
+	}
+
+	@Test
+	void should_send_a_batch_when_the_linger_elapses() throws Exception {
+		var dispatcher = _dispatcher(new EmbeddingDispatcher.Settings(
+			32, Long.MAX_VALUE, Duration.ofMillis(20), 4, DEADLINE));
+
+		var first = _embed(dispatcher, "first");
+		var second = _embed(dispatcher, "second");
+
+		var call = channel.next();
+
+		assertEquals(List.of("first", "second"), _texts(call));
+
+		call.respond(_batchResponse(call));
+
+		assertEquals("first", _text(first));
+		assertEquals("second", _text(second));
+	}
+
+	@Test
+	void should_not_send_more_than_the_max_in_flight_calls() throws Exception {
+		var dispatcher = _dispatcher(new EmbeddingDispatcher.Settings(
+			1, Long.MAX_VALUE, NEVER, 1, DEADLINE));
+
+		var first = _embed(dispatcher, "first");
+		var second = _embed(dispatcher, "second");
+
+		var firstCall = channel.next();
+
+		assertEquals(List.of("first"), _texts(firstCall));
+		assertNull(channel.calls.poll());
+
+		firstCall.respond(_response(_texts(firstCall).getFirst()));
+
+		var secondCall = channel.next();
+
+		assertEquals(List.of("second"), _texts(secondCall));
+
+		secondCall.respond(_response(_texts(secondCall).getFirst()));
+
+		assertEquals("first", _text(first));
+		assertEquals("second", _text(second));
+	}
+
+	@Test
+	void should_send_one_text_per_call_when_batches_are_unimplemented() throws Exception {
+		var dispatcher = _dispatcher(new EmbeddingDispatcher.Settings(
+			2, Long.MAX_VALUE, NEVER, 4, DEADLINE));
+
+		var first = _embed(dispatcher, "first");
+		var second = _embed(dispatcher, "second");
+
+		channel.next().fail(Status.UNIMPLEMENTED);
+
+		for (int i = 0; i < 2; i++) {
+			var call = channel.next();
+
+			call.respond(_response(_texts(call).getFirst()));
+		}
+
+		assertEquals("first", _text(first));
+		assertEquals("second", _text(second));
+	}
+
+	private EmbeddingDispatcher _dispatcher(EmbeddingDispatcher.Settings settings) {
+		return new EmbeddingDispatcher(
+			"fake", MutinyEmbeddingGrpc.newMutinyStub(channel), settings, executor);
+	}
+
+	private static CompletableFuture<EmbeddingOuterClass.EmbeddingResponse> _embed(
+		EmbeddingDispatcher dispatcher, String text) {
+
+		return dispatcher
+			.embed(
+				EMBEDDING_MODEL, EmbeddingOuterClass.RequestChunk.getDefaultInstance(), text)
+			.subscribeAsCompletionStage();
+	}
+
+	private static String _text(
+		CompletableFuture<EmbeddingOuterClass.EmbeddingResponse> response) throws Exception {
+
+		return response.get(5, TimeUnit.SECONDS).getChunks(0).getText();
+	}
+
+	private static List<String> _texts(FakeCall<?, ?> call) {
+
+		if (call.request instanceof EmbeddingOuterClass.BatchEmbeddingRequest batchRequest) {
+			return batchRequest.getRequestsList().stream()
+				.map(EmbeddingOuterClass.EmbeddingRequest::getText)
+				.toList();
+		}
+
+		return List.of(((EmbeddingOuterClass.EmbeddingRequest) call.request).getText());
+	}
+
+	private static EmbeddingOuterClass.BatchEmbeddingResponse _batchResponse(
+		FakeCall<?, ?> call) {
+
+		var batchResponse = EmbeddingOuterClass.BatchEmbeddingResponse.newBuilder();
+
+		for (String text : _texts(call)) {
+			batchResponse.addResponses(_response(text));
+		}
+
+		return batchResponse.build();
+	}
+
+	private static EmbeddingOuterClass.EmbeddingResponse _response(String text) {
+		return EmbeddingOuterClass.EmbeddingResponse.newBuilder()
+			.addChunks(EmbeddingOuterClass.ResponseChunk.newBuilder()
+				.setNumber(1)
+				.setTotal(1)
+				.setText(text))
+			.build();
+	}
+
+	/**
+	 * A channel whose calls wait for the test to answer them.
+	 */
+	private static final class FakeChannel extends Channel {
+
+		private final BlockingQueue<FakeCall<?, ?>> calls = new LinkedBlockingQueue<>();
+
+		@Override
+		public <Q, S> ClientCall<Q, S> newCall(
+			MethodDescriptor<Q, S> methodDescriptor, CallOptions callOptions) {
+
+			return new FakeCall<>(calls);
+		}
+
+		@Override
+		public String authority() {
+			return "fake";
+		}
+
+		private FakeCall<?, ?> next() throws InterruptedException {
+			var call = calls.poll(5, TimeUnit.SECONDS);
+
+			assertNotNull(call);
+
+			return call;
+		}
+
+	}
+
+	private static final class FakeCall<Q, S> extends ClientCall<Q, S> {
+
+		private final BlockingQueue<FakeCall<?, ?>> calls;
+		private Listener<S> listener;
+		private Q request;
+
+		private FakeCall(BlockingQueue<FakeCall<?, ?>> calls) {
+			this.calls = calls;
+		}
+
+		@Override
+		public void start(Listener<S> responseListener, Metadata headers) {
+			this.listener = responseListener;
+		}
+
+		@Override
+		public void request(int numMessages) {}
+
+		@Override
+		public void cancel(String message, Throwable cause) {}
+
+		@Override
+		public void halfClose() {
+			calls.add(this);
+		}
+
+		@Override
+		public void sendMessage(Q message) {
+			this.request = message;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void respond(Object response) {
+			listener.onHeaders(new Metadata());
+			listener.onMessage((S) response);
+			listener.onClose(Status.OK, new Metadata());
+		}
+
+		private void fail(Status status) {
+			listener.onClose(status, new Metadata());
+		}
+
+	}
+
+}
@@ -24,8 +24,8 @@ import java.util.List;
 import java.util.Map;
 
 import io.openk9.datasource.TestUtils;
+import io.openk9.datasource.util.VertxJsonNodeJsonProvider;
 
-import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
 
@@ -35,13 +35,11 @@ public class EmbeddingServiceUtilsTest {
 	void should_get_everything_from_the_payload() {
 
 		var datapayload = TestUtils
-			.getResourceAsJsonObject("embedding/datapayload.json")
-			.toBuffer()
-			.getBytes();
+			.getResourceAsJsonObject("embedding/datapayload.json");
 
 		var documentContext = JsonPath
-			.using(Configuration.defaultConfiguration())
-			.parseUtf8(datapayload);
+			.using(VertxJsonNodeJsonProvider.CONFIGURATION)
+			.parse(datapayload);
 
 		var metadataMap = EmbeddingService.getRoot(
 			documentContext
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Set;
+
+import io.openk9.api.tenantmanager.TenantManager;
+import io.openk9.datasource.model.Bucket;
+import io.openk9.datasource.model.Language;
+
+import org.junit.jupiter.api.Test;
+
+class TenantWithBucketTest {
+
+	private static final TenantManager.Tenant TENANT = new TenantManager.Tenant(
+		"test.openk9.local", "public", "openk9", "openk9", "public");
+
+	@Test
+	void should_not_read_the_languages_of_the_bucket_when_built() {
+		var bucket = new Bucket() {
+			@Override
+			public Set<Language> getAvailableLanguages() {
+				// as an association that the query did not fetch.
+				throw new IllegalStateException("not fetched");
+			}
+		};
+
+		new TenantWithBucket(TENANT, bucket);
+	}
+
+	@Test
+	void should_give_the_default_plan_to_the_languages_the_bucket_does_not_support() {
+		var bucket = new Bucket();
+
+		bucket.setDefaultLanguage(_language("en_US"));
+		bucket.setAvailableLanguages(Set.of(_language("en_US"), _language("it_IT")));
+
+		var tenantWithBucket = new TenantWithBucket(TENANT, bucket);
+
+		var defaultPlan = tenantWithBucket.getSearchPlan("en_US");
+
+		assertEquals("en_US", defaultPlan.getLanguage());
+		assertEquals("it_IT", tenantWithBucket.getSearchPlan("it_IT").getLanguage());
+		assertEquals(Language.NONE, tenantWithBucket.getSearchPlan(Language.NONE).getLanguage());
+		assertSame(defaultPlan, tenantWithBucket.getSearchPlan("fr_FR"));
+		assertSame(defaultPlan, tenantWithBucket.getSearchPlan("de_DE"));
+	}
+
+	private static Language _language(String value) {
+		var language = new Language();
+
+		language.setName(value);
+		language.setValue(value);
+
+		return language;
+	}
+
+}
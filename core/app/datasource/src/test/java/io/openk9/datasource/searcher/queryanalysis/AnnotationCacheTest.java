@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.openk9.datasource.cache.CacheScopes;
+import io.openk9.datasource.searcher.queryanalysis.annotator.Annotator;
+import io.openk9.datasource.searcher.queryanalysis.annotator.SearchAnnotator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.cache.CaffeineCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opensearch.action.search.MultiSearchRequest;
+import org.opensearch.action.search.MultiSearchResponse;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.core.action.ActionListener;
+
+class AnnotationCacheTest {
+
+	private static final String[] TOKENS = {"italy"};
+
+	private final Map<Object, CompletableFuture<Object>> entries = new ConcurrentHashMap<>();
+	private final AtomicInteger searches = new AtomicInteger();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private RestHighLevelClient client;
+	private AnnotationCache annotationCache;
+
+	@BeforeEach
+	void setUp() {
+		client = Mockito.mock(RestHighLevelClient.class);
+
+		willAnswer(invocation -> {
+			MultiSearchRequest request = invocation.getArgument(0);
+			ActionListener<MultiSearchResponse> listener = invocation.getArgument(2);
+
+			var items = new MultiSearchResponse.Item[request.requests().size()];
+
+			for (int i = 0; i < items.length; i++) {
+				items[i] = new MultiSearchResponse.Item(Mockito.mock(SearchResponse.class), null);
+			}
+
+			searches.addAndGet(items.length);
+			listener.onResponse(new MultiSearchResponse(items, 1));
+
+			return null;
+		})
+			.given(client)
+			.msearchAsync(any(MultiSearchRequest.class), any(RequestOptions.class), any());
+
+		var cache = Mockito.mock(CaffeineCache.class);
+
+		given(cache.as(CaffeineCache.class)).willReturn(cache);
+		given(cache.getIfPresent(any())).willAnswer(
+			invocation -> entries.get(invocation.getArgument(0)));
+		willAnswer(invocation -> entries.put(invocation.getArgument(0), invocation.getArgument(1)))
+			.given(cache)
+			.put(any(), any());
+
+		annotationCache = new AnnotationCache();
+		annotationCache.cache = cache;
+		annotationCache.meterRegistry = meterRegistry;
+		annotationCache.init();
+	}
+
+	@Test
+	void should_answer_a_span_annotated_by_a_previous_request() {
+
+		var annotator = new CountryAnnotator(_scope("tenant", 1L, "user"));
+
+		var first = _fetch(annotator);
+		var second = _fetch(annotator);
+
+		Assertions.assertEquals(1, searches.get());
+		Assertions.assertEquals(1, _savedSearches());
+		Assertions.assertEquals(
+			first.annotate(0, annotator, Set.of(), TOKENS, 0, 1),
+			second.annotate(0, annotator, Set.of(), TOKENS, 0, 1));
+		Assertions.assertEquals(
+			List.of(CategorySemantics.of("$Country", Map.of("value", "italy"))),
+			second.annotate(0, annotator, Set.of(), TOKENS, 0, 1));
+	}
+
+	@Test
+	void should_not_share_annotations_between_callers_with_other_acl_terms() {
+
+		_fetch(new CountryAnnotator(_scope("tenant", 1L, "user")));
+		_fetch(new CountryAnnotator(_scope("tenant", 1L, "other-user")));
+
+		Assertions.assertEquals(2, searches.get());
+
+		_fetch(new CountryAnnotator(_scope("tenant", 1L, "user")));
+		_fetch(new CountryAnnotator(_scope("tenant", 1L, "other-user")));
+
+		Assertions.assertEquals(2, searches.get());
+		Assertions.assertEquals(2, _savedSearches());
+	}
+
+	@Test
+	void should_search_again_after_the_annotators_change() {
+
+		_fetch(new CountryAnnotator(_scope("tenant", 1L, "user")));
+		_fetch(new CountryAnnotator(_scope("other-tenant", 1L, "user")));
+
+		// an annotator replaced by another one
+		_fetch(new CountryAnnotator(_scope("tenant", 2L, "user")));
+
+		Assertions.assertEquals(3, searches.get());
+
+		// the invalidation that P2PCache runs when the annotators of the tenant are updated
+		entries.keySet().removeIf(key -> CacheScopes.matches(key, Set.of("tenant")));
+
+		_fetch(new CountryAnnotator(_scope("tenant", 1L, "user")));
+		_fetch(new CountryAnnotator(_scope("other-tenant", 1L, "user")));
+
+		Assertions.assertEquals(4, searches.get());
+		Assertions.assertEquals(1, _savedSearches());
+	}
+
+	private SpanAnnotations _fetch(SearchAnnotator annotator) {
+		return SpanAnnotations
+			.fetch(client, annotationCache, List.of(annotator), TOKENS)
+			.await()
+			.indefinitely();
+	}
+
+	private double _savedSearches() {
+		return meterRegistry.counter(AnnotationCache.SAVED_SEARCHES).count();
+	}
+
+	private static AnnotationCache.Scope _scope(String tenantId, Long annotatorId, String user) {
+		return new AnnotationCache.Scope(
+			tenantId, Set.of("index"), annotatorId, List.of(List.of(user)));
+	}
+
+	private record CountryAnnotator(AnnotationCache.Scope annotationScope)
+		implements SearchAnnotator {
+
+		@Override
+		public SearchRequest prepare(String... tokens) {
+			return new SearchRequest("index");
+		}
+
+		@Override
+		public List<CategorySemantics> collect(SearchResponse response, String... tokens) {
+			return List.of(CategorySemantics.of("$Country", Map.of("value", tokens[0])));
+		}
+
+		@Override
+		public List<CategorySemantics> annotate(
+			Set<String> context, List<CategorySemantics> annotations, String... tokens) {
+			return annotations;
+		}
+
+		@Override
+		public List<CategorySemantics> annotate(String... tokens) {
+			return List.of();
+		}
+
+		@Override
+		public int compareTo(Annotator o) {
+			return 0;
+		}
+
+	}
+
+}
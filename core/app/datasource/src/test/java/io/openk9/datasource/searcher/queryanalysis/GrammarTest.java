@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import io.openk9.datasource.searcher.queryanalysis.annotator.Annotator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+class GrammarTest {
+
+	private static final List<Rule> RULES = List.of(
+		Rule.of("$ROOT", "$Query", Semantic.identity()),
+		Rule.of("$Query", new String[]{"$Token"}, Semantic.identity()),
+		Rule.of("$Query", new String[]{"$Query", "$Token"}, Semantic.identity()),
+		Rule.of("$Query", new String[]{"$Query", "$Place"}, Semantic.identity()),
+		Rule.of("$Query", new String[]{"$City", "?$Token"}, Semantic.identity()),
+		Rule.of("$Token", new String[]{"$Word"}, Semantic.identity()),
+		Rule.of("$Place", new String[]{"$In", "$City"}, Semantic.identity()),
+		Rule.of("$Place", new String[]{"$Word", "$Word", "$City"}, Semantic.identity()),
+		Rule.of("$City", new String[]{"new", "york"}, Semantic.identity()),
+		Rule.of("$City", "rome", Semantic.identity()),
+		Rule.of("$In", "in", Semantic.identity())
+	);
+
+	private static final String[] INPUTS = {
+		"rome",
+		"hotels in rome",
+		"cheap hotels in new york",
+		"pizza near me in rome tonight",
+		"new york new york in rome rome"
+	};
+
+	@Test
+	void should_produce_the_same_parses_of_the_map_chart_parser() {
+
+		var grammar = new Grammar(
+			"tenant", List.of(GrammarMixin.of(RULES, List.of(new WordAnnotator()))));
+
+		for (String input : INPUTS) {
+
+			var tokens = input.split(" ");
+
+			var expected = _mapChartParser(grammar)
+				.parse(tokens, grammar.getAnnotators(), SpanAnnotations.none());
+
+			var actual = grammar.parseInput(tokens);
+
+			Assertions.assertFalse(expected.isEmpty(), input);
+			Assertions.assertEquals(_toJson(expected), _toJson(actual), input);
+			Assertions.assertEquals(expected.toString(), actual.toString(), input);
+		}
+
+	}
+
+	@Test
+	void should_bound_the_parses_of_every_cell() {
+
+		var bounded = new Grammar(
+			"tenant",
+			List.of(GrammarMixin.of(RULES, List.of(new WordAnnotator()))),
+			"$ROOT",
+			1
+		);
+
+		var tokens = "new york new york in rome rome".split(" ");
+
+		var parses = bounded.parseInput(tokens);
+
+		Assertions.assertTrue(parses.size() <= 1);
+
+	}
+
+	@Test
+	void should_continue_the_chart_of_a_prefix() {
+
+		var grammar = new Grammar(
+			"tenant",
+			List.of(GrammarMixin.of(
+				RULES, List.of(new WordAnnotator(), new LastWordAnnotator())))
+		);
+
+		for (String input : INPUTS) {
+
+			var tokens = input.split(" ");
+
+			ArrayChartParser.Prefix prefix = null;
+
+			for (int length = 1; length <= tokens.length; length++) {
+
+				var typed = Arrays.copyOf(tokens, length);
+
+				var expected = grammar.parseInput(typed);
+
+				var actual =
+					grammar.parseInput(typed, SpanAnnotations.none(), prefix);
+
+				Assertions.assertEquals(
+					_toJson(expected), _toJson(actual.parses()), input);
+
+				prefix = actual.prefix();
+			}
+
+			Assertions.assertEquals(tokens.length - 1, prefix == null ? 0 : prefix.columns());
+		}
+
+	}
+
+	private static ChartParser _mapChartParser(Grammar grammar) {
+		return new MapChartParser(
+			grammar.getStartSymbol(), grammar.getLexicalRules(), grammar.getUnaryRules(),
+			grammar.getBinaryRules());
+	}
+
+	private static List<String> _toJson(List<Parse> parses) {
+		return parses.stream().map(parse -> parse.toJson().encode()).toList();
+	}
+
+	private static class LastWordAnnotator implements Annotator {
+
+		@Override
+		public List<CategorySemantics> annotate(String... tokens) {
+			return List.of(
+				CategorySemantics.of("$Token", Map.of("value", String.join(" ", tokens))));
+		}
+
+		@Override
+		public int getLastTokenCount() {
+			return 1;
+		}
+
+		@Override
+		public int compareTo(Annotator o) {
+			return 0;
+		}
+
+	}
+
+	private static class WordAnnotator implements Annotator {
+
+		@Override
+		public List<CategorySemantics> annotate(String... tokens) {
+
+			if (tokens.length != 1) {
+				return List.of();
+			}
+
+			return List.of(
+				CategorySemantics.of("$Word", Map.of("value", tokens[0])));
+		}
+
+		@Override
+		public int compareTo(Annotator o) {
+			return 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class KeywordDictionaryTest {
+
+	@Test
+	void should_find_the_values_within_the_edits() {
+
+		KeywordDictionary dictionary = _dictionary();
+
+		Assertions.assertEquals(
+			List.of("pdf"), _values(dictionary.lookup("pdf", 0, 10)));
+
+		Assertions.assertEquals(
+			List.of("pdf", "odt"), _values(dictionary.lookup("pdt", 1, 10)));
+
+		Assertions.assertEquals(
+			List.of("pdf", "pdfa"), _values(dictionary.lookup("pdfx", 1, 10)));
+
+		Assertions.assertTrue(dictionary.lookup("spreadsheet", 2, 10).isEmpty());
+	}
+
+	@Test
+	void should_count_a_transposition_as_a_single_edit() {
+
+		KeywordDictionary dictionary = _dictionary();
+
+		Assertions.assertEquals(
+			List.of("pdf"), _values(dictionary.lookup("pfd", 1, 10)));
+
+		Assertions.assertEquals(
+			List.of("html"), _values(dictionary.lookup("htlm", 1, 10)));
+
+		Assertions.assertTrue(dictionary.lookup("fpd", 1, 10).isEmpty());
+	}
+
+	@Test
+	void should_rank_by_document_count() {
+
+		KeywordDictionary dictionary = _dictionary();
+
+		List<KeywordDictionary.Entry> entries = dictionary.lookup("pdt", 1, 2);
+
+		Assertions.assertEquals(List.of("pdf", "odt"), _values(entries));
+		Assertions.assertEquals(100, entries.getFirst().docCount());
+	}
+
+	@Test
+	void should_match_every_value_of_a_large_dictionary() {
+
+		Map<String, Long> docCounts = new HashMap<>();
+
+		for (int i = 0; i < 2000; i++) {
+			docCounts.put("value" + i, (long) i);
+		}
+
+		KeywordDictionary dictionary = KeywordDictionary.of(docCounts);
+
+		Assertions.assertEquals(2000, dictionary.size());
+
+		for (int i = 0; i < 2000; i += 97) {
+			Assertions.assertEquals(
+				List.of("value" + i), _values(dictionary.lookup("value" + i, 0, 10)));
+		}
+
+		Assertions.assertEquals(
+			List.of("value1999", "value1998", "value1997"),
+			_values(dictionary.lookup("value199", 1, 3))
+		);
+	}
+
+	private static KeywordDictionary _dictionary() {
+		return KeywordDictionary.of(Map.of(
+			"pdf", 100L,
+			"pdfa", 3L,
+			"odt", 20L,
+			"docx", 50L,
+			"html", 80L
+		));
+	}
+
+	private static List<String> _values(List<KeywordDictionary.Entry> entries) {
+		return entries.stream().map(KeywordDictionary.Entry::value).toList();
+	}
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.queryanalysis;
+
+import io.openk9.datasource.searcher.queryanalysis.annotator.Annotator;
+import io.openk9.datasource.searcher.queryanalysis.util.Itertools;
+import io.openk9.datasource.searcher.util.Tuple;
+import io.openk9.datasource.searcher.util.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The original chart parser, keying the chart cells by {@link Tuple}.
+ * It is kept as the reference implementation for {@link ArrayChartParser}.
+ */
+class MapChartParser implements ChartParser {
+
+	MapChartParser(
+		String startSymbol,
+		Map<Tuple, List<Rule>> lexicalRules,
+		Map<Tuple, List<Rule>> unaryRules,
+		Map<Tuple, List<Rule>> binaryRules) {
+
+		this.startSymbol = startSymbol;
+		this.lexicalRules = lexicalRules;
+		this.unaryRules = unaryRules;
+		this.binaryRules = binaryRules;
+	}
+
+	@Override
+	public List<Parse> parse(
+		String[] tokens, List<Annotator> annotators, SpanAnnotations spanAnnotations) {
+
+		Map<Tuple, List<Parse>> chart = new HashMap<>();
+
+		for (int j = 1; j < tokens.length + 1; j++) {
+			for (int i = j - 1; i != -1 ; i--) {
+				Set<String> context = new HashSet<>();
+				applyAnnotators(chart, tokens, i, j, context, annotators, spanAnnotations);
+				applyLexicalRules(chart, tokens, i, j);
+				applyBinaryRules(chart, i, j);
+				applyUnaryRules(chart, i, j);
+			}
+		}
+
+		List<Parse> parses =
+			chart.getOrDefault(Tuple.of(0, tokens.length), List.of());
+
+		if (startSymbol != null && !startSymbol.isBlank()) {
+			return parses
+				.stream()
+				.filter(parse ->
+					parse.getRule().getLhs().equals(startSymbol))
+				.collect(Collectors.toList());
+		}
+
+		return parses;
+
+	}
+
+	private void applyUnaryRules(
+		Map<Tuple, List<Parse>> chart, int i, int j) {
+
+		Tuple<Integer> chartKey = Tuple.of(i, j);
+
+		List<Parse> parseList = chart.getOrDefault(chartKey, List.of());
+
+		for (int i1 = 0; i1 < parseList.size(); i1++) {
+			Parse parse = parseList.get(i1);
+			for (Rule rule : unaryRules.getOrDefault(
+				Tuple.of(parse.getRule().getLhs()), List.of())) {
+				chart
+					.computeIfAbsent(chartKey, k -> new ArrayList<>())
+					.add(Parse.of(rule, chartKey, parse));
+			}
+		}
+
+	}
+
+	private void applyBinaryRules(
+		Map<Tuple, List<Parse>> chart, int i, int j) {
+
+		Tuple<Integer> chartKey = Tuple.of(i, j);
+
+		for (int k = i + 1; k < j; k++) {
+
+			Iterable<List<Parse>> product = Itertools.product(
+				chart.getOrDefault(Tuple.of(i, k), List.of()),
+				chart.getOrDefault(Tuple.of(k, j), List.of()));
+
+			for (List<Parse> parses : product) {
+				Parse parse1 = parses.get(0);
+				Parse parse2 = parses.get(1);
+
+				for (Rule rule : binaryRules.getOrDefault(
+					Tuple.of(
+						parse1.getRule().getLhs(),
+						parse2.getRule().getLhs()), List.of())) {
+
+					chart
+						.computeIfAbsent(chartKey, key -> new ArrayList<>())
+						.add(Parse.of(rule, chartKey, parse1, parse2));
+
+				}
+
+			}
+		}
+
+	}
+
+	private void applyLexicalRules(
+		Map<Tuple, List<Parse>> chart, String[] tokens, int i, int j) {
+
+		tokens = Arrays.stream(tokens, i, j).toArray(String[]::new);
+
+		Tuple tokenKey = Utils.toTuple(tokens);
+
+		Tuple<Integer> chartKey = Tuple.of(i, j);
+
+		for (Rule rule : lexicalRules.getOrDefault(tokenKey, List.of())) {
+
+			chart
+				.computeIfAbsent(chartKey, (k) -> new ArrayList<>())
+				.add(
+					Parse.of(
+						Rule.of(
+							rule.getLhs(),
+							rule.getRhs(),
+							Semantic.of(
+								chartKey, sems ->
+									rule
+										.getSem()
+										.apply(sems)
+										.stream()
+										.map(maps -> SemanticType.of(chartKey, maps.getValue()))
+										.collect(
+											Collectors.collectingAndThen(
+												Collectors.toList(), SemanticTypes::of))
+								)
+						),
+						chartKey,
+						tokens)
+				);
+		}
+
+	}
+
+	private void applyAnnotators(
+		Map<Tuple, List<Parse>> chart, String[] tokens, int i, int j, Set<String> context,
+		List<Annotator> annotators, SpanAnnotations spanAnnotations) {
+
+		int originalLength = tokens.length;
+
+		tokens = Arrays.stream(tokens, i, j).toArray(String[]::new);
+
+		Tuple<Integer> chartKey = Tuple.of(i, j);
+
+		for (int a = 0; a < annotators.size(); a++) {
+
+			Annotator annotator = annotators.get(a);
+
+			if (!Grammar.isApplicable(annotator, i, j, originalLength)) {
+				continue;
+			}
+
+			List<CategorySemantics> annotations =
+				spanAnnotations.annotate(a, annotator, context, tokens, i, j);
+
+			for (CategorySemantics categorySemantics : annotations) {
+
+				String category = categorySemantics.getCategory();
+
+				Map<String, Object> semantics =
+					categorySemantics.getSemantics();
+
+				Rule rule = new Rule(
+					category, tokens, Semantic.of(chartKey, semantics));
+
+				chart.computeIfAbsent(
+					chartKey, (k) -> new ArrayList<>())
+					.add(Parse.of(rule, chartKey, tokens));
+			}
+		}
+
+	}
+
+	private final String startSymbol;
+	private final Map<Tuple, List<Rule>> lexicalRules;
+	private final Map<Tuple, List<Rule>> unaryRules;
+	private final Map<Tuple, List<Rule>> binaryRules;
+
+}
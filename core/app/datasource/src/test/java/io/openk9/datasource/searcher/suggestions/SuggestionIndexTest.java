@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.datasource.searcher.suggestions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+class SuggestionIndexTest {
+
+	private static final SuggestionIndex INDEX = SuggestionIndex.of(Map.of(
+		"Bologna", 3L,
+		"Milano", 10L,
+		"Reggio Emilia", 2L,
+		"Reggio di Calabria", 4L,
+		"Roma", 12L,
+		"Treviso", 7L
+	));
+
+	@Test
+	void should_page_the_values_in_order() {
+
+		List<SuggestionIndex.Entry> first = INDEX.page(null, 2);
+
+		Assertions.assertEquals(List.of("Bologna", "Milano"), _values(first));
+		Assertions.assertEquals(10, first.getLast().docCount());
+
+		Assertions.assertEquals(
+			List.of("Reggio Emilia", "Reggio di Calabria"), _values(INDEX.page("Milano", 2)));
+
+		Assertions.assertEquals(List.of("Roma", "Treviso"), _values(INDEX.page("Reggio di Calabria", 5)));
+
+		Assertions.assertTrue(INDEX.page("Treviso", 5).isEmpty());
+	}
+
+	@Test
+	void should_match_the_keyword_as_a_phrase_prefix() {
+
+		Assertions.assertEquals(
+			List.of("Reggio Emilia", "Reggio di Calabria"), _values(INDEX.page("reg", null, 10)));
+
+		Assertions.assertEquals(
+			List.of("Reggio di Calabria"), _values(INDEX.page("REGGIO DI", null, 10)));
+
+		Assertions.assertEquals(
+			List.of("Reggio di Calabria"), _values(INDEX.page("cala", null, 10)));
+
+		Assertions.assertEquals(
+			List.of("Reggio di Calabria"), _values(INDEX.page("reg", "Reggio Emilia", 10)));
+
+		Assertions.assertTrue(INDEX.page("ilano", null, 10).isEmpty());
+		Assertions.assertTrue(INDEX.page("emilia reggio", null, 10).isEmpty());
+	}
+
+	@Test
+	void should_match_the_keyword_on_the_tokens_of_the_standard_analyzer() {
+
+		SuggestionIndex index = SuggestionIndex.of(Map.of(
+			"L'Aquila", 5L,
+			"Aquileia", 2L,
+			"foo_bar", 1L,
+			"version 3.5", 1L
+		));
+
+		Assertions.assertEquals(List.of("L'Aquila"), _values(index.page("l'aq", null, 10)));
+		Assertions.assertEquals(List.of("Aquileia"), _values(index.page("aquil", null, 10)));
+
+		Assertions.assertEquals(List.of("foo_bar"), _values(index.page("foo_b", null, 10)));
+		Assertions.assertTrue(index.page("bar", null, 10).isEmpty());
+
+		Assertions.assertEquals(List.of("version 3.5"), _values(index.page("3.5", null, 10)));
+		Assertions.assertTrue(index.page("5", null, 10).isEmpty());
+	}
+
+	@Test
+	void should_page_the_values_in_the_order_of_the_keyword_terms() {
+
+		// U+FF21 comes before U+1F600, whose UTF-16 surrogates are before U+FF21.
+		SuggestionIndex index = SuggestionIndex.of(Map.of(
+			"\uD83D\uDE00", 1L,
+			"\uFF21", 1L,
+			"10", 1L,
+			"9", 1L
+		));
+
+		Assertions.assertEquals(
+			List.of("10", "9", "\uFF21", "\uD83D\uDE00"), _values(index.page(null, 10)));
+
+		Assertions.assertEquals(List.of("\uD83D\uDE00"), _values(index.page("\uFF21", 10)));
+	}
+
+	private static List<String> _values(List<SuggestionIndex.Entry> entries) {
+		return entries.stream().map(SuggestionIndex.Entry::value).toList();
+	}
+
+}
@@ -80,6 +80,7 @@ public class EntityService {
 		json.put("id", entityId);
 		json.put("type", entity.getType());
 		json.put("graphId", entity.getGraphId());
+		json.put("indexedAt", System.currentTimeMillis());
 
 		request.source(json, XContentType.JSON);
 
@@ -103,6 +104,7 @@ public class EntityService {
 		json.put("id", entityId);
 		json.put("type", entity.getType());
 		json.put("graphId", entity.getGraphId());
+		json.put("indexedAt", System.currentTimeMillis());
 
 		request.source(json, XContentType.JSON);
 
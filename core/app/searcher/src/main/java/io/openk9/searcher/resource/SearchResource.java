@@ -18,21 +18,16 @@
 package io.openk9.searcher.resource;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Base64;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.POST;
@@ -72,46 +67,33 @@ import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ProtocolStringList;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 import io.quarkus.grpc.GrpcClient;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
-import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
-import org.apache.lucene.search.TotalHits;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.jwt.Claim;
 import org.eclipse.microprofile.jwt.Claims;
 import org.jboss.logging.Logger;
-import org.opensearch.action.search.SearchResponse;
-import org.opensearch.action.search.ShardSearchFailure;
 import org.opensearch.client.ResponseException;
 import org.opensearch.client.ResponseListener;
 import org.opensearch.client.RestHighLevelClient;
-import org.opensearch.common.CheckedFunction;
-import org.opensearch.core.common.text.Text;
-import org.opensearch.core.xcontent.DeprecationHandler;
-import org.opensearch.core.xcontent.MediaTypeRegistry;
-import org.opensearch.core.xcontent.NamedXContentRegistry;
-import org.opensearch.core.xcontent.XContentParser;
-import org.opensearch.search.SearchHit;
-import org.opensearch.search.SearchHits;
-import org.opensearch.search.fetch.subphase.highlight.HighlightField;
 
 @Path("/v1")
 @RequestScoped
 public class SearchResource {
 
 	private static final Logger log = Logger.getLogger(SearchResource.class);
-	private static final Object namedXContentRegistryKey = new Object();
-	private static final Pattern i18nHighlithKeyPattern = Pattern.compile(
-		"\\.i18n\\..{5,}$|\\.base$");
 	private static final String DETAILS_FIELD = "details";
 	private static final int NONE_STASUS_CODE = 0;
 	private static final int NOT_FOUND_STATUS_CODE = 404;
-	private final Map<Object, NamedXContentRegistry> namedXContentRegistryMap =
-		Collections.synchronizedMap(new IdentityHashMap<>());
 	@GrpcClient("searcher")
 	Searcher searcherClient;
 	@Inject
@@ -295,7 +277,7 @@ public class SearchResource {
 	@POST
 	@Path("/search")
 	@Produces(MediaType.APPLICATION_JSON)
-	public Uni<Response> search(SearchRequest searchRequest) {
+	public Uni<Buffer> search(SearchRequest searchRequest) {
 
 		QueryParserRequest queryParserRequest =
 			getQueryParserRequest(searchRequest);
@@ -314,7 +296,7 @@ public class SearchResource {
 					queryParserResponse.getIndexNameList();
 
 				if (indexNameList.isEmpty()) {
-					return Uni.createFrom().item(Response.EMPTY);
+					return Uni.createFrom().item(Json.encodeToBuffer(Response.EMPTY));
 				}
 
 				String indexNames =
@@ -330,32 +312,25 @@ public class SearchResource {
 
 				request.setJsonEntity(searchRequestBody);
 
-				return Uni.createFrom().<SearchResponse>emitter((sink) -> restHighLevelClient
-						.getLowLevelClient()
-						.performRequestAsync(request, new ResponseListener() {
-							@Override
-							public void onSuccess(
-								org.opensearch.client.Response response) {
-								try {
-									SearchResponse searchResponse =
-										parseEntity(
-											response.getEntity(),
-											SearchResponse::fromXContent
-										);
-
-									sink.complete(searchResponse);
-								}
-								catch (IOException e) {
-									sink.fail(e);
-								}
+				return Uni.createFrom().<Buffer>emitter((sink) -> restHighLevelClient
+					.getLowLevelClient()
+					.performRequestAsync(request, new ResponseListener() {
+						@Override
+						public void onSuccess(
+							org.opensearch.client.Response response) {
+							try {
+								sink.complete(toSearchResponse(response.getEntity()));
 							}
-
-							@Override
-							public void onFailure(Exception e) {
+							catch (IOException e) {
 								sink.fail(e);
 							}
-						}))
-					.map(this::toSearchResponse);
+						}
+
+						@Override
+						public void onFailure(Exception e) {
+							sink.fail(e);
+						}
+					}));
 			})
 			.onFailure()
 			.transform(throwable -> new WebApplicationException(
@@ -418,53 +393,6 @@ public class SearchResource {
 
 	}
 
-	protected static void mapI18nFields(Map<String, Object> sourceAsMap) {
-
-		for (Map.Entry<String, Object> entry : sourceAsMap.entrySet()) {
-			Object value = entry.getValue();
-			if (value instanceof Map) {
-				Map<String, Object> objectMap = (Map<String, Object>) value;
-				if (objectMap.containsKey("i18n")) {
-
-					Map<String, Object> i18nMap =
-						(Map<String, Object>) objectMap.get("i18n");
-					var item = i18nMap.values().iterator().next();
-					if (!i18nMap.isEmpty()) {
-						if (item instanceof String i18nString) {
-							entry.setValue(i18nString);
-						}
-						else if (item instanceof List<?> i18nList) {
-							var i18nListString = i18nList
-								.stream()
-								.map(String::valueOf)
-								.toList();
-
-							entry.setValue(i18nListString);
-						}
-						else {
-							log.warn("The object i18nList is not a String or a List<String>");
-						}
-					}
-
-				}
-				else if (objectMap.containsKey("base")) {
-					entry.setValue(objectMap.get("base"));
-				}
-				else {
-					mapI18nFields((Map<String, Object>) value);
-				}
-			}
-			if (value instanceof Iterable) {
-				for (Object item : (Iterable<?>) value) {
-					if (item instanceof Map) {
-						mapI18nFields((Map<String, Object>) item);
-					}
-				}
-			}
-		}
-
-	}
-
 	protected static String getRawToken(HttpHeaders headers) {
 		String rawToken = "";
 
@@ -585,16 +513,6 @@ public class SearchResource {
 
 	}
 
-	private static String getHighlightName(String highlightName) {
-		Matcher matcher = i18nHighlithKeyPattern.matcher(highlightName);
-		if (matcher.find()) {
-			return matcher.replaceFirst("");
-		}
-		else {
-			return highlightName;
-		}
-	}
-
 	private io.openk9.searcher.queryanalysis.QueryAnalysisResponse toQueryAnalysisResponse(
 		QueryAnalysisResponse queryAnalysisResponse) {
 
@@ -667,25 +585,6 @@ public class SearchResource {
 
 	}
 
-	private NamedXContentRegistry getNamedXContentRegistry() {
-
-		return namedXContentRegistryMap.computeIfAbsent(
-			namedXContentRegistryKey, o -> {
-				try {
-					Field registry =
-						RestHighLevelClient.class.getDeclaredField("registry");
-
-					registry.setAccessible(true);
-
-					return (NamedXContentRegistry) registry.get(restHighLevelClient);
-				}
-				catch (Exception e) {
-					throw new RuntimeException(e);
-				}
-			});
-
-	}
-
 	private QueryParserRequest getQueryParserRequest(SearchRequest searchRequest) {
 
 		var requestBuilder = searcherMapper
@@ -753,10 +652,7 @@ public class SearchResource {
 			.build();
 	}
 
-	private <Resp> Resp parseEntity(
-		final HttpEntity entity,
-		final CheckedFunction<XContentParser, Resp, IOException> entityParser)
-	throws IOException {
+	private Buffer toSearchResponse(HttpEntity entity) throws IOException {
 
 		if (entity == null) {
 			throw new IllegalStateException("Response body expected but not returned");
@@ -768,102 +664,23 @@ public class SearchResource {
 		}
 
 		var mediaTypeValue = entity.getContentType().getValue();
-		if (mediaTypeValue != null &&
-			(mediaTypeValue = mediaTypeValue.toLowerCase(Locale.ROOT)).contains("vnd.opensearch")) {
-			mediaTypeValue = mediaTypeValue.replaceAll("vnd.opensearch\\+", "").replaceAll(
-				"\\s*;\\s*compatible-with=\\d+",
-				""
-			);
-		}
-
-		org.opensearch.core.xcontent.MediaType mediaType = MediaTypeRegistry.fromMediaType(
-			mediaTypeValue);
-		if (mediaType == null) {
+		if (mediaTypeValue == null
+			|| !mediaTypeValue.toLowerCase(Locale.ROOT).contains("json")) {
 			throw new IllegalStateException("Unsupported Content-Type: " + mediaTypeValue);
 		}
 
-		try (XContentParser parser = mediaType.xContent().createParser(
-			getNamedXContentRegistry(),
-			DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
-			entity.getContent()
-		)
-		) {
-
-			return entityParser.apply(parser);
-		}
-	}
-
-	private Response toSearchResponse(SearchResponse searchResponse) {
-		printShardFailures(searchResponse);
-
-		SearchHits hits = searchResponse.getHits();
-
-		List<Map<String, Object>> result = new ArrayList<>();
-
-		for (SearchHit hit : hits.getHits()) {
-
-			Map<String, Object> sourceAsMap = hit.getSourceAsMap();
-
-			Map<String, Object> sourceMap = new HashMap<>(
-				sourceAsMap.size() + 1, 1);
-
-			sourceMap.putAll(sourceAsMap);
-
-			mapI18nFields(sourceMap);
-
-			sourceMap.put("id", hit.getId());
-
-			Map<String, HighlightField> highlightFields =
-				hit.getHighlightFields();
-
-			Map<String, Object> highlightMap = new HashMap<>(
-				highlightFields.size(), 1);
-
-			for (HighlightField value : highlightFields.values()) {
-				highlightMap.put(
-					getHighlightName(value.getName()),
-					Arrays
-						.stream(value.getFragments())
-						.map(Text::string)
-						.toArray(String[]::new)
-				);
-			}
-
-			Map<String, Object> hitMap = new HashMap<>(2, 1);
-
-			hitMap.put("source", sourceMap);
-			hitMap.put("highlight", highlightMap);
-			hitMap.put("score", hit.getScore());
-
-			Object[] sortValues = hit.getSortValues();
-
-			if (sortValues != null && sortValues.length > 0) {
-				hitMap.put(
-					"sortAfterKey",
-					Base64.getEncoder().encodeToString(
-						JsonArray.of(sortValues).toBuffer().getBytes()
-					)
-				);
-			}
-
-			result.add(hitMap);
+		// the response is rarely bigger than the OpenSearch one.
+		ByteBuf byteBuf = Unpooled.buffer(
+			(int) Math.min(Math.max(entity.getContentLength(), 1024), Integer.MAX_VALUE));
 
+		try (
+			InputStream searchResponse = entity.getContent();
+			OutputStream out = new ByteBufOutputStream(byteBuf)
+		) {
+			SearchResponseWriter.write(searchResponse, out, totalResultLimit);
 		}
 
-		TotalHits totalHits = hits.getTotalHits();
-		var totalResult = totalHits != null
-			? Math.min(totalHits.value, totalResultLimit)
-			: 0;
-
-		return new Response(result, totalResult);
-	}
-
-	private void printShardFailures(SearchResponse searchResponse) {
-		if (searchResponse.getShardFailures() != null) {
-			for (ShardSearchFailure failure : searchResponse.getShardFailures()) {
-				log.warn(failure.reason());
-			}
-		}
+		return Buffer.buffer(byteBuf);
 	}
 
 }
@@ -0,0 +1,694 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.searcher.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.jboss.logging.Logger;
+
+/**
+ * Writes the OpenK9 search response from the body of an OpenSearch search
+ * response, as the body is read.
+ *
+ * <p>The hits are written one field at a time, without building the
+ * response objects. Every hit becomes a result with its {@code source}
+ * (with the i18n fields resolved, and the {@code id} of the hit), its
+ * {@code highlight}, its {@code score} and, when the hits are sorted, the
+ * {@code sortAfterKey}.</p>
+ *
+ * <p>Whether an object of the source is an i18n field, or a field with a
+ * base value, is known only once all its fields are read. So every
+ * structured field of the source is buffered once, and read twice: the
+ * first pass finds how every object it holds is written, in the order the
+ * objects start, and the second one writes the objects in that order,
+ * without buffering the nested ones again.</p>
+ */
+final class SearchResponseWriter {
+
+	private static final Logger log = Logger.getLogger(SearchResponseWriter.class);
+	private static final JsonFactory jsonFactory = new JsonFactory();
+	private static final Pattern i18nHighlithKeyPattern = Pattern.compile(
+		"\\.i18n\\..{5,}$|\\.base$");
+	private static final String I18N = "i18n";
+	private static final String BASE = "base";
+	private static final byte AS_IT_IS = 0;
+	private static final byte FIELDS = 1;
+	private static final byte BASE_VALUE = 2;
+	private static final byte I18N_VALUE = 3;
+
+	private SearchResponseWriter() {}
+
+	static void write(InputStream searchResponse, OutputStream out, long totalResultLimit)
+	throws IOException {
+
+		try (
+			JsonParser parser = jsonFactory.createParser(searchResponse);
+			JsonGenerator generator = jsonFactory.createGenerator(out)
+		) {
+
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Search response is not a JSON object");
+			}
+
+			long total = 0;
+			boolean hitsWritten = false;
+
+			generator.writeStartObject();
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+
+				parser.nextToken();
+
+				switch (name) {
+					case "_shards" -> _logShardFailures(parser);
+					case "hits" -> {
+						total = _writeHits(parser, generator);
+						hitsWritten = true;
+					}
+					default -> parser.skipChildren();
+				}
+			}
+
+			if (!hitsWritten) {
+				generator.writeArrayFieldStart("result");
+				generator.writeEndArray();
+			}
+
+			generator.writeNumberField("total", Math.min(total, totalResultLimit));
+			generator.writeEndObject();
+		}
+
+	}
+
+	private static long _writeHits(JsonParser parser, JsonGenerator generator)
+	throws IOException {
+
+		generator.writeArrayFieldStart("result");
+
+		long total = 0;
+
+		if (parser.currentToken() == JsonToken.START_OBJECT) {
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+
+				parser.nextToken();
+
+				switch (name) {
+					case "total" -> total = _readTotal(parser);
+					case "hits" -> {
+						if (parser.currentToken() == JsonToken.START_ARRAY) {
+							while (parser.nextToken() == JsonToken.START_OBJECT) {
+								_writeHit(parser, generator);
+							}
+						}
+						else {
+							parser.skipChildren();
+						}
+					}
+					default -> parser.skipChildren();
+				}
+			}
+		}
+		else {
+			parser.skipChildren();
+		}
+
+		generator.writeEndArray();
+
+		return total;
+	}
+
+	private static long _readTotal(JsonParser parser) throws IOException {
+
+		// an object with value and relation, or a number with rest_total_hits_as_int.
+		if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+			return parser.getLongValue();
+		}
+
+		long total = 0;
+
+		if (parser.currentToken() == JsonToken.START_OBJECT) {
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+
+				parser.nextToken();
+
+				if (name.equals("value")) {
+					total = parser.getValueAsLong();
+				}
+				else {
+					parser.skipChildren();
+				}
+			}
+		}
+		else {
+			parser.skipChildren();
+		}
+
+		return total;
+	}
+
+	private static void _writeHit(JsonParser parser, JsonGenerator generator)
+	throws IOException {
+
+		String id = null;
+		float score = Float.NaN;
+		String sortAfterKey = null;
+		TokenBuffer source = null;
+		boolean sourceWritten = false;
+		boolean highlightWritten = false;
+
+		generator.writeStartObject();
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.currentName();
+			JsonToken token = parser.nextToken();
+
+			switch (name) {
+				case "_id" -> id = parser.getValueAsString();
+				case "_score" -> score = token == JsonToken.VALUE_NULL
+					? Float.NaN
+					: parser.getFloatValue();
+				case "_source" -> {
+					// OpenSearch writes _id before _source, otherwise the source
+					// waits for the end of the hit.
+					if (id != null) {
+						_writeSource(parser, generator, id);
+						sourceWritten = true;
+					}
+					else {
+						source = _copyOfValue(parser);
+					}
+				}
+				case "highlight" -> {
+					_writeHighlight(parser, generator);
+					highlightWritten = true;
+				}
+				case "sort" -> sortAfterKey = _sortAfterKey(parser);
+				default -> parser.skipChildren();
+			}
+		}
+
+		if (!sourceWritten) {
+			if (source != null) {
+				try (JsonParser sourceParser = source.asParser()) {
+					sourceParser.nextToken();
+					_writeSource(sourceParser, generator, id);
+				}
+			}
+			else {
+				generator.writeObjectFieldStart("source");
+				generator.writeStringField("id", id);
+				generator.writeEndObject();
+			}
+		}
+
+		if (!highlightWritten) {
+			generator.writeObjectFieldStart("highlight");
+			generator.writeEndObject();
+		}
+
+		generator.writeNumberField("score", score);
+
+		if (sortAfterKey != null) {
+			generator.writeStringField("sortAfterKey", sortAfterKey);
+		}
+
+		generator.writeEndObject();
+	}
+
+	private static void _writeSource(JsonParser parser, JsonGenerator generator, String id)
+	throws IOException {
+
+		generator.writeObjectFieldStart("source");
+
+		if (parser.currentToken() == JsonToken.START_OBJECT) {
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+
+				parser.nextToken();
+
+				// the id of the hit replaces the one of the source.
+				if (name.equals("id")) {
+					parser.skipChildren();
+					continue;
+				}
+
+				generator.writeFieldName(name);
+				_writeSourceField(parser, generator);
+			}
+		}
+		else {
+			parser.skipChildren();
+		}
+
+		generator.writeStringField("id", id);
+		generator.writeEndObject();
+	}
+
+	private static void _writeSourceField(JsonParser parser, JsonGenerator generator)
+	throws IOException {
+
+		if (!parser.currentToken().isStructStart()) {
+			generator.copyCurrentEvent(parser);
+			return;
+		}
+
+		TokenBuffer value = _copyOfValue(parser);
+		Objects objects = new Objects();
+
+		try (JsonParser scanParser = value.asParser()) {
+			scanParser.nextToken();
+			_scanValue(scanParser, objects);
+		}
+
+		try (JsonParser valueParser = value.asParser()) {
+			valueParser.nextToken();
+			_writeSourceValue(valueParser, generator, objects);
+		}
+	}
+
+	private static void _scanValue(JsonParser parser, Objects objects) throws IOException {
+
+		switch (parser.currentToken()) {
+			case START_OBJECT -> _scanObject(parser, objects);
+			case START_ARRAY -> {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					_scanValue(parser, objects);
+				}
+			}
+			default -> {}
+		}
+	}
+
+	/**
+	 * Finds how the object is written: an i18n field as the value of its
+	 * first language, a field with a base value as the base value, any
+	 * other object with its fields resolved the same way. Returns the token
+	 * of the value of its first field.
+	 */
+	private static JsonToken _scanObject(JsonParser parser, Objects objects)
+	throws IOException {
+
+		int index = objects.add();
+		byte write = FIELDS;
+		boolean i18n = false;
+		JsonToken firstValue = null;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.currentName();
+			JsonToken token = parser.nextToken();
+
+			if (firstValue == null) {
+				firstValue = token;
+			}
+
+			JsonToken nestedFirstValue = token == JsonToken.START_OBJECT
+				? _scanObject(parser, objects)
+				: null;
+
+			if (token != JsonToken.START_OBJECT) {
+				_scanValue(parser, objects);
+			}
+
+			if (name.equals(I18N) && !i18n) {
+				i18n = true;
+				write = _i18nWrite(nestedFirstValue);
+			}
+			else if (name.equals(BASE) && write == FIELDS) {
+				write = BASE_VALUE;
+			}
+		}
+
+		objects.set(index, write);
+
+		return firstValue;
+	}
+
+	private static byte _i18nWrite(JsonToken firstValue) {
+
+		if (firstValue == JsonToken.VALUE_STRING || firstValue == JsonToken.START_ARRAY) {
+			return I18N_VALUE;
+		}
+
+		if (firstValue != null) {
+			log.warn("The object i18nList is not a String or a List<String>");
+		}
+
+		return AS_IT_IS;
+	}
+
+	private static void _writeSourceFields(
+		JsonParser parser, JsonGenerator generator, Objects objects)
+	throws IOException {
+
+		generator.writeStartObject();
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			generator.writeFieldName(parser.currentName());
+			parser.nextToken();
+			_writeSourceValue(parser, generator, objects);
+		}
+
+		generator.writeEndObject();
+	}
+
+	private static void _writeSourceValue(
+		JsonParser parser, JsonGenerator generator, Objects objects)
+	throws IOException {
+
+		switch (parser.currentToken()) {
+			case START_OBJECT -> _writeSourceObject(parser, generator, objects);
+			case START_ARRAY -> {
+				generator.writeStartArray();
+
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					if (parser.currentToken() == JsonToken.START_OBJECT) {
+						objects.next();
+						_writeSourceFields(parser, generator, objects);
+					}
+					else {
+						_copy(parser, generator, objects);
+					}
+				}
+
+				generator.writeEndArray();
+			}
+			default -> generator.copyCurrentEvent(parser);
+		}
+	}
+
+	/**
+	 * Writes an object of the source, as the first pass found.
+	 */
+	private static void _writeSourceObject(
+		JsonParser parser, JsonGenerator generator, Objects objects)
+	throws IOException {
+
+		byte write = objects.next();
+
+		if (write == FIELDS) {
+			_writeSourceFields(parser, generator, objects);
+			return;
+		}
+
+		if (write == AS_IT_IS) {
+			generator.writeStartObject();
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				generator.writeFieldName(parser.currentName());
+				parser.nextToken();
+				_copy(parser, generator, objects);
+			}
+
+			generator.writeEndObject();
+			return;
+		}
+
+		String localizedField = write == BASE_VALUE ? BASE : I18N;
+		boolean written = false;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.currentName();
+
+			parser.nextToken();
+
+			if (!written && name.equals(localizedField)) {
+				if (write == BASE_VALUE) {
+					_copy(parser, generator, objects);
+				}
+				else {
+					_writeI18nValue(parser, generator, objects);
+				}
+
+				written = true;
+			}
+			else {
+				_skip(parser, objects);
+			}
+		}
+	}
+
+	private static TokenBuffer _copyOfValue(JsonParser parser) throws IOException {
+		TokenBuffer buffer = new TokenBuffer(parser);
+		buffer.copyCurrentStructure(parser);
+		return buffer;
+	}
+
+	/**
+	 * Writes the value of the first language of the i18n object, that the
+	 * first pass found to be a string or an array.
+	 */
+	private static void _writeI18nValue(
+		JsonParser parser, JsonGenerator generator, Objects objects)
+	throws IOException {
+
+		objects.next();
+
+		parser.nextToken();
+
+		if (parser.nextToken() == JsonToken.VALUE_STRING) {
+			generator.writeString(parser.getText());
+		}
+		else {
+			generator.writeStartArray();
+
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				generator.writeString(_toString(parser, objects));
+			}
+
+			generator.writeEndArray();
+		}
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			parser.nextToken();
+			_skip(parser, objects);
+		}
+	}
+
+	/**
+	 * Copies the current value, passing over the objects it holds.
+	 */
+	private static void _copy(JsonParser parser, JsonGenerator generator, Objects objects)
+	throws IOException {
+
+		generator.copyCurrentEvent(parser);
+
+		if (!parser.currentToken().isStructStart()) {
+			return;
+		}
+
+		if (parser.currentToken() == JsonToken.START_OBJECT) {
+			objects.next();
+		}
+
+		for (int depth = 1; depth > 0; ) {
+			JsonToken token = parser.nextToken();
+
+			if (token == JsonToken.START_OBJECT) {
+				objects.next();
+			}
+
+			if (token.isStructStart()) {
+				depth++;
+			}
+			else if (token.isStructEnd()) {
+				depth--;
+			}
+
+			generator.copyCurrentEvent(parser);
+		}
+	}
+
+	/**
+	 * Skips the current value, passing over the objects it holds.
+	 */
+	private static void _skip(JsonParser parser, Objects objects) throws IOException {
+
+		if (!parser.currentToken().isStructStart()) {
+			return;
+		}
+
+		if (parser.currentToken() == JsonToken.START_OBJECT) {
+			objects.next();
+		}
+
+		for (int depth = 1; depth > 0; ) {
+			JsonToken token = parser.nextToken();
+
+			if (token == JsonToken.START_OBJECT) {
+				objects.next();
+			}
+
+			if (token.isStructStart()) {
+				depth++;
+			}
+			else if (token.isStructEnd()) {
+				depth--;
+			}
+		}
+	}
+
+	private static String _toString(JsonParser parser, Objects objects) throws IOException {
+
+		if (parser.currentToken().isScalarValue()) {
+			return parser.getText();
+		}
+
+		ByteArrayOutputStream value = new ByteArrayOutputStream();
+
+		try (JsonGenerator generator = jsonFactory.createGenerator(value)) {
+			_copy(parser, generator, objects);
+		}
+
+		return value.toString(StandardCharsets.UTF_8);
+	}
+
+	private static void _writeHighlight(JsonParser parser, JsonGenerator generator)
+	throws IOException {
+
+		generator.writeObjectFieldStart("highlight");
+
+		if (parser.currentToken() == JsonToken.START_OBJECT) {
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				generator.writeFieldName(_getHighlightName(parser.currentName()));
+				parser.nextToken();
+				generator.copyCurrentStructure(parser);
+			}
+		}
+		else {
+			parser.skipChildren();
+		}
+
+		generator.writeEndObject();
+	}
+
+	private static String _sortAfterKey(JsonParser parser) throws IOException {
+
+		if (parser.currentToken() != JsonToken.START_ARRAY) {
+			parser.skipChildren();
+
+			return null;
+		}
+
+		ByteArrayOutputStream sortValues = new ByteArrayOutputStream();
+
+		try (JsonGenerator generator = jsonFactory.createGenerator(sortValues)) {
+			generator.copyCurrentStructure(parser);
+		}
+
+		// an empty array, there is nothing to search after.
+		if (sortValues.size() <= 2) {
+			return null;
+		}
+
+		return Base64.getEncoder().encodeToString(sortValues.toByteArray());
+	}
+
+	private static void _logShardFailures(JsonParser parser) throws IOException {
+
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+
+			return;
+		}
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.currentName();
+
+			parser.nextToken();
+
+			if (name.equals("failures") && parser.currentToken() == JsonToken.START_ARRAY) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					log.warn(_toString(parser));
+				}
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+	}
+
+	private static String _toString(JsonParser parser) throws IOException {
+
+		if (parser.currentToken().isScalarValue()) {
+			return parser.getText();
+		}
+
+		ByteArrayOutputStream value = new ByteArrayOutputStream();
+
+		try (JsonGenerator generator = jsonFactory.createGenerator(value)) {
+			generator.copyCurrentStructure(parser);
+		}
+
+		return value.toString(StandardCharsets.UTF_8);
+	}
+
+	private static String _getHighlightName(String highlightName) {
+		Matcher matcher = i18nHighlithKeyPattern.matcher(highlightName);
+		if (matcher.find()) {
+			return matcher.replaceFirst("");
+		}
+		else {
+			return highlightName;
+		}
+	}
+
+	/**
+	 * How the objects of a buffered value are written, in the order they
+	 * start.
+	 */
+	private static final class Objects {
+
+		private byte[] writes = new byte[16];
+		private int size;
+		private int position;
+
+		private int add() {
+			if (size == writes.length) {
+				writes = Arrays.copyOf(writes, size * 2);
+			}
+
+			return size++;
+		}
+
+		private void set(int index, byte write) {
+			writes[index] = write;
+		}
+
+		private byte next() {
+			return writes[position++];
+		}
+
+	}
+
+}
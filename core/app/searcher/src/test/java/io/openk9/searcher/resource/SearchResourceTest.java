@@ -17,102 +17,14 @@
 
 package io.openk9.searcher.resource;
 
-import java.util.List;
 import java.util.Map;
 
-import io.vertx.core.json.Json;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
 import org.jboss.resteasy.reactive.server.jaxrs.HttpHeadersImpl;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 class SearchResourceTest {
 
-	private static final JsonObject SOURCE_JSON = (JsonObject) Json.decodeValue("""
-		{
-			"ingestionId": "7f48650e-83d9-4f7f-b185-6f4b9e0d773e",
-			"datasourceId": 182,
-			"contentId": "9923041763992700",
-			"parsingDate": 1713189821167,
-			"rawContent": "Lorem ipsum... ",
-			"tenantId": "sobble",
-			"documentTypes": [
-				"web",
-				"file"
-			],
-			"resources": {
-				"binaries": []
-			},
-			"acl": {
-				"public": true
-			},
-			"indexName": "182-data-dd6c4252-224c-4d23-beab-46b3e0bfbba2",
-			"last": false,
-			"scheduleId": "dd6c4252-224c-4d23-beab-46b3e0bfbba2",
-			"oldIndexName": null,
-			"type": null,
-			"file": {
-				"area": {
-					"base": "data-sheet",
-					"i18n": {
-						"it_IT": " scheda dati"
-					}
-				},
-				"tags": {
-					"base": [
-						"tesla",
-						"panasonic",
-						"batteria al litio",
-						"co2",
-						"emissione"
-					],
-					"i18n": {
-						"it_IT": [
-							true,
-							"panasonic",
-							"batteria al litio",
-							2,
-							"emissione"
-						]
-					}
-				}
-			},
-			"web": {
-				"url": "https://www.acme.com/en/battery-investment",
-				"title": {
-					"base": "Investing for Sustainable Batteries ｜ Energy Solution",
-					"i18n": {
-						"it_IT": " Investire in batterie sostenibili ｜ Energy Solution"
-					}
-				},
-				"content": {
-					"base": "Lorem ipsum...",
-					"i18n": {
-						"it_IT": "Lorem ipsum..."
-					}
-				},
-				"favicon": null
-			}
-		}
-		""");
-
-
-	@Test
-	void mapI18nFields() {
-		var sourceMap = getSourceMap();
-
-		Assertions.assertDoesNotThrow(() -> SearchResource.mapI18nFields(sourceMap));
-
-		var file = (Map<String, Object>) sourceMap.get("file");
-		Assertions.assertInstanceOf(List.class, file.get("tags"));
-
-		var valueList = (List) file.get("tags");
-		var item = valueList.iterator().next();
-		Assertions.assertInstanceOf(String.class, item);
-
-	}
-
 	@Test
 	void should_get_rawToken() {
 		var s = "Bearer is-a-bearer-token";
@@ -130,26 +42,4 @@ class SearchResourceTest {
 
 	}
 
-	private Map<String, Object> getSourceMap() {
-		var sourceMap = SOURCE_JSON.copy().getMap();
-
-		fromJsonObjectToJavaCollections(sourceMap);
-
-		return sourceMap;
-	}
-
-	private void fromJsonObjectToJavaCollections(Map<String, Object> sourceMap) {
-		for (Map.Entry<String, Object> entry : sourceMap.entrySet()) {
-			if (entry.getValue() instanceof JsonObject) {
-				var asMap = ((JsonObject) entry.getValue()).getMap();
-				fromJsonObjectToJavaCollections(asMap);
-				entry.setValue(asMap);
-			}
-			if (entry.getValue() instanceof JsonArray) {
-				var asList = ((JsonArray) entry.getValue()).getList();
-				entry.setValue(asList);
-			}
-		}
-	}
-
 }
\ No newline at end of file
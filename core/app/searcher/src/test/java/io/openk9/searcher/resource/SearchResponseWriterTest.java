@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2020-present SMC Treviso s.r.l. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.openk9.searcher.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SearchResponseWriterTest {
+
+	private static final JsonObject SOURCE_JSON = (JsonObject) Json.decodeValue("""
+		{
+			"ingestionId": "7f48650e-83d9-4f7f-b185-6f4b9e0d773e",
+			"datasourceId": 182,
+			"contentId": "9923041763992700",
+			"parsingDate": 1713189821167,
+			"rawContent": "Lorem ipsum... ",
+			"tenantId": "sobble",
+			"documentTypes": [
+				"web",
+				"file"
+			],
+			"resources": {
+				"binaries": []
+			},
+			"acl": {
+				"public": true
+			},
+			"indexName": "182-data-dd6c4252-224c-4d23-beab-46b3e0bfbba2",
+			"last": false,
+			"scheduleId": "dd6c4252-224c-4d23-beab-46b3e0bfbba2",
+			"oldIndexName": null,
+			"type": null,
+			"file": {
+				"area": {
+					"base": "data-sheet",
+					"i18n": {
+						"it_IT": " scheda dati"
+					}
+				},
+				"tags": {
+					"base": [
+						"tesla",
+						"panasonic",
+						"batteria al litio",
+						"co2",
+						"emissione"
+					],
+					"i18n": {
+						"it_IT": [
+							true,
+							"panasonic",
+							"batteria al litio",
+							2,
+							"emissione"
+						]
+					}
+				}
+			},
+			"web": {
+				"url": "https://www.acme.com/en/battery-investment",
+				"title": {
+					"base": "Investing for Sustainable Batteries ｜ Energy Solution",
+					"i18n": {
+						"it_IT": " Investire in batterie sostenibili ｜ Energy Solution"
+					}
+				},
+				"content": {
+					"base": "Lorem ipsum...",
+					"i18n": {
+						"it_IT": "Lorem ipsum..."
+					}
+				},
+				"favicon": null
+			}
+		}
+		""");
+
+	@Test
+	void should_map_i18n_fields() throws IOException {
+		var response = write(searchResponse(
+			JsonObject.of("_id", "1", "_score", 1.5, "_source", SOURCE_JSON)), 100);
+
+		var source = hit(response).getJsonObject("source");
+		var file = source.getJsonObject("file");
+
+		Assertions.assertEquals(" scheda dati", file.getString("area"));
+
+		var tags = file.getJsonArray("tags");
+		Assertions.assertInstanceOf(String.class, tags.getValue(0));
+		Assertions.assertEquals("true", tags.getString(0));
+		Assertions.assertEquals("2", tags.getString(3));
+
+		var web = source.getJsonObject("web");
+		Assertions.assertEquals(
+			" Investire in batterie sostenibili ｜ Energy Solution", web.getString("title"));
+		Assertions.assertEquals("https://www.acme.com/en/battery-investment", web.getString("url"));
+		Assertions.assertTrue(web.containsKey("favicon"));
+		Assertions.assertEquals(
+			new JsonArray().add("web").add("file"), source.getJsonArray("documentTypes"));
+		Assertions.assertEquals("1", source.getString("id"));
+	}
+
+	@Test
+	void should_write_hit_fields() throws IOException {
+		var response = write(searchResponse(
+			JsonObject.of(
+				"_score", null,
+				"_source", JsonObject.of("id", "source-id", "title", JsonObject.of("base", "a title")),
+				"_id", "2",
+				"highlight", JsonObject.of(
+					"web.title.i18n.it_IT", JsonArray.of("<em>titolo</em>"),
+					"web.content.base", JsonArray.of("<em>content</em>")),
+				"sort", JsonArray.of(1713189821167L, "abc")
+			)), 100);
+
+		var hit = hit(response);
+		var source = hit.getJsonObject("source");
+
+		Assertions.assertEquals("2", source.getString("id"));
+		Assertions.assertEquals("a title", source.getString("title"));
+		Assertions.assertEquals(
+			JsonArray.of("<em>titolo</em>"), hit.getJsonObject("highlight").getJsonArray("web.title"));
+		Assertions.assertEquals(
+			JsonArray.of("<em>content</em>"), hit.getJsonObject("highlight").getJsonArray("web.content"));
+		Assertions.assertEquals("NaN", hit.getValue("score").toString());
+		Assertions.assertEquals(
+			"[1713189821167,\"abc\"]",
+			new String(Base64.getDecoder().decode(hit.getString("sortAfterKey")), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void should_map_i18n_fields_nested_in_objects_and_arrays() throws IOException {
+		var response = write(searchResponse(
+			JsonObject.of("_id", "3", "_score", 1.0, "_source", JsonObject.of(
+				"document", JsonObject.of(
+					"section", JsonObject.of(
+						"title", JsonObject.of(
+							"base", "a title",
+							"i18n", JsonObject.of("it_IT", "un titolo")),
+						"keywords", JsonObject.of("base", JsonArray.of("a", "b")),
+						"raw", JsonObject.of("i18n", JsonObject.of("it_IT", 1))),
+					"authors", JsonArray.of(
+						JsonObject.of("name", JsonObject.of("base", "first")),
+						JsonObject.of("name", "second")))))), 100);
+
+		var document = hit(response).getJsonObject("source").getJsonObject("document");
+		var section = document.getJsonObject("section");
+
+		Assertions.assertEquals("un titolo", section.getString("title"));
+		Assertions.assertEquals(JsonArray.of("a", "b"), section.getJsonArray("keywords"));
+		Assertions.assertEquals(
+			JsonObject.of("i18n", JsonObject.of("it_IT", 1)), section.getJsonObject("raw"));
+		Assertions.assertEquals("first", document.getJsonArray("authors").getJsonObject(0).getString("name"));
+		Assertions.assertEquals("second", document.getJsonArray("authors").getJsonObject(1).getString("name"));
+	}
+
+	@Test
+	void should_limit_total() throws IOException {
+		var response = write(searchResponse(), 5);
+
+		Assertions.assertEquals(0, response.getJsonArray("result").size());
+		Assertions.assertEquals(5, response.getLong("total"));
+	}
+
+	@Test
+	void should_write_empty_response() throws IOException {
+		var response = write(JsonObject.of("took", 1, "timed_out", false), 100);
+
+		Assertions.assertEquals(new JsonArray(), response.getJsonArray("result"));
+		Assertions.assertEquals(0, response.getLong("total"));
+	}
+
+	private static JsonObject searchResponse(JsonObject... hits) {
+		return JsonObject.of(
+			"took", 3,
+			"timed_out", false,
+			"_shards", JsonObject.of(
+				"total", 1, "successful", 1, "skipped", 0, "failed", 0),
+			"hits", JsonObject.of(
+				"total", JsonObject.of("value", 10, "relation", "eq"),
+				"max_score", 1.5,
+				"hits", new JsonArray(List.of(hits))
+			)
+		);
+	}
+
+	private static JsonObject hit(JsonObject response) {
+		return response.getJsonArray("result").getJsonObject(0);
+	}
+
+	private static JsonObject write(JsonObject searchResponse, long totalResultLimit)
+	throws IOException {
+
+		var out = new ByteArrayOutputStream();
+
+		SearchResponseWriter.write(
+			new ByteArrayInputStream(searchResponse.toBuffer().getBytes()), out, totalResultLimit);
+
+		return (JsonObject) Json.decodeValue(out.toString(StandardCharsets.UTF_8));
+	}
+
+}
@@ -17,8 +17,14 @@
 
 package io.openk9.tenantmanager.client.service.impl;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import io.openk9.api.tenantmanager.TenantManager;
@@ -26,54 +32,180 @@ import io.openk9.tenantmanager.grpc.TenantListResponse;
 import io.openk9.tenantmanager.grpc.TenantRequest;
 import io.openk9.tenantmanager.grpc.TenantResponse;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.protobuf.Empty;
+import io.grpc.Status;
 import io.quarkus.grpc.GrpcClient;
 import io.quarkus.runtime.Startup;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
+/**
+ * Resolves the tenants from a local copy of the tenants of tenant-manager.
+ *
+ * <p>The whole tenant list is loaded at startup and then every
+ * {@code openk9.tenant-manager.cache.sync-interval}, so that resolving a
+ * virtual host does not need a call to tenant-manager, and keeps working
+ * while tenant-manager is not reachable. A virtual host that is not in the
+ * local copy yet is looked up with {@code FindTenant}, and a virtual host
+ * that tenant-manager does not know is remembered as unknown for
+ * {@code openk9.tenant-manager.cache.negative-ttl}. The virtual hosts come
+ * from the Host header of the requests, so at most
+ * {@code openk9.tenant-manager.cache.negative-max-size} unknown ones are
+ * remembered.</p>
+ */
 @ApplicationScoped
 @Startup
 public class TenantManagerRemote implements TenantManager {
 
+	private static final Logger log = Logger.getLogger(TenantManagerRemote.class);
+
+	private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+	private Cache<String, Boolean> unknownVirtualHosts;
+	private Cancellable sync;
+
+	@ConfigProperty(
+		name = "openk9.tenant-manager.cache.sync-interval",
+		defaultValue = "1m"
+	)
+	Duration syncInterval;
+
+	@ConfigProperty(
+		name = "openk9.tenant-manager.cache.negative-ttl",
+		defaultValue = "30s"
+	)
+	Duration negativeTtl;
+
+	@ConfigProperty(
+		name = "openk9.tenant-manager.cache.negative-max-size",
+		defaultValue = "10000"
+	)
+	long negativeMaxSize;
+
+	@GrpcClient("tenantmanager")
+	io.openk9.tenantmanager.grpc.TenantManager tenantManager;
+
+	@PostConstruct
+	void init() {
+		unknownVirtualHosts = Caffeine.newBuilder()
+			.expireAfterWrite(negativeTtl)
+			.maximumSize(negativeMaxSize)
+			.build();
+
+		_sync().subscribe().with(ignore -> {});
+
+		sync = Multi.createFrom().ticks()
+			.every(syncInterval)
+			.onOverflow().drop()
+			.onItem().transformToUniAndConcatenate(tick -> _sync())
+			.subscribe().with(ignore -> {});
+	}
+
+	@PreDestroy
+	void destroy() {
+		if (sync != null) {
+			sync.cancel();
+		}
+	}
+
 	@Override
 	public Uni<Tenant> getTenantByVirtualHost(String virtualHost) {
-		return tenantManager.findTenant(
-			TenantRequest.newBuilder()
-				.setVirtualHost(virtualHost)
-				.build())
-			.map(response -> new Tenant(
-				response.getVirtualHost(),
-				response.getSchemaName(),
-				response.getClientId(),
-				response.getClientSecret(),
-				response.getRealmName())
-			);
+
+		var tenant = tenants.get(virtualHost);
+
+		if (tenant != null) {
+			return Uni.createFrom().item(tenant);
+		}
+
+		if (unknownVirtualHosts.getIfPresent(virtualHost) != null) {
+			return Uni.createFrom().failure(_notFound(virtualHost));
+		}
+
+		return Uni.createFrom().deferred(() -> tenantManager.findTenant(
+				TenantRequest.newBuilder()
+					.setVirtualHost(virtualHost)
+					.build()))
+			.map(TenantManagerRemote::_toTenant)
+			.invoke(found -> tenants.put(virtualHost, found))
+			.onFailure().invoke(throwable -> {
+				if (!_isTransient(throwable)) {
+					unknownVirtualHosts.put(virtualHost, Boolean.TRUE);
+				}
+			});
 	}
 
+	/**
+	 * Returns the tenants from tenant-manager, and replaces the local copy
+	 * with them.
+	 */
 	@Override
 	public Uni<List<Tenant>> getTenantList() {
 
-		return tenantManager.findTenantList(Empty.newBuilder().build())
+		return Uni.createFrom().deferred(() -> tenantManager
+				.findTenantList(Empty.newBuilder().build()))
 			.map(TenantListResponse::getTenantResponseList)
 			.map(tenantResponses -> {
 				List<Tenant> tenants = new ArrayList<>();
 				for (TenantResponse tenantResponse : tenantResponses) {
-					var tenant = new Tenant(
-						tenantResponse.getVirtualHost(),
-						tenantResponse.getSchemaName(),
-						tenantResponse.getClientId(),
-						tenantResponse.getClientSecret(),
-						tenantResponse.getRealmName()
-					);
-
-					tenants.add(tenant);
+					tenants.add(_toTenant(tenantResponse));
 				}
 
 				return tenants;
-			});
+			})
+			.invoke(this::_replaceTenants);
 	}
 
-	@GrpcClient("tenantmanager")
-	io.openk9.tenantmanager.grpc.TenantManager tenantManager;
+	private Uni<Void> _sync() {
+		return getTenantList()
+			.replaceWithVoid()
+			.onFailure().invoke(throwable -> log.warnf(
+				throwable,
+				"Cannot sync the tenants, keeping the %d tenants already known.",
+				tenants.size()
+			))
+			.onFailure().recoverWithNull();
+	}
+
+	private void _replaceTenants(List<Tenant> tenantList) {
+
+		Map<String, Tenant> byVirtualHost = new HashMap<>();
+
+		for (Tenant tenant : tenantList) {
+			byVirtualHost.put(tenant.virtualHost(), tenant);
+		}
+
+		tenants.keySet().retainAll(byVirtualHost.keySet());
+		tenants.putAll(byVirtualHost);
+		unknownVirtualHosts.invalidateAll(byVirtualHost.keySet());
+
+		log.debugf("Synced %d tenants.", byVirtualHost.size());
+	}
+
+	private static Tenant _toTenant(TenantResponse response) {
+		return new Tenant(
+			response.getVirtualHost(),
+			response.getSchemaName(),
+			response.getClientId(),
+			response.getClientSecret(),
+			response.getRealmName()
+		);
+	}
+
+	private static boolean _isTransient(Throwable throwable) {
+		return switch (Status.fromThrowable(throwable).getCode()) {
+			case UNAVAILABLE, DEADLINE_EXCEEDED, CANCELLED, RESOURCE_EXHAUSTED -> true;
+			default -> false;
+		};
+	}
+
+	private static RuntimeException _notFound(String virtualHost) {
+		return Status.NOT_FOUND
+			.withDescription("No tenant for virtual host " + virtualHost)
+			.asRuntimeException();
+	}
 
 }
@@ -20,14 +20,18 @@ package io.openk9.common.graphql.util.service;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
@@ -48,6 +52,10 @@ import io.openk9.common.util.SortBy;
 import io.smallrye.mutiny.Uni;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaDerivedRoot;
+import org.hibernate.query.criteria.JpaSubQuery;
 import org.hibernate.reactive.mutiny.Mutiny;
 import org.jboss.logging.Logger;
 
@@ -57,6 +65,10 @@ public abstract class GraphQLService<ENTITY extends GraphqlId> {
 
 	private static final Logger log = Logger.getLogger(GraphQLService.class);
 
+	private static final String ENTITY_ID = "entityId";
+	private static final String JOINED_ID = "joinedId";
+	private static final String ROW_NUMBER = "rowNumber";
+
 	private static final Set<Class<?>> NUMERIC_TYPES = Set.of(
 			Byte.class, Short.class, Integer.class, Long.class,
 			Float.class, Double.class, byte.class, short.class,
@@ -251,11 +263,146 @@ public abstract class GraphQLService<ENTITY extends GraphqlId> {
 
 	}
 
+	/**
+	 * Returns the connections of the entities joined to each of the given
+	 * entities, with a single query, at the same positions of the ids.
+	 *
+	 * <p>The arguments are the ones of
+	 * {@link #findJoinConnection(long, String, Class, String[], String, String, Integer, Integer, String, Set)}
+	 * and apply to every connection: the joined entities of each id that
+	 * match the cursors and the search text are numbered in the order of the
+	 * page, with {@code row_number() over (partition by id)}, and the query
+	 * reads only the first (or last) of each id, plus one to know whether
+	 * there is another page.</p>
+	 */
+	public <T extends GraphqlId> Uni<List<Connection<T>>> findJoinConnections(
+		List<Long> entityIds, String joinField, Class<T> joinType,
+		String[] searchFields, String after, String before, Integer first,
+		Integer last, String searchText, Set<SortBy> sortByList) {
+
+		if (first != null && first < 0) {
+			return Uni.createFrom().failure(
+				() -> new InvalidPageSizeException(format("The page size must not be negative: 'first'=%s", first)));
+		}
+		if (last != null && last < 0) {
+			return Uni.createFrom().failure(
+				() -> new InvalidPageSizeException(format("The page size must not be negative: 'last'=%s", last)));
+		}
+
+		if (entityIds.isEmpty()) {
+			return Uni.createFrom().item(List.of());
+		}
+
+		HibernateCriteriaBuilder criteriaBuilder =
+			(HibernateCriteriaBuilder) getCriteriaBuilder();
+
+		JpaCriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+
+		JpaSubQuery<Tuple> numbered = query.subquery(Tuple.class);
+
+		Root<ENTITY> entityRoot = numbered.from(getEntityClass());
+
+		Join<ENTITY, T> join = entityRoot.join(joinField);
+
+		Path<Long> parentId = entityRoot.get(getIdAttribute());
+
+		numbered.multiselect(
+			parentId.alias(ENTITY_ID),
+			join.get(getIdAttribute()).alias(JOINED_ID),
+			criteriaBuilder
+				.rowNumber(criteriaBuilder
+					.createWindow()
+					.partitionBy(parentId)
+					.orderBy(_orders(criteriaBuilder, join, List.of(), sortByList, last)
+						.toArray(Order[]::new)))
+				.alias(ROW_NUMBER));
+
+		numbered.where(_where(
+			criteriaBuilder, join, parentId.in(entityIds), searchFields, after,
+			before, searchText));
+
+		JpaDerivedRoot<Tuple> numberedRoot = query.from(numbered);
+
+		Root<T> joinedRoot = query.from(joinType);
+
+		Predicate where = criteriaBuilder.equal(
+			joinedRoot.get(getIdAttribute()), numberedRoot.get(JOINED_ID));
+
+		if (first != null || last != null) {
+			int limit = (first != null ? first : last) + 1;
+
+			where = criteriaBuilder.and(
+				where, criteriaBuilder.le(numberedRoot.<Long>get(ROW_NUMBER), limit));
+		}
+
+		query.multiselect(numberedRoot.get(ENTITY_ID), joinedRoot);
+
+		query.where(where);
+
+		query.orderBy(criteriaBuilder.asc(numberedRoot.get(ROW_NUMBER)));
+
+		return getSessionFactory()
+			.withTransaction((s, t) -> s.createQuery(query).getResultList())
+			.map(tuples -> {
+
+				Map<Long, List<T>> joinedById = new HashMap<>();
+
+				for (Tuple tuple : tuples) {
+					joinedById
+						.computeIfAbsent(tuple.get(0, Long.class), id -> new ArrayList<>())
+						.add(tuple.get(1, joinType));
+				}
+
+				List<Connection<T>> connections = new ArrayList<>(entityIds.size());
+
+				for (Long entityId : entityIds) {
+					connections.add(_toConnection(
+						joinedById.getOrDefault(entityId, List.of()), first, last));
+				}
+
+				return connections;
+			});
+
+	}
+
 	private <T extends GraphqlId> Uni<Connection<T>> _findConnection(CriteriaQuery<T> criteriaBuilderQuery, Path<T> root, Predicate defaultWhere, String[] searchFields, String after, String before, Integer first, Integer last, String searchText, Set<SortBy> sortByList, Mutiny.Session s) {
-		Predicate where = defaultWhere;
 
 		CriteriaBuilder criteriaBuilder = getCriteriaBuilder();
 
+		criteriaBuilderQuery.where(_where(
+			criteriaBuilder, root, defaultWhere, searchFields, after, before, searchText));
+
+		criteriaBuilderQuery.orderBy(_orders(
+			criteriaBuilder, root, criteriaBuilderQuery.getOrderList(), sortByList, last));
+
+		var query = s.createQuery(criteriaBuilderQuery);
+
+		if (first != null) {
+			if (first < 0) {
+				return Uni.createFrom().failure(
+					() -> new InvalidPageSizeException(format("The page size must not be negative: 'first'=%s", first)));
+			}
+			query.setMaxResults(first + 1);
+		}
+		if (last != null) {
+			if (last < 0) {
+				return Uni.createFrom().failure(
+					() -> new InvalidPageSizeException(format("The page size must not be negative: 'last'=%s", last)));
+			}
+			query.setMaxResults(last + 1);
+		}
+
+		Uni<List<T>> entities = query.getResultList();
+
+		return entities.map(entitiesList -> _toConnection(entitiesList, first, last));
+	}
+
+	private <T extends GraphqlId> Predicate _where(
+		CriteriaBuilder criteriaBuilder, Path<T> root, Predicate defaultWhere,
+		String[] searchFields, String after, String before, String searchText) {
+
+		Predicate where = defaultWhere;
+
 		if (after != null) {
 			RelayUtil.Cursor cursor = RelayUtil.decodeCursor(after);
 			where = criteriaBuilder.and(
@@ -294,10 +441,14 @@ public abstract class GraphQLService<ENTITY extends GraphqlId> {
 
 		}
 
-		criteriaBuilderQuery.where(where);
+		return where;
+	}
+
+	private <T extends GraphqlId> List<Order> _orders(
+		CriteriaBuilder criteriaBuilder, Path<T> root, List<Order> defaultOrders,
+		Set<SortBy> sortByList, Integer last) {
 
-		List<Order> orders =
-			new ArrayList<>(criteriaBuilderQuery.getOrderList());
+		List<Order> orders = new ArrayList<>(defaultOrders);
 
 		if (sortByList != null) {
 			for (SortBy sortBy : sortByList) {
@@ -316,83 +467,62 @@ public abstract class GraphQLService<ENTITY extends GraphqlId> {
 			order = criteriaBuilder.desc(root.get(getIdAttribute()));
 		}
 
-		if (order != null) {
-			orders.add(order);
-		}
-
-		criteriaBuilderQuery.orderBy(orders);
-
-		var query = s.createQuery(criteriaBuilderQuery);
-
-		if (first != null) {
-			if (first < 0) {
-				return Uni.createFrom().failure(
-					() -> new InvalidPageSizeException(format("The page size must not be negative: 'first'=%s", first)));
-			}
-			query.setMaxResults(first + 1);
-		}
-		if (last != null) {
-			if (last < 0) {
-				return Uni.createFrom().failure(
-					() -> new InvalidPageSizeException(format("The page size must not be negative: 'last'=%s", last)));
-			}
-			query.setMaxResults(last + 1);
-		}
-
-		Uni<List<T>> entities = query.getResultList();
+		orders.add(order);
 
-		return entities.map(entitiesList -> {
+		return orders;
+	}
 
-			List<Edge<T>> edges = RelayUtil.toEdgeList(entitiesList);
+	private static <T extends GraphqlId> Connection<T> _toConnection(
+		List<T> entitiesList, Integer first, Integer last) {
 
-			int size = entitiesList.size();
+		List<Edge<T>> edges = RelayUtil.toEdgeList(entitiesList);
 
-			String startCursor =
-				entitiesList.isEmpty()
-					? null
-					: edges.get(0).getCursor();
+		int size = entitiesList.size();
 
-			String endCursor = null;
+		String startCursor =
+			entitiesList.isEmpty()
+				? null
+				: edges.get(0).getCursor();
 
-			boolean hasNextPage = false;
-			boolean hasPreviousPage = false;
+		String endCursor = null;
 
-			if (first != null) {
+		boolean hasNextPage = false;
+		boolean hasPreviousPage = false;
 
-				hasNextPage = size == first + 1;
+		if (first != null) {
 
-				if (hasNextPage) {
-					endCursor =
-						entitiesList.isEmpty()
-							? null
-							: edges.get(size - 2).getCursor();
-				}
+			hasNextPage = size == first + 1;
 
+			if (hasNextPage) {
+				endCursor =
+					entitiesList.isEmpty()
+						? null
+						: edges.get(size - 2).getCursor();
 			}
 
-			if (last != null) {
+		}
 
-				hasPreviousPage = size == last + 1;
-				hasNextPage = false;
+		if (last != null) {
 
-				if (hasPreviousPage) {
-					endCursor =
-						entitiesList.isEmpty()
-							? null
-							: edges.get(size - 2).getCursor();
-				}
-			}
+			hasPreviousPage = size == last + 1;
+			hasNextPage = false;
 
-			if ((hasNextPage || hasPreviousPage) && !edges.isEmpty()) {
-				edges.remove(size - 1);
+			if (hasPreviousPage) {
+				endCursor =
+					entitiesList.isEmpty()
+						? null
+						: edges.get(size - 2).getCursor();
 			}
+		}
 
-			PageInfo pageInfo = new DefaultPageInfo(
-				startCursor, endCursor, hasPreviousPage, hasNextPage);
+		if ((hasNextPage || hasPreviousPage) && !edges.isEmpty()) {
+			edges.remove(size - 1);
+		}
 
-			return new DefaultConnection<>(edges, pageInfo);
+		PageInfo pageInfo = new DefaultPageInfo(
+			startCursor, endCursor, hasPreviousPage, hasNextPage);
 
-		});
+		return new DefaultConnection<>(edges, pageInfo);
 	}
 
 	public Uni<Connection<ENTITY>> findConnection(